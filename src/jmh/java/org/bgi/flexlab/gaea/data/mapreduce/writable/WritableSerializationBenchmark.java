@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.writable;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFConstants;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLine;
+import htsjdk.variant.vcf.VCFStandardHeaderLines;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.bgi.flexlab.gaea.data.structure.bam.GaeaSamRecord;
+import org.bgi.flexlab.gaea.jmh.SimulatedData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.seqdoop.hadoop_bam.VariantContextWritable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * shuffle serialization round trip of 1000 reads of 150bp and of 1000
+ * biallelic sites with 10 genotyped samples.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class WritableSerializationBenchmark {
+    private static final int REGION_LENGTH = 100000;
+    private static final int READ_LENGTH = 150;
+    private static final int RECORDS = 1000;
+    private static final int SAMPLES = 10;
+
+    private final DataOutputBuffer output = new DataOutputBuffer();
+    private final DataInputBuffer input = new DataInputBuffer();
+
+    private final SamRecordWritable samWritable = new SamRecordWritable();
+    private final VariantContextWritable vcWritable = new VariantContextWritable();
+
+    private GaeaSamRecord[] reads;
+    private VariantContext[] variants;
+    private VCFHeader vcfHeader;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(SimulatedData.SEED);
+        SAMFileHeader header = SimulatedData.header();
+        byte[] reference = SimulatedData.reference(random, REGION_LENGTH);
+        reads = SimulatedData.reads(random, header, reference, RECORDS, READ_LENGTH, 0.01);
+
+        List<String> samples = new ArrayList<String>();
+        for (int i = 0; i < SAMPLES; i++)
+            samples.add(SimulatedData.SAMPLE + "_" + i);
+        Set<VCFHeaderLine> lines = new HashSet<VCFHeaderLine>();
+        for (String key : Arrays.asList(VCFConstants.GENOTYPE_KEY, VCFConstants.GENOTYPE_ALLELE_DEPTHS,
+                VCFConstants.DEPTH_KEY, VCFConstants.GENOTYPE_QUALITY_KEY, VCFConstants.GENOTYPE_PL_KEY))
+            lines.add(VCFStandardHeaderLines.getFormatLine(key));
+        vcfHeader = new VCFHeader(lines, samples);
+        vcfHeader.setSequenceDictionary(header.getSequenceDictionary());
+
+        variants = new VariantContext[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            int position = (i + 1) * (REGION_LENGTH / RECORDS);
+            Allele ref = Allele.create(reference[position - 1], true);
+            Allele alt = Allele.create(reference[position] == 'A' ? (byte) 'C' : (byte) 'A', false);
+            List<Genotype> genotypes = new ArrayList<Genotype>();
+            for (String sample : samples)
+                genotypes.add(genotype(random, sample, ref, alt));
+            variants[i] = new VariantContextBuilder("bench", SimulatedData.CONTIG, position, position,
+                    Arrays.asList(ref, alt)).genotypes(genotypes).log10PError(-random.nextInt(100) / 10.0)
+                    .make();
+        }
+    }
+
+    private Genotype genotype(Random random, String sample, Allele ref, Allele alt) {
+        int altCount = random.nextInt(3);
+        List<Allele> alleles = Arrays.asList(altCount > 1 ? alt : ref, altCount > 0 ? alt : ref);
+        int depth = 10 + random.nextInt(40);
+        int altDepth = altCount * depth / 2;
+        int[] pl = new int[3];
+        for (int i = 0; i < 3; i++)
+            pl[i] = i == altCount ? 0 : 10 + random.nextInt(200);
+        return new GenotypeBuilder(sample, alleles).AD(new int[]{depth - altDepth, altDepth}).DP(depth)
+                .GQ(Math.min(99, 10 + random.nextInt(90))).PL(pl).make();
+    }
+
+    @Benchmark
+    public int samRecordWritable() throws IOException {
+        int length = 0;
+        for (GaeaSamRecord read : reads) {
+            output.reset();
+            samWritable.set(read);
+            samWritable.write(output);
+            input.reset(output.getData(), output.getLength());
+            samWritable.readFields(input);
+            length += samWritable.get().getReadLength();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int variantContextWritable() throws IOException {
+        int alleles = 0;
+        for (VariantContext vc : variants) {
+            output.reset();
+            vcWritable.set(vc, vcfHeader);
+            vcWritable.write(output);
+            input.reset(output.getData(), output.getLength());
+            vcWritable.readFields(input);
+            alleles += vcWritable.get().getNAlleles();
+        }
+        return alleles;
+    }
+}
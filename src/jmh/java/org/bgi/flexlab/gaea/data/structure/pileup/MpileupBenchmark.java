@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.structure.pileup;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.bgi.flexlab.gaea.data.structure.alignment.AlignmentsBasic;
+import org.bgi.flexlab.gaea.data.structure.bam.GaeaSamRecord;
+import org.bgi.flexlab.gaea.jmh.SimulatedData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * advance a single sample pileup over a 10kb window of 150bp reads at the
+ * given mean depth.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MpileupBenchmark {
+    private static final int REGION_LENGTH = 10000;
+    private static final int READ_LENGTH = 150;
+
+    @Param({"30", "100"})
+    public int depth;
+
+    private GaeaSamRecord[] reads;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(SimulatedData.SEED);
+        SAMFileHeader header = SimulatedData.header();
+        AlignmentsBasic.initIdSampleHash(header.getReadGroups());
+        byte[] reference = SimulatedData.reference(random, REGION_LENGTH);
+        int count = depth * REGION_LENGTH / READ_LENGTH;
+        reads = SimulatedData.reads(random, header, reference, count, READ_LENGTH, 0.01);
+    }
+
+    @Benchmark
+    public int advance() {
+        Mpileup mpileup = new Mpileup(new ReadsPool(Arrays.asList(reads).iterator(), null), 0,
+                REGION_LENGTH - 1, null);
+        int positions = 0;
+        Map<String, Pileup> pileups = mpileup.getNextPosPileup();
+        while (pileups != null) {
+            positions++;
+            pileups = mpileup.getNextPosPileup();
+        }
+        mpileup.clear();
+        return positions;
+    }
+}
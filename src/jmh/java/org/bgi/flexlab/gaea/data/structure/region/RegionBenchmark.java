@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.structure.region;
+
+import org.bgi.flexlab.gaea.data.mapreduce.input.bed.RegionHdfsParser;
+import org.bgi.flexlab.gaea.jmh.SimulatedData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * target region lookup of 10000 positions against an exome like bed of
+ * 20000 intervals on one contig.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RegionBenchmark {
+    private static final int INTERVALS = 20000;
+    private static final int QUERIES = 10000;
+
+    private RegionHdfsParser region;
+    private long[] positions;
+    private File bedFile;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(SimulatedData.SEED);
+        int spacing = SimulatedData.CONTIG_LENGTH / INTERVALS;
+        bedFile = File.createTempFile("region", ".bed");
+        PrintWriter writer = new PrintWriter(bedFile);
+        for (int i = 0; i < INTERVALS; i++) {
+            int start = i * spacing + random.nextInt(spacing / 2);
+            writer.println(SimulatedData.CONTIG + "\t" + start + "\t" + (start + 100 + random.nextInt(200)));
+        }
+        writer.close();
+
+        region = new RegionHdfsParser();
+        region.parseBedFileFromHDFS("file://" + bedFile.getAbsolutePath(), false);
+
+        positions = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++)
+            positions[i] = random.nextInt(SimulatedData.CONTIG_LENGTH);
+    }
+
+    @TearDown
+    public void tearDown() {
+        bedFile.delete();
+    }
+
+    @Benchmark
+    public int isPositionInRegion() {
+        int hits = 0;
+        for (long position : positions) {
+            if (region.isPositionInRegion(SimulatedData.CONTIG, position))
+                hits++;
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.jmh;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.bgi.flexlab.gaea.data.structure.bam.GaeaSamRecord;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * seeded synthetic fixtures shared by benchmarks, so that every run and
+ * every release measures the same data.
+ *
+ * All benchmarks use these instead of real data fixtures: the repository
+ * ships no sequencing data, and files small enough to keep in the tree
+ * would exercise no more than synthetic reads do. Reads are uniform, have
+ * no indels and only substitution errors, so kernels whose cost depends on
+ * real coverage skew or indel rates are measured on an easier workload.
+ */
+public class SimulatedData {
+    public static final long SEED = 1234567L;
+    public static final String CONTIG = "chr1";
+    public static final int CONTIG_LENGTH = 10000000;
+    public static final String READ_GROUP = "rg1";
+    public static final String SAMPLE = "sample1";
+
+    private static final byte[] BASES = { 'A', 'C', 'G', 'T' };
+
+    public static SAMFileHeader header() {
+        SAMFileHeader header = new SAMFileHeader();
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        header.addSequence(new SAMSequenceRecord(CONTIG, CONTIG_LENGTH));
+        SAMReadGroupRecord readGroup = new SAMReadGroupRecord(READ_GROUP);
+        readGroup.setSample(SAMPLE);
+        readGroup.setPlatform("ILLUMINA");
+        header.addReadGroup(readGroup);
+        return header;
+    }
+
+    public static byte[] reference(Random random, int length) {
+        byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++)
+            bases[i] = BASES[random.nextInt(4)];
+        return bases;
+    }
+
+    /**
+     * illumina like base qualities
+     */
+    public static byte[] qualities(Random random, int length) {
+        byte[] quals = new byte[length];
+        for (int i = 0; i < length; i++)
+            quals[i] = (byte) Math.max(2, Math.min(41, (int) (35 + 6 * random.nextGaussian())));
+        return quals;
+    }
+
+    /**
+     * copy of reference[start, start + length) with substitution errors
+     */
+    public static byte[] sequence(Random random, byte[] reference, int start, int length, double errorRate) {
+        byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bases[i] = reference[start + i];
+            if (random.nextDouble() < errorRate)
+                bases[i] = BASES[(indexOf(bases[i]) + 1 + random.nextInt(3)) % 4];
+        }
+        return bases;
+    }
+
+    /**
+     * coordinate sorted reads sampled from reference, no indels
+     */
+    public static GaeaSamRecord[] reads(Random random, SAMFileHeader header, byte[] reference, int count,
+            int readLength, double errorRate) {
+        int[] starts = new int[count];
+        for (int i = 0; i < count; i++)
+            starts[i] = random.nextInt(reference.length - readLength + 1);
+        Arrays.sort(starts);
+
+        GaeaSamRecord[] reads = new GaeaSamRecord[count];
+        for (int i = 0; i < count; i++) {
+            GaeaSamRecord read = new GaeaSamRecord(header);
+            read.setReadName("read" + i);
+            read.setReferenceIndex(0);
+            read.setAlignmentStart(starts[i] + 1);
+            read.setCigarString(readLength + "M");
+            read.setMappingQuality(60);
+            read.setReadNegativeStrandFlag(random.nextBoolean());
+            read.setReadBases(sequence(random, reference, starts[i], readLength, errorRate));
+            read.setBaseQualities(qualities(random, readLength));
+            read.setAttribute("RG", READ_GROUP);
+            reads[i] = read;
+        }
+        return reads;
+    }
+
+    private static int indexOf(byte base) {
+        for (int i = 0; i < BASES.length; i++) {
+            if (BASES[i] == base)
+                return i;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.annotator.interval.tree;
+
+import org.bgi.flexlab.gaea.jmh.SimulatedData;
+import org.bgi.flexlab.gaea.tools.annotator.interval.Chromosome;
+import org.bgi.flexlab.gaea.tools.annotator.interval.Genome;
+import org.bgi.flexlab.gaea.tools.annotator.interval.Marker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * annotation interval lookup of 10000 single base variants against 50000
+ * overlapping gene like markers on one chromosome.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class IntervalForestBenchmark {
+    private static final int MARKERS = 50000;
+    private static final int QUERIES = 10000;
+
+    private IntervalForest forest;
+    private Marker[] queries;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(SimulatedData.SEED);
+        Genome genome = new Genome("bench");
+        Chromosome chromosome = new Chromosome(genome, 0, SimulatedData.CONTIG_LENGTH, "1");
+
+        forest = new IntervalForest();
+        for (int i = 0; i < MARKERS; i++) {
+            int start = random.nextInt(SimulatedData.CONTIG_LENGTH - 20000);
+            forest.add(new Marker(chromosome, start, start + 100 + random.nextInt(20000), false, "m" + i));
+        }
+        forest.build();
+
+        queries = new Marker[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int position = random.nextInt(SimulatedData.CONTIG_LENGTH);
+            queries[i] = new Marker(chromosome, position, position, false, "q" + i);
+        }
+    }
+
+    @Benchmark
+    public int query() {
+        int hits = 0;
+        for (Marker marker : queries)
+            hits += forest.query(marker).size();
+        return hits;
+    }
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.genotyer.genotypeLikelihoodCalculator;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.bgi.flexlab.gaea.data.structure.alignment.AlignmentsBasic;
+import org.bgi.flexlab.gaea.data.structure.pileup.Pileup;
+import org.bgi.flexlab.gaea.tools.mapreduce.genotyper.GenotyperOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * genotype likelihood of a single sample pileup.
+ * Pileups are built from simulated 100bp reads with an illumina like
+ * quality distribution, a heterozygous site every 10 positions and 1% error.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SNPGenotypeLikelihoodBenchmark {
+    private static final int READ_LENGTH = 100;
+    private static final int SITES = 64;
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    @Param({"30", "100", "1000"})
+    public int depth;
+
+    private SNPGenotypeLikelihoodCalculator calculator;
+    private Pileup[] pileups;
+
+    @Setup
+    public void setup() {
+        GenotyperOptions options = new GenotyperOptions();
+        options.parse(new String[]{"-i", "input", "-o", "output", "-r", "reference"});
+        calculator = new SNPGenotypeLikelihoodCalculator(options);
+
+        SAMFileHeader header = new SAMFileHeader();
+        header.addSequence(new SAMSequenceRecord("chr1", 10000000));
+        Random random = new Random(1234567L);
+
+        pileups = new Pileup[SITES];
+        for (int site = 0; site < SITES; site++) {
+            int position = 1000 + site * READ_LENGTH * 2;
+            byte refBase = BASES[random.nextInt(4)];
+            byte altBase = BASES[(refBase + 1 + random.nextInt(3)) % 4];
+            boolean isHet = site % 10 == 0;
+
+            Pileup pileup = new Pileup();
+            pileup.setPosition(position - 1);
+            for (int i = 0; i < depth; i++) {
+                int offset = random.nextInt(READ_LENGTH);
+                byte[] bases = new byte[READ_LENGTH];
+                byte[] quals = new byte[READ_LENGTH];
+                for (int j = 0; j < READ_LENGTH; j++) {
+                    bases[j] = random.nextDouble() < 0.01 ? BASES[random.nextInt(4)] : refBase;
+                    quals[j] = (byte) Math.max(2, Math.min(41, (int) (35 + 6 * random.nextGaussian())));
+                }
+                if (isHet && random.nextBoolean())
+                    bases[offset] = altBase;
+
+                SAMRecord record = new SAMRecord(header);
+                record.setReadName("read" + site + "_" + i);
+                record.setReferenceIndex(0);
+                record.setAlignmentStart(position - offset);
+                record.setCigarString(READ_LENGTH + "M");
+                record.setMappingQuality(60);
+                record.setReadBases(bases);
+                record.setBaseQualities(quals);
+
+                AlignmentsBasic read = new AlignmentsBasic();
+                read.parseSAM(record);
+                pileup.addReads(read);
+            }
+            pileup.calculateBaseInfo();
+            pileups[site] = pileup;
+        }
+    }
+
+    @Benchmark
+    public void genotypeLikelihood(Blackhole blackhole) {
+        for (Pileup pileup : pileups) {
+            blackhole.consume(calculator.getGenotypeLikelihood(pileup, false, 17));
+        }
+    }
+}
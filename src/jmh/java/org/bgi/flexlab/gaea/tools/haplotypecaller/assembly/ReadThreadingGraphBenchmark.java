@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.haplotypecaller.assembly;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.bgi.flexlab.gaea.data.structure.bam.GaeaSamRecord;
+import org.bgi.flexlab.gaea.jmh.SimulatedData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * read threading graph construction for one 300bp active region covered by
+ * 200 reads of 100bp with 1% substitution errors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ReadThreadingGraphBenchmark {
+    private static final int REGION_LENGTH = 300;
+    private static final int READ_LENGTH = 100;
+    private static final int READS = 200;
+    private static final byte MIN_BASE_QUALITY = 10;
+
+    @Param({"10", "25"})
+    public int kmerSize;
+
+    private SAMFileHeader header;
+    private byte[] reference;
+    private GaeaSamRecord[] reads;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(SimulatedData.SEED);
+        header = SimulatedData.header();
+        reference = SimulatedData.reference(random, REGION_LENGTH);
+        reads = SimulatedData.reads(random, header, reference, READS, READ_LENGTH, 0.01);
+    }
+
+    @Benchmark
+    public ReadThreadingGraph buildGraph() {
+        ReadThreadingGraph graph = new ReadThreadingGraph(kmerSize, false, MIN_BASE_QUALITY, 1);
+        graph.addSequence("ref", reference, true);
+        for (GaeaSamRecord read : reads)
+            graph.addRead(read, header);
+        graph.buildGraphIfNecessary();
+        return graph;
+    }
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.haplotypecaller.pairhmm;
+
+import org.bgi.flexlab.gaea.jmh.SimulatedData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * read x haplotype likelihoods of the java pair HMM implementations for one
+ * active region: 8 haplotypes carrying a few SNPs and 64 reads of 150bp.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PairHMMBenchmark {
+    private static final int READ_LENGTH = 150;
+    private static final int READS = 64;
+    private static final int HAPLOTYPES = 8;
+    private static final byte GCP = 10;
+    private static final byte GOP = 45;
+
+    @Param({"LOGLESS_CACHING", "EXACT", "ORIGINAL"})
+    public String implementation;
+
+    @Param({"300"})
+    public int haplotypeLength;
+
+    private PairHMM hmm;
+    private byte[][] haplotypes;
+    private byte[][] readBases;
+    private byte[][] readQuals;
+    private byte[] gapOpen;
+    private byte[] gapContinuation;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(SimulatedData.SEED);
+        byte[] reference = SimulatedData.reference(random, haplotypeLength);
+        haplotypes = new byte[HAPLOTYPES][];
+        haplotypes[0] = reference;
+        for (int i = 1; i < HAPLOTYPES; i++)
+            haplotypes[i] = SimulatedData.sequence(random, reference, 0, haplotypeLength, 0.01);
+
+        readBases = new byte[READS][];
+        readQuals = new byte[READS][];
+        for (int i = 0; i < READS; i++) {
+            byte[] haplotype = haplotypes[random.nextInt(HAPLOTYPES)];
+            readBases[i] = SimulatedData.sequence(random, haplotype,
+                    random.nextInt(haplotypeLength - READ_LENGTH + 1), READ_LENGTH, 0.005);
+            readQuals[i] = SimulatedData.qualities(random, READ_LENGTH);
+        }
+        gapOpen = new byte[READ_LENGTH];
+        Arrays.fill(gapOpen, GOP);
+        gapContinuation = new byte[READ_LENGTH];
+        Arrays.fill(gapContinuation, GCP);
+
+        // native implementations need their library and are left out
+        hmm = PairHMM.Implementation.valueOf(implementation).makeNewHMM(null);
+        hmm.initialize(READ_LENGTH, haplotypeLength);
+    }
+
+    @Benchmark
+    public void computeLikelihoods(Blackhole blackhole) {
+        for (int r = 0; r < READS; r++) {
+            for (int h = 0; h < HAPLOTYPES; h++) {
+                byte[] next = h == HAPLOTYPES - 1 ? null : haplotypes[h + 1];
+                blackhole.consume(hmm.computeReadLikelihoodGivenHaplotypeLog10(haplotypes[h], readBases[r],
+                        readQuals[r], gapOpen, gapOpen, gapContinuation, h == 0, next));
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.haplotypecaller.smithwaterman;
+
+import org.bgi.flexlab.gaea.jmh.SimulatedData;
+import org.bgi.flexlab.gaea.tools.haplotypecaller.smithwaterman.SmithWatermanJavaAligner.SWOverhangStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * java Smith-Waterman alignment of haplotypes carrying SNPs and a small
+ * indel against their reference, as done for every assembled haplotype.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SmithWatermanBenchmark {
+    private static final int HAPLOTYPES = 16;
+
+    @Param({"300", "1000"})
+    public int length;
+
+    private SmithWatermanAligner aligner;
+    private byte[] reference;
+    private byte[][] haplotypes;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(SimulatedData.SEED);
+        reference = SimulatedData.reference(random, length);
+        haplotypes = new byte[HAPLOTYPES][];
+        for (int i = 0; i < HAPLOTYPES; i++) {
+            byte[] haplotype = SimulatedData.sequence(random, reference, 0, length, 0.01);
+            int indel = length / 4 + random.nextInt(length / 2);
+            int size = 1 + random.nextInt(5);
+            byte[] withIndel;
+            if (random.nextBoolean()) {
+                withIndel = new byte[length - size];
+                System.arraycopy(haplotype, 0, withIndel, 0, indel);
+                System.arraycopy(haplotype, indel + size, withIndel, indel, length - indel - size);
+            } else {
+                withIndel = new byte[length + size];
+                System.arraycopy(haplotype, 0, withIndel, 0, indel);
+                System.arraycopy(SimulatedData.reference(random, size), 0, withIndel, indel, size);
+                System.arraycopy(haplotype, indel, withIndel, indel + size, length - indel);
+            }
+            haplotypes[i] = withIndel;
+        }
+        aligner = SmithWatermanJavaAligner.getInstance();
+    }
+
+    @Benchmark
+    public void alignHaplotypes(Blackhole blackhole) {
+        for (byte[] haplotype : haplotypes) {
+            blackhole.consume(aligner.align(reference, haplotype, SmithWatermanAligner.STANDARD_NGS,
+                    SWOverhangStrategy.SOFTCLIP));
+        }
+    }
+}
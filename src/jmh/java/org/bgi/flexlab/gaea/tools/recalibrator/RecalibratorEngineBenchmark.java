@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.recalibrator;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.bgi.flexlab.gaea.data.structure.bam.GaeaSamRecord;
+import org.bgi.flexlab.gaea.jmh.SimulatedData;
+import org.bgi.flexlab.gaea.tools.mapreduce.realigner.RecalibratorOptions;
+import org.bgi.flexlab.gaea.tools.recalibrator.covariate.Covariate;
+import org.bgi.flexlab.gaea.tools.recalibrator.covariate.CovariateUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * recalibration table update of the counting pass, 256 reads of 150bp
+ * with 1% mismatches against the reference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RecalibratorEngineBenchmark {
+    private static final int REGION_LENGTH = 20000;
+    private static final int READ_LENGTH = 150;
+    private static final int READS = 256;
+
+    private RecalibratorEngine engine;
+    private Covariate[] covariates;
+    private byte[] reference;
+    private GaeaSamRecord[] reads;
+    private ReadCovariates[] readCovariates;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(SimulatedData.SEED);
+        SAMFileHeader header = SimulatedData.header();
+        reference = SimulatedData.reference(random, REGION_LENGTH);
+        reads = SimulatedData.reads(random, header, reference, READS, READ_LENGTH, 0.01);
+
+        RecalibratorOptions option = new RecalibratorOptions();
+        option.parse(new String[]{"-r", "reference", "-k", "dbsnp"});
+        engine = new RecalibratorEngine(option, null, header, false, null);
+        covariates = CovariateUtil.initializeCovariates(option, header);
+
+        readCovariates = new ReadCovariates[READS];
+        for (int i = 0; i < READS; i++)
+            readCovariates[i] = RecalibratorUtil.computeCovariates(reads[i], covariates);
+    }
+
+    @Benchmark
+    public int dataUpdate() {
+        int errors = 0;
+        for (int i = 0; i < READS; i++) {
+            if (update(reads[i], readCovariates[i]))
+                errors++;
+        }
+        return errors;
+    }
+
+    @Benchmark
+    public int computeCovariatesAndUpdate() {
+        int errors = 0;
+        for (GaeaSamRecord read : reads) {
+            if (update(read, RecalibratorUtil.computeCovariates(read, covariates)))
+                errors++;
+        }
+        return errors;
+    }
+
+    private boolean update(GaeaSamRecord read, ReadCovariates rc) {
+        byte[] bases = read.getReadBases();
+        byte[] quals = read.getBaseQualities();
+        int refStart = read.getAlignmentStart() - 1;
+        boolean hasError = false;
+        for (int offset = 0; offset < bases.length; offset++)
+            hasError |= engine.dataUpdate(offset, bases[offset], quals[offset], reference[refStart + offset], rc);
+        return hasError;
+    }
+}
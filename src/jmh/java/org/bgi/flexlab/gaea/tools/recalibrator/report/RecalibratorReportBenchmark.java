@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.recalibrator.report;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.bgi.flexlab.gaea.data.structure.bam.GaeaSamRecord;
+import org.bgi.flexlab.gaea.tools.mapreduce.realigner.RecalibratorHdfsReportWriter;
+import org.bgi.flexlab.gaea.tools.mapreduce.realigner.RecalibratorOptions;
+import org.bgi.flexlab.gaea.tools.recalibrator.ReadCovariates;
+import org.bgi.flexlab.gaea.tools.recalibrator.RecalibratorDatum;
+import org.bgi.flexlab.gaea.tools.recalibrator.RecalibratorUtil;
+import org.bgi.flexlab.gaea.tools.recalibrator.covariate.Covariate;
+import org.bgi.flexlab.gaea.tools.recalibrator.covariate.CovariateUtil;
+import org.bgi.flexlab.gaea.tools.recalibrator.table.RecalibratorTable;
+import org.bgi.flexlab.gaea.util.EventType;
+import org.bgi.flexlab.gaea.util.NestedObjectArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * base quality recalibration of 150bp reads by a report built from
+ * simulated reads of one read group.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RecalibratorReportBenchmark {
+    private static final int READ_LENGTH = 150;
+    private static final int READS = 256;
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    private RecalibratorReport report;
+    private GaeaSamRecord[] reads;
+    private byte[][] originalQualities;
+    private File reportFile;
+
+    @Setup
+    public void setup() throws IOException {
+        SAMFileHeader header = new SAMFileHeader();
+        header.addSequence(new SAMSequenceRecord("chr1", 10000000));
+        SAMReadGroupRecord readGroup = new SAMReadGroupRecord("rg1");
+        readGroup.setSample("sample1");
+        readGroup.setPlatform("ILLUMINA");
+        header.addReadGroup(readGroup);
+
+        Random random = new Random(1234567L);
+        reads = new GaeaSamRecord[READS];
+        originalQualities = new byte[READS][];
+        for (int i = 0; i < READS; i++) {
+            byte[] bases = new byte[READ_LENGTH];
+            byte[] quals = new byte[READ_LENGTH];
+            for (int j = 0; j < READ_LENGTH; j++) {
+                bases[j] = BASES[random.nextInt(4)];
+                quals[j] = (byte) Math.max(2, Math.min(41, (int) (35 + 6 * random.nextGaussian())));
+            }
+            GaeaSamRecord read = new GaeaSamRecord(header);
+            read.setReadName("read" + i);
+            read.setReferenceIndex(0);
+            read.setAlignmentStart(1000 + i * 10);
+            read.setCigarString(READ_LENGTH + "M");
+            read.setMappingQuality(60);
+            read.setReadNegativeStrandFlag(random.nextBoolean());
+            read.setReadBases(bases);
+            read.setBaseQualities(quals);
+            read.setAttribute("RG", "rg1");
+            reads[i] = read;
+            originalQualities[i] = quals.clone();
+        }
+
+        RecalibratorOptions option = new RecalibratorOptions();
+        option.parse(new String[]{"-r", "reference", "-k", "dbsnp"});
+        Covariate[] covariates = CovariateUtil.initializeCovariates(option, header);
+        RecalibratorTable table = new RecalibratorTable(covariates, 1);
+        simulateTable(table, covariates, random);
+
+        reportFile = File.createTempFile("recalibrator", ".report");
+        RecalibratorHdfsReportWriter writer = new RecalibratorHdfsReportWriter("file://" + reportFile.getAbsolutePath());
+        RecalibratorReportTable argumentTable = RecalibratorReportTable.reportTableBuilder(option, covariateNames(covariates));
+        List<RecalibratorReportTable> covariateTables = RecalibratorReportTable.reportTableBuilder(table, covariates);
+        writer.write("#:Report.V1.0:" + (covariateTables.size() + 2) + "\n");
+        writer.write(argumentTable);
+        writer.write(RecalibratorReportTable.reportTableBuilder(table, option.QUANTIZING_LEVELS));
+        for (RecalibratorReportTable reportTable : covariateTables)
+            writer.write(reportTable);
+        writer.close();
+
+        report = new RecalibratorReport("file://" + reportFile.getAbsolutePath(), header, 0,
+                option.PRESERVE_QSCORES_LESS_THAN);
+    }
+
+    private void simulateTable(RecalibratorTable table, Covariate[] covariates, Random random) {
+        ReadCovariates readCovariates = new ReadCovariates(READ_LENGTH, covariates.length);
+        int event = EventType.SNP.index;
+        for (GaeaSamRecord read : reads) {
+            RecalibratorUtil.computeCovariates(read, covariates, readCovariates);
+            for (int[] key : readCovariates.getKeySet(EventType.SNP)) {
+                put(table.getTable(RecalibratorTable.Type.READ_GROUP_TABLE), random, 30, key[0], event);
+                put(table.getTable(RecalibratorTable.Type.QUALITY_SCORE_TABLE), random, key[1], key[0], key[1], event);
+                for (int i = RecalibratorTable.Type.OPTIONAL_COVARIATE_TABLES_START.index; i < covariates.length; i++) {
+                    if (key[i] >= 0)
+                        put(table.getTable(i), random, key[1], key[0], key[1], key[i], event);
+                }
+            }
+        }
+    }
+
+    private void put(NestedObjectArray<RecalibratorDatum> table, Random random, int quality, int... keys) {
+        if (table.get(keys) != null)
+            return;
+        long bases = 1000 + random.nextInt(100000);
+        long errors = (long) (bases * Math.pow(10, -quality / 10.0) * (0.5 + random.nextDouble()));
+        table.put(new RecalibratorDatum(bases, errors, quality), keys);
+    }
+
+    private String covariateNames(Covariate[] covariates) {
+        StringBuilder sb = new StringBuilder();
+        for (Covariate cov : covariates) {
+            if (sb.length() > 0)
+                sb.append(",");
+            sb.append(cov.getClass().getSimpleName());
+        }
+        return sb.toString();
+    }
+
+    @Setup(Level.Invocation)
+    public void resetQualities() {
+        for (int i = 0; i < READS; i++)
+            reads[i].setBaseQualities(originalQualities[i].clone());
+    }
+
+    @TearDown
+    public void tearDown() {
+        reportFile.delete();
+    }
+
+    @Benchmark
+    public GaeaSamRecord[] readRecalibrator() {
+        for (GaeaSamRecord read : reads)
+            report.readRecalibrator(read);
+        return reads;
+    }
+}
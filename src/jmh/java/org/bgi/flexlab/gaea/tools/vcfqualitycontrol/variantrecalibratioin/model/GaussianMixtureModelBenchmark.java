@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.vcfqualitycontrol.variantrecalibratioin.model;
+
+import org.bgi.flexlab.gaea.jmh.SimulatedData;
+import org.bgi.flexlab.gaea.tools.vcfqualitycontrol.variantrecalibratioin.traindata.VariantDatum;
+import org.bgi.flexlab.gaea.util.RandomUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the first variational bayes EM iteration of the VQSR gaussian mixture
+ * model after k-means initialization, on 20000 variants with 6 annotations
+ * drawn from two clusters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GaussianMixtureModelBenchmark {
+    private static final int VARIANTS = 20000;
+    private static final int ANNOTATIONS = 6;
+    private static final int GAUSSIANS = 8;
+    private static final int KMEANS_ITERATIONS = 100;
+    private static final double SHRINKAGE = 1.0;
+    private static final double DIRICHLET = 0.001;
+    private static final double PRIOR_COUNTS = 20.0;
+
+    private GaussianMixtureModel model;
+    private List<VariantDatum> data;
+
+    @Setup(Level.Trial)
+    public void createData() {
+        Random random = new Random(SimulatedData.SEED);
+        data = new ArrayList<VariantDatum>(VARIANTS);
+        for (int i = 0; i < VARIANTS; i++) {
+            VariantDatum datum = new VariantDatum();
+            datum.annotations = new double[ANNOTATIONS];
+            datum.isNull = new boolean[ANNOTATIONS];
+            double center = random.nextDouble() < 0.9 ? 0.0 : 2.5;
+            for (int j = 0; j < ANNOTATIONS; j++)
+                datum.annotations[j] = center + random.nextGaussian();
+            data.add(datum);
+        }
+    }
+
+    /**
+     * EM steps change the model, so every invocation starts from the same
+     * k-means initialized model.
+     */
+    @Setup(Level.Invocation)
+    public void initializeModel() {
+        RandomUtils.resetRandomGenerator(SimulatedData.SEED);
+        model = new GaussianMixtureModel(GAUSSIANS, ANNOTATIONS, SHRINKAGE, DIRICHLET, PRIOR_COUNTS);
+        model.initializeRandomModel(data, KMEANS_ITERATIONS);
+        model.normalizePMixtureLog10();
+        model.expectationStep(data, 0);
+    }
+
+    @Benchmark
+    public double iteration() {
+        model.maximizationStep(data);
+        double change = model.normalizePMixtureLog10();
+        model.expectationStep(data, 0);
+        return change;
+    }
+
+    @Benchmark
+    public double iterationMulti() {
+        model.maximizationStepMulti(data);
+        double change = model.normalizePMixtureLog10();
+        model.expectationStepMulti(data, 0);
+        return change;
+    }
+}
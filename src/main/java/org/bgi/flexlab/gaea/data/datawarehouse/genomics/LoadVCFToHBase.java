@@ -7,16 +7,18 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.HColumnDescriptor;
 import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.HBaseAdmin;
 import org.apache.hadoop.hbase.client.HTable;
-import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.mapreduce.HFileOutputFormat2;
+import org.apache.hadoop.hbase.mapreduce.KeyValueSortReducer;
 import org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles;
-import org.apache.hadoop.hbase.mapreduce.PutSortReducer;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.bgi.flexlab.gaea.data.exception.UserException;
 import org.bgi.flexlab.gaea.data.mapreduce.input.vcf.VCFMultipleInputFormat;
 import org.bgi.flexlab.gaea.data.structure.header.MultipleVCFHeader;
 import org.bgi.flexlab.gaea.framework.tools.mapreduce.ToolsRunner;
@@ -25,15 +27,32 @@ public class LoadVCFToHBase extends ToolsRunner{
 	
 	private LoadVCFToHBaseOptions options = null;
 	
-	private void createTable(Configuration conf, String tableName) throws IOException {
+	/**
+	 * table attribute recording the row key layout, tables without it use string keys
+	 */
+	public final static String ROW_KEY_LAYOUT = "gaea.rowKeyLayout";
+	public final static String BINARY_LAYOUT = "binary";
+	
+	private void createTable(Configuration conf, String tableName, byte[][] splitKeys, boolean binary) throws IOException {
 		HBaseAdmin admin = new HBaseAdmin(conf);
 		if (admin.tableExists(tableName)) {
+			HTableDescriptor table = admin.getTableDescriptor(TableName.valueOf(tableName));
 			admin.close();
+			boolean binaryTable = BINARY_LAYOUT.equals(table.getValue(ROW_KEY_LAYOUT));
+			if (binary && !binaryTable)
+				throw new UserException("table " + tableName + " uses string row keys, -b needs a new table or one loaded with -b.");
+			if (!binary && binaryTable)
+				throw new UserException("table " + tableName + " uses binary row keys, load it with -b.");
 			return;
 		}
 		HTableDescriptor table = new HTableDescriptor(tableName);
 		table.addFamily(new HColumnDescriptor("info"));
-		admin.createTable(table);
+		if (binary)
+			table.setValue(ROW_KEY_LAYOUT, BINARY_LAYOUT);
+		if (splitKeys != null)
+			admin.createTable(table, splitKeys);
+		else
+			admin.createTable(table);
 		admin.close();
 	}
 	
@@ -61,25 +80,32 @@ public class LoadVCFToHBase extends ToolsRunner{
 		conf.addResource(new Path(options.getConfig() + "hbase-site.xml"));
     	conf.addResource(new Path(options.getConfig() + "core-site.xml"));
     	conf.set("vcfHeader", options.getHeaderOutput());
+    	conf.setBoolean(VCFToHBaseMapper.BINARY_ROW_KEY, options.isBinary());
 		Job job = new Job(conf);
-
-		createTable(conf,options.getTableName());
 		
 		MultipleVCFHeader vcfHeaders = new MultipleVCFHeader();
 		vcfHeaders.mergeHeader(new Path(options.getInput()),options.getHeaderOutput(), job, false);
 
+		// HFileOutputFormat2 runs one reducer per region, so a new table of
+		// binary keys is pre-split by genome coordinate
+		byte[][] splitKeys = null;
+		if (options.isBinary())
+			splitKeys = VariantRowKey.getSplitKeys(
+					VariantRowKey.getSequenceDictionary(vcfHeaders.getVcfHeader(0)), options.getReducerNumber());
+		createTable(conf,options.getTableName(),splitKeys,options.isBinary());
+
 		job.setJobName("vcf to hbase");
 		job.setNumReduceTasks(options.getReducerNumber());
 		job.setInputFormatClass(VCFMultipleInputFormat.class);
 
 		job.setJarByClass(LoadVCFToHBase.class);
 		job.setMapperClass(VCFToHBaseMapper.class);
-		job.setReducerClass(PutSortReducer.class);
+		job.setReducerClass(KeyValueSortReducer.class);
 
 		job.setMapOutputKeyClass(ImmutableBytesWritable.class);
-		job.setMapOutputValueClass(Put.class);
+		job.setMapOutputValueClass(KeyValue.class);
 		job.setOutputKeyClass(ImmutableBytesWritable.class);
-		job.setOutputValueClass(Put.class);
+		job.setOutputValueClass(KeyValue.class);
 
 		FileInputFormat.setInputPaths(job, new Path(options.getInput()));
 		FileOutputFormat.setOutputPath(job, new Path(options.getHFileOutput()));
@@ -24,6 +24,9 @@ public class LoadVCFToHBaseOptions extends GaeaOptions implements HadoopOptions
 	private String output = null;
 	
 	private int reduceNum = 1;
+	
+	// binary row keys and packed genotype cells
+	private boolean binary = false;
 
 	public LoadVCFToHBaseOptions() {
 		addOption("i", "input", true, "input directory", true);
@@ -31,6 +34,8 @@ public class LoadVCFToHBaseOptions extends GaeaOptions implements HadoopOptions
 		addOption("n", "reduceNumber", true, "reduce number");
 		addOption("c", "config", true, "hbase configuration path", true);
 		addOption("t", "table", true, "hbase table name", true);
+		addOption("b", "binary", false, "binary fixed width row keys (contig, position, sample index) and one packed "
+				+ "genotype cell per row, new tables are pre-split into reduceNumber regions");
 		FormatHelpInfo(SOFTWARE_NAME, SOFTWARE_VERSION);
 	}
 
@@ -60,6 +65,7 @@ public class LoadVCFToHBaseOptions extends GaeaOptions implements HadoopOptions
 		tableName = getOptionValue("t",null);
 		hbaseConfig = getOptionValue("c",null);
 		reduceNum = getOptionIntValue("n",1);
+		binary = getOptionBooleanValue("b",false);
 		
 		checkArgs();
 	}
@@ -87,6 +93,10 @@ public class LoadVCFToHBaseOptions extends GaeaOptions implements HadoopOptions
 		return this.reduceNum;
 	}
 	
+	public boolean isBinary(){
+		return this.binary;
+	}
+	
 	public String getHeaderOutput(){
 		if(output.endsWith("/"))
 			return this.output+"header";
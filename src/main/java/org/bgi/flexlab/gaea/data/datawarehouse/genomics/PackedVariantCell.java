@@ -0,0 +1,86 @@
+package org.bgi.flexlab.gaea.data.datawarehouse.genomics;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * packed genotype cell of the binary table: GT byte, DP and AD as vints, QUAL
+ * float, REF and ALT strings.
+ */
+public class PackedVariantCell {
+	private byte gt;
+	private int dp;
+	private int[] ad;
+	private float qual;
+	private String ref;
+	private String alt;
+
+	public static void write(DataOutput out, byte gt, int dp, int[] ad, float qual, String ref, String alt)
+			throws IOException {
+		out.writeByte(gt);
+		WritableUtils.writeVInt(out, dp);
+		if (ad == null)
+			WritableUtils.writeVInt(out, 0);
+		else {
+			WritableUtils.writeVInt(out, ad.length);
+			for (int depth : ad)
+				WritableUtils.writeVInt(out, depth);
+		}
+		out.writeFloat(qual);
+		Text.writeString(out, ref);
+		Text.writeString(out, alt);
+	}
+
+	public static PackedVariantCell read(byte[] value, int offset, int length) throws IOException {
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(value, offset, length);
+
+		PackedVariantCell cell = new PackedVariantCell();
+		cell.gt = in.readByte();
+		cell.dp = WritableUtils.readVInt(in);
+		cell.ad = new int[WritableUtils.readVInt(in)];
+		for (int i = 0; i < cell.ad.length; i++)
+			cell.ad[i] = WritableUtils.readVInt(in);
+		cell.qual = in.readFloat();
+		cell.ref = Text.readString(in);
+		cell.alt = Text.readString(in);
+		return cell;
+	}
+
+	/**
+	 * allele indexes of the genotype, 4 bits each, first allele in the high bits
+	 */
+	public byte getGT() {
+		return gt;
+	}
+
+	/**
+	 * read depth, -1 when the genotype has no DP
+	 */
+	public int getDP() {
+		return dp;
+	}
+
+	/**
+	 * allele depths, empty when the genotype has no AD
+	 */
+	public int[] getAD() {
+		return ad;
+	}
+
+	public float getQual() {
+		return qual;
+	}
+
+	public String getRef() {
+		return ref;
+	}
+
+	public String getAlt() {
+		return alt;
+	}
+}
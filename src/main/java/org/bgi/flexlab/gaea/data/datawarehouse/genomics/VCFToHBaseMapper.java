@@ -8,9 +8,11 @@ import java.util.Set;
 import java.util.TreeSet;
 
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.bgi.flexlab.gaea.data.exception.UserException;
@@ -19,12 +21,32 @@ import org.bgi.flexlab.gaea.data.structure.header.MultipleVCFHeader;
 import org.bgi.flexlab.gaea.util.Utils;
 import org.seqdoop.hadoop_bam.VariantContextWritable;
 
+import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.GenotypeBuilder;
 import htsjdk.variant.variantcontext.VariantContext;
-public class VCFToHBaseMapper extends Mapper<LongWritable, VariantContextWritable, ImmutableBytesWritable, Put> {
+public class VCFToHBaseMapper extends Mapper<LongWritable, VariantContextWritable, ImmutableBytesWritable, KeyValue> {
+	public final static String BINARY_ROW_KEY = "binaryRowKey";
+	
+	public final static byte[] FAMILY = Bytes.toBytes("info");
+	private final static byte[] REF = Bytes.toBytes("REF");
+	private final static byte[] ALT = Bytes.toBytes("ALT");
+	private final static byte[] QUAL = Bytes.toBytes("QUAL");
+	private final static byte[] GT = Bytes.toBytes("GT");
+	private final static byte[] AD = Bytes.toBytes("AD");
+	private final static byte[] DP = Bytes.toBytes("DP");
+	
+	/**
+	 * qualifier of the packed cell, see PackedVariantCell
+	 */
+	public final static byte[] PACKED = Bytes.toBytes("V");
+	
 	private Set<String> sampleNames = new TreeSet<String>();
+	
+	private boolean binary = false;
+	private SAMSequenceDictionary dict = null;
+	private DataOutputBuffer packed = new DataOutputBuffer();
 
 	@Override
 	protected void setup(Context context) throws IOException, InterruptedException {
@@ -34,6 +56,10 @@ public class VCFToHBaseMapper extends Mapper<LongWritable, VariantContextWritabl
 		for (String sample : headers.getSampleNames(0)) {
 			sampleNames.add(sample);
 		}
+		
+		binary = conf.getBoolean(BINARY_ROW_KEY, false);
+		if(binary)
+			dict = VariantRowKey.getSequenceDictionary(headers.getVcfHeader(0));
 	}
 	
 	public HashMap<Allele, Integer> buildAlleleStrings(final VariantContext vc) {
@@ -57,16 +83,24 @@ public class VCFToHBaseMapper extends Mapper<LongWritable, VariantContextWritabl
 		context.getCounter("Counters", "record").increment(1);
 		
 		ImmutableBytesWritable rKey = new ImmutableBytesWritable(rowKeys);
-		Put put = new Put(rowKeys);
-		put.add(Bytes.toBytes("info"),Bytes.toBytes("REF"),Bytes.toBytes(ref));
-		put.add(Bytes.toBytes("info"),Bytes.toBytes("ALT"),Bytes.toBytes(alt));
-		put.add(Bytes.toBytes("info"),Bytes.toBytes("QUAL"),Bytes.toBytes(quality));
-		put.add(Bytes.toBytes("info"),Bytes.toBytes("GT"),gts);
+		context.write(rKey, new KeyValue(rowKeys,FAMILY,REF,Bytes.toBytes(ref)));
+		context.write(rKey, new KeyValue(rowKeys,FAMILY,ALT,Bytes.toBytes(alt)));
+		context.write(rKey, new KeyValue(rowKeys,FAMILY,QUAL,Bytes.toBytes(quality)));
+		context.write(rKey, new KeyValue(rowKeys,FAMILY,GT,gts));
 		if(ad != null && ad.trim().length() > 0)
-			put.add(Bytes.toBytes("info"),Bytes.toBytes("AD"),Bytes.toBytes(ad));
+			context.write(rKey, new KeyValue(rowKeys,FAMILY,AD,Bytes.toBytes(ad)));
 		if(dp >= 0)
-			put.add(Bytes.toBytes("info"),Bytes.toBytes("DP"),Bytes.toBytes(dp));
-		context.write(rKey, put);
+			context.write(rKey, new KeyValue(rowKeys,FAMILY,DP,Bytes.toBytes(dp)));
+	}
+	
+	private void createPackedRecord(byte[] rowKeys,String ref,String alt,float quality,byte gt,int[] ad,int dp,Context context ) throws IOException, InterruptedException{
+		context.getCounter("Counters", "record").increment(1);
+		
+		packed.reset();
+		PackedVariantCell.write(packed, gt, dp, ad, quality, ref, alt);
+		
+		context.write(new ImmutableBytesWritable(rowKeys), new KeyValue(rowKeys,0,rowKeys.length,FAMILY,0,FAMILY.length,
+				PACKED,0,PACKED.length,HConstants.LATEST_TIMESTAMP,KeyValue.Type.Put,packed.getData(),0,packed.getLength()));
 	}
 	
 	private String formatQualValue(final double qual) {
@@ -87,8 +121,17 @@ public class VCFToHBaseMapper extends Mapper<LongWritable, VariantContextWritabl
 		String rowKey = vc.getContig()+"-"+vc.getStart()+"-";
 		String quality = formatQualValue(vc.getPhredScaledQual());
 		String ref = vc.getReference().getDisplayString();
+		
+		int contigIndex = -1;
+		if(binary){
+			contigIndex = dict.getSequenceIndex(vc.getContig());
+			if(contigIndex < 0)
+				throw new UserException("contig " + vc.getContig() + " isn't in vcf header.");
+		}
+		int sampleIndex = -1;
 
 		for (final String sample : sampleNames) {
+			sampleIndex++;
 			currentIndex = 1;
 			altMap.clear();
 			list.clear();
@@ -124,7 +167,11 @@ public class VCFToHBaseMapper extends Mapper<LongWritable, VariantContextWritabl
 					gt |= (altMap.get(g.getAllele(i).getDisplayString()) & 0xf);
 				}
 				
-				createRecord(rowKey+sample,ref,alt,quality,(byte)(gt&0xff),Utils.join(",", g.getAD()),g.getDP(),context);
+				if(binary)
+					createPackedRecord(VariantRowKey.create(contigIndex, vc.getStart(), sampleIndex),ref,alt,
+							(float)vc.getPhredScaledQual(),(byte)(gt&0xff),g.getAD(),g.getDP(),context);
+				else
+					createRecord(rowKey+sample,ref,alt,quality,(byte)(gt&0xff),Utils.join(",", g.getAD()),g.getDP(),context);
 			}
 		}
 		
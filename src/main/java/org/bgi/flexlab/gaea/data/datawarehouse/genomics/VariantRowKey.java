@@ -0,0 +1,69 @@
+package org.bgi.flexlab.gaea.data.datawarehouse.genomics;
+
+import java.util.List;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.bgi.flexlab.gaea.data.exception.UserException;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * binary row key of the packed table: contig index in the VCF header, start
+ * and sample index in sorted sample names, as big endian ints so row keys sort
+ * by genome coordinate.
+ */
+public class VariantRowKey {
+	public static final int LENGTH = 3 * Bytes.SIZEOF_INT;
+
+	public static byte[] create(int contigIndex, int start, int sampleIndex) {
+		byte[] key = new byte[LENGTH];
+		Bytes.putInt(key, 0, contigIndex);
+		Bytes.putInt(key, Bytes.SIZEOF_INT, start);
+		Bytes.putInt(key, 2 * Bytes.SIZEOF_INT, sampleIndex);
+		return key;
+	}
+
+	public static int getContigIndex(byte[] key) {
+		return Bytes.toInt(key, 0);
+	}
+
+	public static int getStart(byte[] key) {
+		return Bytes.toInt(key, Bytes.SIZEOF_INT);
+	}
+
+	public static int getSampleIndex(byte[] key) {
+		return Bytes.toInt(key, 2 * Bytes.SIZEOF_INT);
+	}
+
+	public static SAMSequenceDictionary getSequenceDictionary(VCFHeader header) {
+		SAMSequenceDictionary dict = header.getSequenceDictionary();
+		if (dict == null || dict.isEmpty())
+			throw new UserException("binary row keys need ##contig lines in vcf header.");
+		return dict;
+	}
+
+	/**
+	 * split keys dividing the genome into regions of equal length
+	 */
+	public static byte[][] getSplitKeys(SAMSequenceDictionary dict, int regions) {
+		if (regions <= 1)
+			return null;
+		long length = dict.getReferenceLength();
+		List<SAMSequenceRecord> sequences = dict.getSequences();
+		byte[][] splitKeys = new byte[regions - 1][];
+
+		int index = 0;
+		long offset = 0;
+		for (int i = 1; i < regions; i++) {
+			long target = length * i / regions;
+			while (offset + sequences.get(index).getSequenceLength() <= target) {
+				offset += sequences.get(index).getSequenceLength();
+				index++;
+			}
+			splitKeys[i - 1] = create(index, (int) (target - offset) + 1, 0);
+		}
+		return splitKeys;
+	}
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.input.header;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * samples of a header in order of their first read group, and the sample
+ * index of every read group in header order. The driver writes it into the
+ * binary header, tasks load it without decoding the rest of the header.
+ */
+public class ReadGroupSampleTable {
+	public final static int NO_SAMPLE = -1;
+
+	private final String[] samples;
+	private final int[] readGroupSamples;
+	private final Map<String, Integer> readGroupIndexes;
+
+	public ReadGroupSampleTable(SAMFileHeader header) {
+		List<SAMReadGroupRecord> readGroups = header.getReadGroups();
+		Map<String, Integer> sampleIndexes = new HashMap<String, Integer>();
+		List<String> sampleList = new ArrayList<String>();
+		String[] readGroupIDs = new String[readGroups.size()];
+		readGroupSamples = new int[readGroups.size()];
+		for (int i = 0; i < readGroups.size(); i++) {
+			readGroupIDs[i] = readGroups.get(i).getReadGroupId();
+			String sample = readGroups.get(i).getSample();
+			if (sample == null) {
+				readGroupSamples[i] = NO_SAMPLE;
+				continue;
+			}
+			if (!sampleIndexes.containsKey(sample)) {
+				sampleIndexes.put(sample, sampleList.size());
+				sampleList.add(sample);
+			}
+			readGroupSamples[i] = sampleIndexes.get(sample);
+		}
+		samples = sampleList.toArray(new String[sampleList.size()]);
+		readGroupIndexes = indexReadGroups(readGroupIDs);
+	}
+
+	ReadGroupSampleTable(String[] samples, String[] readGroupIDs, int[] readGroupSamples) {
+		this.samples = samples;
+		this.readGroupSamples = readGroupSamples;
+		this.readGroupIndexes = indexReadGroups(readGroupIDs);
+	}
+
+	private static Map<String, Integer> indexReadGroups(String[] readGroupIDs) {
+		Map<String, Integer> indexes = new HashMap<String, Integer>(readGroupIDs.length * 2);
+		for (int i = 0; i < readGroupIDs.length; i++)
+			indexes.put(readGroupIDs[i], i);
+		return indexes;
+	}
+
+	public int getSampleNumber() {
+		return samples.length;
+	}
+
+	public String getSample(int sampleIndex) {
+		return samples[sampleIndex];
+	}
+
+	public int getReadGroupNumber() {
+		return readGroupSamples.length;
+	}
+
+	/**
+	 * @return index of the read group in header order, -1 if the header has
+	 *         no such read group
+	 */
+	public int getReadGroupIndex(String readGroupID) {
+		Integer index = readGroupID == null ? null : readGroupIndexes.get(readGroupID);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * @return sample index of the read group, NO_SAMPLE if it has no sample
+	 */
+	public int getSampleIndex(int readGroupIndex) {
+		return readGroupSamples[readGroupIndex];
+	}
+}
@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.input.header;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMProgramRecord;
+import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * compact binary form of SAMFileHeader, written once by the driver and
+ * loaded by tasks without going through the text header parser.
+ * 
+ * layout: magic, version, header attributes, sequence records, sample table,
+ * read groups (sample stored as index into the sample table), program
+ * records and comments. Strings are int length followed by UTF-8 bytes.
+ */
+public class SamFileHeaderBinaryCodec {
+	private final static int MAGIC = 0x47534842; // "GSHB"
+	private final static int VERSION = 1;
+
+	/**
+	 * write sam header to OutputStream in binary form
+	 * 
+	 * @param SAMFileHeader
+	 * @param OutputStream
+	 */
+	public static void writeHeader(SAMFileHeader header, OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+
+		writeAttributes(data, header.getAttributes(), null);
+
+		List<SAMSequenceRecord> sequences = header.getSequenceDictionary().getSequences();
+		data.writeInt(sequences.size());
+		for (SAMSequenceRecord sequence : sequences) {
+			writeString(data, sequence.getSequenceName());
+			data.writeInt(sequence.getSequenceLength());
+			writeAttributes(data, sequence.getAttributes(), null);
+		}
+
+		// sample table, read groups only keep index of their sample
+		ReadGroupSampleTable sampleTable = new ReadGroupSampleTable(header);
+		data.writeInt(sampleTable.getSampleNumber());
+		for (int i = 0; i < sampleTable.getSampleNumber(); i++)
+			writeString(data, sampleTable.getSample(i));
+
+		List<SAMReadGroupRecord> readGroups = header.getReadGroups();
+		data.writeInt(readGroups.size());
+		for (int i = 0; i < readGroups.size(); i++) {
+			SAMReadGroupRecord readGroup = readGroups.get(i);
+			writeString(data, readGroup.getReadGroupId());
+			data.writeInt(sampleTable.getSampleIndex(i));
+			writeAttributes(data, readGroup.getAttributes(), SAMReadGroupRecord.READ_GROUP_SAMPLE_TAG);
+		}
+
+		List<SAMProgramRecord> programs = header.getProgramRecords();
+		data.writeInt(programs.size());
+		for (SAMProgramRecord program : programs) {
+			writeString(data, program.getProgramGroupId());
+			writeAttributes(data, program.getAttributes(), null);
+		}
+
+		List<String> comments = header.getComments();
+		data.writeInt(comments.size());
+		for (String comment : comments)
+			writeString(data, comment);
+
+		data.close();
+	}
+
+	/**
+	 * read binary sam header from local file with a single memory map
+	 */
+	public static SAMFileHeader readHeader(File file) throws IOException {
+		return readHeader(map(file));
+	}
+
+	/**
+	 * read binary sam header from hdfs
+	 */
+	public static SAMFileHeader readHeader(Path path, Configuration conf) throws IOException {
+		return readHeader(read(path, conf));
+	}
+
+	public static ByteBuffer map(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			raf.close();
+		}
+	}
+
+	public static ByteBuffer read(Path path, Configuration conf) throws IOException {
+		FileSystem fs = path.getFileSystem(conf);
+		byte[] bytes = new byte[(int) fs.getFileStatus(path).getLen()];
+		FSDataInputStream in = fs.open(path);
+		try {
+			in.readFully(0, bytes);
+		} finally {
+			in.close();
+		}
+		return ByteBuffer.wrap(bytes);
+	}
+
+	/**
+	 * crc32 of binary header bytes, buffer position is not changed
+	 */
+	public static long checksum(ByteBuffer buffer) {
+		CRC32 crc = new CRC32();
+		crc.update(buffer.duplicate());
+		return crc.getValue();
+	}
+
+	public static SAMFileHeader readHeader(ByteBuffer buffer) {
+		checkVersion(buffer);
+
+		SAMFileHeader header = new SAMFileHeader();
+		int count = buffer.getInt();
+		for (int i = 0; i < count; i++)
+			header.setAttribute(readString(buffer), readString(buffer));
+
+		count = buffer.getInt();
+		List<SAMSequenceRecord> sequences = new ArrayList<SAMSequenceRecord>(count);
+		for (int i = 0; i < count; i++) {
+			SAMSequenceRecord sequence = new SAMSequenceRecord(readString(buffer), buffer.getInt());
+			int attributes = buffer.getInt();
+			for (int j = 0; j < attributes; j++)
+				sequence.setAttribute(readString(buffer), readString(buffer));
+			sequences.add(sequence);
+		}
+		header.setSequenceDictionary(new SAMSequenceDictionary(sequences));
+
+		count = buffer.getInt();
+		String[] samples = new String[count];
+		for (int i = 0; i < count; i++)
+			samples[i] = readString(buffer);
+
+		count = buffer.getInt();
+		List<SAMReadGroupRecord> readGroups = new ArrayList<SAMReadGroupRecord>(count);
+		for (int i = 0; i < count; i++) {
+			SAMReadGroupRecord readGroup = new SAMReadGroupRecord(readString(buffer));
+			int sample = buffer.getInt();
+			if (sample >= 0)
+				readGroup.setSample(samples[sample]);
+			int attributes = buffer.getInt();
+			for (int j = 0; j < attributes; j++)
+				readGroup.setAttribute(readString(buffer), readString(buffer));
+			readGroups.add(readGroup);
+		}
+		header.setReadGroups(readGroups);
+
+		count = buffer.getInt();
+		List<SAMProgramRecord> programs = new ArrayList<SAMProgramRecord>(count);
+		for (int i = 0; i < count; i++) {
+			SAMProgramRecord program = new SAMProgramRecord(readString(buffer));
+			int attributes = buffer.getInt();
+			for (int j = 0; j < attributes; j++)
+				program.setAttribute(readString(buffer), readString(buffer));
+			programs.add(program);
+		}
+		header.setProgramRecords(programs);
+
+		count = buffer.getInt();
+		for (int i = 0; i < count; i++)
+			header.addComment(readString(buffer));
+
+		return header;
+	}
+
+	/**
+	 * read only the sample table and read group sample indexes, the other
+	 * sections are skipped without decoding their strings
+	 */
+	public static ReadGroupSampleTable readSampleTable(ByteBuffer buffer) {
+		checkVersion(buffer);
+		skipAttributes(buffer);
+		int count = buffer.getInt();
+		for (int i = 0; i < count; i++) {
+			skipString(buffer);
+			buffer.getInt();
+			skipAttributes(buffer);
+		}
+
+		count = buffer.getInt();
+		String[] samples = new String[count];
+		for (int i = 0; i < count; i++)
+			samples[i] = readString(buffer);
+
+		count = buffer.getInt();
+		String[] readGroupIDs = new String[count];
+		int[] readGroupSamples = new int[count];
+		for (int i = 0; i < count; i++) {
+			readGroupIDs[i] = readString(buffer);
+			readGroupSamples[i] = buffer.getInt();
+			skipAttributes(buffer);
+		}
+		return new ReadGroupSampleTable(samples, readGroupIDs, readGroupSamples);
+	}
+
+	private static void checkVersion(ByteBuffer buffer) {
+		if (buffer.getInt() != MAGIC)
+			throw new RuntimeException("not a binary sam header");
+		int version = buffer.getInt();
+		if (version != VERSION)
+			throw new RuntimeException("unsupported binary sam header version " + version);
+	}
+
+	private static void writeAttributes(DataOutputStream data, Set<Map.Entry<String, String>> attributes,
+			String skipTag) throws IOException {
+		int count = 0;
+		for (Map.Entry<String, String> attribute : attributes) {
+			if (!attribute.getKey().equals(skipTag) && attribute.getValue() != null)
+				count++;
+		}
+		data.writeInt(count);
+		for (Map.Entry<String, String> attribute : attributes) {
+			if (!attribute.getKey().equals(skipTag) && attribute.getValue() != null) {
+				writeString(data, attribute.getKey());
+				writeString(data, attribute.getValue());
+			}
+		}
+	}
+
+	private static void writeString(DataOutputStream data, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		data.writeInt(bytes.length);
+		data.write(bytes);
+	}
+
+	private static void skipAttributes(ByteBuffer buffer) {
+		int count = buffer.getInt();
+		for (int i = 0; i < count * 2; i++)
+			skipString(buffer);
+	}
+
+	private static void skipString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		buffer.position(buffer.position() + length);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (buffer.hasArray()) {
+			String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+					StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + length);
+			return value;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -22,17 +22,23 @@ import htsjdk.samtools.SamFileHeaderMerger;
 import htsjdk.samtools.cram.build.CramIO;
 import htsjdk.samtools.seekablestream.SeekableStream;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.filecache.DistributedCache;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.PathFilter;
 import org.apache.hadoop.fs.permission.FsAction;
 import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.mapreduce.MRJobConfig;
 import org.bgi.flexlab.gaea.data.exception.FileNotExistException;
 import org.bgi.flexlab.gaea.data.structure.header.SamFileHeader;
 import org.seqdoop.hadoop_bam.util.WrapSeekable;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -41,6 +47,16 @@ import java.util.List;
  * */
 public class SamHdfsFileHeader extends SamFileHeader {
 	public final static String BAM_HEADER_FILE_NAME = "SAMFileHeader";
+	/**
+	 * binary header written next to the text header, also the link name of
+	 * it in distributed cache
+	 */
+	public final static String BAM_HEADER_BINARY_FILE_NAME = BAM_HEADER_FILE_NAME + ".bin";
+	public final static String BAM_HEADER_BINARY_CHECKSUM = BAM_HEADER_BINARY_FILE_NAME + ".crc32";
+	/**
+	 * binary header in the directory of a sam record stream
+	 */
+	public final static String STREAM_HEADER_FILE_NAME = "_" + BAM_HEADER_BINARY_FILE_NAME;
 	protected final static SAMFileHeader.SortOrder SORT_ORDER = SAMFileHeader.SortOrder.coordinate;
 	protected static boolean MERGE_SEQUENCE_DICTIONARIES = true;
 	protected static SAMFileHeader.SortOrder headerMergerSortOrder;
@@ -74,8 +90,32 @@ public class SamHdfsFileHeader extends SamFileHeader {
 		return header;
 	}
 	
+	/**
+	 * header of a sam record stream directory or a part file in it, null if
+	 * the path isn't a stream
+	 */
+	public static SAMFileHeader getStreamHeader(FileSystem fs, Path input) throws IOException {
+		Path headerPath = new Path(input, STREAM_HEADER_FILE_NAME);
+		if (!fs.exists(headerPath)) {
+			if (input.getParent() == null)
+				return null;
+			headerPath = new Path(input.getParent(), STREAM_HEADER_FILE_NAME);
+			if (!fs.exists(headerPath))
+				return null;
+		}
+		return SamFileHeaderBinaryCodec.readHeader(fs.makeQualified(headerPath), fs.getConf());
+	}
+	
 	public static SAMFileHeader getSAMFileHeader(Path input, FileSystem fs,boolean cram) {
 		SAMFileHeader header = null;
+		try {
+			header = getStreamHeader(fs, input);
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString());
+		}
+		if (header != null)
+			return header;
+
 		if (!cram) {
 			try {
 				header = getSAMHeader(fs, input);
@@ -152,7 +192,14 @@ public class SamHdfsFileHeader extends SamFileHeader {
 			throw new FileNotExistException(input.getName());
 		}
 
-		if (status.isFile()) {
+		boolean streamHeader = false;
+		try {
+			streamHeader = !status.isFile() && fs.exists(new Path(input, STREAM_HEADER_FILE_NAME));
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString());
+		}
+
+		if (status.isFile() || streamHeader) {
 			SAMFileHeader header = getSAMFileHeader(input,fs,cram);
 			matchedSortOrders = matchedSortOrders && header.getSortOrder() == SORT_ORDER;
 			if (!contains(header, mergeHeaders))
@@ -236,6 +283,10 @@ public class SamHdfsFileHeader extends SamFileHeader {
 			}
 
 			SamFileHeaderCodec.writeHeader(header, fs.create(rankSumTestObjPath));
+
+			Path binaryPath = new Path(uri.toString() + ".bin");
+			SamFileHeaderBinaryCodec.writeHeader(header, fs.create(binaryPath));
+			distributeBinaryHeader(conf, fs.makeQualified(binaryPath));
 		} catch (IOException e) {
 			throw new RuntimeException(e.toString());
 		} finally {
@@ -247,10 +298,111 @@ public class SamHdfsFileHeader extends SamFileHeader {
 		}
 	}
 
+	/**
+	 * ship binary header to tasks through distributed cache, its checksum
+	 * tells the localized copy from a stale file of an earlier job
+	 */
+	public static void distributeBinaryHeader(Configuration conf, Path binaryPath) {
+		removeBinaryHeaderCache(conf);
+		try {
+			conf.setLong(BAM_HEADER_BINARY_CHECKSUM,
+					SamFileHeaderBinaryCodec.checksum(SamFileHeaderBinaryCodec.read(binaryPath, conf)));
+			DistributedCache.addCacheFile(new URI(binaryPath.toString() + "#" + BAM_HEADER_BINARY_FILE_NAME), conf);
+		} catch (URISyntaxException | IOException e) {
+			throw new RuntimeException(e.toString());
+		}
+		conf.set(BAM_HEADER_BINARY_FILE_NAME, binaryPath.toString());
+	}
+
+	/**
+	 * remove binary header of an earlier header from distributed cache
+	 */
+	private static void removeBinaryHeaderCache(Configuration conf) {
+		conf.unset(BAM_HEADER_BINARY_FILE_NAME);
+		conf.unset(BAM_HEADER_BINARY_CHECKSUM);
+
+		URI[] cacheFiles;
+		try {
+			cacheFiles = DistributedCache.getCacheFiles(conf);
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString());
+		}
+		if (cacheFiles == null)
+			return;
+
+		List<URI> kept = new ArrayList<URI>();
+		for (URI uri : cacheFiles) {
+			if (!BAM_HEADER_BINARY_FILE_NAME.equals(uri.getFragment()))
+				kept.add(uri);
+		}
+		if (kept.size() == cacheFiles.length)
+			return;
+		if (kept.isEmpty())
+			conf.unset(MRJobConfig.CACHE_FILES);
+		else
+			DistributedCache.setCacheFiles(kept.toArray(new URI[kept.size()]), conf);
+	}
+
+	/**
+	 * use the binary header written next to an existing text header, if any
+	 */
+	public static void setHeader(Configuration conf, String headerPath) {
+		conf.set(BAM_HEADER_FILE_NAME, headerPath);
+		removeBinaryHeaderCache(conf);
+
+		Path binaryPath = new Path(headerPath + ".bin");
+		try {
+			FileSystem fs = binaryPath.getFileSystem(conf);
+			if (fs.exists(binaryPath))
+				distributeBinaryHeader(conf, fs.makeQualified(binaryPath));
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString());
+		}
+	}
+
+	/**
+	 * bytes of the binary header, null if the job has none
+	 */
+	private static ByteBuffer getBinaryHeader(Configuration conf) {
+		if (conf.get(BAM_HEADER_BINARY_FILE_NAME) == null)
+			return null;
+		try {
+			// distributed cache link in task working directory, a file
+			// with other content is left from another job
+			File local = new File(BAM_HEADER_BINARY_FILE_NAME);
+			if (local.isFile()) {
+				ByteBuffer buffer = SamFileHeaderBinaryCodec.map(local);
+				if (SamFileHeaderBinaryCodec.checksum(buffer) == conf.getLong(BAM_HEADER_BINARY_CHECKSUM, -1))
+					return buffer;
+			}
+			return SamFileHeaderBinaryCodec.read(new Path(conf.get(BAM_HEADER_BINARY_FILE_NAME)), conf);
+		} catch (IOException e) {
+			throw new RuntimeException(e.getMessage());
+		}
+	}
+
+	/**
+	 * read group to sample table of the job header, read from the binary
+	 * header when the job has one, null if the job has no header
+	 */
+	public static ReadGroupSampleTable getSampleTable(Configuration conf) {
+		if (conf.get(BAM_HEADER_FILE_NAME) == null)
+			return null;
+
+		ByteBuffer buffer = getBinaryHeader(conf);
+		if (buffer != null)
+			return SamFileHeaderBinaryCodec.readSampleTable(buffer);
+		return new ReadGroupSampleTable(getHeader(conf));
+	}
+
 	public static SAMFileHeader getHeader(Configuration conf) {
 		if (conf.get(BAM_HEADER_FILE_NAME) == null)
 			return null;
 
+		ByteBuffer buffer = getBinaryHeader(conf);
+		if (buffer != null)
+			return SamFileHeaderBinaryCodec.readHeader(buffer);
+
 		SAMFileHeader header = null;
 		try {
 			Path headerPath = new Path(conf.get(BAM_HEADER_FILE_NAME));
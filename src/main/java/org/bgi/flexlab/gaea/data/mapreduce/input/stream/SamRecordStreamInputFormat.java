@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.input.stream;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
+
+/**
+ * read sam record streams written by SamRecordStreamOutputFormat. Keys are
+ * LongWritable like the bam/sam input formats so the same mappers can be
+ * used.
+ */
+public class SamRecordStreamInputFormat extends FileInputFormat<LongWritable, SamRecordWritable> {
+
+	@Override
+	public RecordReader<LongWritable, SamRecordWritable> createRecordReader(InputSplit split,
+			TaskAttemptContext context) {
+		return new SamRecordStreamRecordReader();
+	}
+}
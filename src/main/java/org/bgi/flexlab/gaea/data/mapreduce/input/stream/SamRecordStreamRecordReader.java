@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.input.stream;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileRecordReader;
+import org.bgi.flexlab.gaea.data.exception.FileNotExistException;
+import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
+
+import java.io.IOException;
+
+public class SamRecordStreamRecordReader extends RecordReader<LongWritable, SamRecordWritable> {
+	private final SequenceFileRecordReader<NullWritable, SamRecordWritable> reader = new SequenceFileRecordReader<NullWritable, SamRecordWritable>();
+	private final LongWritable key = new LongWritable();
+	private SAMFileHeader header = null;
+
+	@Override
+	public void initialize(InputSplit split, TaskAttemptContext context) throws IOException, InterruptedException {
+		reader.initialize(split, context);
+		header = SamHdfsFileHeader.getHeader(context.getConfiguration());
+		if (header == null)
+			throw new FileNotExistException.MissingHeaderException(((FileSplit) split).getPath().getName());
+		key.set(((FileSplit) split).getStart());
+	}
+
+	@Override
+	public boolean nextKeyValue() throws IOException, InterruptedException {
+		if (!reader.nextKeyValue())
+			return false;
+		key.set(key.get() + 1);
+		reader.getCurrentValue().get().setHeader(header);
+		return true;
+	}
+
+	@Override
+	public LongWritable getCurrentKey() {
+		return key;
+	}
+
+	@Override
+	public SamRecordWritable getCurrentValue() throws IOException, InterruptedException {
+		return reader.getCurrentValue();
+	}
+
+	@Override
+	public float getProgress() throws IOException {
+		return reader.getProgress();
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
@@ -30,6 +30,7 @@ import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.input.*;
+import org.bgi.flexlab.gaea.data.exception.UserException;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -39,6 +40,17 @@ public class AnnotationLineRecordReader extends RecordReader<LongWritable, Text>
     private static final Log LOG = LogFactory.getLog(AnnotationLineRecordReader.class);
     public static final String MAX_LINE_LENGTH =
             "mapreduce.input.linerecordreader.line.maxlength";
+    /**
+     * annotated file names, keys also carry index of the file (first field)
+     * when it is set
+     */
+    public static final String FILE_NAME_PROPERTY = "annoFileName";
+
+    /* key layout with file index: file 15 bits, contig 16 bits, position 32 bits */
+    private static final int CONTIG_SHIFT = 32;
+    private static final int FILE_SHIFT = 48;
+    public static final int MAX_CONTIGS_WITH_FILE = 1 << (FILE_SHIFT - CONTIG_SHIFT);
+    public static final int MAX_FILES = 1 << (Long.SIZE - 1 - FILE_SHIFT);
 
     private long start;
     private long pos;
@@ -53,6 +65,7 @@ public class AnnotationLineRecordReader extends RecordReader<LongWritable, Text>
     private Decompressor decompressor;
     private byte[] recordDelimiterBytes;
     private Map<String, Integer> contigIndexs;
+    private Map<String, Integer> fileIndexs = null;
 
     public AnnotationLineRecordReader() {
     }
@@ -113,6 +126,15 @@ public class AnnotationLineRecordReader extends RecordReader<LongWritable, Text>
             contigIndexs.put(contigNames[i], i);
         }
 
+        String[] fileNames = job.getStrings(FILE_NAME_PROPERTY);
+        if (fileNames != null) {
+            checkKeyLimits(fileNames.length, contigNames.length);
+            fileIndexs = new HashMap<>();
+            for (int i = 0; i < fileNames.length; i++) {
+                fileIndexs.put(fileNames[i], i);
+            }
+        }
+
     }
 
     private int maxBytesToConsume(long pos) {
@@ -121,10 +143,28 @@ public class AnnotationLineRecordReader extends RecordReader<LongWritable, Text>
                 : (int) Math.max(Math.min(Integer.MAX_VALUE, end - pos), maxLineLength);
     }
 
+    /**
+     * file and contig indexes must fit their key bits, otherwise keys would
+     * overlap and mis-sort
+     */
+    public static void checkKeyLimits(int fileCount, int contigCount) {
+        if (fileCount > MAX_FILES)
+            throw new UserException("can not sort more than " + MAX_FILES + " files at once, got " + fileCount);
+        if (contigCount > MAX_CONTIGS_WITH_FILE)
+            throw new UserException("can not sort vcf with more than " + MAX_CONTIGS_WITH_FILE
+                    + " contigs, got " + contigCount);
+    }
+
+    public static int getFileIndex(long key) {
+        return (int) (key >>> FILE_SHIFT);
+    }
+
     public long getKey(String rec) {
         String[] fields = rec.split("\t", 4);
         long keyout = contigIndexs.get(fields[1]);
-        keyout = (keyout << 32) | Integer.parseInt(fields[2]);
+        keyout = (keyout << CONTIG_SHIFT) | Integer.parseInt(fields[2]);
+        if (fileIndexs != null)
+            keyout |= (long) fileIndexs.get(fields[0]) << FILE_SHIFT;
         return keyout;
     }
 
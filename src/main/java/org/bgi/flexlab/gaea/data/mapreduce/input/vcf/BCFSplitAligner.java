@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ * This file incorporates work covered by the following copyright and 
+ * Permission notices:
+ *
+ * Copyright (c) 2010 Aalto University 
+ *
+ *     Permission is hereby granted, free of charge, to any person
+ *     obtaining a copy of this software and associated documentation
+ *     files (the "Software"), to deal in the Software without
+ *     restriction, including without limitation the rights to use,
+ *     copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *     copies of the Software, and to permit persons to whom the
+ *     Software is furnished to do so, subject to the following
+ *     conditions:
+ *  
+ *     The above copyright notice and this permission notice shall be
+ *     included in all copies or substantial portions of the Software.
+ *  
+ *     THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *     EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *     OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *     NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *     HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *     WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *     FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *     OTHER DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.input.vcf;
+
+import htsjdk.samtools.seekablestream.SeekableStream;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.seqdoop.hadoop_bam.BCFSplitGuesser;
+import org.seqdoop.hadoop_bam.FileVirtualSplit;
+import org.seqdoop.hadoop_bam.util.WrapSeekable;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * align file splits of bcf files to record boundaries. Compressed bcf
+ * results in FileVirtualSplits over BGZF blocks, uncompressed in FileSplits.
+ */
+public class BCFSplitAligner {
+
+	public static void alignSplits(List<FileSplit> splits, List<InputSplit> newSplits, Configuration conf)
+			throws IOException {
+		// addGuessedSplits() requires the given splits to be sorted by file
+		// path, so do so.
+		Collections.sort(splits, new Comparator<FileSplit>() {
+			public int compare(FileSplit a, FileSplit b) {
+				return a.getPath().compareTo(b.getPath());
+			}
+		});
+
+		for (int i = 0; i < splits.size();)
+			i = addGuessedSplits(splits, i, newSplits, conf);
+	}
+
+	// Handles all the splits that share the Path of the one at index i,
+	// returning the next index to be used.
+	private static int addGuessedSplits(List<FileSplit> splits, int i, List<InputSplit> newSplits,
+			Configuration conf) throws IOException {
+		final Path path = splits.get(i).getPath();
+		final SeekableStream sin = WrapSeekable.openPath(conf, path);
+
+		final BCFSplitGuesser guesser = new BCFSplitGuesser(sin);
+
+		final boolean isBGZF = guesser.isBGZF();
+
+		InputSplit prevSplit = null;
+
+		for (; i < splits.size(); ++i) {
+			final FileSplit fspl = splits.get(i);
+			if (!fspl.getPath().equals(path))
+				break;
+
+			final String[] locs = fspl.getLocations();
+
+			final long beg = fspl.getStart();
+			final long end = beg + fspl.getLength();
+
+			final long alignBeg = guesser.guessNextBCFRecordStart(beg, end);
+
+			// As the guesser goes to the next BGZF block before looking for BCF
+			// records, the ending BGZF blocks have to always be traversed fully.
+			// Hence force the length to be 0xffff, the maximum possible.
+			final long alignEnd = isBGZF ? end << 16 | 0xffff : end;
+
+			final long length = alignEnd - alignBeg;
+
+			if (alignBeg == end) {
+				// No records detected in this split: merge it to the previous one.
+				// If it's the first split, then this is simply not a valid BCF
+				// file or the split size is smaller than the header.
+				if (prevSplit == null)
+					throw new IOException("'" + path + "': no records in first "
+							+ "split: bad BCF file or tiny split size?");
+
+				if (isBGZF) {
+					((FileVirtualSplit) prevSplit).setEndVirtualOffset(alignEnd);
+					continue;
+				}
+				prevSplit = new FileSplit(path, alignBeg, length, locs);
+				newSplits.remove(newSplits.size() - 1);
+			} else {
+				prevSplit = isBGZF ? new FileVirtualSplit(path, alignBeg, alignEnd, locs)
+						: new FileSplit(path, alignBeg, length, locs);
+			}
+			newSplits.add(prevSplit);
+		}
+
+		sin.close();
+		return i;
+	}
+}
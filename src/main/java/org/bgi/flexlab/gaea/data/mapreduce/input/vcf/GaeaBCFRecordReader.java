@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.input.vcf;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.bgi.flexlab.gaea.data.structure.header.GaeaVCFHeader;
+import org.bgi.flexlab.gaea.data.structure.header.MultipleVCFHeader;
+import org.seqdoop.hadoop_bam.BCFRecordReader;
+import org.seqdoop.hadoop_bam.FileVirtualSplit;
+import org.seqdoop.hadoop_bam.VariantContextWritable;
+
+import java.io.IOException;
+
+/**
+ * bcf counterpart of VCFRecordReader, keys are file id in multiple vcf
+ * header. Genotypes are decoded lazily from the binary record.
+ */
+public class GaeaBCFRecordReader extends RecordReader<LongWritable, VariantContextWritable> {
+	private final BCFRecordReader reader = new BCFRecordReader();
+	private final LongWritable key = new LongWritable();
+	private MultipleVCFHeader mVcfHeader;
+
+	public GaeaBCFRecordReader(Configuration conf) {
+		mVcfHeader = (MultipleVCFHeader) GaeaVCFHeader.loadVcfHeader(false, conf);
+	}
+
+	@Override
+	public void initialize(InputSplit split, TaskAttemptContext ctx) throws IOException, InterruptedException {
+		Path file = split instanceof FileVirtualSplit ? ((FileVirtualSplit) split).getPath()
+				: ((FileSplit) split).getPath();
+		key.set(mVcfHeader.getId(file.toString()));
+		reader.initialize(split, ctx);
+	}
+
+	@Override
+	public boolean nextKeyValue() throws IOException {
+		return reader.nextKeyValue();
+	}
+
+	@Override
+	public LongWritable getCurrentKey() {
+		return key;
+	}
+
+	@Override
+	public VariantContextWritable getCurrentValue() {
+		return reader.getCurrentValue();
+	}
+
+	@Override
+	public float getProgress() throws IOException {
+		return reader.getProgress();
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
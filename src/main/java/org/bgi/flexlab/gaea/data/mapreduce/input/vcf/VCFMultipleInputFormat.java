@@ -16,6 +16,7 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.data.mapreduce.input.vcf;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.compress.CompressionCodec;
@@ -25,26 +26,85 @@ import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.seqdoop.hadoop_bam.FileVirtualSplit;
+import org.seqdoop.hadoop_bam.VCFFormat;
 import org.seqdoop.hadoop_bam.VariantContextWritable;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class VCFMultipleInputFormat extends FileInputFormat<LongWritable, VariantContextWritable> {
 
+	private final Map<Path, VCFFormat> formatMap = new HashMap<Path, VCFFormat>();
+
+	/**
+	 * vcf or bcf by file extension, or by file content if extension is unknown
+	 */
+	private VCFFormat getFormat(Path path, Configuration conf) throws IOException {
+		VCFFormat format = formatMap.get(path);
+		if (format != null)
+			return format;
+
+		format = VCFFormat.inferFromFilePath(path);
+		if (format == null) {
+			InputStream in = path.getFileSystem(conf).open(path);
+			format = VCFFormat.inferFromData(in);
+			in.close();
+		}
+		if (format == null)
+			format = VCFFormat.VCF;
+		formatMap.put(path, format);
+		return format;
+	}
+
 	@Override
 	public RecordReader<LongWritable, VariantContextWritable> createRecordReader(InputSplit split,
 			TaskAttemptContext context) throws IOException,
 			InterruptedException
 	{
+		Path path = split instanceof FileVirtualSplit ? ((FileVirtualSplit) split).getPath()
+				: ((FileSplit) split).getPath();
+		if (getFormat(path, context.getConfiguration()) == VCFFormat.BCF)
+			return new GaeaBCFRecordReader(context.getConfiguration());
 		return new VCFRecordReader(context.getConfiguration(), false);
 	}
 
 	@Override
 	protected boolean isSplitable(JobContext context, Path file)
 	{
+		try {
+			if (getFormat(file, context.getConfiguration()) == VCFFormat.BCF)
+				return true;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
 		CompressionCodec codec = new CompressionCodecFactory(context.getConfiguration()).getCodec(file);
 		return codec == null;
 	}
 
+	/**
+	 * bcf splits are aligned to record boundaries, vcf splits are left
+	 * unchanged
+	 */
+	@Override
+	public List<InputSplit> getSplits(JobContext job) throws IOException {
+		List<InputSplit> origSplits = super.getSplits(job);
+		List<FileSplit> bcfSplits = new ArrayList<FileSplit>();
+		List<InputSplit> newSplits = new ArrayList<InputSplit>(origSplits.size());
 
+		for (InputSplit split : origSplits) {
+			FileSplit fileSplit = (FileSplit) split;
+			if (getFormat(fileSplit.getPath(), job.getConfiguration()) == VCFFormat.BCF)
+				bcfSplits.add(fileSplit);
+			else
+				newSplits.add(fileSplit);
+		}
+		BCFSplitAligner.alignSplits(bcfSplits, newSplits, job.getConfiguration());
+		return newSplits;
+	}
 }
@@ -53,6 +53,16 @@ import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
 import java.io.IOException;
 
 public class GaeaBamOutputFormat<K> extends FileOutputFormat<K,SamRecordWritable> {
+	/**
+	 * BGZF deflate level, 1 is fast enough for intermediate bams
+	 */
+	public final static String COMPRESSION_LEVEL = "gaea.bam.compression.level";
+	/**
+	 * threads deflating BGZF blocks of each record writer, 0 for deflating
+	 * on the writer thread
+	 */
+	public final static String COMPRESSION_THREADS = "gaea.bam.compression.threads";
+
 	private boolean writeHeader = true;
 	
 	@Override
@@ -45,6 +45,8 @@ package org.bgi.flexlab.gaea.data.mapreduce.output.bam;
 import htsjdk.samtools.*;
 import htsjdk.samtools.util.BinaryCodec;
 import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
@@ -64,6 +66,8 @@ public class GaeaKeyIgnoringBamRecordWriter<K> extends
 	private Path outputPath;
 	private OutputStream outputStream;
 	private boolean writeHeader;
+	private int compressionLevel;
+	private int compressionThreads;
 
 	public GaeaKeyIgnoringBamRecordWriter(Path p, Boolean w,
 			TaskAttemptContext ctx) throws IOException {
@@ -71,6 +75,7 @@ public class GaeaKeyIgnoringBamRecordWriter<K> extends
 		this.outputStream = outputPath.getFileSystem(ctx.getConfiguration()).create(
 				outputPath);
 		this.writeHeader = w;
+		setCompression(ctx.getConfiguration());
 	}
 
 	public GaeaKeyIgnoringBamRecordWriter(Path p, SAMFileHeader header,Boolean w,
@@ -79,6 +84,7 @@ public class GaeaKeyIgnoringBamRecordWriter<K> extends
 		this.outputStream = outputPath.getFileSystem(ctx.getConfiguration()).create(
 				outputPath);
 		this.writeHeader = w;
+		setCompression(ctx.getConfiguration());
 		this.header = header;
 		initialize(header);
 	}
@@ -87,14 +93,24 @@ public class GaeaKeyIgnoringBamRecordWriter<K> extends
 			TaskAttemptContext ctx) {
 		this.outputStream = os;
 		this.writeHeader = w;
+		setCompression(ctx.getConfiguration());
+	}
+
+	private void setCompression(Configuration conf) {
+		compressionLevel = conf.getInt(GaeaBamOutputFormat.COMPRESSION_LEVEL,
+				BlockCompressedStreamConstants.DEFAULT_COMPRESSION_LEVEL);
+		compressionThreads = conf.getInt(GaeaBamOutputFormat.COMPRESSION_THREADS, 0);
 	}
 
 	private void initialize(SAMFileHeader header) {
 		OutputStream compressedOut = null;
-		if (outputStream != null)
-			compressedOut = new BlockCompressedOutputStream(outputStream, null);
-		else
+		if (outputStream == null)
 			compressedOut = new BlockCompressedOutputStream(outputPath.toString());
+		else if (compressionThreads > 0)
+			compressedOut = new ParallelBlockCompressedOutputStream(outputStream, compressionLevel,
+					compressionThreads);
+		else
+			compressedOut = new BlockCompressedOutputStream(outputStream, null, compressionLevel);
 
 		binaryCodec = new BinaryCodec(compressedOut);
 		bamRecordCodec = new BAMRecordCodec(header);
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.output.bam;
+
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * BGZF output stream deflating blocks on a worker pool. Bytes are cut into
+ * blocks on the caller thread and compressed blocks are written in order.
+ */
+public class ParallelBlockCompressedOutputStream extends OutputStream {
+	/* same as samtools, an incompressible block still fits in 64KB when stored */
+	private final static int BLOCK_SIZE = 0xff00;
+
+	private final OutputStream out;
+	private final int level;
+	private final int maxPendingBlocks;
+	private final ExecutorService workers;
+	private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+	private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<Deflater>();
+
+	private byte[] buffer = new byte[BLOCK_SIZE];
+	private int length = 0;
+	private boolean closed = false;
+
+	public ParallelBlockCompressedOutputStream(OutputStream out, int level, int threads) {
+		if (threads <= 0)
+			throw new IllegalArgumentException("compression threads must be greater than 0");
+		this.out = out;
+		this.level = level;
+		this.maxPendingBlocks = threads * 4;
+		this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "bgzf-deflater");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (length == BLOCK_SIZE)
+			submitBlock();
+		buffer[length++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int len) throws IOException {
+		while (len > 0) {
+			if (length == BLOCK_SIZE)
+				submitBlock();
+			int copy = Math.min(len, BLOCK_SIZE - length);
+			System.arraycopy(bytes, offset, buffer, length, copy);
+			length += copy;
+			offset += copy;
+			len -= copy;
+		}
+	}
+
+	private void submitBlock() throws IOException {
+		if (length == 0)
+			return;
+		final byte[] block = buffer;
+		final int blockLength = length;
+		pending.add(workers.submit(() -> compress(block, blockLength)));
+		buffer = new byte[BLOCK_SIZE];
+		length = 0;
+
+		while (pending.size() > maxPendingBlocks)
+			writeBlock(pending.poll());
+	}
+
+	private void writeBlock(Future<byte[]> future) throws IOException {
+		try {
+			out.write(future.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e.toString());
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private byte[] compress(byte[] block, int blockLength) {
+		Deflater deflater = deflaters.poll();
+		if (deflater == null)
+			deflater = new Deflater(level, true);
+
+		byte[] compressed = new byte[BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE];
+		int headerLength = BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH;
+		int maxDeflated = compressed.length - headerLength - BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+
+		deflater.reset();
+		deflater.setInput(block, 0, blockLength);
+		deflater.finish();
+		int deflated = deflater.deflate(compressed, headerLength, maxDeflated);
+		if (!deflater.finished()) {
+			Deflater store = new Deflater(Deflater.NO_COMPRESSION, true);
+			store.setInput(block, 0, blockLength);
+			store.finish();
+			deflated = store.deflate(compressed, headerLength, maxDeflated);
+			store.end();
+		}
+		deflaters.add(deflater);
+
+		CRC32 crc = new CRC32();
+		crc.update(block, 0, blockLength);
+
+		int total = headerLength + deflated + BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+		System.arraycopy(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK, 0, compressed, 0, headerLength);
+		writeShort(compressed, 16, total - 1);
+		writeInt(compressed, headerLength + deflated, (int) crc.getValue());
+		writeInt(compressed, headerLength + deflated + 4, blockLength);
+
+		byte[] result = new byte[total];
+		System.arraycopy(compressed, 0, result, 0, total);
+		return result;
+	}
+
+	private static void writeShort(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) value;
+		bytes[offset + 1] = (byte) (value >>> 8);
+	}
+
+	private static void writeInt(byte[] bytes, int offset, int value) {
+		writeShort(bytes, offset, value);
+		writeShort(bytes, offset + 2, value >>> 16);
+	}
+
+	/**
+	 * compress the partial block and write all pending blocks
+	 */
+	@Override
+	public void flush() throws IOException {
+		submitBlock();
+		while (!pending.isEmpty())
+			writeBlock(pending.poll());
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		try {
+			flush();
+			out.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+			out.close();
+		} finally {
+			workers.shutdownNow();
+			Deflater deflater;
+			while ((deflater = deflaters.poll()) != null)
+				deflater.end();
+		}
+	}
+}
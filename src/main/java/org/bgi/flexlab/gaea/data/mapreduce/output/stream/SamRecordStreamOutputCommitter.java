@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.output.stream;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
+import org.bgi.flexlab.gaea.data.exception.FileNotExistException;
+import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamFileHeaderBinaryCodec;
+import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
+
+import java.io.IOException;
+
+public class SamRecordStreamOutputCommitter extends FileOutputCommitter {
+	private final Path outputPath;
+
+	public SamRecordStreamOutputCommitter(Path outputPath, TaskAttemptContext context) throws IOException {
+		super(outputPath, context);
+		this.outputPath = outputPath;
+	}
+
+	/**
+	 * write the binary header once so next job can load header of the stream
+	 * directory like a bam input
+	 */
+	@Override
+	public void commitJob(JobContext context) throws IOException {
+		super.commitJob(context);
+
+		Configuration conf = context.getConfiguration();
+		SAMFileHeader header = SamHdfsFileHeader.getHeader(conf);
+		if (header == null)
+			throw new FileNotExistException.MissingHeaderException(outputPath.getName());
+
+		Path headerPath = new Path(outputPath, SamHdfsFileHeader.STREAM_HEADER_FILE_NAME);
+		FileSystem fs = headerPath.getFileSystem(conf);
+		SamFileHeaderBinaryCodec.writeHeader(header, fs.create(headerPath, true));
+	}
+}
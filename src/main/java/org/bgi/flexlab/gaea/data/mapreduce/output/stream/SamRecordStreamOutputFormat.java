@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.output.stream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.io.compress.Lz4Codec;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
+
+import java.io.IOException;
+
+/**
+ * intermediate sam record output between chained jobs: block compressed
+ * sequence files of SamRecordWritable (lz4 when native codec is loaded)
+ * instead of BGZF compressed bam. The job header is written next to the
+ * part files when job commits.
+ */
+public class SamRecordStreamOutputFormat<K> extends FileOutputFormat<K, SamRecordWritable> {
+	public final static String STREAM_CODEC = "gaea.stream.codec";
+
+	private SamRecordStreamOutputCommitter committer = null;
+
+	@Override
+	public RecordWriter<K, SamRecordWritable> getRecordWriter(TaskAttemptContext context)
+			throws IOException, InterruptedException {
+		Configuration conf = context.getConfiguration();
+		Path file = getDefaultWorkFile(context, "");
+
+		final SequenceFile.Writer out = SequenceFile.createWriter(conf, SequenceFile.Writer.file(file),
+				SequenceFile.Writer.keyClass(NullWritable.class),
+				SequenceFile.Writer.valueClass(SamRecordWritable.class),
+				SequenceFile.Writer.compression(CompressionType.BLOCK, getCodec(conf)));
+
+		return new RecordWriter<K, SamRecordWritable>() {
+			@Override
+			public void write(K key, SamRecordWritable value) throws IOException {
+				out.append(NullWritable.get(), value);
+			}
+
+			@Override
+			public void close(TaskAttemptContext context) throws IOException {
+				out.close();
+			}
+		};
+	}
+
+	public static CompressionCodec getCodec(Configuration conf) {
+		Class<? extends CompressionCodec> codecClass = conf.getClass(STREAM_CODEC, Lz4Codec.class,
+				CompressionCodec.class);
+		if (codecClass == Lz4Codec.class && !Lz4Codec.isNativeCodeLoaded())
+			codecClass = DefaultCodec.class;
+		return ReflectionUtils.newInstance(codecClass, conf);
+	}
+
+	@Override
+	public synchronized OutputCommitter getOutputCommitter(TaskAttemptContext context) throws IOException {
+		if (committer == null)
+			committer = new SamRecordStreamOutputCommitter(getOutputPath(context), context);
+		return committer;
+	}
+}
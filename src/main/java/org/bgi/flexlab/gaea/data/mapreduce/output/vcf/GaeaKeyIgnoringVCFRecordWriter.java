@@ -5,6 +5,7 @@ import java.io.OutputStream;
 
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.seqdoop.hadoop_bam.VCFFormat;
 import org.seqdoop.hadoop_bam.VariantContextWithHeader;
 import org.seqdoop.hadoop_bam.VariantContextWritable;
 
@@ -26,6 +27,13 @@ public class GaeaKeyIgnoringVCFRecordWriter<K> extends GaeaVCFRecordWriter<K> {
 		super(output, header, writeHeader, ctx);
 	}
 	
+	public GaeaKeyIgnoringVCFRecordWriter(
+			Path output, VCFHeader header, boolean writeHeader, VCFFormat format,
+			TaskAttemptContext ctx)
+		throws IOException{
+		super(output, header, writeHeader, format, ctx);
+	}
+	
 	public GaeaKeyIgnoringVCFRecordWriter(
 			OutputStream output, VCFHeader header, boolean writeHeader)
 		throws IOException{
@@ -49,6 +49,8 @@ import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.seqdoop.hadoop_bam.KeyIgnoringVCFOutputFormat;
+import org.seqdoop.hadoop_bam.VCFFormat;
+import org.seqdoop.hadoop_bam.VCFOutputFormat;
 import org.seqdoop.hadoop_bam.VariantContextWritable;
 
 import java.io.IOException;
@@ -84,12 +86,20 @@ public class GaeaVCFOutputFormat<K> extends FileOutputFormat<K, VariantContextWr
         if(conf.getBoolean(GaeaVCFOutputFormat.HEADER_MODIFY, false)){
         	final boolean wh = context.getConfiguration().getBoolean(
         			KeyIgnoringVCFOutputFormat.WRITE_HEADER_PROPERTY, true);
-        	return new GaeaKeyIgnoringVCFRecordWriter<K>(getDefaultWorkFile(context, ""),baseOF.getHeader(),wh,context);
+        	return new GaeaKeyIgnoringVCFRecordWriter<K>(getDefaultWorkFile(context, ""),baseOF.getHeader(),wh,
+        			getFormat(conf),context);
         }
 
         return baseOF.getRecordWriter(context, getDefaultWorkFile(context, ""));
     }
 
+    /**
+     * VCF or BCF by {@link VCFOutputFormat#OUTPUT_VCF_FORMAT_PROPERTY}, VCF if unset
+     */
+    public static VCFFormat getFormat(Configuration conf) {
+        return VCFFormat.valueOf(conf.get(VCFOutputFormat.OUTPUT_VCF_FORMAT_PROPERTY, "VCF").toUpperCase());
+    }
+
     // Allow the output directory to exist.
     @Override public void checkOutputSpecs(JobContext job) {}
 }
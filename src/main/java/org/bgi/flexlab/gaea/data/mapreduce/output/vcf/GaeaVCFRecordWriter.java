@@ -10,9 +10,11 @@ import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.seqdoop.hadoop_bam.LazyBCFGenotypesContext;
 import org.seqdoop.hadoop_bam.LazyParsingGenotypesContext;
 import org.seqdoop.hadoop_bam.LazyVCFGenotypesContext;
+import org.seqdoop.hadoop_bam.VCFFormat;
 import org.seqdoop.hadoop_bam.VCFRecordWriter;
 import org.seqdoop.hadoop_bam.VariantContextWritable;
 
+import htsjdk.samtools.util.BlockCompressedOutputStream;
 import htsjdk.tribble.readers.AsciiLineReader;
 import htsjdk.tribble.readers.AsciiLineReaderIterator;
 import htsjdk.variant.variantcontext.GenotypesContext;
@@ -65,6 +67,18 @@ public abstract class GaeaVCFRecordWriter<K> extends RecordWriter<K,VariantConte
 	{
 		init(output, header, writeHeader);
 	}
+	/** BCF output is BGZF compressed and needs the header before any record. */
+	public GaeaVCFRecordWriter(
+			Path output, VCFHeader header, boolean writeHeader, VCFFormat format,
+			TaskAttemptContext ctx)
+		throws IOException
+	{
+		OutputStream out = output.getFileSystem(ctx.getConfiguration()).create(output);
+		if (format == VCFFormat.BCF)
+			initBCF(out, header, writeHeader);
+		else
+			init(out, header, writeHeader);
+	}
 
 	// Working around not being able to call a constructor other than as the
 	// first statement...
@@ -93,6 +107,24 @@ public abstract class GaeaVCFRecordWriter<K> extends RecordWriter<K,VariantConte
 			setInputHeader(this.header = header);
 	}
 	
+	private void initBCF(
+			OutputStream output, VCFHeader header, boolean writeHeader)
+	{
+		final StoppableOutputStream stopOut = new StoppableOutputStream(
+			!writeHeader, new BlockCompressedOutputStream(output, null));
+
+		writer = VariantContextWriterFactory.createBcf2(
+			null, stopOut, null, VariantContextWriterFactory.NO_OPTIONS);
+
+		// records can't be encoded without the dictionaries of header
+		if (header != null) {
+			setInputHeader(this.header = header);
+			initWriter(header);
+		}
+
+		stopOut.stopped = false;
+	}
+
 	private void initWriter(VCFHeader vcfHeader){
 		if(!writerHeaderIsInit){
 			writer.writeHeader(vcfHeader);
@@ -121,6 +121,17 @@ public class WindowsBasedWritable implements WritableComparable<WindowsBasedWrit
 		return (int)(hashcode & 0xffffffff);
 	}
 
+	/*
+	 * consecutive windowsPerBlock windows of a sample share one partition
+	 */
+	public int blockPartition(int windowsPerBlock) {
+		int hashcode = (getChromosomeIndex() + 1);
+		hashcode += (getWindowsNumber() / windowsPerBlock + 1);
+		hashcode += (getSampleID() + 1);
+
+		return (int)(hashcode & 0xffffffff);
+	}
+
 	@Override
 	public boolean equals(Object other) {
 		if (other instanceof WindowsBasedWritable) {
@@ -136,10 +136,8 @@ public class ChromosomeDbsnpSoapShare extends BioMemoryShare {
 			return null;
 		}
 
-		byteBuffer[0].position(index * dbsnpSize);
-		snpBasicInfo = byteBuffer[0].get();
-		alleleFreq = byteBuffer[0].getFloat();
-		byteBuffer[0].position(0);
+		snpBasicInfo = byteBuffer[0].get(index * dbsnpSize);
+		alleleFreq = byteBuffer[0].getFloat(index * dbsnpSize + 1);
 
 		snpinfo.setSnpBasicInformation(snpBasicInfo);
 		snpinfo.setAlleleFreq(alleleFreq);
@@ -29,6 +29,7 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.seqdoop.hadoop_bam.VCFFormat;
 import org.seqdoop.hadoop_bam.util.VCFHeaderReader;
 import org.seqdoop.hadoop_bam.util.WrapSeekable;
 
@@ -89,6 +90,16 @@ public class SingleVCFHeader extends GaeaVCFHeader implements Serializable{
 			throw new RuntimeException(vcfPath.toString() + " is not a file. GaeaSingleVcfHeader parser only support one vcf file.");
 		}
 		FSDataInputStream in = fs.open(vcfPath);
+		VCFFormat format = VCFFormat.inferFromData(in);
+		in.close();
+		if (format == VCFFormat.BCF) {
+			readHeaderFrom(vcfPath, fs);
+			sampleNames.addAll(vcfHeader.getGenotypeSamples());
+			buildHeaderInfo();
+			return;
+		}
+		// inferFromData closes the stream, open it again instead of seeking back
+		in = fs.open(vcfPath);
 		AsciiLineReaderIterator it = new AsciiLineReaderIterator(new AsciiLineReader(in));
 	    VCFCodec codec = new VCFCodec();
 	    Object header = codec.readHeader(it);
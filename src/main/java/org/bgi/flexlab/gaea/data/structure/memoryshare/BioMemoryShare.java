@@ -21,6 +21,7 @@ import org.bgi.flexlab.gaea.data.exception.OutOfBoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
@@ -101,9 +102,10 @@ public class BioMemoryShare {
 			pose = end / capacity;
 		}
 		bases = new byte[pose - posi + 1];
-		byteBuffer[0].position(posi);
-		byteBuffer[0].get(bases, 0, pose - posi + 1);
-		byteBuffer[0].position(0);
+		// threads share the mapped buffer, read through a view with its own position
+		ByteBuffer view = byteBuffer[0].duplicate();
+		view.position(posi);
+		view.get(bases, 0, pose - posi + 1);
 
 		return bases;
 	}
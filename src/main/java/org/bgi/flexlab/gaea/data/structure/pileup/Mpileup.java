@@ -19,8 +19,8 @@ package org.bgi.flexlab.gaea.data.structure.pileup;
 import org.bgi.flexlab.gaea.data.structure.alignment.AlignmentsBasic;
 import org.bgi.flexlab.gaea.data.structure.pileup.filter.PileupFilter;
 
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 
 public class Mpileup implements MpileupInterface<Pileup>{
@@ -31,10 +31,34 @@ public class Mpileup implements MpileupInterface<Pileup>{
 	private ReadsPool readsPool;
 
 	/**
-	 * sample -> pileup
+	 * sample index -> pileup
+	 */
+	private Pileup[] samplePileups = new Pileup[1];
+
+	/**
+	 * sample index -> sample name, only looked up when sample becomes active
+	 */
+	private String[] sampleNames = new String[1];
+
+	/**
+	 * indexes of samples that have reads in pileup
+	 */
+	private int[] activeSamples = new int[1];
+
+	private boolean[] isActive = new boolean[1];
+
+	private int activeSampleSize = 0;
+
+	/**
+	 * sample -> pileup of active samples
 	 */
 	private Map<String, Pileup> pileups = new HashMap<>();
 
+	/**
+	 * sample -> pileup at current position, reused for each position
+	 */
+	private Map<String, Pileup> posPileups = new HashMap<>();
+
 	/**
 	 * end of pileup position
 	 */
@@ -68,17 +92,35 @@ public class Mpileup implements MpileupInterface<Pileup>{
 		this.filter = filter;
 	}
 
+	private void ensureSampleCapacity(int sampleIndex) {
+		if (sampleIndex < samplePileups.length)
+			return;
+		int capacity = Math.max(sampleIndex + 1, samplePileups.length * 2);
+		samplePileups = Arrays.copyOf(samplePileups, capacity);
+		sampleNames = Arrays.copyOf(sampleNames, capacity);
+		activeSamples = Arrays.copyOf(activeSamples, capacity);
+		isActive = Arrays.copyOf(isActive, capacity);
+	}
+
 	/**
 	 * add reads
 	 * @param read read
 	 * @param pos position
 	 */
 	protected void addReads2Pileup(AlignmentsBasic read, int pos) {
-		Pileup pileup = pileups.get(read.getSample());
-		if (pileup == null) {
+		int sampleIndex = read.getSampleIndex();
+		ensureSampleCapacity(sampleIndex);
+
+		Pileup pileup = samplePileups[sampleIndex];
+		if (!isActive[sampleIndex]) {
+			if (sampleNames[sampleIndex] == null)
+				sampleNames[sampleIndex] = read.getSample();
 			pileup = new Pileup();
 			pileup.setPosition(pos);
-			pileups.put(read.getSample(), pileup);
+			samplePileups[sampleIndex] = pileup;
+			isActive[sampleIndex] = true;
+			activeSamples[activeSampleSize++] = sampleIndex;
+			pileups.put(sampleNames[sampleIndex], pileup);
 		}
 		pileup.addReads(read);
 	}
@@ -88,16 +130,12 @@ public class Mpileup implements MpileupInterface<Pileup>{
 	 * @return is Empty of all sample pileup
 	 */
 	public boolean allEmpty() {
-		boolean allEmpty = true;
-		for (String sample : pileups.keySet()) {
-			Pileup pileup = pileups.get(sample);
-			if (!pileup.isEmpty()) {
-				allEmpty = false;
-				break;
-			}
+		for (int i = 0; i < activeSampleSize; i++) {
+			if (!samplePileups[activeSamples[i]].isEmpty())
+				return false;
 		}
 
-		return allEmpty;
+		return true;
 	}
 
 	/**
@@ -108,23 +146,26 @@ public class Mpileup implements MpileupInterface<Pileup>{
 	 */
 	public int forwardPosition(int minPosition, int size) {
 		int minimumPosition = Integer.MAX_VALUE;
+		int kept = 0;
 		// forward position
-		@SuppressWarnings("rawtypes")
-		java.util.Iterator it = pileups.entrySet().iterator();
-		while(it.hasNext()){
-			@SuppressWarnings("rawtypes")
-			java.util.Map.Entry entry = (java.util.Map.Entry) it.next();
-			Pileup pileup = (Pileup)entry.getValue();
+		for (int i = 0; i < activeSampleSize; i++) {
+			int sampleIndex = activeSamples[i];
+			Pileup pileup = samplePileups[sampleIndex];
 			if (pileup.getPosition() == minPosition) {
 				pileup.forwardPosition(size);
 			}
 
-			if(pileup.getPosition() < minimumPosition && !pileup.isEmpty())
-				minimumPosition = pileup.getPosition();
-			else if(pileup.isEmpty()){
-				it.remove();
+			if (pileup.isEmpty()) {
+				isActive[sampleIndex] = false;
+				pileups.remove(sampleNames[sampleIndex]);
+				continue;
 			}
+
+			if (pileup.getPosition() < minimumPosition)
+				minimumPosition = pileup.getPosition();
+			activeSamples[kept++] = sampleIndex;
 		}
+		activeSampleSize = kept;
 
 		return minimumPosition;
 	}
@@ -166,48 +207,44 @@ public class Mpileup implements MpileupInterface<Pileup>{
 	 * @param posPlps
 	 */
 	public void syn(int minPosition,Map<String, Pileup> posPlps) {
-		@SuppressWarnings("rawtypes")
-		Iterator it = pileups.entrySet().iterator();
-		while(it.hasNext()){
-			@SuppressWarnings("rawtypes")
-			java.util.Map.Entry entry = (java.util.Map.Entry) it.next();
-			Pileup plp = (Pileup)entry.getValue();
+		for (int i = 0; i < activeSampleSize; i++) {
+			int sampleIndex = activeSamples[i];
+			Pileup plp = samplePileups[sampleIndex];
 			if (plp.getPosition() == minPosition) {
 				plp.calculateBaseInfo();
 				if(filter != null) {
 					plp.setFilterPileup(filter.filter(plp));
 				}
-				String sample = (String)entry.getKey();
-				posPlps.put(sample, plp);
+				posPlps.put(sampleNames[sampleIndex], plp);
 			}
 		}
 	}
 
 
+	/**
+	 * the returned map is reused by next call.
+	 */
 	public Map<String, Pileup> getNextPosPileup() {
 		if (position > end)
 			return null;
-		//System.err.println("forward position:" + position);
 		int minPosition = forwardPosition(position, 1);
-		//System.err.println("add reads:" + minPosition);
 		position = addReads(minPosition);
 
 		if (minPosition != Integer.MAX_VALUE && position != minPosition)
 			throw new RuntimeException("error in" + position + "\t" + minPosition);
 		if (position > end || allEmpty())
 			return null;
-		//System.err.println("syn pileups:" + position);
-		Map<String, Pileup> posPlps = new HashMap<String, Pileup>();
-		syn(position, posPlps);
+		posPileups.clear();
+		syn(position, posPileups);
 
-		return posPlps;
+		return posPileups;
 	}
 
 	public int getMinPositionInPlp() {
 		int minPosition = Integer.MAX_VALUE;
 
-		for (String sample : pileups.keySet()) {
-			Pileup pileup = pileups.get(sample);
+		for (int i = 0; i < activeSampleSize; i++) {
+			Pileup pileup = samplePileups[activeSamples[i]];
 			if (minPosition > pileup.getPosition() && !pileup.isEmpty()) {
 				minPosition = pileup.getPosition();
 			}
@@ -236,19 +273,23 @@ public class Mpileup implements MpileupInterface<Pileup>{
 	}
 
 	public int getSize() {
-		return pileups.size();
+		return activeSampleSize;
 	}
 	
 	public void clear(){
+		for (int i = 0; i < activeSampleSize; i++)
+			isActive[activeSamples[i]] = false;
+		activeSampleSize = 0;
+		Arrays.fill(samplePileups, null);
 		pileups.clear();
+		posPileups.clear();
 	}
 
 	public int totalDepth(boolean isFiltered) {
 		int depth = 0;
-		for(String sample : pileups.keySet()) {
-			depth += pileups.get(sample).depthOfCoverage(isFiltered);
+		for (int i = 0; i < activeSampleSize; i++) {
+			depth += samplePileups[activeSamples[i]].depthOfCoverage(isFiltered);
 		}
 		return depth;
 	}
 }
-
@@ -90,14 +90,16 @@ public class Pileup implements PileupInterface<PileupReadInfo> {
 	 * remove proccessed reads
 	 */
 	public void remove() {
+		int kept = 0;
 		for (int i = 0; i < plp.size(); i++) {
 			PileupReadInfo posRead = plp.get(i);
 
-			if (position > posRead.getEnd()) {
-				plp.remove(i);
-				i--;
+			if (position <= posRead.getEnd()) {
+				plp.set(kept++, posRead);
 			}
 		}
+		if (kept < plp.size())
+			plp.subList(kept, plp.size()).clear();
 	}
 
 	/**
@@ -113,7 +113,6 @@ public class PileupReadInfo {
 		this.readInfo = readInfo;
 		cigarState.parseCigar(readInfo.getCigars());
 		end = readInfo.calculateReadEnd();
-		sample = readInfo.getSample();
 	}
 
 	/**
@@ -381,6 +380,8 @@ public class PileupReadInfo {
 	}
 
 	public String getSample() {
+		if (sample == null && readInfo != null)
+			sample = readInfo.getSample();
 		return sample;
 	}
 
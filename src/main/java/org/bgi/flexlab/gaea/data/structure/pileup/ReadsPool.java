@@ -32,6 +32,8 @@ public class ReadsPool implements Iterator {
 
     private Iterator<AlignmentBasicWritable> alignments;
 
+    private int readsNumber = 0;
+
     public ReadsPool(Iterator<GaeaSamRecord> samReads, SAMFileHeader header) {
         this.samReads = samReads;
         isSAM = true;
@@ -51,6 +53,7 @@ public class ReadsPool implements Iterator {
         } else {
             alignment = alignments.next().getAlignment();
         }
+        readsNumber++;
 
         return alignment;
     }
@@ -63,4 +66,11 @@ public class ReadsPool implements Iterator {
             return alignments.hasNext();
         }
     }
+
+    /**
+     * number of reads returned by next()
+     */
+    public int getReadsNumber() {
+        return readsNumber;
+    }
 }
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.structure.reads;
+
+import org.apache.hadoop.io.Text;
+
+/**
+ * fastq record of the quality control reducer, value "name\tsequence\tsampleID\tquality"
+ * or a single adaptor flag field. the value is copied into a reusable buffer and
+ * fields are kept as slices of it, trimming only moves offsets.
+ */
+public class FastqRecordBuffer {
+	private static final byte[] NEW_LINE = { '\n' };
+
+	private byte[] buffer = new byte[512];
+	private int length;
+
+	private int nameEnd;
+	private int sequenceStart;
+	private int sampleStart;
+	private int sampleEnd;
+	private int qualityStart;
+	private int readLength;
+	private boolean adaptor;
+
+	public void set(Text value) {
+		length = value.getLength();
+		if (buffer.length < length)
+			buffer = new byte[Math.max(length, buffer.length * 2)];
+		System.arraycopy(value.getBytes(), 0, buffer, 0, length);
+
+		nameEnd = indexOf('\t', 0);
+		adaptor = nameEnd < 0;
+		if (adaptor) {
+			nameEnd = length;
+			return;
+		}
+		sequenceStart = nameEnd + 1;
+		int sequenceEnd = indexOf('\t', sequenceStart);
+		sampleStart = sequenceEnd + 1;
+		sampleEnd = sequenceEnd < 0 ? -1 : indexOf('\t', sampleStart);
+		if (sampleEnd < 0)
+			throw new RuntimeException("bad fastq record.\n" + value.toString());
+		qualityStart = sampleEnd + 1;
+		int qualityEnd = indexOf('\t', qualityStart);
+		if (qualityEnd < 0)
+			qualityEnd = length;
+		readLength = sequenceEnd - sequenceStart;
+		if (qualityEnd - qualityStart != readLength)
+			throw new RuntimeException("sequence and quality length are different.\n" + value.toString());
+	}
+
+	private int indexOf(char c, int from) {
+		for (int i = from; i < length; i++) {
+			if (buffer[i] == c)
+				return i;
+		}
+		return -1;
+	}
+
+	private static int parseInt(byte[] bytes, int start, int end) {
+		while (start < end && bytes[start] == ' ')
+			start++;
+		while (end > start && bytes[end - 1] == ' ')
+			end--;
+		if (start == end)
+			throw new NumberFormatException("empty number in fastq record.");
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			int digit = bytes[i] - '0';
+			if (digit < 0 || digit > 9)
+				throw new NumberFormatException(new String(bytes, start, end - start));
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	/**
+	 * @return true if value only holds the adaptor flag of a read
+	 */
+	public boolean isAdaptor() {
+		return adaptor;
+	}
+
+	public int getAdaptorFlag() {
+		return parseInt(buffer, 0, nameEnd);
+	}
+
+	public String getReadName() {
+		return new String(buffer, 0, nameEnd);
+	}
+
+	/**
+	 * @return number after the last '/' of read name
+	 */
+	public int getReadFlag() {
+		int index = nameEnd - 1;
+		while (index >= 0 && buffer[index] != '/')
+			index--;
+		return parseInt(buffer, index + 1, nameEnd);
+	}
+
+	public boolean isFirstRead() {
+		int index = nameEnd - 1;
+		while (index >= 0 && buffer[index] != '/')
+			index--;
+		if (index < 0)
+			return true;
+		return nameEnd - index == 2 && buffer[index + 1] == '1';
+	}
+
+	public boolean sampleIDEquals(FastqRecordBuffer other) {
+		int len = sampleEnd - sampleStart;
+		if (len != other.sampleEnd - other.sampleStart)
+			return false;
+		for (int i = 0; i < len; i++) {
+			if (buffer[sampleStart + i] != other.buffer[other.sampleStart + i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return sample index, 0 if sample id is "+"
+	 */
+	public int getSampleIndex() {
+		if (sampleEnd - sampleStart == 1 && buffer[sampleStart] == '+')
+			return 0;
+		return parseInt(buffer, sampleStart, sampleEnd);
+	}
+
+	public byte[] getBuffer() {
+		return buffer;
+	}
+
+	public int getSequenceOffset() {
+		return sequenceStart;
+	}
+
+	public int getQualityOffset() {
+		return qualityStart;
+	}
+
+	public int getReadLength() {
+		return readLength;
+	}
+
+	public void trim(int leftTrim, int rightTrim) {
+		if (leftTrim > 0 || rightTrim > 0) {
+			if (leftTrim + rightTrim >= readLength)
+				throw new RuntimeException(
+						"Trim length is bigger than reads length!");
+			sequenceStart += leftTrim;
+			qualityStart += leftTrim;
+			readLength -= leftTrim + rightTrim;
+		}
+	}
+
+	/**
+	 * keep the last length bases of read
+	 */
+	public void trimLeft(int length) {
+		sequenceStart += readLength - length;
+		qualityStart += readLength - length;
+		readLength = length;
+	}
+
+	/**
+	 * keep the first length bases of read
+	 */
+	public void trimRight(int length) {
+		readLength = length;
+	}
+
+	/**
+	 * append record in fastq lines to out, base qualities are lowered by
+	 * qualTrim in place
+	 */
+	public void appendTo(Text out, int qualTrim) {
+		out.append(buffer, 0, nameEnd);
+		out.append(NEW_LINE, 0, 1);
+		out.append(buffer, sequenceStart, readLength);
+		out.append(NEW_LINE, 0, 1);
+		out.append(buffer, sampleStart, sampleEnd - sampleStart);
+		out.append(NEW_LINE, 0, 1);
+		if (qualTrim != 0) {
+			for (int i = qualityStart; i < qualityStart + readLength; i++)
+				buffer[i] -= qualTrim;
+		}
+		out.append(buffer, qualityStart, readLength);
+	}
+}
@@ -16,9 +16,10 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.data.structure.reads;
 
+import java.util.Arrays;
+
 import org.bgi.flexlab.gaea.data.structure.reads.report.FastqQualityControlReport;
 import org.bgi.flexlab.gaea.tools.mapreduce.fastqqualitycontrol.FastqQualityControlOptions;
-import org.bgi.flexlab.gaea.util.ArrayListLongWrap;
 import org.bgi.flexlab.gaea.util.BaseUtils;
 
 public class ReadBasicStatistics {
@@ -26,7 +27,7 @@ public class ReadBasicStatistics {
 	private short baseNumber;
 	private short lowQualityBaseNumber;
 	private FastqQualityControlOptions option;
-	private String sampleID = null;
+	private FastqRecordBuffer sampleRecord = null;
 	private boolean sampleIDException = false;
 
 	private byte readCount;
@@ -35,7 +36,11 @@ public class ReadBasicStatistics {
 	private boolean[] tooManyNCounter = new boolean[2];
 	private boolean[] hasAdaptor = new boolean[2];
 	
-	private ArrayListLongWrap[] baseByPosition;
+	/**
+	 * counts by read position, only the first positionSize entries are used
+	 */
+	private int[][] baseByPosition;
+	private int[] positionSize;
 	private final int SIZE = FastqQualityControlReport.BASE_STATIC_COUNT/2;
 
 	public ReadBasicStatistics(FastqQualityControlOptions option) {
@@ -43,27 +48,57 @@ public class ReadBasicStatistics {
 		this.lowQualityBaseNumber = 0;
 		this.baseNumber = 0;
 		this.option = option;
-		this.baseByPosition = new ArrayListLongWrap[SIZE];
-		
-		for(int i=0;i<SIZE;i++)
-			baseByPosition[i] = new ArrayListLongWrap();
+		this.baseByPosition = new int[SIZE][256];
+		this.positionSize = new int[SIZE];
+	}
+	
+	/**
+	 * clear counts so the statistics can be reused for next read pair
+	 */
+	public void reset() {
+		Arrays.fill(basicCounts, (short) 0);
+		baseNumber = 0;
+		lowQualityBaseNumber = 0;
+		sampleRecord = null;
+		sampleIDException = false;
+		readCount = 0;
+		for (int i = 0; i < 2; i++) {
+			lowQualityRead[i] = false;
+			tooManyNCounter[i] = false;
+			hasAdaptor[i] = false;
+		}
+		for (int i = 0; i < SIZE; i++) {
+			Arrays.fill(baseByPosition[i], 0, positionSize[i], 0);
+			positionSize[i] = 0;
+		}
 	}
 	
-	private void setSampleID(String sID){
-		if(sampleID == null)
-			sampleID = sID;
-		else if(!sampleID.equals(sID)){
+	private void setSampleID(FastqRecordBuffer read){
+		if(sampleRecord == null)
+			sampleRecord = read;
+		else if(!sampleRecord.sampleIDEquals(read)){
 			sampleIDException = true;
 		}
 	}
+	
+	private void addPosition(int index, int position) {
+		baseByPosition[index][position]++;
+		if (position >= positionSize[index])
+			positionSize[index] = position + 1;
+	}
 
-	public void countBase(ReadInformationWithSampleID read, int flag) {
+	public void countBase(FastqRecordBuffer read, int flag) {
 		this.readCount++;
-		setSampleID(read.getSampleID());
-		byte[] basic = read.getReadsSequence().getBytes();
-		byte[] quality = read.getQualityString().getBytes();
+		setSampleID(read);
+		byte[] buffer = read.getBuffer();
+		int basic = read.getSequenceOffset();
+		int quality = read.getQualityOffset();
 
 		int length = read.getReadLength();
+		if (length > baseByPosition[0].length) {
+			for (int i = 0; i < SIZE; i++)
+				baseByPosition[i] = Arrays.copyOf(baseByPosition[i], Math.max(length, baseByPosition[i].length * 2));
+		}
 
 		this.baseNumber += length;
 
@@ -71,22 +106,22 @@ public class ReadBasicStatistics {
 		short nCount = 0;
 
 		for (int i = 0; i < length; i++) {
-			int posQuality = quality[i] - option.getQuality();
+			int posQuality = buffer[quality + i] - option.getQuality();
 
 			if (posQuality >= 20) {
 				basicCounts[5]++;
-				baseByPosition[5].add(i, 1);
+				addPosition(5, i);
 			}
 			if (posQuality >= 30) {
 				basicCounts[6]++;
-				baseByPosition[6].add(i, 1);
+				addPosition(6, i);
 			}
 			if (posQuality < option.getLowQuality()) {
 				lowQual++;
 			}
-			int baseIndex = BaseUtils.getBinaryBase(basic[i]);
+			int baseIndex = BaseUtils.getBinaryBase(buffer[basic + i]);
 			basicCounts[baseIndex]++;
-			baseByPosition[baseIndex].add(i, 1);
+			addPosition(baseIndex, i);
 
 			if (baseIndex == 4)
 				nCount++;
@@ -172,11 +207,18 @@ public class ReadBasicStatistics {
 		return sampleIDException;
 	}
 	
-	public String getSampleID(){
-		return this.sampleID;
+	/**
+	 * @return sample index of the reads, 0 if sample id is "+"
+	 */
+	public int getSampleIndex(){
+		return this.sampleRecord.getSampleIndex();
 	}
 	
-	public ArrayListLongWrap getPositionInfo(int index){
+	public int[] getPositionInfo(int index){
 		return this.baseByPosition[index];
 	}
+	
+	public int getPositionSize(int index){
+		return this.positionSize[index];
+	}
 }
@@ -110,14 +110,14 @@ public class FastqQualityControlReport {
 
 		int i;
 		for (i = 0; i < (BASE_STATIC_COUNT / 2); i++) {
-			BASE_BY_POSITION[sampleID][i].add(stat.getPositionInfo(i));
+			BASE_BY_POSITION[sampleID][i].add(stat.getPositionInfo(i), stat.getPositionSize(i));
 		}
 
 		if (isClean) {
 			int start = BASE_STATIC_COUNT / 2;
 			for (i = start; i < BASE_STATIC_COUNT; i++) {
 				BASE_BY_POSITION[sampleID][i].add(stat.getPositionInfo(i
-						- start));
+						- start), stat.getPositionSize(i - start));
 			}
 		}
 	}
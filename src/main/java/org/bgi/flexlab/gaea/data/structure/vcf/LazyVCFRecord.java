@@ -0,0 +1,310 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.structure.vcf;
+
+import htsjdk.variant.vcf.VCFConstants;
+
+import java.util.Arrays;
+
+/**
+ * VCF line tokenized on demand. Site columns are located when a line is set,
+ * INFO values are looked up when asked and only FORMAT fields declared by the
+ * tool are decoded, into one primitive array per field.
+ */
+public class LazyVCFRecord {
+	public static final int NO_CALL = -1;
+	
+	/**
+	 * second allele of a haploid genotype
+	 */
+	public static final int NO_ALLELE = -2;
+	
+	public static final int MISSING_VALUE = Integer.MIN_VALUE;
+	
+	private static final int FORMAT_COLUMN = 8;
+	private static final char UNPHASED_CHAR = VCFConstants.UNPHASED.charAt(0);
+	private static final char PHASED_CHAR = VCFConstants.PHASED.charAt(0);
+	
+	private final String[] formatFields;
+	
+	private final int[][] formatValues;
+	
+	private String line;
+	
+	private final int[] columnStarts = new int[FORMAT_COLUMN + 2];
+	
+	private int columnSize;
+	
+	private int start;
+	
+	private String genotypeData;
+	
+	private int genotypeOffset;
+	
+	private boolean formatDecoded;
+	
+	private int sampleSize;
+	
+	/**
+	 * @param formatFields FORMAT keys to decode, GT is decoded into two allele
+	 *        indexes per sample, other keys into the first integer value
+	 */
+	public LazyVCFRecord(String... formatFields) {
+		this.formatFields = formatFields;
+		formatValues = new int[formatFields.length][];
+		for(int i = 0; i < formatFields.length; i++)
+			formatValues[i] = new int[0];
+	}
+	
+	/**
+	 * @return false for header and empty lines
+	 */
+	public boolean parse(String line) {
+		if(line.isEmpty() || line.charAt(0) == '#')
+			return false;
+		this.line = line;
+		columnSize = 0;
+		columnStarts[columnSize++] = 0;
+		for(int i = 0; i < line.length() && columnSize <= FORMAT_COLUMN; i++) {
+			if(line.charAt(i) == '\t')
+				columnStarts[columnSize++] = i + 1;
+		}
+		columnStarts[columnSize] = line.length() + 1;
+		if(columnSize <= FORMAT_COLUMN - 1)
+			throw new IllegalArgumentException("VCF line has less than 8 columns: " + line);
+		start = Integer.parseInt(getColumn(1));
+		
+		genotypeData = line;
+		genotypeOffset = columnSize > FORMAT_COLUMN ? columnStarts[FORMAT_COLUMN] : -1;
+		formatDecoded = false;
+		return true;
+	}
+	
+	/**
+	 * set FORMAT and sample columns alone, as kept unparsed by htsjdk lazy
+	 * genotypes. Site getters still refer to the last parsed line.
+	 */
+	public void setGenotypeColumns(String genotypeData) {
+		this.genotypeData = genotypeData;
+		genotypeOffset = 0;
+		formatDecoded = false;
+	}
+	
+	private String getColumn(int index) {
+		return line.substring(columnStarts[index], columnStarts[index + 1] - 1);
+	}
+	
+	public String getContig() {
+		return getColumn(0);
+	}
+	
+	public int getStart() {
+		return start;
+	}
+	
+	public int getEnd() {
+		return start + getReference().length() - 1;
+	}
+	
+	public String getID() {
+		return getColumn(2);
+	}
+	
+	public String getReference() {
+		return getColumn(3);
+	}
+	
+	public String getAlternate() {
+		return getColumn(4);
+	}
+	
+	public boolean isVariant() {
+		return !getAlternate().equals(VCFConstants.EMPTY_ALTERNATE_ALLELE_FIELD);
+	}
+	
+	public String getQual() {
+		return getColumn(5);
+	}
+	
+	public String getFilter() {
+		return getColumn(6);
+	}
+	
+	/**
+	 * @return value of INFO key, empty string for flags, null if absent
+	 */
+	public String getInfo(String key) {
+		int from = columnStarts[7];
+		int end = columnStarts[8] - 1;
+		while(from < end) {
+			int next = line.indexOf(VCFConstants.INFO_FIELD_SEPARATOR_CHAR, from);
+			if(next < 0 || next > end)
+				next = end;
+			if(line.startsWith(key, from)) {
+				int keyEnd = from + key.length();
+				if(keyEnd == next)
+					return "";
+				if(line.charAt(keyEnd) == '=')
+					return line.substring(keyEnd + 1, next);
+			}
+			from = next + 1;
+		}
+		return null;
+	}
+	
+	public boolean hasInfo(String key) {
+		return getInfo(key) != null;
+	}
+	
+	public int getSampleSize() {
+		decodeFormat();
+		return sampleSize;
+	}
+	
+	/**
+	 * @return allele indexes of FORMAT field, two per sample, or values of
+	 *         field for each sample
+	 */
+	public int[] getFormatValues(String field) {
+		for(int i = 0; i < formatFields.length; i++) {
+			if(formatFields[i].equals(field)) {
+				decodeFormat();
+				return formatValues[i];
+			}
+		}
+		throw new IllegalArgumentException("FORMAT field " + field + " isn't declared.");
+	}
+	
+	public int[] getGenotypeAlleles() {
+		return getFormatValues(VCFConstants.GENOTYPE_KEY);
+	}
+	
+	private void decodeFormat() {
+		if(formatDecoded)
+			return;
+		formatDecoded = true;
+		sampleSize = 0;
+		if(genotypeOffset < 0)
+			return;
+		
+		String text = genotypeData;
+		int formatEnd = text.indexOf('\t', genotypeOffset);
+		if(formatEnd < 0)
+			return;
+		
+		//declared field of every FORMAT key
+		int keySize = 1;
+		for(int i = genotypeOffset; i < formatEnd; i++) {
+			if(text.charAt(i) == VCFConstants.GENOTYPE_FIELD_SEPARATOR_CHAR)
+				keySize++;
+		}
+		int[] keyFields = new int[keySize];
+		int lastKey = -1;
+		int key = 0, keyStart = genotypeOffset;
+		for(int i = genotypeOffset; i <= formatEnd; i++) {
+			if(i == formatEnd || text.charAt(i) == VCFConstants.GENOTYPE_FIELD_SEPARATOR_CHAR) {
+				keyFields[key] = -1;
+				for(int f = 0; f < formatFields.length; f++) {
+					if(formatFields[f].length() == i - keyStart && text.startsWith(formatFields[f], keyStart)) {
+						keyFields[key] = f;
+						lastKey = key;
+					}
+				}
+				key++;
+				keyStart = i + 1;
+			}
+		}
+		
+		int samples = 1;
+		for(int i = formatEnd + 1; i < text.length(); i++) {
+			if(text.charAt(i) == '\t')
+				samples++;
+		}
+		for(int f = 0; f < formatFields.length; f++) {
+			int width = isGenotype(f) ? 2 : 1;
+			if(formatValues[f].length < samples * width)
+				formatValues[f] = new int[samples * width];
+			Arrays.fill(formatValues[f], 0, samples * width, isGenotype(f) ? NO_CALL : MISSING_VALUE);
+			if(isGenotype(f)) {
+				for(int s = 0; s < samples; s++)
+					formatValues[f][2 * s + 1] = NO_ALLELE;
+			}
+		}
+		
+		int pos = formatEnd + 1;
+		for(int s = 0; s < samples; s++) {
+			int sampleEnd = text.indexOf('\t', pos);
+			if(sampleEnd < 0)
+				sampleEnd = text.length();
+			key = 0;
+			int fieldStart = pos;
+			for(int i = pos; i <= sampleEnd && key <= lastKey; i++) {
+				if(i == sampleEnd || text.charAt(i) == VCFConstants.GENOTYPE_FIELD_SEPARATOR_CHAR) {
+					if(keyFields[key] >= 0)
+						decodeValue(keyFields[key], s, text, fieldStart, i);
+					key++;
+					fieldStart = i + 1;
+				}
+			}
+			pos = sampleEnd + 1;
+		}
+		sampleSize = samples;
+	}
+	
+	private boolean isGenotype(int field) {
+		return formatFields[field].equals(VCFConstants.GENOTYPE_KEY);
+	}
+	
+	private void decodeValue(int field, int sample, String text, int from, int to) {
+		if(!isGenotype(field)) {
+			formatValues[field][sample] = parseInt(text, from, to);
+			return;
+		}
+		int allele = 0;
+		for(int i = from; i <= to && allele < 2; i++) {
+			if(i == to || text.charAt(i) == UNPHASED_CHAR || text.charAt(i) == PHASED_CHAR) {
+				formatValues[field][2 * sample + allele] = parseInt(text, from, i);
+				if(formatValues[field][2 * sample + allele] == MISSING_VALUE)
+					formatValues[field][2 * sample + allele] = NO_CALL;
+				allele++;
+				from = i + 1;
+			}
+		}
+	}
+	
+	/**
+	 * first integer of a comma separated value, MISSING_VALUE for '.'
+	 */
+	private static int parseInt(String text, int from, int to) {
+		boolean negative = false;
+		if(from < to && text.charAt(from) == '-') {
+			negative = true;
+			from++;
+		}
+		int value = 0;
+		int i = from;
+		for(; i < to; i++) {
+			char c = text.charAt(i);
+			if(c < '0' || c > '9')
+				break;
+			value = value * 10 + (c - '0');
+		}
+		if(i == from)
+			return MISSING_VALUE;
+		return negative ? -value : value;
+	}
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.framework.tools.mapreduce;
+
+import htsjdk.samtools.SAMRecord;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reservoir downsampler applied in window based mappers before the shuffle.
+ * Reads must be added in coordinate order; every (sample, alignment start)
+ * keeps at most maxReadsPerStart reads within one input split. The random
+ * generator is reseeded for each alignment start, so the kept reads don't
+ * depend on task attempts.
+ * <p>
+ * Mappers don't see each other's reads, so an alignment start whose reads
+ * cross a split boundary is downsampled separately in both splits and keeps
+ * up to 2 * maxReadsPerStart reads, or maxReadsPerStart per split it spans.
+ * Only starts at split boundaries are affected, the cap holds elsewhere.
+ */
+public class AlignmentStartDownsampler {
+	private final int maxReadsPerStart;
+	private final long seed;
+	private final Random random = new Random();
+
+	private final HashMap<String, Reservoir> reservoirs = new HashMap<String, Reservoir>();
+	private final List<SAMRecord> finalizedReads = new ArrayList<SAMRecord>();
+
+	private int referenceIndex = -1;
+	private int alignmentStart = -1;
+
+	private long removedReads = 0;
+	private long downsampledPositions = 0;
+
+	public AlignmentStartDownsampler(int maxReadsPerStart, long seed) {
+		if (maxReadsPerStart <= 0)
+			throw new IllegalArgumentException("max reads per alignment start must be greater than 0");
+		this.maxReadsPerStart = maxReadsPerStart;
+		this.seed = seed;
+	}
+
+	public boolean hasPendingReads() {
+		return !reservoirs.isEmpty();
+	}
+
+	public boolean isSameStart(SAMRecord read) {
+		return read.getReferenceIndex() == referenceIndex && read.getAlignmentStart() == alignmentStart;
+	}
+
+	public void add(SAMRecord read, String sample) {
+		if (!isSameStart(read)) {
+			if (hasPendingReads())
+				throw new IllegalStateException("reads at previous alignment start must be consumed first");
+			referenceIndex = read.getReferenceIndex();
+			alignmentStart = read.getAlignmentStart();
+			random.setSeed(seed ^ (((long) referenceIndex << 32) | (alignmentStart & 0xffffffffL)));
+		}
+
+		Reservoir reservoir = reservoirs.get(sample);
+		if (reservoir == null) {
+			reservoir = new Reservoir();
+			reservoirs.put(sample, reservoir);
+		}
+		reservoir.add(read);
+	}
+
+	/**
+	 * return the reads kept at current alignment start and reset the
+	 * reservoirs. The returned list is reused by the next call.
+	 */
+	public List<SAMRecord> consumeFinalizedReads() {
+		finalizedReads.clear();
+		for (Reservoir reservoir : reservoirs.values()) {
+			finalizedReads.addAll(reservoir.reads);
+			if (reservoir.seen > maxReadsPerStart) {
+				removedReads += reservoir.seen - maxReadsPerStart;
+				downsampledPositions++;
+			}
+		}
+		reservoirs.clear();
+		return finalizedReads;
+	}
+
+	public long getRemovedReads() {
+		return removedReads;
+	}
+
+	public long getDownsampledPositions() {
+		return downsampledPositions;
+	}
+
+	private class Reservoir {
+		private final ArrayList<SAMRecord> reads = new ArrayList<SAMRecord>();
+		private int seen = 0;
+
+		private void add(SAMRecord read) {
+			seen++;
+			if (reads.size() < maxReadsPerStart) {
+				reads.add(read);
+			} else {
+				int index = random.nextInt(seen);
+				if (index < maxReadsPerStart)
+					reads.set(index, read);
+			}
+		}
+	}
+}
@@ -23,16 +23,29 @@ import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.bgi.flexlab.gaea.data.mapreduce.input.bam.GaeaAnySAMInputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
+import org.bgi.flexlab.gaea.data.mapreduce.input.stream.SamRecordStreamInputFormat;
+import org.bgi.flexlab.gaea.data.mapreduce.output.bam.GaeaBamOutputFormat;
+import org.bgi.flexlab.gaea.data.mapreduce.output.stream.SamRecordStreamOutputFormat;
+import org.bgi.flexlab.gaea.data.mapreduce.partitioner.WindowsBasedBlockPartitioner;
 import org.bgi.flexlab.gaea.data.mapreduce.partitioner.WindowsBasedComparator;
 import org.bgi.flexlab.gaea.data.mapreduce.partitioner.WindowsBasedPartitioner;
 import org.bgi.flexlab.gaea.data.mapreduce.partitioner.WindowsBasedSort;
 import org.bgi.flexlab.gaea.data.structure.bam.filter.util.SamRecordFilter;
+import org.bgi.flexlab.gaea.framework.tools.mapreduce.local.LocalJobEngine;
 import org.seqdoop.hadoop_bam.SAMFormat;
 
 import java.io.IOException;
 import java.util.List;
 
 public class BioJob extends Job {
+	public final static String EXECUTION_MODE = "gaea.execution.mode";
+	public final static String MAPREDUCE_EXECUTION = "mapreduce";
+	public final static String LOCAL_EXECUTION = "local";
+	/**
+	 * read and write sam records as compressed record streams instead of bam
+	 */
+	public final static String STREAM_INPUT = "gaea.stream.input";
+	public final static String STREAM_OUTPUT = "gaea.stream.output";
 
 	@SuppressWarnings("deprecation")
 	private BioJob(Configuration conf) throws IOException {
@@ -55,6 +68,8 @@ public class BioJob extends Job {
 		setGroupingComparatorClass(WindowsBasedComparator.class);
 		setSortComparatorClass(WindowsBasedSort.class);
 		// setSortComparatorClass(WindowsBasedBasicSort.class);
+		if (WindowTelemetry.isEnabled(conf))
+			WindowTelemetry.addNamedOutput(this);
 	}
 
 	@SuppressWarnings("rawtypes")
@@ -79,6 +94,24 @@ public class BioJob extends Job {
 		conf.setBoolean(WindowsBasedMapper.MULTIPLE_SAMPLE, true);
 	}
 
+	/*
+	 * write each read once to its start window, reducers rebuild the window
+	 * overlaps from consecutive windows of one block
+	 */
+	public void setHaloFreeWindows(int windowsPerBlock) {
+		if (windowsPerBlock <= 0)
+			return;
+		conf.setInt(WindowsBasedMapper.HALO_FREE_WINDOWS_BLOCK, windowsPerBlock);
+		setPartitionerClass(WindowsBasedBlockPartitioner.class);
+	}
+
+	/*
+	 * cap reads per alignment start in windows based mapper before shuffle
+	 */
+	public void setMaxReadsPerAlignmentStart(int maxReadsPerStart) {
+		conf.setInt(WindowsBasedMapper.MAX_READS_PER_ALIGNMENT_START, maxReadsPerStart);
+	}
+
 	/*
 	 * set windows based mapper filter
 	 */
@@ -104,7 +137,20 @@ public class BioJob extends Job {
 	 */
 	public void setAnySamInputFormat(SAMFormat fmt) {
 		conf.set(GaeaAnySAMInputFormat.SAM_FORMAT_FOR_ALL_PATH, fmt.toString());
-		setInputFormatClass(GaeaAnySAMInputFormat.class);
+		if (conf.getBoolean(STREAM_INPUT, false))
+			setInputFormatClass(SamRecordStreamInputFormat.class);
+		else
+			setInputFormatClass(GaeaAnySAMInputFormat.class);
+	}
+
+	/*
+	 * set bam or sam record stream outputformat
+	 */
+	public void setSamOutputFormat() {
+		if (conf.getBoolean(STREAM_OUTPUT, false))
+			setOutputFormatClass(SamRecordStreamOutputFormat.class);
+		else
+			setOutputFormatClass(GaeaBamOutputFormat.class);
 	}
 	
 	public SAMFileHeader setHeader(List<Path> inputs , Path output) {
@@ -124,6 +170,25 @@ public class BioJob extends Job {
 	}
 
 	public void setHeader(String headerPath) {
-		conf.set(SamHdfsFileHeader.BAM_HEADER_FILE_NAME, headerPath);
+		SamHdfsFileHeader.setHeader(conf, headerPath);
+	}
+
+	/*
+	 * mapreduce (default) submits to the cluster, local runs the job in
+	 * process, map tasks on a thread pool
+	 */
+	public void setExecutionMode(String mode) {
+		conf.set(EXECUTION_MODE, mode);
+	}
+
+	@Override
+	public boolean waitForCompletion(boolean verbose)
+			throws IOException, InterruptedException, ClassNotFoundException {
+		String mode = conf.get(EXECUTION_MODE, MAPREDUCE_EXECUTION);
+		if (mode.equals(LOCAL_EXECUTION))
+			return new LocalJobEngine(this).run(verbose);
+		if (!mode.equals(MAPREDUCE_EXECUTION))
+			throw new IllegalArgumentException("unknown execution mode " + mode);
+		return super.waitForCompletion(verbose);
 	}
 }
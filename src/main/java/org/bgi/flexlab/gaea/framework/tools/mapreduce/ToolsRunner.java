@@ -22,8 +22,10 @@ import org.apache.hadoop.util.GenericOptionsParser;
 import org.apache.hadoop.util.Tool;
 
 import java.io.IOException;
+import java.util.ArrayList;
 
 public abstract class ToolsRunner extends Configured implements Tool{
+	public final static String EXECUTION_MODE_OPTION = "--execution-mode";
 	
 	protected String toolsDescription = null;
 	
@@ -33,12 +35,26 @@ public abstract class ToolsRunner extends Configured implements Tool{
 	
 	protected String[] remainArgs(String[] args,Configuration conf){
 		try {
-			return new GenericOptionsParser(conf, args).getRemainingArgs();
+			return executionMode(new GenericOptionsParser(conf, args).getRemainingArgs(), conf);
 		} catch (IOException e) {
 			throw new RuntimeException(e.toString());
 		}
 	}
 
+	/*
+	 * take --execution-mode [mapreduce|local] out of the tool arguments
+	 */
+	private String[] executionMode(String[] args, Configuration conf) {
+		ArrayList<String> remain = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals(EXECUTION_MODE_OPTION) && i + 1 < args.length)
+				conf.set(BioJob.EXECUTION_MODE, args[++i]);
+			else
+				remain.add(args[i]);
+		}
+		return remain.toArray(new String[remain.size()]);
+	}
+
 	@Override
 	abstract public int run(String[] args) throws Exception;
 }
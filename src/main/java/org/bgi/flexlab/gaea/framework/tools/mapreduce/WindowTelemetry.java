@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.framework.tools.mapreduce;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+import java.io.IOException;
+
+/**
+ * Per window execution record of window based reducers, written as a
+ * tab separated side output (_telemetry/telemetry-r-xxxxx) in the job output
+ * directory. The leading underscore keeps it out of tools reading the output.
+ *
+ * columns: task, contig, window, start, end, reads, active regions,
+ * variants, wall ms, assembly ms, likelihood ms. Counts that do not apply
+ * to a tool are 0. Enabled with -D windows.telemetry=true.
+ */
+public class WindowTelemetry {
+	public final static String TELEMETRY_TAG = "telemetry";
+	public final static String TELEMETRY_DIRECTORY = "_telemetry";
+	public final static String[] COLUMNS = { "task", "contig", "window", "start", "end", "reads", "activeRegions",
+			"variants", "wallMs", "assemblyMs", "likelihoodMs" };
+
+	private final MultipleOutputs<NullWritable, Text> mos;
+	private final int task;
+	private final Text line = new Text();
+	private final StringBuilder sb = new StringBuilder();
+
+	private String contig;
+	private int window;
+	private int start;
+	private int end;
+	private long startTime;
+	private long reads;
+	private long activeRegions;
+	private long variants;
+	private long assemblyTime;
+	private long likelihoodTime;
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public WindowTelemetry(TaskInputOutputContext context) {
+		mos = new MultipleOutputs<NullWritable, Text>(context);
+		task = context.getTaskAttemptID().getTaskID().getId();
+	}
+
+	public static boolean isEnabled(Configuration conf) {
+		return conf.getBoolean(WindowsBasedMapper.WINDOWS_TELEMETRY, false);
+	}
+
+	public static void addNamedOutput(Job job) {
+		MultipleOutputs.addNamedOutput(job, TELEMETRY_TAG, TextOutputFormat.class, NullWritable.class, Text.class);
+	}
+
+	public void start(String contig, int window, int start, int end) {
+		this.contig = contig;
+		this.window = window;
+		this.start = start;
+		this.end = end;
+		reads = activeRegions = variants = 0;
+		assemblyTime = likelihoodTime = 0;
+		startTime = System.nanoTime();
+	}
+
+	public void addReads(long number) {
+		reads += number;
+	}
+
+	public void addActiveRegions(long number) {
+		activeRegions += number;
+	}
+
+	public void addVariants(long number) {
+		variants += number;
+	}
+
+	/**
+	 * @param nanos assembly time in nano seconds
+	 */
+	public void addAssemblyTime(long nanos) {
+		assemblyTime += nanos;
+	}
+
+	/**
+	 * @param nanos read likelihood (PairHMM) time in nano seconds
+	 */
+	public void addLikelihoodTime(long nanos) {
+		likelihoodTime += nanos;
+	}
+
+	public void finish() throws IOException, InterruptedException {
+		long wallTime = System.nanoTime() - startTime;
+		sb.setLength(0);
+		sb.append(task).append('\t').append(contig).append('\t').append(window).append('\t').append(start)
+				.append('\t').append(end).append('\t').append(reads).append('\t').append(activeRegions).append('\t')
+				.append(variants).append('\t').append(wallTime / 1000000).append('\t')
+				.append(assemblyTime / 1000000).append('\t').append(likelihoodTime / 1000000);
+		line.set(sb.toString());
+		mos.write(TELEMETRY_TAG, NullWritable.get(), line, TELEMETRY_DIRECTORY + "/" + TELEMETRY_TAG);
+	}
+
+	public void close() throws IOException, InterruptedException {
+		mos.close();
+	}
+}
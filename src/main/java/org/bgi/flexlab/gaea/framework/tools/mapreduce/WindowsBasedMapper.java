@@ -17,14 +17,15 @@
 package org.bgi.flexlab.gaea.framework.tools.mapreduce;
 
 import htsjdk.samtools.SAMFileHeader;
-import htsjdk.samtools.SAMReadGroupRecord;
 import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMTag;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.bgi.flexlab.gaea.data.exception.FileNotExistException;
 import org.bgi.flexlab.gaea.data.mapreduce.input.bed.RegionHdfsParser;
+import org.bgi.flexlab.gaea.data.mapreduce.input.header.ReadGroupSampleTable;
 import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.WindowsBasedWritable;
@@ -33,7 +34,6 @@ import org.bgi.flexlab.gaea.util.SamRecordUtils;
 
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 
 public abstract class WindowsBasedMapper<VALUEOUT extends Writable> extends
 		Mapper<LongWritable, SamRecordWritable, WindowsBasedWritable, VALUEOUT> {
@@ -45,20 +45,31 @@ public abstract class WindowsBasedMapper<VALUEOUT extends Writable> extends
 	public final static String REFERENCE_REGION = "reference.region.bed";
 	public final static String UNMAPPED_REFERENCE_NAME = "UNMAPPED";
 	public final static String BASERECALIBRATOR_ONLY = "base.recalibrator.only";
+	public final static String MAX_READS_PER_ALIGNMENT_START = "windows.max.reads.per.alignment.start";
+	public final static String DOWNSAMPLING_SEED = "windows.downsampling.seed";
+	public final static String DOWNSAMPLING_COUNTER_GROUP = "DOWNSAMPLING";
+	public final static String HALO_FREE_WINDOWS_BLOCK = "windows.halo.free.block";
+	public final static String WINDOWS_TELEMETRY = "windows.telemetry";
+	private final static long DEFAULT_DOWNSAMPLING_SEED = 47382911L;
 
 	protected int windowsSize;
 	protected int windowsExtendSize;
 	protected boolean multiSample;
 	protected boolean bqsrOnly = false;
+	protected int windowsPerBlock = 0;
 	protected SAMFileHeader header = null;
 
 	protected WindowsBasedWritable keyout = new WindowsBasedWritable();
 	private SamRecordFilter recordFilter = null;
 	private RegionHdfsParser region = null;
 	private RegionHdfsParser regionExtend = null;
+	private AlignmentStartDownsampler downsampler = null;
 	protected VALUEOUT outputValue;
 
 	protected HashMap<String, Integer> sampleIDs = null;
+	private ReadGroupSampleTable sampleTable = null;
+	// key sample id of every read group, looked up by read group index
+	private int[] readGroupSampleIDs = null;
 
 	abstract void otherSetup(Context context) throws IOException, InterruptedException;
 	abstract void setOutputValue(SAMRecord samRecord);
@@ -71,6 +82,7 @@ public abstract class WindowsBasedMapper<VALUEOUT extends Writable> extends
 		windowsExtendSize = conf.getInt(WINDOWS_EXTEND_SIZE, 500);
 		multiSample = conf.getBoolean(MULTIPLE_SAMPLE, false);
 		bqsrOnly = conf.getBoolean(BASERECALIBRATOR_ONLY,false);
+		windowsPerBlock = conf.getInt(HALO_FREE_WINDOWS_BLOCK, 0);
 		initOutputVaule();
 
 		header = SamHdfsFileHeader.getHeader(conf);
@@ -80,12 +92,15 @@ public abstract class WindowsBasedMapper<VALUEOUT extends Writable> extends
 			throw new FileNotExistException.MissingHeaderException(filename[filename.length - 2]);
 		}
 
+		// key sample id is the index of the last read group of the sample,
+		// reducers map it back through the header read groups
+		sampleTable = SamHdfsFileHeader.getSampleTable(conf);
 		sampleIDs = new HashMap<String, Integer>();
-
-		List<SAMReadGroupRecord> list = header.getReadGroups();
-		for (int i = 0; i < list.size(); i++) {
-			sampleIDs.put(list.get(i).getSample(), i);
-		}
+		for (int i = 0; i < sampleTable.getReadGroupNumber(); i++)
+			sampleIDs.put(getSampleName(i), i);
+		readGroupSampleIDs = new int[sampleTable.getReadGroupNumber()];
+		for (int i = 0; i < readGroupSampleIDs.length; i++)
+			readGroupSampleIDs[i] = sampleIDs.get(getSampleName(i));
 
 		String className = conf.get(SAM_RECORD_FILTER);
 		if (className == null) {
@@ -105,12 +120,24 @@ public abstract class WindowsBasedMapper<VALUEOUT extends Writable> extends
 			regionExtend.parseBedFileFromHDFS(conf.get(REFERENCE_REGION), true);
 		}
 
+		int maxReadsPerStart = conf.getInt(MAX_READS_PER_ALIGNMENT_START, 0);
+		if (maxReadsPerStart > 0)
+			downsampler = new AlignmentStartDownsampler(maxReadsPerStart,
+					conf.getLong(DOWNSAMPLING_SEED, DEFAULT_DOWNSAMPLING_SEED));
+
 		otherSetup(context);
 	}
 
 	protected int[] getExtendPosition(int start, int end, int length) {
-		int[] winNum = new int[3];
+		return getExtendPosition(start, end, length, windowsSize, windowsExtendSize, new int[3]);
+	}
 
+	/**
+	 * windows a read belongs to: [0] start window, [1] window of start minus
+	 * extend size and [2] window of end plus extend size.
+	 */
+	public static int[] getExtendPosition(int start, int end, int length, int windowsSize, int windowsExtendSize,
+			int[] winNum) {
 		winNum[1] = (int) (((start - windowsExtendSize) > 0 ? (start - windowsExtendSize) : 0) / windowsSize);
 		winNum[0] = start / windowsSize;
 		winNum[2] = (int) (((end + windowsExtendSize) > length ? length : (end + windowsExtendSize)) / windowsSize);
@@ -118,18 +145,44 @@ public abstract class WindowsBasedMapper<VALUEOUT extends Writable> extends
 		return winNum;
 	}
 
+	/*
+	 * in halo-free mode a read is written once to its start window, extend
+	 * windows are only written when they belong to another windows block.
+	 */
+	private boolean skipExtendWindow(int startWinNum, int extendWinNum) {
+		if (extendWinNum == startWinNum)
+			return true;
+		return windowsPerBlock > 0 && extendWinNum / windowsPerBlock == startWinNum / windowsPerBlock;
+	}
+
+	private String getSampleName(int readGroupIndex) {
+		int sample = sampleTable.getSampleIndex(readGroupIndex);
+		return sample == ReadGroupSampleTable.NO_SAMPLE ? null : sampleTable.getSample(sample);
+	}
+
+	protected int getSampleID(SAMRecord sam) {
+		if (!multiSample)
+			return 0;
+		int readGroup = sampleTable.getReadGroupIndex(sam.getStringAttribute(SAMTag.RG.name()));
+		if (readGroup < 0)
+			return getSampleID(sam.getReadGroup() == null ? null : sam.getReadGroup().getSample());
+		return readGroupSampleIDs[readGroup];
+	}
+
+	protected int getSampleID(String sampleName) {
+		if (!multiSample)
+			return 0;
+		if (!sampleIDs.containsKey(sampleName))
+			throw new RuntimeException("header isn't contains sample " + sampleName);
+		return sampleIDs.get(sampleName);
+	}
+
 	protected void setKey(SAMRecord sam, int winNum) {
-		setKey(sam.getReadGroup().getSample(), sam.getReferenceIndex(), winNum, sam.getAlignmentStart());
+		keyout.set(getSampleID(sam), sam.getReferenceIndex(), winNum, sam.getAlignmentStart());
 	}
 
 	protected void setKey(String sampleName, int chrIndex, int winNum, int position) {
-		int sampleID = 0;
-		if (multiSample) {
-			if (!sampleIDs.containsKey(sampleName))
-				throw new RuntimeException("header isn't contains sample " + sampleName);
-			sampleID = sampleIDs.get(sampleName);
-		}
-		keyout.set(sampleID, chrIndex, winNum, position);
+		keyout.set(getSampleID(sampleName), chrIndex, winNum, position);
 	}
 
 	protected boolean skipUnmapped(){
@@ -143,25 +196,38 @@ public abstract class WindowsBasedMapper<VALUEOUT extends Writable> extends
 		if (recordFilter.filter(sam, regionExtend)) {
 			return;
 		}
-		setOutputValue(sam);
 
 		if (SamRecordUtils.isUnmapped(sam)) {
 			if(!skipUnmapped()){
+				setOutputValue(sam);
 				int readNameHashCode = sam.getReadName().hashCode();
 				if(readNameHashCode >= Integer.MAX_VALUE)
 					readNameHashCode = 0;
-				setKey(sam.getReadGroup().getSample(), -1, readNameHashCode, readNameHashCode);
+				keyout.set(getSampleID(sam), -1, readNameHashCode, readNameHashCode);
 				context.write(keyout, outputValue);
 			}
 			return;
 		}
 
+		if (downsampler != null) {
+			if (!downsampler.isSameStart(sam))
+				writeDownsampledReads(context);
+			downsampler.add(sam, multiSample ? sam.getReadGroup().getSample() : null);
+			return;
+		}
+
+		writeToWindows(sam, context);
+	}
+
+	private void writeToWindows(SAMRecord sam, Context context) throws IOException, InterruptedException {
+		setOutputValue(sam);
+
 		String chrName = sam.getReferenceName();
 
 		int[] winNums = getExtendPosition(sam.getAlignmentStart(), sam.getAlignmentEnd(),
 				header.getSequence(chrName).getSequenceLength());
 		for (int i = 0; i < 3; i++) {
-			if (i != 0 && winNums[i] == winNums[0]) {
+			if (i != 0 && skipExtendWindow(winNums[0], winNums[i])) {
 				continue;
 			}
 			setKey(sam, winNums[i]);
@@ -169,8 +235,21 @@ public abstract class WindowsBasedMapper<VALUEOUT extends Writable> extends
 		}
 	}
 
+	private void writeDownsampledReads(Context context) throws IOException, InterruptedException {
+		if (!downsampler.hasPendingReads())
+			return;
+		for (SAMRecord read : downsampler.consumeFinalizedReads())
+			writeToWindows(read, context);
+	}
+
 	@Override
 	protected void cleanup(Context context) throws IOException, InterruptedException {
+		if (downsampler != null) {
+			writeDownsampledReads(context);
+			context.getCounter(DOWNSAMPLING_COUNTER_GROUP, "removed reads").increment(downsampler.getRemovedReads());
+			context.getCounter(DOWNSAMPLING_COUNTER_GROUP, "downsampled positions")
+					.increment(downsampler.getDownsampledPositions());
+		}
 		sampleIDs.clear();
 	}
 }
@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.framework.tools.mapreduce;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.WindowsBasedWritable;
+import org.bgi.flexlab.gaea.util.SamRecordUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rebuild window overlaps in reducer for halo-free window routing.
+ *
+ * In halo-free mode a read is shuffled once to its start window, and all
+ * windows of one block arrive in order on the same reducer. Each read is
+ * buffered for its start window and for its start and end extend windows in
+ * the same block. A buffered window is handed to the processor once no later
+ * read can reach it, so the processor receives the same reads as the classic
+ * three-way routing, also when the extend size is larger than the window
+ * size.
+ */
+public class WindowsBasedReadsStream {
+
+	public interface WindowsProcessor {
+		void process(WindowsBasedWritable key, Iterable<SamRecordWritable> values)
+				throws IOException, InterruptedException;
+	}
+
+	private final SAMFileHeader header;
+	private final WindowsProcessor processor;
+	private final int windowsSize;
+	private final int windowsExtendSize;
+	private final int windowsPerBlock;
+
+	private final HashMap<Integer, SampleStream> streams = new HashMap<Integer, SampleStream>();
+	private final WindowsBasedWritable windowKey = new WindowsBasedWritable();
+	private final ReadsIterable windowReads = new ReadsIterable();
+	private final int[] winNums = new int[3];
+
+	private static final Comparator<SAMRecord> START_COMPARATOR = new Comparator<SAMRecord>() {
+		@Override
+		public int compare(SAMRecord r1, SAMRecord r2) {
+			return Integer.compare(r1.getAlignmentStart(), r2.getAlignmentStart());
+		}
+	};
+
+	public WindowsBasedReadsStream(Configuration conf, SAMFileHeader header, WindowsProcessor processor) {
+		this.header = header;
+		this.processor = processor;
+		this.windowsSize = conf.getInt(WindowsBasedMapper.WINDOWS_SIZE, 10000);
+		this.windowsExtendSize = conf.getInt(WindowsBasedMapper.WINDOWS_EXTEND_SIZE, 500);
+		this.windowsPerBlock = conf.getInt(WindowsBasedMapper.HALO_FREE_WINDOWS_BLOCK, 0);
+	}
+
+	public static boolean isHaloFree(Configuration conf) {
+		return conf.getInt(WindowsBasedMapper.HALO_FREE_WINDOWS_BLOCK, 0) > 0;
+	}
+
+	public void add(WindowsBasedWritable key, Iterable<SamRecordWritable> values)
+			throws IOException, InterruptedException {
+		int chrIndex = key.getChromosomeIndex();
+		if (chrIndex < 0) {
+			flush();
+			processor.process(key, values);
+			return;
+		}
+
+		SampleStream stream = streams.get(key.getSampleID());
+		if (stream == null) {
+			stream = new SampleStream(key.getSampleID());
+			streams.put(key.getSampleID(), stream);
+		}
+
+		ArrayList<SAMRecord> reads = new ArrayList<SAMRecord>();
+		for (SamRecordWritable value : values)
+			reads.add(value.get());
+
+		stream.add(chrIndex, key.getWindowsNumber(), reads);
+	}
+
+	/**
+	 * process all pending windows, must be called in reducer cleanup.
+	 */
+	public void flush() throws IOException, InterruptedException {
+		for (SampleStream stream : streams.values())
+			stream.finish();
+	}
+
+	private boolean sameBlock(int winNum1, int winNum2) {
+		return winNum1 / windowsPerBlock == winNum2 / windowsPerBlock;
+	}
+
+	/*
+	 * lowest window reached by the start extend of reads starting in winNum
+	 * or later windows.
+	 */
+	private int getLowestExtendWindow(int winNum) {
+		long start = (long) winNum * windowsSize - windowsExtendSize;
+		return (int) (start > 0 ? start / windowsSize : 0);
+	}
+
+	private int[] getWindows(SAMRecord read, int contigLength) {
+		return WindowsBasedMapper.getExtendPosition(read.getAlignmentStart(), read.getAlignmentEnd(), contigLength,
+				windowsSize, windowsExtendSize, winNums);
+	}
+
+	private class SampleStream {
+		private final int sampleID;
+		private int chrIndex = -1;
+		private int contigLength = 0;
+
+		/* reads of windows not processed yet, by window number */
+		private final TreeMap<Integer, ArrayList<SAMRecord>> pendingWindows = new TreeMap<Integer, ArrayList<SAMRecord>>();
+
+		private SampleStream(int sampleID) {
+			this.sampleID = sampleID;
+		}
+
+		private void add(int chr, int winNum, ArrayList<SAMRecord> groupReads)
+				throws IOException, InterruptedException {
+			if (chr != chrIndex) {
+				finish();
+				chrIndex = chr;
+				contigLength = header.getSequence(chr).getSequenceLength();
+			}
+
+			/* reads of this and later windows can not reach windows before */
+			processBefore(getLowestExtendWindow(winNum));
+
+			for (SAMRecord read : groupReads) {
+				addRead(winNum, read);
+				if (SamRecordUtils.isUnmapped(read))
+					continue;
+				int[] windows = getWindows(read, contigLength);
+				/* extend copies from another block only belong to this window */
+				if (windows[0] != winNum)
+					continue;
+				if (windows[1] != winNum && sameBlock(windows[1], winNum))
+					addRead(windows[1], read);
+				if (windows[2] != winNum && sameBlock(windows[2], winNum))
+					addRead(windows[2], read);
+			}
+		}
+
+		private void finish() throws IOException, InterruptedException {
+			processBefore(Integer.MAX_VALUE);
+		}
+
+		private void addRead(int winNum, SAMRecord read) {
+			ArrayList<SAMRecord> reads = pendingWindows.get(winNum);
+			if (reads == null) {
+				reads = new ArrayList<SAMRecord>();
+				pendingWindows.put(winNum, reads);
+			}
+			reads.add(read);
+		}
+
+		private void processBefore(int winNum) throws IOException, InterruptedException {
+			while (!pendingWindows.isEmpty() && pendingWindows.firstKey() < winNum) {
+				Map.Entry<Integer, ArrayList<SAMRecord>> entry = pendingWindows.pollFirstEntry();
+				process(entry.getKey(), entry.getValue());
+			}
+		}
+
+		/*
+		 * reads are sorted by alignment start like the values of classic
+		 * routing, carried and looked ahead reads are almost in order already.
+		 */
+		private void process(int winNum, ArrayList<SAMRecord> reads) throws IOException, InterruptedException {
+			Collections.sort(reads, START_COMPARATOR);
+			windowKey.set(sampleID, chrIndex, winNum, winNum * windowsSize);
+			windowReads.reset(reads);
+			processor.process(windowKey, windowReads);
+		}
+	}
+
+	/*
+	 * single pass iterable like the values of hadoop reducer, iterating it
+	 * again continues from the last position.
+	 */
+	private static class ReadsIterable implements Iterable<SamRecordWritable>, Iterator<SamRecordWritable> {
+		private final SamRecordWritable value = new SamRecordWritable();
+		private List<SAMRecord> reads = null;
+		private int index = 0;
+
+		private void reset(List<SAMRecord> reads) {
+			this.reads = reads;
+			this.index = 0;
+		}
+
+		@Override
+		public Iterator<SamRecordWritable> iterator() {
+			return this;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < reads.size();
+		}
+
+		@Override
+		public SamRecordWritable next() {
+			value.set(reads.get(index++));
+			return value;
+		}
+	}
+}
@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.framework.tools.mapreduce.local;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.CounterGroup;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.JobID;
+import org.apache.hadoop.mapreduce.JobStatus;
+import org.apache.hadoop.mapreduce.MapContext;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.OutputFormat;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.ReduceContext;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskCounter;
+import org.apache.hadoop.mapreduce.TaskID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.lib.map.WrappedMapper;
+import org.apache.hadoop.mapreduce.lib.reduce.WrappedReducer;
+import org.apache.hadoop.mapreduce.task.JobContextImpl;
+import org.apache.hadoop.mapreduce.task.MapContextImpl;
+import org.apache.hadoop.mapreduce.task.ReduceContextImpl;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * In process job runner for one machine. The job's own input format,
+ * mapper, partitioner, comparators, reducer and output format run through
+ * hadoop's task context implementations, map outputs are kept sorted per
+ * partition in memory with spills to a local directory.
+ *
+ * Map tasks run in parallel on a thread pool, so mappers, input formats and
+ * partitioners must not keep mutable static state. Reduce partitions run one
+ * after another on the calling thread, because reducers are written for one
+ * task per JVM: the variant callers keep caches and sample lists in statics
+ * (GenotypeLikelihoodCalculator, VariantCallingEngine).
+ *
+ * A combiner set on the job is ignored. Hadoop may run a combiner any number
+ * of times, so the output is the same, map outputs are only not reduced
+ * before the sort. All cache files must be readable from the local machine.
+ */
+public class LocalJobEngine {
+	public final static String LOCAL_THREADS = "gaea.local.threads";
+	public final static String LOCAL_SORT_BUFFER_MB = "gaea.local.sort.buffer.mb";
+	public final static String LOCAL_DIR = "gaea.local.dir";
+
+	private final static Log LOG = LogFactory.getLog(LocalJobEngine.class);
+
+	private final static long MIN_SPILL_BYTES = 64L << 10;
+
+	private final Configuration conf;
+	private final JobContext jobContext;
+	private final JobID jobID;
+	private final int threads;
+	private final Counters counters = new Counters();
+
+	public LocalJobEngine(Job job) {
+		this.conf = job.getConfiguration();
+		this.jobID = new JobID("local" + System.currentTimeMillis(), 1);
+		this.jobContext = new JobContextImpl(conf, jobID);
+		this.threads = conf.getInt(LOCAL_THREADS, Runtime.getRuntime().availableProcessors());
+	}
+
+	public boolean run(boolean verbose) throws IOException, InterruptedException, ClassNotFoundException {
+		OutputFormat<?, ?> outputFormat = ReflectionUtils.newInstance(jobContext.getOutputFormatClass(), conf);
+		outputFormat.checkOutputSpecs(jobContext);
+		OutputCommitter jobCommitter = outputFormat
+				.getOutputCommitter(taskContext(conf, new TaskID(jobID, TaskType.JOB_SETUP, 0), null));
+
+		File localDirectory = new File(conf.get(LOCAL_DIR, System.getProperty("java.io.tmpdir")),
+				"gaea-" + jobID.toString());
+		List<File> localCacheFiles = new ArrayList<File>();
+		Map<File, File> movedFiles = new LinkedHashMap<File, File>();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		boolean success = false;
+		try {
+			if (!localDirectory.mkdirs())
+				throw new IOException("cannot create local directory " + localDirectory);
+			localizeCacheFiles(localCacheFiles, movedFiles);
+			jobCommitter.setupJob(jobContext);
+
+			int reducers = jobContext.getNumReduceTasks();
+			PartitionBuffer[] partitions = null;
+			if (reducers > 0) {
+				partitions = new PartitionBuffer[reducers];
+				// all partitions are filled at once, they share one sort budget
+				long spillBytes = (conf.getLong(LOCAL_SORT_BUFFER_MB, 1024) << 20) / reducers;
+				if (spillBytes < MIN_SPILL_BYTES)
+					LOG.warn("local job " + jobID + ": " + spillBytes + " sort bytes per partition for "
+							+ reducers + " reduce tasks, raise " + LOCAL_SORT_BUFFER_MB);
+				for (int i = 0; i < reducers; i++)
+					partitions[i] = new PartitionBuffer(jobContext.getSortComparator(), localDirectory,
+							"partition" + i, spillBytes);
+			}
+
+			runMaps(pool, partitions, verbose);
+			if (partitions != null)
+				runReduces(partitions);
+
+			jobCommitter.commitJob(jobContext);
+			success = true;
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+			if (!success)
+				jobCommitter.abortJob(jobContext, JobStatus.State.FAILED);
+			FileSystem.getLocal(conf).delete(new Path(localDirectory.getAbsolutePath()), true);
+			for (File file : localCacheFiles)
+				file.delete();
+			for (Map.Entry<File, File> moved : movedFiles.entrySet())
+				moved.getValue().renameTo(moved.getKey());
+			if (verbose)
+				printCounters();
+		}
+		return success;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void runMaps(ExecutorService pool, final PartitionBuffer[] partitions, final boolean verbose)
+			throws IOException, InterruptedException, ClassNotFoundException, ExecutionException {
+		InputFormat inputFormat = ReflectionUtils.newInstance(jobContext.getInputFormatClass(), conf);
+		List<InputSplit> splits = inputFormat.getSplits(jobContext);
+		if (verbose)
+			LOG.info("local job " + jobID + ": " + splits.size() + " map tasks, "
+					+ jobContext.getNumReduceTasks() + " reduce tasks, " + threads + " threads");
+
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < splits.size(); i++) {
+			final InputSplit split = splits.get(i);
+			final TaskID taskID = new TaskID(jobID, TaskType.MAP, i);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					Configuration taskConf = new Configuration(conf);
+					LocalStatusReporter reporter = new LocalStatusReporter();
+					TaskAttemptContext context = taskContext(taskConf, taskID, reporter);
+
+					// input formats may cache per path state, one instance per task
+					InputFormat inputFormat = ReflectionUtils.newInstance(jobContext.getInputFormatClass(),
+							taskConf);
+					RecordReader reader = inputFormat.createRecordReader(split, context);
+					RecordWriter writer;
+					OutputCommitter committer = null;
+					OutputFormat outputFormat = null;
+					if (partitions == null) {
+						outputFormat = ReflectionUtils.newInstance(jobContext.getOutputFormatClass(), taskConf);
+						writer = outputFormat.getRecordWriter(context);
+						committer = outputFormat.getOutputCommitter(context);
+						committer.setupTask(context);
+					} else {
+						Partitioner partitioner = ReflectionUtils.newInstance(jobContext.getPartitionerClass(),
+								taskConf);
+						writer = new MapOutputCollector(taskConf, partitions, partitioner,
+								jobContext.getMapOutputKeyClass(), jobContext.getMapOutputValueClass());
+					}
+
+					MapContext mapContext = new MapContextImpl(taskConf, context.getTaskAttemptID(), reader,
+							writer, committer, reporter, split);
+					Mapper mapper = ReflectionUtils.newInstance(jobContext.getMapperClass(), taskConf);
+					reader.initialize(split, context);
+					mapper.run(new WrappedMapper().getMapContext(mapContext));
+					reader.close();
+					writer.close(context);
+					if (committer != null && committer.needsTaskCommit(context))
+						committer.commitTask(context);
+					mergeCounters(reporter);
+					return null;
+				}
+			});
+		}
+		invokeAll(pool, tasks);
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void runReduces(PartitionBuffer[] partitions)
+			throws IOException, InterruptedException, ClassNotFoundException {
+		for (int i = 0; i < partitions.length; i++) {
+			PartitionBuffer partition = partitions[i];
+			TaskID taskID = new TaskID(jobID, TaskType.REDUCE, i);
+			Configuration taskConf = new Configuration(conf);
+			LocalStatusReporter reporter = new LocalStatusReporter();
+			TaskAttemptContext context = taskContext(taskConf, taskID, reporter);
+
+			OutputFormat outputFormat = ReflectionUtils.newInstance(jobContext.getOutputFormatClass(), taskConf);
+			RecordWriter writer = outputFormat.getRecordWriter(context);
+			OutputCommitter committer = outputFormat.getOutputCommitter(context);
+			committer.setupTask(context);
+
+			RawKeyValueIterator input = partition.iterator();
+			Counter keyCounter = reporter.getCounter(TaskCounter.REDUCE_INPUT_GROUPS);
+			Counter valueCounter = reporter.getCounter(TaskCounter.REDUCE_INPUT_RECORDS);
+			ReduceContext reduceContext = new ReduceContextImpl(taskConf, context.getTaskAttemptID(), input,
+					keyCounter, valueCounter, writer, committer, reporter, jobContext.getGroupingComparator(),
+					jobContext.getMapOutputKeyClass(), jobContext.getMapOutputValueClass());
+			Reducer reducer = ReflectionUtils.newInstance(jobContext.getReducerClass(), taskConf);
+			reducer.run(new WrappedReducer().getReducerContext(reduceContext));
+			input.close();
+			partition.clear();
+			writer.close(context);
+			if (committer.needsTaskCommit(context))
+				committer.commitTask(context);
+			mergeCounters(reporter);
+			if (LOG.isDebugEnabled())
+				LOG.debug("local job " + jobID + ": " + taskID + " done");
+		}
+	}
+
+	private void invokeAll(ExecutorService pool, List<Callable<Void>> tasks)
+			throws InterruptedException, ExecutionException {
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		for (Callable<Void> task : tasks)
+			futures.add(pool.submit(task));
+		for (Future<Void> future : futures)
+			future.get();
+	}
+
+	private TaskAttemptContext taskContext(Configuration taskConf, TaskID taskID, LocalStatusReporter reporter) {
+		TaskAttemptID attemptID = new TaskAttemptID(taskID, 0);
+		taskConf.set("mapreduce.task.attempt.id", attemptID.toString());
+		taskConf.setInt("mapreduce.task.partition", taskID.getId());
+		if (reporter == null)
+			return new TaskAttemptContextImpl(taskConf, attemptID);
+		return new TaskAttemptContextImpl(taskConf, attemptID, reporter);
+	}
+
+	/**
+	 * cache files are opened through their link name in the task working
+	 * directory, copy them there as the node manager does. A file already
+	 * there may be left from another job, it is moved aside and restored
+	 * when the job ends.
+	 */
+	private void localizeCacheFiles(List<File> localCacheFiles, Map<File, File> movedFiles) throws IOException {
+		URI[] uris = jobContext.getCacheFiles();
+		if (uris == null)
+			return;
+		for (URI uri : uris) {
+			if (uri.getFragment() == null)
+				continue;
+			File link = new File(uri.getFragment());
+			if (localCacheFiles.contains(link))
+				continue;
+			if (link.exists()) {
+				File moved = new File(link.getAbsolutePath() + "." + jobID);
+				if (!link.renameTo(moved))
+					throw new IOException("cannot move existing " + link + " aside for cache file " + uri);
+				movedFiles.put(link, moved);
+			}
+			localCacheFiles.add(link);
+			try {
+				Path path = new Path(new URI(uri.getScheme(), uri.getAuthority(), uri.getPath(), null, null));
+				path.getFileSystem(conf).copyToLocalFile(path, new Path(link.getAbsolutePath()));
+			} catch (URISyntaxException e) {
+				throw new IOException(e.toString());
+			}
+		}
+	}
+
+	private void mergeCounters(LocalStatusReporter reporter) {
+		synchronized (counters) {
+			counters.incrAllCounters(reporter.getCounters());
+		}
+	}
+
+	private void printCounters() {
+		synchronized (counters) {
+			StringBuilder lines = new StringBuilder("local job " + jobID + " counters:");
+			for (CounterGroup group : counters) {
+				lines.append("\n\t").append(group.getDisplayName());
+				for (Counter counter : group)
+					lines.append("\n\t\t").append(counter.getDisplayName()).append('=').append(counter.getValue());
+			}
+			LOG.info(lines);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.framework.tools.mapreduce.local;
+
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.StatusReporter;
+
+/**
+ * counters of one local task, merged into the job counters when the task
+ * is done
+ */
+class LocalStatusReporter extends StatusReporter {
+	private final Counters counters = new Counters();
+	private String status = "";
+
+	@Override
+	public Counter getCounter(Enum<?> name) {
+		return counters.findCounter(name);
+	}
+
+	@Override
+	public Counter getCounter(String group, String name) {
+		return counters.findCounter(group, name);
+	}
+
+	@Override
+	public void progress() {
+	}
+
+	@Override
+	public float getProgress() {
+		return 0;
+	}
+
+	@Override
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	String getStatus() {
+		return status;
+	}
+
+	Counters getCounters() {
+		return counters;
+	}
+}
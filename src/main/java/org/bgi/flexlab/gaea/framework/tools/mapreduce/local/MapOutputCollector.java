@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.framework.tools.mapreduce.local;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.serializer.SerializationFactory;
+import org.apache.hadoop.io.serializer.Serializer;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.IOException;
+
+/**
+ * map task output: serialize each record at once, since mappers reuse their
+ * output objects, and append it to the buffer of its partition
+ */
+class MapOutputCollector<K, V> extends RecordWriter<K, V> {
+	private final PartitionBuffer[] partitions;
+	private final Partitioner<K, V> partitioner;
+	private final DataOutputBuffer buffer = new DataOutputBuffer();
+	private final Serializer<K> keySerializer;
+	private final Serializer<V> valueSerializer;
+
+	MapOutputCollector(Configuration conf, PartitionBuffer[] partitions, Partitioner<K, V> partitioner,
+			Class<K> keyClass, Class<V> valueClass) throws IOException {
+		this.partitions = partitions;
+		this.partitioner = partitioner;
+		SerializationFactory factory = new SerializationFactory(conf);
+		keySerializer = factory.getSerializer(keyClass);
+		keySerializer.open(buffer);
+		valueSerializer = factory.getSerializer(valueClass);
+		valueSerializer.open(buffer);
+	}
+
+	@Override
+	public void write(K key, V value) throws IOException {
+		int partition = partitions.length == 1 ? 0 : partitioner.getPartition(key, value, partitions.length);
+		if (partition < 0 || partition >= partitions.length)
+			throw new IOException("Illegal partition for " + key + " (" + partition + ")");
+		buffer.reset();
+		keySerializer.serialize(key);
+		int keyLength = buffer.getLength();
+		valueSerializer.serialize(value);
+		partitions[partition].add(buffer.getData(), keyLength, buffer.getLength() - keyLength);
+	}
+
+	@Override
+	public void close(TaskAttemptContext context) throws IOException {
+		keySerializer.close();
+		valueSerializer.close();
+	}
+}
@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.framework.tools.mapreduce.local;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.RawComparator;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.util.IndexedSortable;
+import org.apache.hadoop.util.Progress;
+import org.apache.hadoop.util.QuickSort;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Serialized map outputs of one reduce partition. Records are kept in one
+ * byte array as [key length][value length][key][value] and sorted by an
+ * index with the job sort comparator; when the buffer is full it is sorted
+ * and spilled to a local file. The reducer reads a k-way merge of the
+ * spills and the in-memory run.
+ */
+class PartitionBuffer implements IndexedSortable {
+	private final static int INITIAL_CAPACITY = 64 * 1024;
+	private final static int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+	private final RawComparator<?> comparator;
+	private final File spillDirectory;
+	private final String name;
+	private final long spillBytes;
+
+	private byte[] data = new byte[INITIAL_CAPACITY];
+	private int length = 0;
+	private int[] offsets = new int[1024];
+	private int records = 0;
+
+	private final List<File> spills = new ArrayList<File>();
+
+	PartitionBuffer(RawComparator<?> comparator, File spillDirectory, String name, long spillBytes) {
+		this.comparator = comparator;
+		this.spillDirectory = spillDirectory;
+		this.name = name;
+		this.spillBytes = Math.min(spillBytes, MAX_CAPACITY);
+	}
+
+	synchronized void add(byte[] buffer, int keyLength, int valueLength) throws IOException {
+		int size = 8 + keyLength + valueLength;
+		if (length > 0 && (long) length + size > spillBytes)
+			spill();
+		ensureCapacity(size);
+
+		if (records == offsets.length)
+			offsets = Arrays.copyOf(offsets, records * 2);
+		offsets[records++] = length;
+		writeInt(keyLength);
+		writeInt(valueLength);
+		System.arraycopy(buffer, 0, data, length, keyLength + valueLength);
+		length += keyLength + valueLength;
+	}
+
+	private void ensureCapacity(int size) {
+		if ((long) length + size > MAX_CAPACITY)
+			throw new IllegalStateException("map output record is too large for local sort buffer");
+		if (length + size <= data.length)
+			return;
+		long capacity = Math.max((long) data.length * 2, (long) length + size);
+		data = Arrays.copyOf(data, (int) Math.min(capacity, MAX_CAPACITY));
+	}
+
+	private void writeInt(int value) {
+		data[length++] = (byte) (value >>> 24);
+		data[length++] = (byte) (value >>> 16);
+		data[length++] = (byte) (value >>> 8);
+		data[length++] = (byte) value;
+	}
+
+	private int readInt(int offset) {
+		return ((data[offset] & 0xff) << 24) | ((data[offset + 1] & 0xff) << 16) | ((data[offset + 2] & 0xff) << 8)
+				| (data[offset + 3] & 0xff);
+	}
+
+	@Override
+	public int compare(int i, int j) {
+		int a = offsets[i];
+		int b = offsets[j];
+		return comparator.compare(data, a + 8, readInt(a), data, b + 8, readInt(b));
+	}
+
+	@Override
+	public void swap(int i, int j) {
+		int tmp = offsets[i];
+		offsets[i] = offsets[j];
+		offsets[j] = tmp;
+	}
+
+	private void sort() {
+		if (records > 1)
+			new QuickSort().sort(this, 0, records);
+	}
+
+	private void spill() throws IOException {
+		sort();
+		File file = new File(spillDirectory, name + "-spill" + spills.size());
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		try {
+			for (int i = 0; i < records; i++) {
+				int offset = offsets[i];
+				out.write(data, offset, 8 + readInt(offset) + readInt(offset + 4));
+			}
+		} finally {
+			out.close();
+		}
+		spills.add(file);
+		length = 0;
+		records = 0;
+	}
+
+	/**
+	 * sorted view of all records, must be called after all map tasks are done
+	 */
+	synchronized RawKeyValueIterator iterator() throws IOException {
+		sort();
+		PriorityQueue<Run> queue = new PriorityQueue<Run>(spills.size() + 1);
+		MemoryRun memory = new MemoryRun();
+		if (memory.next())
+			queue.add(memory);
+		for (File file : spills) {
+			FileRun run = new FileRun(file);
+			if (run.next())
+				queue.add(run);
+			else
+				run.close();
+		}
+		return new MergeIterator(queue);
+	}
+
+	synchronized void clear() {
+		data = new byte[0];
+		offsets = new int[0];
+		length = 0;
+		records = 0;
+		for (File file : spills)
+			file.delete();
+		spills.clear();
+	}
+
+	private abstract class Run implements Comparable<Run> {
+		byte[] buffer;
+		int keyStart;
+		int keyLength;
+		int valueStart;
+		int valueLength;
+
+		abstract boolean next() throws IOException;
+
+		void close() throws IOException {
+		}
+
+		@Override
+		public int compareTo(Run other) {
+			return comparator.compare(buffer, keyStart, keyLength, other.buffer, other.keyStart, other.keyLength);
+		}
+	}
+
+	private class MemoryRun extends Run {
+		private int index = 0;
+
+		@Override
+		boolean next() {
+			if (index >= records)
+				return false;
+			int offset = offsets[index++];
+			buffer = data;
+			keyLength = readInt(offset);
+			valueLength = readInt(offset + 4);
+			keyStart = offset + 8;
+			valueStart = keyStart + keyLength;
+			return true;
+		}
+	}
+
+	private class FileRun extends Run {
+		private final DataInputStream in;
+
+		FileRun(File file) throws IOException {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+			buffer = new byte[1024];
+		}
+
+		@Override
+		boolean next() throws IOException {
+			try {
+				keyLength = in.readInt();
+			} catch (EOFException e) {
+				return false;
+			}
+			valueLength = in.readInt();
+			if (buffer.length < keyLength + valueLength)
+				buffer = new byte[Math.max(buffer.length * 2, keyLength + valueLength)];
+			in.readFully(buffer, 0, keyLength + valueLength);
+			keyStart = 0;
+			valueStart = keyLength;
+			return true;
+		}
+
+		@Override
+		void close() throws IOException {
+			in.close();
+		}
+	}
+
+	private static class MergeIterator implements RawKeyValueIterator {
+		private final PriorityQueue<Run> queue;
+		private final DataInputBuffer key = new DataInputBuffer();
+		private final DataInputBuffer value = new DataInputBuffer();
+		private final Progress progress = new Progress();
+		private Run current = null;
+
+		MergeIterator(PriorityQueue<Run> queue) {
+			this.queue = queue;
+		}
+
+		@Override
+		public DataInputBuffer getKey() {
+			return key;
+		}
+
+		@Override
+		public DataInputBuffer getValue() {
+			return value;
+		}
+
+		@Override
+		public boolean next() throws IOException {
+			if (current != null) {
+				if (current.next())
+					queue.add(current);
+				else
+					current.close();
+			}
+			current = queue.poll();
+			if (current == null)
+				return false;
+			key.reset(current.buffer, current.keyStart, current.keyLength);
+			value.reset(current.buffer, current.valueStart, current.valueLength);
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (current != null)
+				current.close();
+			for (Run run : queue)
+				run.close();
+			queue.clear();
+		}
+
+		@Override
+		public Progress getProgress() {
+			return progress;
+		}
+	}
+}
@@ -16,11 +16,16 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter;
 
+import org.apache.hadoop.io.WritableUtils;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.CounterProperty.BaseType;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.CounterProperty.Depth;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.CounterProperty.DepthType;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.CounterProperty.Interval;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public class BaseCounter {
 
 	private long baseCount;
@@ -149,6 +154,23 @@ public class BaseCounter {
 		}
 	}
 	
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVLong(out, baseCount);
+		WritableUtils.writeVLong(out, baseWithoutPCRdupCount);
+		WritableUtils.writeVLong(out, totalDepth);
+		WritableUtils.writeVLong(out, totalDepthWithouPCR);
+	}
+	
+	/**
+	 * add counts written by {@link #write(DataOutput)}
+	 */
+	public void merge(DataInput in) throws IOException {
+		baseCount += WritableUtils.readVLong(in);
+		baseWithoutPCRdupCount += WritableUtils.readVLong(in);
+		totalDepth += WritableUtils.readVLong(in);
+		totalDepthWithouPCR += WritableUtils.readVLong(in);
+	}
+	
 	public String formatKey() {
 		String key = "";
 		for(CounterProperty property : properties)
@@ -16,9 +16,14 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter;
 
+import org.apache.hadoop.io.WritableUtils;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.CounterProperty.Interval;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.CounterProperty.ReadType;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public class ReadsCounter {
 	
 	private long count;
@@ -52,6 +57,14 @@ public class ReadsCounter {
 			count++;
 	}
 	
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVLong(out, count);
+	}
+	
+	public void merge(DataInput in) throws IOException {
+		count += WritableUtils.readVLong(in);
+	}
+	
 	public String formatKey() {
 		String key = "";
 		for(CounterProperty property : properties)
@@ -22,6 +22,9 @@ import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.CounterProperty.Dept
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.CounterProperty.Interval;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.CounterProperty.ReadType;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -100,6 +103,20 @@ public class Tracker {
 		public long getProperty(CounterProperty... properties) {
 			return mapCounter.get(formatKey(properties)).getProperty();
 		}
+		
+		/**
+		 * counters are written in register order, trackers merged into
+		 * each other must register the same counters
+		 */
+		public void write(DataOutput out) throws IOException {
+			for(BaseCounter counter : counters)
+				counter.write(out);
+		}
+		
+		public void merge(DataInput in) throws IOException {
+			for(BaseCounter counter : counters)
+				counter.merge(in);
+		}
 	
 	}
 	
@@ -152,6 +169,16 @@ public class Tracker {
 			return mapCounter;
 		}
 		
+		public void write(DataOutput out) throws IOException {
+			for(ReadsCounter counter : counters)
+				counter.write(out);
+		}
+		
+		public void merge(DataInput in) throws IOException {
+			for(ReadsCounter counter : counters)
+				counter.merge(in);
+		}
+		
 		public void notifyCounters() {
 			if (!workForRegionReport) {
 				for(ReadsCounter counter : counters) 
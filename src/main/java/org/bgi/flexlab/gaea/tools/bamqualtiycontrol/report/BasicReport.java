@@ -28,11 +28,13 @@ import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.Tracker.BaseTracker;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.Tracker.ReadsTracker;
 import org.bgi.flexlab.gaea.util.SamRecordDatum;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map.Entry;
 
 public class BasicReport{
 	
@@ -125,24 +127,14 @@ public class BasicReport{
 		return basicString.toString();
 	}
 	
-	public String toReducerString() {
-		StringBuffer basicString = new StringBuffer();
-		basicString.append("Basic Information:\n");
-		for(Entry<String, ReadsCounter> counter : rTracker.getCounterMap().entrySet()) {
-			basicString.append(counter.getKey());
-			basicString.append(" ");
-			basicString.append(counter.getValue().getReadsCount());
-			basicString.append("\t");
-		}
-		for(Entry<String, BaseCounter> counter : bTracker.getCounterMap().entrySet()) {
-			basicString.append(counter.getKey());
-			basicString.append(" ");
-			basicString.append(counter.getValue().getProperty());
-			basicString.append("\t");
-		}
-		basicString.append("\n");
-		
-		return basicString.toString();
+	public void write(DataOutput out) throws IOException {
+		rTracker.write(out);
+		bTracker.write(out);
+	}
+	
+	public void merge(DataInput in) throws IOException {
+		rTracker.merge(in);
+		bTracker.merge(in);
 	}
 	
 	private boolean isMismatch(SamRecordDatum datum, ChromosomeInformationShare chrInfo) {
@@ -166,28 +158,6 @@ public class BasicReport{
 		return isMismatch;
 	}
 	
-	public void parse(String line) {
-		String[] splitArray = line.split("\t");
-		for(String keyValue : splitArray)
-			parseKeyValue(keyValue);
-	}
-	
-	
-	private void parseKeyValue(String keyValue) {
-		String key = keyValue.split(" ")[0];
-		String value = keyValue.split(" ")[1];
-		ReadsCounter rCounter = null;
-		BaseCounter bCounter = null;
-		if((rCounter = rTracker.getCounterMap().get(key)) != null)
-			rCounter.setReadsCount(Long.parseLong(value));
-		else if((bCounter = bTracker.getCounterMap().get(key)) != null)
-			bCounter.setBaseCount(Long.parseLong(value));
-		else {
-			throw new RuntimeException("Can not idenity counter with name " + key);
-		}
-			
-	}
-	
 	public void register() {
 		rTracker.register(createReadsCounters());
 		bTracker.register(createBaseCounters());
@@ -20,6 +20,8 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.io.compress.CompressionCodecFactory;
 import org.apache.hadoop.io.compress.CompressionOutputStream;
@@ -27,77 +29,67 @@ import org.bgi.flexlab.gaea.data.structure.region.SingleRegion;
 import org.bgi.flexlab.gaea.data.structure.region.SingleRegion.Regiondata;
 import org.bgi.flexlab.gaea.tools.mapreduce.bamqualitycontrol.BamQualityControlOptions;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 public class CNVDepthReport {
-	private static Map<String, Map<Integer, Integer>> bedIndex = null;
-	private LaneDepth2[] depths;
-	private int currentLaneID;
-	private String currentChrName;
+	/**
+	 * sorted distinct positions of cnv regions for every chromosome, depth of
+	 * a position is kept at the same index of lane depth arrays
+	 */
+	private static Map<String, int[]> bedPositions = null;
+	private LaneDepth[] depths;
 	
 	public CNVDepthReport(int laneSize, SingleRegion region) {
-		if(bedIndex == null) {
-			bedIndex = new HashMap<String, Map<Integer,Integer>>();
-
-			for(Regiondata data : region.getRegions()) {
-				Map<Integer,Integer> bedRegionIndex;
-				int index;
-				int start = data.getStart();
-				int end = data.getEnd();
-				if(bedIndex.containsKey(data.getChrName())) {
-					bedRegionIndex = bedIndex.get(data.getChrName());
-					index = bedIndex.get(data.getChrName()).size() * 2;
-					for(int pos = start; pos <= end; pos++) {
-						if(!bedRegionIndex.containsKey(pos)) {
-							bedRegionIndex.put(pos, index);
-							index += 2;
-						}
-					}
-				} else {
-					bedRegionIndex = new HashMap<Integer, Integer>();
-					index = 0;
-					for(int pos = start; pos <= end; pos++) {
-						if(!bedRegionIndex.containsKey(pos)) {
-							bedRegionIndex.put(pos, index);
-							index += 2;
-						}
-					}
-					bedIndex.put(data.getChrName(), bedRegionIndex);
-				}
-			}
+		if(bedPositions == null) {
+			bedPositions = createBedPositions(region);
 		}
 		
-		depths = new LaneDepth2[laneSize];
+		depths = new LaneDepth[laneSize];
 		for(int i = 0; i < laneSize; i++) {
-			depths[i] = new LaneDepth2();
+			depths[i] = new LaneDepth();
 		}
 	}
 	
-	/**
-	 * result add
-	 * @param line
-	 */
-	public void add(String line) {
-		if(line.startsWith(">LaneID")) {
-			currentLaneID = Integer.parseInt(line.split(":")[1]);
-			return;
+	private static Map<String, int[]> createBedPositions(SingleRegion region) {
+		Map<String, Integer> sizes = new HashMap<String, Integer>();
+		for(Regiondata data : region.getRegions()) {
+			Integer size = sizes.get(data.getChrName());
+			sizes.put(data.getChrName(), (size == null ? 0 : size) + Math.max(0, data.getEnd() - data.getStart() + 1));
 		}
-		if(line.startsWith(">ChrName")) {
-			currentChrName = line.split(":")[1];
-			return;
+		
+		Map<String, int[]> positions = new HashMap<String, int[]>();
+		for(String chrName : sizes.keySet()) {
+			positions.put(chrName, new int[sizes.get(chrName)]);
 		}
-		String[] lineSplits = line.split("\t");
-		int position = Integer.parseInt(lineSplits[0]);
-		short depth = Short.parseShort(lineSplits[1]);
-		depths[currentLaneID].add(currentChrName, position, depth);
+		for(Regiondata data : region.getRegions()) {
+			int[] chrPositions = positions.get(data.getChrName());
+			int index = sizes.get(data.getChrName());
+			for(int pos = data.getEnd(); pos >= data.getStart(); pos--) {
+				chrPositions[--index] = pos;
+			}
+			sizes.put(data.getChrName(), index);
+		}
+		
+		for(String chrName : positions.keySet()) {
+			int[] chrPositions = positions.get(chrName);
+			Arrays.sort(chrPositions);
+			int size = 0;
+			for(int i = 0; i < chrPositions.length; i++) {
+				if(size == 0 || chrPositions[i] != chrPositions[size - 1])
+					chrPositions[size++] = chrPositions[i];
+			}
+			positions.put(chrName, Arrays.copyOf(chrPositions, size));
+		}
+		return positions;
 	}
 	
 	public void toReport(BamQualityControlOptions options, FileSystem fs, Configuration conf, String sampleName) throws IOException {
 		for(int i = 0; i < depths.length; i++) {
-			Map<String, WrappedIntArray> sampleDepth = depths[i].laneDepth;
 			for(String chrName : depths[i].laneDepth.keySet()) {
 				StringBuffer cnvDepthFilePath = new StringBuffer();
 				cnvDepthFilePath.append(options.getOutputPath());
@@ -115,16 +107,15 @@ public class CNVDepthReport {
 				CompressionCodecFactory codecFactory = new CompressionCodecFactory(conf);
 		        CompressionCodec codec = codecFactory.getCodec(cnvDepthPath);
 		        CompressionOutputStream compressedOutput = codec.createOutputStream(cnvDepthStream);
-		        //ChrLaneDepth laneChrDepths = depths[i].laneDepth.get(chrName);
-		        //Map<Integer, Integer> depthLanePos = laneChrDepths.depth;
-		        int[] depth = sampleDepth.get(chrName).getArray();
+		        int[] positions = bedPositions.get(chrName);
+		        int[] depth = depths[i].laneDepth.get(chrName);
 		        StringBuilder sb = new StringBuilder();
-		        for(int j = 0; j < depth.length; j += 2) {
+		        for(int j = 0; j < depth.length; j++) {
 		        	sb.append(chrName);
 		        	sb.append("\t");
-					sb.append(depth[j] + 1);
+					sb.append(positions[j] + 1);
 					sb.append("\t");
-					sb.append(depth[j + 1]);
+					sb.append(depth[j]);
 					sb.append("\n");
 				}
 		        compressedOutput.write(sb.toString().getBytes());
@@ -149,88 +140,80 @@ public class CNVDepthReport {
 	}
 	
 	/**
-	 * to reducer output
-	 * @return
+	 * only depth added since construction is written, as (index delta,
+	 * depth) pairs of every lane and chromosome
 	 */
-	public String toReducerString() {
-		StringBuilder sb = new StringBuilder();
-		sb.append("CNV Depth:\n");
-		for(int i = 0; i < depths.length; i++) {
-			sb.append(">LaneID:");
-			sb.append(i);
-			sb.append("\n");
-			sb.append(depths[i].toString());
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, depths.length);
+		for(LaneDepth lane : depths) {
+			WritableUtils.writeVInt(out, lane.ranges.size());
+			for(String chrName : lane.ranges.keySet()) {
+				int[] range = lane.ranges.get(chrName);
+				int[] depth = lane.laneDepth.get(chrName);
+				int size = 0;
+				for(int i = range[0]; i <= range[1]; i++) {
+					if(depth[i] != 0)
+						size++;
+				}
+				Text.writeString(out, chrName);
+				WritableUtils.writeVInt(out, size);
+				int last = 0;
+				for(int i = range[0]; i <= range[1]; i++) {
+					if(depth[i] != 0) {
+						WritableUtils.writeVInt(out, i - last);
+						WritableUtils.writeVInt(out, depth[i]);
+						last = i;
+					}
+				}
+			}
 		}
-		sb.append("CNV Depth\n");
-		return sb.toString();
 	}
 	
-	public class LaneDepth2 {
-		private Map<String, WrappedIntArray> laneDepth = new HashMap<String, WrappedIntArray>();
-		
-		public LaneDepth2() {
-			for(String chrName : bedIndex.keySet()) {
-				WrappedIntArray depth = new WrappedIntArray(bedIndex.get(chrName).size() * 2);
-				
-				laneDepth.put(chrName, depth);
-			}
-		}
-		
-		public void add(String chrName, int position, int depth) {
-			int index = bedIndex.get(chrName).get(position);
-			if(index < 0) {
-				throw new RuntimeException("index < 0 when index position of CNV depth.");
-			}
-			if(index > laneDepth.get(chrName).size()) {
-				System.err.println("chr:" + chrName + "\tposition:" + position + " OI");
-			}
-			laneDepth.get(chrName).set(index, position);
-			laneDepth.get(chrName).set(index + 1, depth);
-		}
-		
-		public String toString() {
-			StringBuilder sb = new StringBuilder();
-			for(String chrName : laneDepth.keySet()) {
-				sb.append(">ChrName:");
-				sb.append(chrName);
-				sb.append("\n");
-				//sb.append(laneDepth.get(chrName).toString());
-				int[] depths = laneDepth.get(chrName).getArray();
-				for(int index = 0; index < depths.length; index += 2) {
-					if(depths[index + 1] != 0) {
-						sb.append(depths[index]);
-						sb.append("\t");
-						sb.append(depths[index + 1]);
-						sb.append("\n");
-					}
+	public void merge(DataInput in) throws IOException {
+		if(WritableUtils.readVInt(in) != depths.length)
+			throw new IOException("input lane size is wrong");
+		for(LaneDepth lane : depths) {
+			int chrSize = WritableUtils.readVInt(in);
+			for(int i = 0; i < chrSize; i++) {
+				int[] depth = lane.laneDepth.get(Text.readString(in));
+				int size = WritableUtils.readVInt(in);
+				int index = 0;
+				for(int j = 0; j < size; j++) {
+					index += WritableUtils.readVInt(in);
+					depth[index] += WritableUtils.readVInt(in);
 				}
 			}
-			return sb.toString();
 		}
 	}
 	
-	public class WrappedIntArray {
-		int[] array;
+	private class LaneDepth {
+		private Map<String, int[]> laneDepth = new HashMap<String, int[]>();
 		
-		public WrappedIntArray(int size) {
-			array = new int[size];
-			Arrays.fill(array, 0);
-		}
-		
-		public int[] getArray() {
-			return array;
-		}
-		
-		public int size() {
-			return array.length;
-		}
+		/**
+		 * first and last index added of each chromosome
+		 */
+		private Map<String, int[]> ranges = new HashMap<String, int[]>();
 		
-		public void set(int index, int value) {
-			array[index] = value;
+		private LaneDepth() {
+			for(String chrName : bedPositions.keySet()) {
+				laneDepth.put(chrName, new int[bedPositions.get(chrName).length]);
+			}
 		}
 		
-		public void add(int index, int value) {
-			array[index] += value;
+		private void add(String chrName, int position, int depth) {
+			int index = Arrays.binarySearch(bedPositions.get(chrName), position);
+			if(index < 0) {
+				throw new RuntimeException("index < 0 when index position of CNV depth.");
+			}
+			laneDepth.get(chrName)[index] += depth;
+			
+			int[] range = ranges.get(chrName);
+			if(range == null) {
+				ranges.put(chrName, new int[] {index, index});
+			} else {
+				range[0] = Math.min(range[0], index);
+				range[1] = Math.max(range[1], index);
+			}
 		}
 	}
 }
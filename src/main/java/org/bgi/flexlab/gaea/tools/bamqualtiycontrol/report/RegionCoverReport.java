@@ -16,6 +16,11 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report;
 
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Arrays;
 
 public class RegionCoverReport {
@@ -41,35 +46,19 @@ public class RegionCoverReport {
 		}
 	}
 	
-	public String toReducerString() {
-		StringBuilder sb = new StringBuilder();
-		sb.append("Region Depth:\n");
-		sb.append(depth[0]);
-		for(int i = 1; i < depth.length; i++) {
-			sb.append("\t");
-			sb.append(depth[i]);
-		}
-		sb.append("\n");
-		return sb.toString();
-	}
-	
-	//name = "RMDUP Rgion Depth"
-	public String toReducerString(String name) {
-		StringBuilder sb = new StringBuilder();
-		sb.append(name + ":\n");
-		sb.append(depth[0]);
-		for(int i = 1; i < depth.length; i++) {
-			sb.append("\t");
-			sb.append(depth[i]);
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, depth.length);
+		for(int i = 0; i < depth.length; i++) {
+			WritableUtils.writeVInt(out, depth[i]);
 		}
-		sb.append("\n");
-		return sb.toString();
 	}
 	
-	public void parseReducerOutput(String line) {
-		String[] lineSplits = line.split("\t");
-		for(int i = 0; i < lineSplits.length; i++) {
-			depth[i] += Integer.parseInt(lineSplits[i]);
+	public void merge(DataInput in) throws IOException {
+		int length = WritableUtils.readVInt(in);
+		if(length != depth.length)
+			throw new IOException("region depth size " + length + " doesn't match " + depth.length);
+		for(int i = 0; i < length; i++) {
+			depth[i] += WritableUtils.readVInt(in);
 		}
 	}
 	
@@ -28,12 +28,14 @@ import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.Tracker.BaseTracker;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.Tracker.ReadsTracker;
 import org.bgi.flexlab.gaea.util.SamRecordDatum;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map.Entry;
 
 public class RegionReport{
 	
@@ -94,55 +96,14 @@ public class RegionReport{
 		}
 	}
 	
-	public String toReducerString() {
-		StringBuffer regionString = new StringBuffer();
-		regionString.append("Target Information:\n");
-		for(Entry<String, ReadsCounter> counter : rTracker.getCounterMap().entrySet()) {
-			regionString.append(counter.getKey());
-			regionString.append(" ");
-			regionString.append(counter.getValue().getReadsCount());
-			regionString.append("\t");
-		}
-		for(Entry<String, BaseCounter> counter : bTracker.getCounterMap().entrySet()) {
-			regionString.append(counter.getKey());
-			regionString.append(" ");
-			regionString.append(counter.getValue().getProperty());
-			regionString.append("\t");
-		}
-		regionString.append("\n");
-		return regionString.toString();
+	public void write(DataOutput out) throws IOException {
+		rTracker.write(out);
+		bTracker.write(out);
 	}
 	
-	public void parse(String line) {
-		String[] splitArray = line.split("\t");
-		for(String keyValue : splitArray)
-			parseKeyValue(keyValue);
-	}
-	
-	
-	private void parseKeyValue(String keyValue) {
-		String key = keyValue.split(" ")[0];
-		String value = keyValue.split(" ")[1];
-		ReadsCounter rCounter = null;
-		BaseCounter bCounter = null;
-		if((rCounter = rTracker.getCounterMap().get(key)) != null)
-			rCounter.setReadsCount(Long.parseLong(value));
-		else if((bCounter = bTracker.getCounterMap().get(key)) != null) {
-			if(!key.contains(Depth.TOTALDEPTH.toString())) {
-				if(key.contains(DepthType.WITHOUT_PCR.toString()))
-					bCounter.setBaseWithoutPCRDupCount(Long.parseLong(value));
-				else if(key.contains(DepthType.NORMAL.toString()))
-					bCounter.setBaseCount(Long.parseLong(value));
-			} else {
-				if(key.contains(DepthType.WITHOUT_PCR.toString()))
-					bCounter.setTotalDepthWithoutPCRDup(Long.parseLong(value));
-				else if(key.contains(DepthType.NORMAL.toString()))
-					bCounter.setTotalDepth(Long.parseLong(value));
-			}
-		} else {
-			throw new RuntimeException("Can not idenity counter with name " + key);
-		}
-			
+	public void merge(DataInput in) throws IOException {
+		rTracker.merge(in);
+		bTracker.merge(in);
 	}
 	
 	public String toString(BasicReport basicReport) {
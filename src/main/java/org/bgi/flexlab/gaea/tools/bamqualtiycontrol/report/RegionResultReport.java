@@ -22,13 +22,10 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Reducer.Context;
-import org.apache.hadoop.util.LineReader;
 import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
 import org.bgi.flexlab.gaea.data.structure.positioninformation.depth.PositionDepth;
 import org.bgi.flexlab.gaea.data.structure.reference.ChromosomeInformationShare;
-import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
 import org.bgi.flexlab.gaea.data.structure.region.RegionChromosomeInformation;
 import org.bgi.flexlab.gaea.data.structure.region.SingleRegion;
 import org.bgi.flexlab.gaea.data.structure.region.SingleRegion.Regiondata;
@@ -39,6 +36,8 @@ import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report.RegionReport.Sex;
 import org.bgi.flexlab.gaea.tools.mapreduce.bamqualitycontrol.BamQualityControlOptions;
 import org.bgi.flexlab.gaea.util.SamRecordDatum;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -151,89 +150,31 @@ public class RegionResultReport extends ResultReport{
 	}
 	
 	@Override
-	public String toReducerString(String sample, String chrName, boolean unmappedRegion) {
-		StringBuffer info = new StringBuffer();
-		
-		if(chrName.equals("-1")) {
-			info.append("sample:");
-			info.append(sample);
-			info.append("\n");
-			info.append(basicReport.toReducerString());
-			return info.toString();
-		}
-		info.append("sample:");
-		info.append(sample);
-		info.append("\n");
-		info.append("chrName:");
-		info.append(chrName);
-		info.append("\n");
-		info.append(basicReport.toReducerString());
-		if(!unmappedRegion) {
-			info.append(regionCoverReport.toReducerString());
-			info.append(rmdupRegionCoverReport.toReducerString("RMDUP Region Depth"));
-			info.append(regionReport.toReducerString());
-			if(options.isCnvDepth()) {
-				//System.err.println("do cnv depth");
-				info.append(cnvDepthReport.toReducerString());
-			}
-			info.append("insert size information:\n");
-			insertSizeReportReducerString(info, insertSize);
-			info.append("insert size information\n");
-			
-			info.append("insert size without dup information:\n");
-			insertSizeReportReducerString(info, insertSizeWithoutDup);
-			info.append("insert size without dup information\n");
-			
-			info.append("unmapped site information:\n");
-			unmappedReport.toReducerString();
-			info.append("unmapped site information\n");
-			if(cnvSingleRegionReport != null)
-				info.append(cnvSingleRegionReport.toReducerString());
-			if(SingleRegionReport != null) 
-				info.append(SingleRegionReport.toReducerString());
-			if(genderSingleRegionReport != null) 
-				info.append(genderSingleRegionReport.toReducerString());
-		}
-		return info.toString();
+	public void writeAggregate(DataOutput out, boolean unmappedRegion) throws IOException {
+		super.writeAggregate(out, unmappedRegion);
+		if(unmappedRegion)
+			return;
+		regionReport.write(out);
+		if(cnvDepthReport != null)
+			cnvDepthReport.write(out);
+		if(SingleRegionReport != null)
+			SingleRegionReport.write(out);
+		if(genderSingleRegionReport != null)
+			genderSingleRegionReport.write(out);
 	}
 	
 	@Override
-	public void parseReport(LineReader lineReader, Text line, ReferenceShare genome) throws IOException {
-		super.parseReport(lineReader, line,genome);
-		String lineString = line.toString();
-		if(lineString.contains("Target Information")) {
-			if(lineReader.readLine(line) > 0 && line.getLength() != 0) {
-				regionReport.parse(line.toString());
-			}
-		}
-		if(lineString.startsWith("bed single Region Statistic")) {
-			if(lineReader.readLine(line) > 0 && line.getLength() != 0) {
-				SingleRegionReport.parseReducerOutput(line.toString(), false);
-			}
-		}
-		if(lineString.startsWith("bed part single Region Statistic")) {
-			if(lineReader.readLine(line) > 0 && line.getLength() != 0) {
-				SingleRegionReport.parseReducerOutput(line.toString(), true);
-			}
-		}
-		if(lineString.startsWith("gender single Region Statistic")) {
-			if(lineReader.readLine(line) > 0 && line.getLength() != 0) {
-				genderSingleRegionReport.parseReducerOutput(line.toString(), false);
-			}
-		}
-		if(lineString.startsWith("gender part single Region Statistic")) {
-			if(lineReader.readLine(line) > 0 && line.getLength() != 0) {
-				genderSingleRegionReport.parseReducerOutput(line.toString(), true);
-			}
-		}
-		if(lineString.startsWith("CNV Depth")) {
-			while(lineReader.readLine(line) > 0 && line.getLength() != 0) {
-				if(line.toString().contains("CNV Depth")) {
-					break;
-				}
-				cnvDepthReport.add(line.toString());
-			}
-		}
+	public boolean mergeAggregate(DataInput in) throws IOException {
+		if(!super.mergeAggregate(in))
+			return false;
+		regionReport.merge(in);
+		if(cnvDepthReport != null)
+			cnvDepthReport.merge(in);
+		if(SingleRegionReport != null)
+			SingleRegionReport.merge(in);
+		if(genderSingleRegionReport != null)
+			genderSingleRegionReport.merge(in);
+		return true;
 	}
 	
 	@Override
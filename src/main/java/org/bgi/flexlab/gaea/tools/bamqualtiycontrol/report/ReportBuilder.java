@@ -19,9 +19,7 @@ package org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report;
 import htsjdk.samtools.SAMRecordIterator;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Reducer.Context;
-import org.apache.hadoop.util.LineReader;
 import org.bgi.flexlab.gaea.data.structure.positioninformation.depth.PositionDepth;
-import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
 import org.bgi.flexlab.gaea.util.SamRecordDatum;
 
 import java.io.IOException;
@@ -80,10 +78,6 @@ public class ReportBuilder {
 		return report instanceof RegionResultReport ? ((RegionResultReport) report).getSampleLaneSize(sample) : 0;
 	}
 	
-	public void parseReport(LineReader lineReader, Text line, ReferenceShare genome) throws IOException {
-		report.parseReport(lineReader, line, genome);
-	}
-	
 	public ResultReport build() {
 		return report;
 	}
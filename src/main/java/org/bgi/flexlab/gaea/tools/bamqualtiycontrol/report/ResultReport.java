@@ -21,11 +21,11 @@ import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.io.compress.CompressionCodecFactory;
 import org.apache.hadoop.io.compress.CompressionOutputStream;
 import org.apache.hadoop.mapreduce.Reducer.Context;
-import org.apache.hadoop.util.LineReader;
 import org.bgi.flexlab.gaea.data.structure.positioninformation.depth.PositionDepth;
 import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
 import org.bgi.flexlab.gaea.data.structure.region.SingleRegion;
@@ -34,8 +34,9 @@ import org.bgi.flexlab.gaea.data.structure.region.SingleRegionStatistic;
 import org.bgi.flexlab.gaea.tools.mapreduce.bamqualitycontrol.BamQualityControlOptions;
 import org.bgi.flexlab.gaea.util.SamRecordDatum;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
 
@@ -134,77 +135,55 @@ public abstract class ResultReport {
 		}
 	}
 	
-	protected void insertSizeReportReducerString(StringBuffer info, int[] insertSize) {
-		for(int i = 0; i < insertSize.length; i++) {
-			if(insertSize[i] != 0) {
-				info.append(i);
-				info.append("\t");
-				info.append(insertSize[i]);
-				info.append("\n");
-			}
-		}
-	}
-	
 	public abstract void constructDepthReport(PositionDepth pd, int i, String chrName, long pos);
 
-	public abstract String toReducerString(String sample, String chrName, boolean unmappedRegion);
+	/**
+	 * binary form of window statistics, aggregates are merged in any order
+	 * by {@link #mergeAggregate(DataInput)}
+	 */
+	public void writeAggregate(DataOutput out, boolean unmappedRegion) throws IOException {
+		basicReport.write(out);
+		out.writeBoolean(!unmappedRegion);
+		if(unmappedRegion)
+			return;
+		regionCoverReport.write(out);
+		rmdupRegionCoverReport.write(out);
+		writeIntArray(out, insertSize);
+		writeIntArray(out, insertSizeWithoutDup);
+		unmappedReport.write(out);
+		if(cnvSingleRegionReport != null)
+			cnvSingleRegionReport.write(out);
+	}
 
-	public void parseReport(LineReader lineReader, Text line, ReferenceShare genome) throws IOException {
-		String lineString = line.toString();
-		String chrName = "";
-		if(lineString.contains("chrName:")) {
-			String[] sampleSplit = line.toString().split(":");
-			chrName = sampleSplit[1];
-		}
-		
-		if(lineString.contains("Basic Information")) {
-			if(lineReader.readLine(line) > 0 && line.getLength() != 0) {
-				basicReport.parse(line.toString());
-			}
-		}
-		
-		if(lineString.startsWith("cnv part single Region Statistic")) {
-			if(lineReader.readLine(line) > 0 && line.getLength() != 0) {
-				cnvSingleRegionReport.parseReducerOutput(line.toString(), true);
-			}
-		}
-		if(lineString.startsWith("cnv single Region Statistic")) {
-			if(lineReader.readLine(line) > 0 && line.getLength() != 0) {
-				cnvSingleRegionReport.parseReducerOutput(line.toString(), false);
-			}
-		}
-		if(lineString.startsWith("Region Depth")) {
-			if(lineReader.readLine(line) > 0 && line.getLength() != 0) {
-				regionCoverReport.parseReducerOutput(line.toString());
-			}
-		}
-		if(lineString.startsWith("RMDUP Region Depth")) {
-			if(lineReader.readLine(line) > 0 && line.getLength() != 0) {
-				rmdupRegionCoverReport.parseReducerOutput(line.toString());
-			}
-		}
-		
-		if(lineString.contains("insert size information")) {
-			fillInsertSize(lineReader, line, insertSize);
-		}
-		
-		if(lineString.contains("insert size without dup information")) {
-			fillInsertSize(lineReader, line, insertSizeWithoutDup);
-		}
-		
-		if(lineString.contains("unmapped site information") && options.isOutputUnmapped()) {
-			String[] splitArray = null;
-			ArrayList<Long> unmappedSites =  unmappedReport.getUnmappedSites(chrName);
-			while(lineReader.readLine(line) > 0 && line.getLength() != 0) {
-				if(line.toString().contains("unmapped site information")) {
-					break;
-				}
-				splitArray = line.toString().split("\t");
-				
-				unmappedSites.add(Long.parseLong(splitArray[0]));
-				unmappedSites.add(Long.parseLong(splitArray[1]));
-			}
-		}
+	/**
+	 * @return false if the aggregate only has basic information
+	 */
+	public boolean mergeAggregate(DataInput in) throws IOException {
+		basicReport.merge(in);
+		if(!in.readBoolean())
+			return false;
+		regionCoverReport.merge(in);
+		rmdupRegionCoverReport.merge(in);
+		mergeIntArray(in, insertSize);
+		mergeIntArray(in, insertSizeWithoutDup);
+		unmappedReport.merge(in);
+		if(cnvSingleRegionReport != null)
+			cnvSingleRegionReport.merge(in);
+		return true;
+	}
+
+	protected static void writeIntArray(DataOutput out, int[] array) throws IOException {
+		WritableUtils.writeVInt(out, array.length);
+		for(int value : array)
+			WritableUtils.writeVInt(out, value);
+	}
+
+	protected static void mergeIntArray(DataInput in, int[] array) throws IOException {
+		int length = WritableUtils.readVInt(in);
+		if(length != array.length)
+			throw new IOException("array size " + length + " doesn't match " + array.length);
+		for(int i = 0; i < length; i++)
+			array[i] += WritableUtils.readVInt(in);
 	}
 	
 	public void write(FileSystem fs, String sampleName) throws IOException {
@@ -360,18 +339,6 @@ public abstract class ResultReport {
 		insertWithoutDupwriter.close();
 	}
 	
-	private void fillInsertSize(LineReader lineReader, Text line, int[] insertSize) throws RuntimeException, IOException {
-		String[] splitArray = null;
-		while(lineReader.readLine(line) > 0 && line.getLength() != 0) {
-			if(line.toString().contains("insert size")) {
-				break;
-			}
-			splitArray = line.toString().split("\t");
-			int index = Integer.parseInt(splitArray[0]);
-			insertSize[index] += Integer.parseInt(splitArray[1]);
-		}
-	}
-	
 	public SingleRegionReport getCNVSingleRegionReport() {
 		return cnvSingleRegionReport;
 	}
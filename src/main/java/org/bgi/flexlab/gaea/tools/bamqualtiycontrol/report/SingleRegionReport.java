@@ -16,6 +16,7 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report;
 
+import org.apache.hadoop.io.Text;
 import org.bgi.flexlab.gaea.data.structure.positioninformation.IntPositionInformation;
 import org.bgi.flexlab.gaea.data.structure.positioninformation.depth.PositionDepth;
 import org.bgi.flexlab.gaea.data.structure.region.SingleRegion;
@@ -23,6 +24,9 @@ import org.bgi.flexlab.gaea.data.structure.region.SingleRegion.Regiondata;
 import org.bgi.flexlab.gaea.data.structure.region.SingleRegionStatistic;
 import org.bgi.flexlab.gaea.util.ChromosomeUtils;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Map;
@@ -50,6 +54,20 @@ public class SingleRegionReport {
 	public String toReducerString() {
 		return outputString.toString();
 	}
+	
+	/**
+	 * region statistics keep their reducer string form, part regions carry
+	 * depth of every position for the median depth
+	 */
+	public void write(DataOutput out) throws IOException {
+		Text.writeString(out, outputString.toString());
+	}
+	
+	public void merge(DataInput in) throws IOException {
+		String[] lines = Text.readString(in).split("\n");
+		for(int i = 0; i + 1 < lines.length; i += 2)
+			parseReducerOutput(lines[i + 1], lines[i].contains("part single Region Statistic"));
+	}
 
 	public String getStatisticString(String chrName, int winStart, int windowSize, PositionDepth dp, String title) {
 		int start = 0, end, index = -1;
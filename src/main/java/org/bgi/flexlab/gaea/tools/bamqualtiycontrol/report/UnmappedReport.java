@@ -18,8 +18,12 @@ package org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report;
 
 import htsjdk.samtools.SAMRecordIterator;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.CounterProperty.ReadType;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Map;
@@ -33,18 +37,25 @@ public class UnmappedReport {
 	
 	private boolean firstUnmappedSite = true;
 	
-	public String toReducerString() {
-		StringBuilder info = new StringBuilder();
-		for(String key : unmappedSites.keySet()) {
-			ArrayList<Long> unmaped = unmappedSites.get(key);
-			for(int i = 0; i < unmaped.size(); i += 2) {
-				info.append(unmaped.get(i));
-				info.append("\t");
-				info.append(unmaped.get(i + 1));
-				info.append("\n");
-			}
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, unmappedSites.size());
+		for(String chrName : unmappedSites.keySet()) {
+			ArrayList<Long> sites = unmappedSites.get(chrName);
+			Text.writeString(out, chrName);
+			WritableUtils.writeVInt(out, sites.size());
+			for(long site : sites)
+				WritableUtils.writeVLong(out, site);
+		}
+	}
+	
+	public void merge(DataInput in) throws IOException {
+		int chrSize = WritableUtils.readVInt(in);
+		for(int i = 0; i < chrSize; i++) {
+			ArrayList<Long> sites = getUnmappedSites(Text.readString(in));
+			int size = WritableUtils.readVInt(in);
+			for(int j = 0; j < size; j++)
+				sites.add(WritableUtils.readVLong(in));
 		}
-		return info.toString();
 	}
 	
 	public Map<String, ArrayList<Long>> getUnmappedSites() {
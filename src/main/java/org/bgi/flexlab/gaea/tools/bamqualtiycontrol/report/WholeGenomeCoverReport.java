@@ -18,7 +18,6 @@ package org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report;
 
 import org.bgi.flexlab.gaea.data.structure.positioninformation.depth.PositionDepth;
 import org.bgi.flexlab.gaea.data.structure.reference.ChromosomeInformationShare;
-import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.BaseCounter;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.CounterProperty.BaseType;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.CounterProperty.Depth;
@@ -27,13 +26,15 @@ import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.CounterProperty.Inte
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.Tracker;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.Tracker.BaseTracker;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 
 
@@ -91,22 +92,6 @@ public class WholeGenomeCoverReport{
 		}
 	}
 	
-	public String toReducerString(String chrName) {
-		StringBuffer coverString = new StringBuffer();
-		coverString.append("Cover Information:\n");
-		coverString.append(chrName);
-		coverString.append("\t");
-		for(Entry<String, BaseCounter> counter : bTracker.getCounterMap().entrySet()) {
-			coverString.append(counter.getKey());
-			coverString.append(" ");
-			coverString.append(counter.getValue().getProperty());
-			coverString.append("\t");
-		}
-		coverString.append("\n");
-		
-		return coverString.toString();
-	}
-	
 	public String toString() {
 		DecimalFormat df = new DecimalFormat("0.000");
 		df.setRoundingMode(RoundingMode.HALF_UP);
@@ -147,21 +132,12 @@ public class WholeGenomeCoverReport{
 		return coverString.toString();
 	}
 	
-	public void parse(String keyValue, ReferenceShare genome) {
-		String key = keyValue.split(" ")[0];
-		String value = keyValue.split(" ")[1];
-		BaseCounter bCounter = null;
-		if((bCounter = getBasetTracker().getCounterMap().get(key)) != null) {
-			if(!key.contains(Depth.TOTALDEPTH.toString())) {
-				bCounter.setBaseCount(Long.parseLong(value));
-			} else if(key.contains(DepthType.NORMAL.toString())) {
-				bCounter.setTotalDepth(Long.parseLong(value));
-			}else {
-				bCounter.setTotalDepthWithoutPCRDup(Long.parseLong(value));
-			}
-		} else {
-			throw new RuntimeException("Can not idenity counter with name " + key);
-		}
+	public void write(DataOutput out) throws IOException {
+		bTracker.write(out);
+	}
+	
+	public void merge(DataInput in) throws IOException {
+		bTracker.merge(in);
 	}
 	
 	public BaseTracker getBasetTracker() {
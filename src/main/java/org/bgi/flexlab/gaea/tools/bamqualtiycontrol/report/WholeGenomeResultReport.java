@@ -20,13 +20,13 @@ import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.Text;
-import org.apache.hadoop.util.LineReader;
+import org.apache.hadoop.io.WritableUtils;
 import org.bgi.flexlab.gaea.data.structure.positioninformation.depth.PositionDepth;
 import org.bgi.flexlab.gaea.data.structure.reference.ChromosomeInformationShare;
-import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
-import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.CounterProperty;
 import org.bgi.flexlab.gaea.tools.mapreduce.bamqualitycontrol.BamQualityControlOptions;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
@@ -69,72 +69,32 @@ public class WholeGenomeResultReport extends ResultReport{
 	}
 	
 	@Override
-	public String toReducerString(String sample, String chrName, boolean unmappedRegion) {
-		StringBuffer info = new StringBuffer();
-		
-		if(chrName.equals("-1")) {
-			info.append("sample:");
-			info.append(sample);
-			info.append("\n");
-			info.append(basicReport.toReducerString());
-			return info.toString();
-		}
-		info.append("sample:");
-		info.append(sample);
-		info.append("\n");
-		info.append("chrName:");
-		info.append(chrName);
-		info.append("\n");
-		info.append(basicReport.toReducerString());
-		if(!unmappedRegion) {
-			info.append(regionCoverReport.toReducerString());
-			info.append(rmdupRegionCoverReport.toReducerString("RMDUP Region Depth"));
-			for(String key : coverReports.keySet()) {
-				WholeGenomeCoverReport cover = coverReports.get(key);
-				info.append(cover.toReducerString(key));
-			}
-			info.append("insert size information:\n");
-			insertSizeReportReducerString(info, insertSize);
-			info.append("insert size information\n");
-			
-			info.append("insert size without dup information:\n");
-			insertSizeReportReducerString(info, insertSizeWithoutDup);
-			info.append("insert size without dup information\n");
-			
-			info.append("unmapped site information:\n");
-			unmappedReport.toReducerString();
-			info.append("unmapped site information\n");
-			if(cnvSingleRegionReport != null)
-				info.append(cnvSingleRegionReport.toReducerString());
+	public void writeAggregate(DataOutput out, boolean unmappedRegion) throws IOException {
+		super.writeAggregate(out, unmappedRegion);
+		if(unmappedRegion)
+			return;
+		WritableUtils.writeVInt(out, coverReports.size());
+		for(String chrName : coverReports.keySet()) {
+			Text.writeString(out, chrName);
+			coverReports.get(chrName).write(out);
 		}
-		return info.toString();
 	}
 	
 	@Override
-	public void parseReport(LineReader lineReader, Text line, ReferenceShare genome) throws IOException {
-		super.parseReport(lineReader, line, genome);
-		String lineString = line.toString();
-		if(lineString.contains("Cover Information")) {
-			if(lineReader.readLine(line) > 0 && line.getLength() != 0) {
-				String[] splitArray = line.toString().split("\t");
-				WholeGenomeCoverReport coverReport = null;
-				for(String keyValue : splitArray) {
-					if(keyValue.split(" ").length == 1) {
-						String chrName = keyValue;
-						if(!coverReports.containsKey(chrName)) {
-							ChromosomeInformationShare chrInfo = genome.getChromosomeInfo(chrName);
-							coverReport = new WholeGenomeCoverReport(chrInfo);
-							coverReports.put(chrName, coverReport);
-						} else {
-							coverReport = coverReports.get(chrName);
-						}
-					} else {
-						assert coverReport != null;
-						coverReport.parse(keyValue, genome);
-					}
-				}
+	public boolean mergeAggregate(DataInput in) throws IOException {
+		if(!super.mergeAggregate(in))
+			return false;
+		int size = WritableUtils.readVInt(in);
+		for(int i = 0; i < size; i++) {
+			String chrName = Text.readString(in);
+			WholeGenomeCoverReport coverReport = coverReports.get(chrName);
+			if(coverReport == null) {
+				coverReport = new WholeGenomeCoverReport(genome.getChromosomeInfo(chrName));
+				coverReports.put(chrName, coverReport);
 			}
+			coverReport.merge(in);
 		}
+		return true;
 	}
 	
 	@Override
@@ -1,8 +1,5 @@
 package org.bgi.flexlab.gaea.tools.callsv;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -10,11 +7,8 @@ import java.util.Map;
 import java.util.TreeMap;
 
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FSDataInputStream;
-import org.apache.hadoop.fs.FileStatus;
-import org.apache.hadoop.fs.FileSystem;
-import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.Text;
+import org.bgi.flexlab.gaea.data.exception.UserException;
 import org.bgi.flexlab.gaea.tools.mapreduce.callsv.CallStructuralVariationOptions;
 
 
@@ -32,11 +26,10 @@ public class BuildConnection {
 	 */
 	private CallStructuralVariationOptions options;
 	
-	private int mean;
-	
-	private float upper;
-	
-	private float lower;
+	/**
+	 * 每个文库insert size的众数和上下界，key是文库名
+	 */
+	private Map<String, InsertSizeBounds> bounds;
 	
 	private float dist;
 	
@@ -47,16 +40,11 @@ public class BuildConnection {
 	 */
 	private Map<String, Reads> readInfoMap;
 	
-	private BufferedReader br ;
-	private FileSystem fs ;
-	
 	public BuildConnection() {
 		this.conf = new Configuration();
 		this.options = new CallStructuralVariationOptions();
 		this.readInfoMap = new TreeMap<String, Reads>();
-		this.mean = 0;
-		this.upper = 0;
-		this.lower = 0;
+		this.bounds = new TreeMap<String, InsertSizeBounds>();
 		this.dist = 0;
 		this.ref_length = 0;
 	}
@@ -65,9 +53,7 @@ public class BuildConnection {
 		this.conf = conf;
 		this.options = options;
 		this.readInfoMap = new TreeMap<String, Reads>();
-		this.mean = 0;
-		this.upper = 0;
-		this.lower = 0;
+		this.bounds = new TreeMap<String, InsertSizeBounds>();
 		this.dist = 0;
 		this.ref_length = 0;
 	}
@@ -78,12 +64,10 @@ public class BuildConnection {
 	 * @param para Parameter类型的参数，将上层的para传递进来
 	 * @param dist Map集合，保存了每个染色体的dist和ref_length
 	 */
-	public BuildConnection(Configuration conf, CallStructuralVariationOptions options, int mean, float upper, float lower, float dist, int ref_length) {
+	public BuildConnection(Configuration conf, CallStructuralVariationOptions options, Map<String, InsertSizeBounds> bounds, float dist, int ref_length) {
 		this.conf = conf;
 		this.options = options;
-		this.mean = mean;
-		this.upper = upper;
-		this.lower = lower;
+		this.bounds = bounds;
 		this.dist = dist;
 		this.ref_length = ref_length;
 		this.readInfoMap = new TreeMap<String, Reads>();
@@ -235,47 +219,29 @@ public class BuildConnection {
 	}
 	
 	
+	/**
+	 * 从Configuration中读取作业提交前计算好的每个文库insert size的上下界
+	 */
 	public void setUpperLower() {
-		Map<Integer, Integer> insert = readInsertFile(options.getHdfsdir() + "/Sort/LibConf/");
-		
-		int maxnum = 0;
-		
-		for(Map.Entry<Integer, Integer> entry : insert.entrySet()) {
-			//get mean
-			int num = entry.getValue();
-			if(num > maxnum) {
-				this.mean = entry.getKey();
-				maxnum = num;
-			}
-
-		}
-
-		long lowsum = 0;
-		long upsum = 0;
-		long lownum = 0;
-		long upnum = 0;
-		for(Map.Entry<Integer, Integer> entry : insert.entrySet()) {
-			if(entry.getKey() < mean) {
-				lowsum = (long) (lowsum + Math.pow((entry.getKey() - mean),2) * entry.getValue());
-				lownum = lownum + entry.getValue();
-			}else {
-				upsum = (long) (upsum + Math.pow((entry.getKey() - mean),2) * entry.getValue());
-				upnum = lownum + entry.getValue();
-			}
-		}
-		
-		float lowstd = (float) Math.sqrt(lowsum/(lownum-1));
-		float upstd = (float) Math.sqrt(upsum/(upnum-1));
-		
-		upper = mean + options.getStdtimes() * upstd;
-		lower = mean - options.getStdtimes() * lowstd;
-				
+		bounds = InsertSizeBounds.getBounds(conf);
+		if(!bounds.containsKey(InsertSizeBounds.ALL_LIBRARIES))
+			throw new UserException("insert size bounds are not set in configuration.");
+	}
+	
+	/**
+	 * 获取文库的insert size上下界，没有正常reads的文库使用所有文库合并的上下界
+	 * @param lib 文库名
+	 */
+	private InsertSizeBounds getBounds(String lib) {
+		InsertSizeBounds b = bounds.get(lib);
+		return b == null ? bounds.get(InsertSizeBounds.ALL_LIBRARIES) : b;
 	}
 	
 	
 	public List<SamWritable> getAPRs(NewMapKey key, Iterable<SamWritable> values){
 		
 		List<SamWritable> aprs = new ArrayList<SamWritable>();
+		readInfoMap = new TreeMap<String, Reads>();
 		float d = 100000000;
 		int max_sd = 1000000000;
 		int indel_num = 0;
@@ -285,8 +251,9 @@ public class BuildConnection {
 		Iterator<SamWritable> vs = values.iterator();
 		while (vs.hasNext()) {
 			SamWritable value = vs.next();
+			InsertSizeBounds b = getBounds(value.getLib());
 			
-			float tmp1 = mean - value.getReadLen()*2;
+			float tmp1 = b.getMean() - value.getReadLen()*2;
 			d = Math.min(d, tmp1);
 			d = Math.max(d, 50);
 			
@@ -299,10 +266,10 @@ public class BuildConnection {
 			 * 判断FR类型的reads是DEL或者INS
 			 */
 			if(value.getType().equals("FR")) {
-				if(Math.abs(value.getInsert()) > upper) {
+				if(Math.abs(value.getInsert()) > b.getUpper()) {
 					value.setType("FR_long");
 					indel_num++;
-				}else if(Math.abs(value.getInsert()) < lower) {
+				}else if(Math.abs(value.getInsert()) < b.getLower()) {
 					value.setType("FR_short");
 					indel_num++;
 				}else {
@@ -311,7 +278,7 @@ public class BuildConnection {
 			}
 			
 			value.setType(changeType(value.getType()));
-			SamWritable f = new SamWritable(value.toString());
+			SamWritable f = new SamWritable(value);
 			aprs.add(f);
 		}
 		
@@ -430,7 +397,7 @@ public class BuildConnection {
 			if(typeInfo==null)
 				typeInfo = new LinkRegType(r);
 			
-			int size = Math.abs(r.getInsert()-mean);
+			int size = Math.abs(r.getInsert()-getBounds(r.getLib()).getMean());
 			
 			typeInfo.updateType(r, size);
 			linkRegType.put(r.getType(), typeInfo);
@@ -456,60 +423,4 @@ public class BuildConnection {
 		finalType = (finalNum >= options.getMinpair()) ? finalType : null;
 		return finalType;
 	}
-	
-	
-	private Map<Integer, Integer> readInsertFile(String libconftxt){
-		br = null; fs = null;
-		
-		Map<Integer, Integer> map = new TreeMap<Integer, Integer>();
-		
-		try {
-			fs = FileSystem.get(this.conf);
-			FileStatus[] flist = fs.listStatus(new Path(libconftxt));
-			
-			for(FileStatus file : flist) {
-				
-				FSDataInputStream fsopen = fs.open(file.getPath());
-				br = new BufferedReader(new InputStreamReader(fsopen));
-				
-				String line = null;
-				while((line = br.readLine())!= null) {
-					String[] lines = line.split("\\t");
-					
-					int num;
-					if(!map.containsKey(Integer.parseInt(lines[0]))) {
-						num = Integer.parseInt(lines[1]);
-					}else {
-						int pnum = map.get(Integer.parseInt(lines[0]));
-						num = pnum + Integer.parseInt(lines[1]);
-					}
-					map.put(Integer.parseInt(lines[0]), num);
-				}
-			}
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		return map;
-	}
-	
-	
-	public void close() {
-		
-		if(fs != null) {
-			try {
-				fs.close();
-			}catch(Exception e) {
-				e.printStackTrace();
-			}
-		}
-		
-		if(br != null) {
-			try {
-				br.close();
-			}catch(Exception e) {
-				e.printStackTrace();
-			}
-		}
-		
-	}
 }
@@ -15,8 +15,8 @@ public class ChrPartitionar extends Partitioner<NewMapKey, Writable>{
 
 	/**
 	 * 重写getPartition()方法，获取分区号，计算方法<br>
-	 * 获取NewMapKey对象key中的chr，得到chr的hashCode值取绝对值，然后对numPartitions取余<br>
-	 * Math.abs(key.getChr().hashCode()) % numPartitions;
+	 * 获取NewMapKey对象key中的chr和segment，得到hashCode值取绝对值，然后对numPartitions取余<br>
+	 * (key.hashCode() &amp; Integer.MAX_VALUE) % numPartitions;
 	 * @param key NewMapKey类型的键
 	 * @param value Writable类或者其子类对象
 	 * @param numPartitions int类型，程序设置的reducer数目
@@ -24,7 +24,7 @@ public class ChrPartitionar extends Partitioner<NewMapKey, Writable>{
 	 * 
 	 */
 	public int getPartition(NewMapKey key, Writable value, int numPartitions) {		
-		return Math.abs(key.getChr().hashCode()) % numPartitions;
+		return (key.hashCode() & Integer.MAX_VALUE) % numPartitions;
 	}
 
 }
@@ -0,0 +1,100 @@
+package org.bgi.flexlab.gaea.tools.callsv;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.hadoop.conf.Configuration;
+
+import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * 一个文库insert size的众数和正常范围，lower &lt; 正常insert size &lt; upper<br>
+ * 所有文库的上下界在作业提交前计算一次，通过Configuration传递给reducer
+ */
+public class InsertSizeBounds {
+
+	/**
+	 * 合并所有文库得到的上下界使用的文库名，用于没有正常reads的文库<br>
+	 * SAM头文件的值只能是可打印的ASCII字符，含有非ASCII字符的名字不会与真实的文库名冲突
+	 */
+	public static final String ALL_LIBRARIES = "\u00abALL\u00bb";
+
+	/**
+	 * 没有read group或LB标签的reads使用的文库名
+	 */
+	public static final String NO_LIBRARY = "";
+
+	private static final String BOUNDS_KEY = "callsv.insertsize.bounds";
+
+	private int mean;
+	private float upper;
+	private float lower;
+
+	public InsertSizeBounds(int mean, float upper, float lower) {
+		this.mean = mean;
+		this.upper = upper;
+		this.lower = lower;
+	}
+
+	public int getMean() {
+		return mean;
+	}
+
+	public float getUpper() {
+		return upper;
+	}
+
+	public float getLower() {
+		return lower;
+	}
+
+	public static void setBounds(Configuration conf, Map<String, InsertSizeBounds> bounds) {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, InsertSizeBounds> entry : bounds.entrySet()) {
+			InsertSizeBounds b = entry.getValue();
+			sb.append(entry.getKey()).append("\t").append(b.mean).append("\t").append(b.upper).append("\t")
+					.append(b.lower).append("\n");
+		}
+		conf.set(BOUNDS_KEY, sb.toString());
+	}
+
+	public static Map<String, InsertSizeBounds> getBounds(Configuration conf) {
+		Map<String, InsertSizeBounds> bounds = new TreeMap<String, InsertSizeBounds>();
+		String value = conf.get(BOUNDS_KEY);
+		if (value == null)
+			return bounds;
+		for (String line : value.split("\n")) {
+			if (line.isEmpty())
+				continue;
+			String[] tmp = line.split("\t", -1);
+			bounds.put(tmp[0], new InsertSizeBounds(Integer.parseInt(tmp[1]), Float.parseFloat(tmp[2]),
+					Float.parseFloat(tmp[3])));
+		}
+		return bounds;
+	}
+
+	/**
+	 * read pairs starting within this distance of a segment boundary are also
+	 * sent to the neighbouring segment, twice the largest upper bound of all libraries
+	 */
+	public static int getSegmentMargin(Map<String, InsertSizeBounds> bounds) {
+		float upper = 0;
+		for (InsertSizeBounds b : bounds.values())
+			upper = Math.max(upper, b.upper);
+		return 2 * (int) Math.ceil(upper);
+	}
+
+	/**
+	 * read所在的文库名，没有文库信息时返回NO_LIBRARY
+	 */
+	public static String getLibrary(SAMRecord record) {
+		SAMReadGroupRecord rg = record.getReadGroup();
+		return (rg == null || rg.getLibrary() == null) ? NO_LIBRARY : rg.getLibrary();
+	}
+
+	@Override
+	public String toString() {
+		return mean + "\t" + upper + "\t" + lower;
+	}
+}
@@ -0,0 +1,107 @@
+package org.bgi.flexlab.gaea.tools.callsv;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * 一个文库的insert size分布，counts[i]是insert size为i的正常reads数目<br>
+ * 序列化时只写出非零的计数
+ */
+public class InsertSizeDistribution implements Writable {
+
+	private long[] counts;
+
+	public InsertSizeDistribution() {
+		counts = new long[MapComputer.MAX_INSERT + 1];
+	}
+
+	public void add(int insert) {
+		counts[insert]++;
+	}
+
+	public void merge(InsertSizeDistribution other) {
+		for (int i = 0; i < counts.length; i++)
+			counts[i] += other.counts[i];
+	}
+
+	public void clear() {
+		Arrays.fill(counts, 0);
+	}
+
+	public long getTotal() {
+		long total = 0;
+		for (long count : counts)
+			total += count;
+		return total;
+	}
+
+	/**
+	 * 根据分布计算insert size的众数和上下界<br>
+	 * 上下界为众数两侧各自的标准差乘以stdtimes
+	 * @param stdtimes 标准差的倍数
+	 * @return 上下界，分布为空时返回null
+	 */
+	public InsertSizeBounds getBounds(int stdtimes) {
+		int mean = 0;
+		long maxnum = 0;
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] > maxnum) {
+				mean = i;
+				maxnum = counts[i];
+			}
+		}
+		if (maxnum == 0)
+			return null;
+
+		double lowsum = 0;
+		double upsum = 0;
+		long lownum = 0;
+		long upnum = 0;
+		for (int i = 0; i < counts.length; i++) {
+			double square = (double) (i - mean) * (i - mean) * counts[i];
+			if (i < mean) {
+				lowsum += square;
+				lownum += counts[i];
+			} else {
+				upsum += square;
+				upnum += counts[i];
+			}
+		}
+
+		float lowstd = lownum > 1 ? (float) Math.sqrt(lowsum / (lownum - 1)) : 0;
+		float upstd = upnum > 1 ? (float) Math.sqrt(upsum / (upnum - 1)) : 0;
+
+		return new InsertSizeBounds(mean, mean + stdtimes * upstd, mean - stdtimes * lowstd);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		clear();
+		int size = WritableUtils.readVInt(in);
+		for (int i = 0; i < size; i++) {
+			int insert = WritableUtils.readVInt(in);
+			counts[insert] = WritableUtils.readVLong(in);
+		}
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		int size = 0;
+		for (long count : counts) {
+			if (count != 0)
+				size++;
+		}
+		WritableUtils.writeVInt(out, size);
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] != 0) {
+				WritableUtils.writeVInt(out, i);
+				WritableUtils.writeVLong(out, counts[i]);
+			}
+		}
+	}
+}
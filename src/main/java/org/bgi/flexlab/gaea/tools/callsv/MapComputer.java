@@ -1,8 +1,6 @@
 package org.bgi.flexlab.gaea.tools.callsv;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.TreeMap;
 
 import org.bgi.flexlab.gaea.tools.mapreduce.callsv.CallStructuralVariationOptions;
 
@@ -10,23 +8,17 @@ import htsjdk.samtools.SAMRecord;
 
 public class MapComputer {
 	
-	private Map<Integer, Integer> insertsize ;
+	/**
+	 * 保存的正常insert size的最大值
+	 */
+	public static final int MAX_INSERT = 2000;
 	
 	private CallStructuralVariationOptions option;
 	
 	public MapComputer() {
-		insertsize = new TreeMap<Integer, Integer>();
 		option = new CallStructuralVariationOptions();
 	}
 
-	public Map<Integer, Integer> getInsertsize() {
-		return insertsize;
-	}
-
-	public void setInsertsize(Map<Integer, Integer> insertsize) {
-		this.insertsize = insertsize;
-	}
-	
 	public CallStructuralVariationOptions getOption() {
 		return option;
 	}
@@ -36,38 +28,26 @@ public class MapComputer {
 	}
 
 	/**
-	 * saveInsert方法<br>
-	 * 将正常的reads的insert size保存到中间文件中，中间文件名:/HDFSdir/Sort/LibConf/UUID <br>
-	 * 一般一个map分片会选取100个正常的insert size<br>
+	 * isNormalInsert方法<br>
+	 * 判断reads是否是用于统计insert size分布的正常reads<br>
 	 * <br>
 	 * @param record bam文件中每一个记录，也就是每一条read的比对情况
-	 * @throws IOException 抛出IO异常
+	 * @return 正常reads返回true
 	 */
-	public void saveInsert(SAMRecord record) {
+	public boolean isNormalInsert(SAMRecord record) {
 		int insert = record.getInferredInsertSize();
-		if(insert > 2000)
-			return;
+		if(insert > MAX_INSERT)
+			return false;
 		if(insert <= 0)
-			return;
+			return false;
 		if(record.getMappingQuality() < option.getMinqual())
-			return;
+			return false;
 		if(!record.getReadPairedFlag())
-			return;
+			return false;
 		if(!record.getProperPairFlag())
-			return;
+			return false;
 		
-		updateInsertsize(insert);
-	}
-
-	private void updateInsertsize(int insert) {
-		int num = 0;
-		if(!insertsize.containsKey(insert))
-			num = 1;
-		else {
-			num = insertsize.get(insert);
-			num ++ ;
-		}
-		insertsize.put(insert, num);
+		return true;
 	}
 
 	
@@ -14,6 +14,10 @@ import org.apache.hadoop.io.WritableComparable;
 public class NewMapKey implements WritableComparable<NewMapKey>{
 	
 	private String chr;
+	/**
+	 * 染色体分段编号，同一个分段的reads由同一个reducer处理
+	 */
+	private int segment;
 	private int pos;
 	private int end;
 	
@@ -41,6 +45,14 @@ public class NewMapKey implements WritableComparable<NewMapKey>{
 		this.chr = chr;
 	}
 
+	public int getSegment() {
+		return segment;
+	}
+
+	public void setSegment(int segment) {
+		this.segment = segment;
+	}
+
 	public int getPos() {
 		return pos;
 	}
@@ -59,12 +71,14 @@ public class NewMapKey implements WritableComparable<NewMapKey>{
 
 	public void readFields(DataInput in) throws IOException {
 		this.chr = in.readUTF();
+		this.segment = in.readInt();
 		this.pos = in.readInt();
 		this.end = in.readInt();
 	}
 
 	public void write(DataOutput out) throws IOException {
 		out.writeUTF(chr);
+		out.writeInt(segment);
 		out.writeInt(pos);
 		out.writeInt(end);
 	}
@@ -75,10 +89,12 @@ public class NewMapKey implements WritableComparable<NewMapKey>{
 	}
 
 	/**
-	 * 重写了compareTo（）方法，只比较chr
+	 * 重写了compareTo（）方法，依次比较chr，segment，pos和end
 	 */
 	public int compareTo(NewMapKey o) {
 		int num = o.getChr().compareTo(this.getChr());
+		if(num==0)
+			num = Integer.compare(this.segment, o.segment);
 		if(num==0) {
 			int npos = this.pos - o.pos;
 			if(npos == 0) 
@@ -90,7 +106,7 @@ public class NewMapKey implements WritableComparable<NewMapKey>{
 
 	@Override
 	public int hashCode() {
-		return chr.hashCode();
+		return chr.hashCode() * 31 + segment;
 	}
 
 	@Override
@@ -98,7 +114,7 @@ public class NewMapKey implements WritableComparable<NewMapKey>{
 		if(!(obj instanceof NewMapKey))
 			throw new ClassCastException("Can not cast to NewMapKey class!");
 		NewMapKey n = (NewMapKey) obj;
-		 return this.chr.equals(n.chr) && this.pos==n.pos && this.end==n.end;
+		 return this.chr.equals(n.chr) && this.segment==n.segment && this.pos==n.pos && this.end==n.end;
 	}
 
 	
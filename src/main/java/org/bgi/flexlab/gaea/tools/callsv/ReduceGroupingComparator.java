@@ -4,7 +4,7 @@ import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.io.WritableComparator;
 
 /**
- * Reducer的key区分标准类，只用chr来做区分
+ * Reducer的key区分标准类，用chr和segment来做区分
  * @author Huifang Lu
  *
  */
@@ -23,7 +23,10 @@ public class ReduceGroupingComparator extends WritableComparator{
 		NewMapKey o1 = (NewMapKey) a;
 		NewMapKey o2 = (NewMapKey) b;
 	
-		return o1.getChr().compareTo(o2.getChr());
+		int num = o1.getChr().compareTo(o2.getChr());
+		if(num == 0)
+			return Integer.compare(o1.getSegment(), o2.getSegment());
+		return num;
 	}
 	
 
@@ -45,13 +45,21 @@ public class SamWritable implements Writable{
 	}
 	
 	
+	/**
+	 * 拷贝构造函数
+	 * @param r 被拷贝的SamWritable对象
+	 */
+	public SamWritable(SamWritable r){
+		this(r.lib, r.readName, r.flag, r.chr, r.start, r.end, r.insert, r.strand, r.type, r.readLen);
+	}
+	
 	/**
 	 * 带有两个参数（SAMRecord类型和String类型）的构造函数
 	 * @param r SAMRecord类，包含reads完整的比对信息
 	 * @param type 可能的APRs类型
 	 */
 	public SamWritable(SAMRecord r, String type) {
-		this.lib = r.getReadGroup().getLibrary();
+		this.lib = InsertSizeBounds.getLibrary(r);
 		this.readName = r.getReadName();
 		this.flag = r.getFlags();
 		this.chr = r.getReferenceName();
@@ -98,7 +106,7 @@ public class SamWritable implements Writable{
 	 */
 	
 	public void set(SAMRecord r, String type) {
-		this.lib = r.getReadGroup().getLibrary();
+		this.lib = InsertSizeBounds.getLibrary(r);
 		this.readName = r.getReadName();
 		this.flag = r.getFlags();
 		this.chr = r.getReferenceName();
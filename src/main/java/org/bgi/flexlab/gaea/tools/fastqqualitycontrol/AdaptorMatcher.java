@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.fastqqualitycontrol;
+
+import java.util.Arrays;
+
+/**
+ * precompiled matcher for the dynamic adaptor cut. adaptor seeds and their
+ * reverse complements are packed into 2-bit words, each read is scanned once
+ * over its bytes with a rolling packed window and mismatches against every
+ * seed are counted with bitwise ops. bases other than ACGT in reads match
+ * any adaptor base.
+ */
+public class AdaptorMatcher {
+	public static final int MAX_SEED_LENGTH = 32;
+
+	private static final long LOW_BITS = 0x5555555555555555L;
+	private static final byte[] BASE_CODE = new byte[256];
+
+	static {
+		Arrays.fill(BASE_CODE, (byte) -1);
+		BASE_CODE['A'] = BASE_CODE['a'] = 0;
+		BASE_CODE['C'] = BASE_CODE['c'] = 1;
+		BASE_CODE['G'] = BASE_CODE['g'] = 2;
+		BASE_CODE['T'] = BASE_CODE['t'] = 3;
+	}
+
+	private final int length;
+	private final int mismatches;
+	private final int tail;
+	private final long windowMask;
+
+	private final long[] patterns;
+	private final long[] rcPatterns;
+	private final byte[][] codes;
+	private final byte[][] rcCodes;
+
+	private int forwardLocation;
+	private int reverseLocation;
+
+	/**
+	 * @param adaptors
+	 *            adaptor sequences, the first length bases are used as seed
+	 * @param length
+	 *            seed length
+	 * @param mismatches
+	 *            mismatches tolerated in a whole seed match
+	 * @param tail
+	 *            adaptor prefixes at read end must be longer than tail
+	 */
+	public AdaptorMatcher(String[] adaptors, int length, int mismatches, int tail) {
+		for (String adaptor : adaptors)
+			length = Math.min(length, adaptor.length());
+		if (length <= 0 || length > MAX_SEED_LENGTH)
+			throw new IllegalArgumentException("adaptor seed length must be between 1 and " + MAX_SEED_LENGTH);
+
+		this.length = length;
+		this.mismatches = mismatches;
+		this.tail = tail;
+		this.windowMask = length == MAX_SEED_LENGTH ? -1L : (1L << (2 * length)) - 1;
+
+		patterns = new long[adaptors.length];
+		rcPatterns = new long[adaptors.length];
+		codes = new byte[adaptors.length][length];
+		rcCodes = new byte[adaptors.length][length];
+		for (int a = 0; a < adaptors.length; a++) {
+			for (int i = 0; i < length; i++) {
+				byte code = BASE_CODE[adaptors[a].charAt(i) & 0xff];
+				if (code < 0)
+					throw new IllegalArgumentException("adaptor must only contain ACGT: " + adaptors[a]);
+				codes[a][i] = code;
+				rcCodes[a][length - 1 - i] = (byte) (3 - code);
+			}
+			for (int i = 0; i < length; i++) {
+				patterns[a] = (patterns[a] << 2) | codes[a][i];
+				rcPatterns[a] = (rcPatterns[a] << 2) | rcCodes[a][i];
+			}
+		}
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * scans the read once and finds adaptor locations in both strands, 0 if
+	 * not found.
+	 * <p>
+	 * forward location is the first window matching a seed with at most
+	 * mismatches mismatches, or else the first read suffix equal to a seed
+	 * prefix. reverse location is the same location in the reverse
+	 * complement of the read.
+	 */
+	public void match(byte[] seq, int offset, int n) {
+		forwardLocation = 0;
+		reverseLocation = 0;
+
+		boolean forward = false;
+		boolean reverse = false;
+		long window = 0;
+		long unknown = 0;
+		for (int i = 0; i < n; i++) {
+			int code = BASE_CODE[seq[offset + i] & 0xff];
+			window = ((window << 2) | (code < 0 ? 0 : code)) & windowMask;
+			unknown = ((unknown << 2) | (code < 0 ? 1 : 0)) & windowMask;
+			if (i < length - 1)
+				continue;
+
+			int q = i - length + 1;
+			if (!forward && matchWindow(window, unknown, patterns)) {
+				forward = true;
+				forwardLocation = q;
+			}
+			// reverse complement window nearest to read end comes first in
+			// reverse complement coordinates
+			if (matchWindow(window, unknown, rcPatterns)) {
+				reverse = true;
+				reverseLocation = n - q - length;
+			}
+		}
+
+		if (!forward)
+			forwardLocation = matchForwardTail(seq, offset, n);
+		if (!reverse)
+			reverseLocation = matchReverseTail(seq, offset, n);
+	}
+
+	private boolean matchWindow(long window, long unknown, long[] packed) {
+		for (long pattern : packed) {
+			long diff = window ^ pattern;
+			diff = (diff | (diff >>> 1)) & LOW_BITS & ~unknown;
+			if (Long.bitCount(diff) <= mismatches)
+				return true;
+		}
+		return false;
+	}
+
+	private int matchForwardTail(byte[] seq, int offset, int n) {
+		for (int j = Math.max(n - length + 1, 0); j < n - tail; j++) {
+			for (byte[] code : codes) {
+				if (equals(seq, offset + j, code, 0, n - j))
+					return j;
+			}
+		}
+		return 0;
+	}
+
+	private int matchReverseTail(byte[] seq, int offset, int n) {
+		for (int l = Math.min(length - 1, n); l > tail; l--) {
+			for (byte[] code : rcCodes) {
+				if (equals(seq, offset, code, length - l, l))
+					return n - l;
+			}
+		}
+		return 0;
+	}
+
+	private static boolean equals(byte[] seq, int offset, byte[] code, int codeOffset, int l) {
+		for (int i = 0; i < l; i++) {
+			if (BASE_CODE[seq[offset + i] & 0xff] != code[codeOffset + i])
+				return false;
+		}
+		return true;
+	}
+
+	public int getForwardLocation() {
+		return forwardLocation;
+	}
+
+	public int getReverseLocation() {
+		return reverseLocation;
+	}
+}
@@ -16,14 +16,16 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.tools.fastqqualitycontrol;
 
+import org.apache.hadoop.io.Text;
 import org.bgi.flexlab.gaea.data.mapreduce.input.fastq.FastqMultipleSample;
+import org.bgi.flexlab.gaea.data.structure.reads.FastqRecordBuffer;
 import org.bgi.flexlab.gaea.data.structure.reads.ReadBasicStatistics;
-import org.bgi.flexlab.gaea.data.structure.reads.ReadInformationWithSampleID;
 import org.bgi.flexlab.gaea.data.structure.reads.report.FastqQualityControlReport;
 import org.bgi.flexlab.gaea.tools.mapreduce.fastqqualitycontrol.FastqQualityControlOptions;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 
 public class FastqQualityControlFilter {
 	private FastqQualityControlOptions option;
@@ -31,6 +33,10 @@ public class FastqQualityControlFilter {
 	private boolean dycut = false;
 	private FastqQualityControlReport report;
 	private int qualTrimNum = 0;
+	private ReadBasicStatistics stat;
+	private ArrayList<FastqRecordBuffer> records = new ArrayList<FastqRecordBuffer>();
+	private int recordCount = 0;
+	private static final byte[] NEW_LINE = { '\n' };
 
 	public FastqQualityControlFilter(FastqQualityControlOptions option) {
 		this.option = option;
@@ -52,45 +58,47 @@ public class FastqQualityControlFilter {
 		}
 		report = new FastqQualityControlReport(sampleSize,
 				option.isMultiStatis());
+		stat = new ReadBasicStatistics(option);
 	}
 
 	public boolean isDynamicCutted() {
 		return dycut;
 	}
 
-	public ArrayList<ReadInformationWithSampleID> parseLine(
-			ReadBasicStatistics stat, ArrayList<String> values) {
-		ArrayList<ReadInformationWithSampleID> list = new ArrayList<ReadInformationWithSampleID>();
+	/**
+	 * copy values into the reusable records, records are kept in value order
+	 */
+	private void parseRecords(Iterable<Text> values) {
+		recordCount = 0;
+		for (Text value : values) {
+			if (recordCount == records.size())
+				records.add(new FastqRecordBuffer());
+			records.get(recordCount++).set(value);
+		}
+	}
 
-		for (String value : values) {
-			String[] readLine = value.split("\t");
-			if (readLine.length == 1) {
-				stat.setAdaptor(Integer.parseInt(readLine[0]) - 1);
+	public void countRecords(ReadBasicStatistics stat) {
+		int[] trim = option.getTrim();
+		for (int i = 0; i < recordCount; i++) {
+			FastqRecordBuffer record = records.get(i);
+			if (record.isAdaptor()) {
+				stat.setAdaptor(record.getAdaptorFlag() - 1);
 			} else {
-				ReadInformationWithSampleID fqInfo = new ReadInformationWithSampleID(
-						readLine);
-				int[] trim = option.getTrim();
-				if(fqInfo.isFirstRead()){
+				if(record.isFirstRead()){
 					if (trim[0] != 0 || trim[1] != 0) {
-						fqInfo.trim(trim[0], trim[1]);
+						record.trim(trim[0], trim[1]);
 					}
 				}else {
 					if (trim[2] != 0 || trim[3] != 0) {
-						fqInfo.trim(trim[2], trim[3]);
+						record.trim(trim[2], trim[3]);
 					}
 				}
-				int index = readLine[0].lastIndexOf("/");
-				String tempkey = readLine[0].substring(index + 1).trim();
-				stat.countBase(fqInfo, Integer.parseInt(tempkey) - 1);
-				list.add(fqInfo);
+				stat.countBase(record, record.getReadFlag() - 1);
 			}
 		}
-
-		return list;
 	}
 
-	public boolean isBadReads(ReadBasicStatistics stat,
-			ArrayList<ReadInformationWithSampleID> list) {
+	public boolean isBadReads(ReadBasicStatistics stat) {
 		if (stat.getReadCount() == 0) {
 			return true;
 		} else if (stat.getReadCount() == 1) {
@@ -99,34 +107,50 @@ public class FastqQualityControlFilter {
 		} else if (stat.getReadCount() > 2) {
 			throw new RuntimeException(
 					"more than 2 reads under same readsID without 1,2.\n"
-							+ list.get(0).getReadName());
+							+ getFirstRead().getReadName());
 		}
 
 		if (stat.isSampleIDException())
 			throw new RuntimeException("pair read has difference sample id.\n"
-					+ list.get(0).getReadName());
-
-		if (list.size() > 1) {
-			if (list.get(0).equals(list.get(1))) {
-				throw new RuntimeException(
-						"more than 2 reads under same readsID.\n"
-								+ list.get(0).getReadName());
+					+ getFirstRead().getReadName());
+
+		if (stat.getReadCount() > 1) {
+			FastqRecordBuffer first = null;
+			for (int i = 0; i < recordCount; i++) {
+				FastqRecordBuffer record = records.get(i);
+				if (record.isAdaptor())
+					continue;
+				if (first == null)
+					first = record;
+				else if (first.isFirstRead() == record.isFirstRead())
+					throw new RuntimeException(
+							"more than 2 reads under same readsID.\n"
+									+ first.getReadName());
 			}
 		}
 		return false;
 	}
 
-	public String qualityControlFilter(ArrayList<String> values) {
-		ReadBasicStatistics stat = new ReadBasicStatistics(option);
-		StringBuilder consensusSeq = new StringBuilder();
-		ArrayList<ReadInformationWithSampleID> list = parseLine(stat, values);
+	private FastqRecordBuffer getFirstRead() {
+		for (int i = 0; i < recordCount; i++) {
+			if (!records.get(i).isAdaptor())
+				return records.get(i);
+		}
+		return null;
+	}
+
+	/**
+	 * append clean reads to out
+	 * @return false if the reads are filtered
+	 */
+	public boolean qualityControlFilter(Text out) {
+		stat.reset();
+		countRecords(stat);
 
-		if (isBadReads(stat, list))
-			return null;
+		if (isBadReads(stat))
+			return false;
 
-		int sampleID = 0;
-		if (!stat.getSampleID().equals("+"))
-			sampleID = Integer.parseInt(stat.getSampleID());
+		int sampleID = stat.getSampleIndex();
 
 		report.countRawReadInfo(stat, sampleID);
 
@@ -135,30 +159,52 @@ public class FastqQualityControlFilter {
 		if (isClean) {
 			report.countCleanReadInfo(stat, sampleID);
 			int cnt = 0;
-			for (ReadInformationWithSampleID read : list) {
-				cnt++;
-
-				consensusSeq.append(read.toString(qualTrimNum));
-				if (cnt != list.size())
-					consensusSeq.append("\n");
+			for (int i = 0; i < recordCount; i++) {
+				FastqRecordBuffer read = records.get(i);
+				if (read.isAdaptor())
+					continue;
+				if (cnt++ != 0)
+					out.append(NEW_LINE, 0, 1);
+				read.appendTo(out, qualTrimNum);
 			}
 		}else
-			return null;
+			return false;
 
-		return consensusSeq.toString();
+		return true;
 	}
 
-	public String filter(ArrayList<String> reads) {
-		ArrayList<String> dyFilterReads = new ArrayList<String>();
+	/**
+	 * filter reads of one read name and append the clean reads to out
+	 * @return false if the reads are filtered
+	 */
+	public boolean filter(Iterable<Text> values, Text out) {
+		parseRecords(values);
+		dycut = false;
 		if (option.isDyncut()) {
-			dycut = adpFilter.dyncutFilter(reads, dyFilterReads);
-			if (dyFilterReads.size() == 0) {
-				return null;
+			FastqRecordBuffer read1 = null, read2 = null;
+			boolean adp = false;
+			for (int i = 0; i < recordCount; i++) {
+				FastqRecordBuffer record = records.get(i);
+				if (record.isAdaptor())
+					adp = true;
+				else if (record.isFirstRead())
+					read1 = record;
+				else
+					read2 = record;
 			}
-		} else
-			dyFilterReads = reads;
+			if (!adp && read1 != null && read2 != null) {
+				int n = adpFilter.dyncutFilter(read1, read2);
+				dycut = n > 0;
+				if (n != 0)
+					return false;
+			}
+			// dynamic cut outputs the first read before the second one
+			if (read1 != null && read2 != null
+					&& records.indexOf(read2) < records.indexOf(read1))
+				Collections.swap(records, records.indexOf(read1), records.indexOf(read2));
+		}
 
-		return qualityControlFilter(dyFilterReads);
+		return qualityControlFilter(out);
 	}
 
 	public FastqQualityControlReport getReport() {
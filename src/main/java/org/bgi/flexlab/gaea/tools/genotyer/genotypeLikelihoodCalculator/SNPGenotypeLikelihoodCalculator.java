@@ -92,10 +92,14 @@ public class SNPGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalculato
     protected final static double ploidyAdjustment = log10(FIXED_PLOIDY);
 
     /**
-     * base quality calculation cache
-     * FIXME::only consider diploid and without overlapping paired reads
+     * Constant static data: genotype number of diploid
+     */
+    protected final static int GENOTYPE_COUNT = DiploidGenotype.values().length;
+
+    /**
+     * Constant static data: number of base quality levels in likelihood table
      */
-    public static GenotypeData[][] CACHE = new GenotypeData[BaseUtils.BASES.length][QualityUtils.MAXIMUM_USABLE_QUALITY_SCORE+1];
+    protected final static int QUALITY_LEVELS = QualityUtils.MAXIMUM_USABLE_QUALITY_SCORE + 1;
 
     /**
      * one time calculation result about PCR error
@@ -103,35 +107,35 @@ public class SNPGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalculato
     protected static double log10_PCR_error_3 = log10(DEFAULT_PCR_ERROR_RATE) - log10_3;
     protected static double log10_1_minus_PCR_error = log10(1.0 - DEFAULT_PCR_ERROR_RATE);
 
-
     /**
-     * get Cached likelihoods
-     * @param base base Index
-     * @param baseQuality base quality
-     * @return likelihoods of this base to each genotype
+     * precomputed genotype likelihoods of an observed base,
+     * indexed by (base * QUALITY_LEVELS + quality) * GENOTYPE_COUNT + genotype
+     * FIXME::only consider diploid and without overlapping paired reads
      */
-    public GenotypeData getCACHELikelihoods(byte base, byte baseQuality) {
-        return CACHE[base][baseQuality];
-    }
+    protected double[] likelihoodTable = null;
 
     /**
-     * is likelihoods of this base to each genotype in Cache
+     * get offset of genotype likelihoods in likelihood table
      * @param base base Index
      * @param baseQuality base quality
-     * @return is in cache
+     * @return offset of the first genotype
      */
-    public boolean hasCACHE(byte base, byte baseQuality) {
-        return getCACHELikelihoods(base, baseQuality) != null;
+    protected static int likelihoodTableOffset(byte base, byte baseQuality) {
+        return (base * QUALITY_LEVELS + baseQuality) * GENOTYPE_COUNT;
     }
 
     /**
-     * set cache
-     * @param base base Index
-     * @param baseQuality base quality
-     * @param genotypeData likelihoods of this base to each genotype
+     * build likelihood table for all bases and qualities
      */
-    public void setCACHE(byte base, byte baseQuality, GenotypeData genotypeData) {
-        CACHE[base][baseQuality] = genotypeData;
+    protected void buildLikelihoodTable() {
+        likelihoodTable = new double[BaseUtils.BASES.length * QUALITY_LEVELS * GENOTYPE_COUNT];
+        for (byte base = 0; base < BaseUtils.BASES.length; base++) {
+            for (byte quality = 0; quality < QUALITY_LEVELS; quality++) {
+                GenotypeData genotypeData = errorModel(base, quality);
+                System.arraycopy(genotypeData.getLog10Likelihoods(), 0, likelihoodTable,
+                        likelihoodTableOffset(base, quality), GENOTYPE_COUNT);
+            }
+        }
     }
 
     /**
@@ -165,6 +169,7 @@ public class SNPGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalculato
         }
         log10_PCR_error_3 = log10(pcrErrorRate) - log10_3;
         log10_1_minus_PCR_error = log10(1.0 - pcrErrorRate);
+        buildLikelihoodTable();
     }
 
     /**
@@ -316,9 +321,10 @@ public class SNPGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalculato
      * @param isCapBaseQualsAtMappingQual options
      * @return sample genotype likelihoods data
      */
-    private SampleGenotypeData getGenotypeLikelihood(Pileup pileup, boolean isCapBaseQualsAtMappingQual, int minBaseQuality) {
+    SampleGenotypeData getGenotypeLikelihood(Pileup pileup, boolean isCapBaseQualsAtMappingQual, int minBaseQuality) {
         int goodBaseCount = 0;
         SampleGenotypeData sampleGenotypeData = new SampleGenotypeData();
+        final double[] log10Likelihoods = sampleGenotypeData.getLog10Likelihoods();
        // System.err.println("depth:" + pileup.getTotalPileup().size());
         for(PileupReadInfo readInfo : pileup.getTotalPileup()) {
             if(readInfo.isDeletionBase())
@@ -334,6 +340,8 @@ public class SNPGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalculato
             }
             if(quality < minBaseQuality)
                 quality = 0;
+            else if(quality > QualityUtils.MAXIMUM_USABLE_QUALITY_SCORE)
+                quality = QualityUtils.MAXIMUM_USABLE_QUALITY_SCORE;
 
             if(base < 0 || base > 3) {
                 //System.err.println("bad base" + readInfo.getBase());
@@ -343,12 +351,9 @@ public class SNPGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalculato
             //System.err.println("base after:" + (char) BaseUtils.baseIndexToSimpleBase(base) + "\tquality:" + quality);
 
             goodBaseCount++;
-            if(hasCACHE(base, quality)) {
-                sampleGenotypeData.add(getCACHELikelihoods(base, quality));
-            } else {
-                GenotypeData genotypeDataTmp = errorModel(base, quality);
-                sampleGenotypeData.add(genotypeDataTmp);
-                setCACHE(base, quality, genotypeDataTmp);
+            final int offset = likelihoodTableOffset(base, quality);
+            for (int i = 0; i < GENOTYPE_COUNT; i++) {
+                log10Likelihoods[i] += likelihoodTable[offset + i];
             }
         }
 
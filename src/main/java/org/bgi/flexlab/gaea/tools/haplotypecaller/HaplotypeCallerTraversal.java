@@ -33,6 +33,7 @@ import org.bgi.flexlab.gaea.util.Window;
 
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.util.Locatable;
+import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFConstants;
 import htsjdk.variant.vcf.VCFHeader;
@@ -99,6 +100,9 @@ public class HaplotypeCallerTraversal {
 
 	private boolean doNotRunPhysicalPhasing = false;
 
+	// emitted records with a called alternate allele, read by window telemetry
+	private long variantsNumber = 0;
+
 	public HaplotypeCallerTraversal(RegionHdfsParser region, HaplotypeCallerOptions options, SAMFileHeader header) {
 		this.options = options;
 		this.region = region;
@@ -217,6 +221,16 @@ public class HaplotypeCallerTraversal {
 
 	public void dataSourceReset(Window win, Iterable<SamRecordWritable> iterable, ChromosomeInformationShare ref,
 			RefMetaDataTracker features) {
+		GenomeLocation.getGenomeLocationFromWindow(intervals, win, region);
+		dataSourceReset(intervals, iterable, ref, features);
+	}
+
+	/**
+	 * reset data source with the intervals of a window computed by the caller,
+	 * so they can be shared by the traversals of all samples
+	 */
+	public void dataSourceReset(List<GenomeLocation> windowIntervals, Iterable<SamRecordWritable> iterable,
+			ChromosomeInformationShare ref, RefMetaDataTracker features) {
 		if (readsSource != null) {
 			readsSource.clear();
 			readsSource.dataReset(iterable);
@@ -227,14 +241,13 @@ public class HaplotypeCallerTraversal {
 		this.features = features;
 		hcArgs.dbsnp = features.getValues("DB");
 		hcEngine.initializeAnnotationEngine(hcArgs,ref);
-		makeReadsShard(options.getReadShardSize(), options.getReadShardPadding(),win);
+		makeReadsShard(options.getReadShardSize(), options.getReadShardPadding(), windowIntervals);
 	}
 
-	private void makeReadsShard(int readShardSize, int readShardPadding,Window win) {
+	private void makeReadsShard(int readShardSize, int readShardPadding, List<GenomeLocation> windowIntervals) {
 		if(!shards.isEmpty())
 			shards.clear();
-		GenomeLocation.getGenomeLocationFromWindow(intervals,win, region);
-		for (final GenomeLocation interval : intervals) {
+		for (final GenomeLocation interval : windowIntervals) {
 			if (readShardSize != NO_INTERVAL_SHARDING) {
 				shards.addAll(LocalReadShard.divideIntervalIntoShards(interval, readShardSize, readShardPadding,
 						readsSource, header.getSequenceDictionary()));
@@ -353,11 +366,24 @@ public class HaplotypeCallerTraversal {
 			for (VariantContext context : results) {
 				if(context.getStart() > shard.getStart() && context.getStart() <= shard.getEnd()) {
 					writer.add(context);
+					if(hasCalledAlternate(context))
+						variantsNumber++;
 				}
 			}
 		}
 	}
 
+	/**
+	 * gvcf reference blocks only carry the symbolic non ref allele
+	 */
+	private static boolean hasCalledAlternate(VariantContext context) {
+		for (Allele allele : context.getAlternateAlleles()) {
+			if (!allele.equals(GaeaVCFConstants.NON_REF_SYMBOLIC_ALLELE))
+				return true;
+		}
+		return false;
+	}
+
 	private void downSampleOfAssemblyRegion(AssemblyRegion assemblyRegion, int maxReadsWithSameStart){
 //		System.err.println("assemblyRegion:"+assemblyRegion.getContig() + ":" + assemblyRegion.getStart() + "-" + assemblyRegion.getEnd());
 		maxReadsWithSameStart = maxReadsWithSameStart/2;
@@ -442,4 +468,12 @@ public class HaplotypeCallerTraversal {
 	public int getWindowReadsNumber() {
 		return this.readsSource.getReadsNumber();
 	}
+
+	public long getVariantsNumber() {
+		return this.variantsNumber;
+	}
+
+	public HaplotypeCallerEngine getEngine() {
+		return this.hcEngine;
+	}
 }
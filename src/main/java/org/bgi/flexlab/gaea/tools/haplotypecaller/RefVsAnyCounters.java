@@ -0,0 +1,353 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.haplotypecaller;
+
+import org.bgi.flexlab.gaea.data.structure.bam.GaeaSamRecord;
+import org.bgi.flexlab.gaea.data.structure.location.GenomeLocation;
+import org.bgi.flexlab.gaea.tools.jointcalling.util.GvcfMathUtils;
+import org.bgi.flexlab.gaea.util.MathUtils;
+import org.bgi.flexlab.gaea.util.QualityUtils;
+import org.bgi.flexlab.gaea.util.ReadUtils;
+
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.CigarOperator;
+
+/**
+ * Per-position reference confidence counters over the span of a region without variation.
+ *
+ * Every read is walked once along its cigar and each aligned base (or deleted reference base) is folded
+ * into primitive per-position counters: ref/non-ref depth, the summed RefVsAny log10 likelihoods and the
+ * number of indel informative reads. The values are the same ones
+ * {@link ReferenceConfidenceModel#calcGenotypeLikelihoodsOfRefVsAny} and
+ * {@link ReferenceConfidenceModel#calcNIndelInformativeReads} compute from a {@code ReadPileup}, but no
+ * pileup element is created.
+ */
+final class RefVsAnyCounters {
+
+    /**
+     * Number of distinct base quality values, qualities are looked up as unsigned bytes.
+     */
+    private static final int QUALITY_BINS = 256;
+
+    private final int spanStart;
+    private final int spanEnd;
+    private final int refBasesStart;
+    private final byte[] refBases;
+    private final int likelihoodCount;
+    private final double log10Ploidy;
+    private final double[] contributions;
+    private final int maxIndelSize;
+
+    private final double[] likelihoods;
+    private final int[] refDepth;
+    private final int[] nonRefDepth;
+    private final int[] indelInformative;
+
+    /**
+     * Suffix sums of mismatching base qualities of the current read along each diagonal
+     * (reference index - read index), indexed from suffixDiagonalStart.
+     */
+    private int[][] suffixSums = new int[0][];
+    private boolean[] suffixComputed = new boolean[0];
+    private int suffixDiagonalStart;
+    private GaeaSamRecord currentRead;
+
+    /**
+     * @param span the positions to collect counters for
+     * @param refBases the reference bases, must cover span
+     * @param refBasesStart the genomic position of refBases[0]
+     * @param ploidy the sample ploidy
+     * @param contributions the per element likelihoods returned by {@link #likelihoodContributions(int)} for ploidy
+     * @param maxIndelSize max indel size to consider in the indel informativeness calculation
+     */
+    RefVsAnyCounters(final GenomeLocation span, final byte[] refBases, final int refBasesStart, final int ploidy,
+                     final double[] contributions, final int maxIndelSize) {
+        this.spanStart = span.getStart();
+        this.spanEnd = span.getEnd();
+        this.refBases = refBases;
+        this.refBasesStart = refBasesStart;
+        this.likelihoodCount = ploidy + 1;
+        this.log10Ploidy = GvcfMathUtils.log10(ploidy);
+        this.contributions = contributions;
+        this.maxIndelSize = maxIndelSize;
+
+        final int size = spanEnd - spanStart + 1;
+        likelihoods = new double[size * likelihoodCount];
+        refDepth = new int[size];
+        nonRefDepth = new int[size];
+        indelInformative = new int[size];
+    }
+
+    /**
+     * Build the log10 likelihood that a single ref (isAlt = 0) or non-ref (isAlt = 1) observation of a given
+     * quality adds to each genotype, laid out as [isAlt][quality][genotype].
+     */
+    static double[] likelihoodContributions(final int ploidy) {
+        final int likelihoodCount = ploidy + 1;
+        final double log10Ploidy = GvcfMathUtils.log10(ploidy);
+        final double[] table = new double[2 * QUALITY_BINS * likelihoodCount];
+
+        for (int isAlt = 0; isAlt < 2; isAlt++) {
+            for (int quality = 0; quality < QUALITY_BINS; quality++) {
+                final byte qual = (byte) quality;
+                final double referenceLikelihood;
+                final double nonRefLikelihood;
+                if (isAlt == 1) {
+                    nonRefLikelihood = QualityUtils.qualToProbLog10(qual);
+                    referenceLikelihood = QualityUtils.qualToErrorProbLog10(qual) + GvcfMathUtils.LOG10_ONE_THIRD;
+                } else {
+                    referenceLikelihood = QualityUtils.qualToProbLog10(qual);
+                    nonRefLikelihood = QualityUtils.qualToErrorProbLog10(qual) + GvcfMathUtils.LOG10_ONE_THIRD;
+                }
+
+                final int offset = (isAlt * QUALITY_BINS + quality) * likelihoodCount;
+                table[offset] = referenceLikelihood + log10Ploidy;
+                table[offset + likelihoodCount - 1] = nonRefLikelihood + log10Ploidy;
+                for (int i = 1, j = likelihoodCount - 2; i < likelihoodCount - 1; i++, j--) {
+                    table[offset + i] = MathUtils.approximateLog10SumLog10(
+                            referenceLikelihood + GvcfMathUtils.log10(j),
+                            nonRefLikelihood + GvcfMathUtils.log10(i));
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Fold all bases of read that fall into the span into the counters.
+     * Reads must be added in the order a pileup would list them.
+     */
+    void addRead(final GaeaSamRecord read, final byte deletionQual, final byte minBaseQual, final int maxInformativeReads) {
+        final Cigar cigar = read.getCigar();
+        final byte[] bases = read.getReadBases();
+        final byte[] quals = read.getBaseQualities();
+
+        // same per base filter as LocusIteratorByState
+        int minPosition = spanStart;
+        int maxPosition = spanEnd;
+        final int adaptorBoundary = ReadUtils.getAdaptorBoundary(read);
+        // the boundary itself is inside the adaptor exactly when the boundary is usable, and then every base on its adaptor side is too
+        if (ReadUtils.isBaseInsideAdaptor(read, adaptorBoundary)) {
+            if (read.getReadNegativeStrandFlag()) {
+                minPosition = Math.max(minPosition, adaptorBoundary + 1);
+            } else {
+                maxPosition = Math.min(maxPosition, adaptorBoundary - 1);
+            }
+        }
+        if (minPosition > maxPosition || read.getAlignmentStart() > maxPosition || read.getAlignmentEnd() < minPosition) {
+            return;
+        }
+
+        resetSuffixSums(read, cigar);
+
+        int readIndex = 0;
+        int position = read.getAlignmentStart();
+        for (int e = 0; e < cigar.numCigarElements(); e++) {
+            final CigarOperator op = cigar.getCigarElement(e).getOperator();
+            final int length = cigar.getCigarElement(e).getLength();
+
+            if (isOnGenome(op)) {
+                final int from = Math.max(position, minPosition);
+                final int to = Math.min(position + length - 1, maxPosition);
+                if (from <= to) {
+                    final boolean isDeletion = op == CigarOperator.D;
+                    final boolean nextOnGenomeIsDeletion = !isDeletion && nearestOnGenomeOperator(cigar, e, 1) == CigarOperator.D;
+                    final boolean previousOnGenomeIsDeletion = !isDeletion && nearestOnGenomeOperator(cigar, e, -1) == CigarOperator.D;
+                    final CigarOperator next = adjacentOperator(cigar, e, 1);
+                    final CigarOperator previous = adjacentOperator(cigar, e, -1);
+
+                    for (int pos = from; pos <= to; pos++) {
+                        final int offset = pos - position;
+                        final boolean atStart = offset == 0;
+                        final boolean atEnd = offset == length - 1;
+                        final int refIndex = pos - refBasesStart;
+                        final int index = pos - spanStart;
+
+                        final boolean isBeforeDeletionStart = atEnd && nextOnGenomeIsDeletion;
+                        final boolean isBeforeInsertion = atEnd && next == CigarOperator.I;
+                        final boolean isAlt = isDeletion || bases[readIndex + offset] != refBases[refIndex]
+                                || isBeforeDeletionStart || (atStart && previousOnGenomeIsDeletion)
+                                || isBeforeInsertion || (atStart && previous == CigarOperator.I)
+                                || (atStart && previous == CigarOperator.S) || (atEnd && next == CigarOperator.S);
+
+                        final byte qual = isDeletion ? deletionQual : quals[readIndex + offset];
+                        if (isDeletion || qual > minBaseQual) {
+                            addObservation(index, isAlt, qual);
+                        }
+
+                        if (!isDeletion && !isBeforeDeletionStart && !isBeforeInsertion
+                                && indelInformative[index] <= maxInformativeReads
+                                && isInformativeAboutIndels(bases.length, readIndex + offset, refIndex)) {
+                            indelInformative[index]++;
+                        }
+                    }
+                }
+            }
+
+            if (op.consumesReadBases()) {
+                readIndex += length;
+            }
+            if (op.consumesReferenceBases()) {
+                position += length;
+            }
+        }
+    }
+
+    private void addObservation(final int index, final boolean isAlt, final byte qual) {
+        if (isAlt) {
+            nonRefDepth[index]++;
+        } else {
+            refDepth[index]++;
+        }
+
+        final int from = ((isAlt ? QUALITY_BINS : 0) + (qual & 0xff)) * likelihoodCount;
+        final int to = index * likelihoodCount;
+        for (int i = 0; i < likelihoodCount; i++) {
+            likelihoods[to + i] += contributions[from + i];
+        }
+    }
+
+    /**
+     * Equivalent of {@link ReferenceConfidenceModel#isReadInformativeAboutIndelsOfSize} answered from the
+     * suffix sums of the current read.
+     */
+    private boolean isInformativeAboutIndels(final int readLength, final int readStart, final int refStart) {
+        if (readLength - readStart < maxIndelSize || refBases.length - refStart < maxIndelSize) {
+            return false;
+        }
+
+        final int diagonal = refStart - readStart;
+        final int baselineMMSum = mismatchingQualities(diagonal, readStart);
+        for (int indelSize = 1; indelSize <= maxIndelSize; indelSize++) {
+            // insertion: readStart + indelSize against refStart
+            if (mismatchingQualities(diagonal - indelSize, readStart + indelSize) <= baselineMMSum) {
+                return false;
+            }
+            // deletion: readStart against refStart + indelSize
+            if (mismatchingQualities(diagonal + indelSize, readStart) <= baselineMMSum) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void resetSuffixSums(final GaeaSamRecord read, final Cigar cigar) {
+        currentRead = read;
+        int minDiagonal = Integer.MAX_VALUE;
+        int maxDiagonal = Integer.MIN_VALUE;
+        int readIndex = 0;
+        int refIndex = read.getAlignmentStart() - refBasesStart;
+        for (int e = 0; e < cigar.numCigarElements(); e++) {
+            final CigarOperator op = cigar.getCigarElement(e).getOperator();
+            if (op.isAlignment()) {
+                minDiagonal = Math.min(minDiagonal, refIndex - readIndex);
+                maxDiagonal = Math.max(maxDiagonal, refIndex - readIndex);
+            }
+            if (op.consumesReadBases()) {
+                readIndex += cigar.getCigarElement(e).getLength();
+            }
+            if (op.consumesReferenceBases()) {
+                refIndex += cigar.getCigarElement(e).getLength();
+            }
+        }
+        if (minDiagonal > maxDiagonal) {
+            return;
+        }
+
+        suffixDiagonalStart = minDiagonal - maxIndelSize;
+        final int diagonals = maxDiagonal + maxIndelSize - suffixDiagonalStart + 1;
+        if (suffixSums.length < diagonals) {
+            suffixSums = new int[diagonals][];
+            suffixComputed = new boolean[diagonals];
+        }
+        for (int i = 0; i < diagonals; i++) {
+            if (suffixSums[i] == null || suffixSums[i].length < read.getReadLength() + 1) {
+                suffixSums[i] = new int[read.getReadLength() + 1];
+            }
+            suffixComputed[i] = false;
+        }
+    }
+
+    /**
+     * Sum of mismatching base qualities of the current read from readStart on, aligned on diagonal
+     * (see {@link ReferenceConfidenceModel#sumMismatchingQualities}).
+     */
+    private int mismatchingQualities(final int diagonal, final int readStart) {
+        final int slot = diagonal - suffixDiagonalStart;
+        final int[] sums = suffixSums[slot];
+        if (!suffixComputed[slot]) {
+            final byte[] bases = currentRead.getReadBases();
+            final byte[] quals = currentRead.getBaseQualities();
+            final int readLength = bases.length;
+            final int end = Math.min(readLength, refBases.length - diagonal);
+
+            for (int k = readLength; k >= 0 && k >= end; k--) {
+                sums[k] = 0;
+            }
+            int sum = 0;
+            for (int k = end - 1; k >= 0 && k + diagonal >= 0; k--) {
+                if (bases[k] != refBases[k + diagonal]) {
+                    sum += quals[k];
+                }
+                sums[k] = sum;
+            }
+            suffixComputed[slot] = true;
+        }
+        return sums[readStart];
+    }
+
+    /**
+     * @return the RefVsAny result at position, as {@link ReferenceConfidenceModel#calcGenotypeLikelihoodsOfRefVsAny}
+     * would return it for the pileup at that position
+     */
+    RefVsAnyResult getRefVsAnyResult(final int position) {
+        final int index = position - spanStart;
+        final RefVsAnyResult result = new RefVsAnyResult(likelihoodCount);
+        result.incrementRefAD(refDepth[index]);
+        result.incrementNonRefAD(nonRefDepth[index]);
+
+        final double denominator = (refDepth[index] + nonRefDepth[index]) * log10Ploidy;
+        for (int i = 0; i < likelihoodCount; i++) {
+            result.addGenotypeLikelihood(i, likelihoods[index * likelihoodCount + i]);
+            result.addGenotypeLikelihood(i, -denominator);
+        }
+        return result;
+    }
+
+    int getIndelInformativeReads(final int position) {
+        return indelInformative[position - spanStart];
+    }
+
+    private static boolean isOnGenome(final CigarOperator op) {
+        return op.isAlignment() || op == CigarOperator.D;
+    }
+
+    private static CigarOperator nearestOnGenomeOperator(final Cigar cigar, final int element, final int increment) {
+        for (int i = element + increment; i >= 0 && i < cigar.numCigarElements(); i += increment) {
+            final CigarOperator op = cigar.getCigarElement(i).getOperator();
+            if (isOnGenome(op)) {
+                return op;
+            }
+        }
+        return null;
+    }
+
+    private static CigarOperator adjacentOperator(final Cigar cigar, final int element, final int increment) {
+        final int i = element + increment;
+        return i >= 0 && i < cigar.numCigarElements() ? cigar.getCigarElement(i).getOperator() : null;
+    }
+}
@@ -40,6 +40,12 @@ public final class ReferenceConfidenceModel {
     private final SampleList samples;
     private final int indelInformativeDepthIndelSize;
 
+    /**
+     * Per quality RefVsAny likelihoods used by {@link #calculateRefConfidenceWithoutVariation}, built for one ploidy.
+     */
+    private double[] likelihoodContributions = null;
+    private int likelihoodContributionsPloidy = -1;
+
     /**
      * Surrogate quality score for no base calls.
      * <p>
@@ -180,6 +186,54 @@ public final class ReferenceConfidenceModel {
         return results;
     }
 
+    /**
+     * Calculate the reference confidence for a single sample over a region in which no variation was called.
+     *
+     * Produces the same variant contexts as {@link #calculateRefConfidence} given only the reference haplotype and
+     * no variant calls, but streams the reads of the region once into {@link RefVsAnyCounters} instead of building
+     * a pileup for every position of the region.
+     *
+     * @param refHaplotype the reference haplotype, used to get the reference bases across activeRegion.getExtendedSpan()
+     * @param activeRegion the region we want to get the reference confidence over
+     * @param ploidyModel indicate the ploidy of the sample
+     * @return an ordered list of reference confidence variant contexts, one for each position in activeRegion.getSpan()
+     */
+    public List<VariantContext> calculateRefConfidenceWithoutVariation(final Haplotype refHaplotype,
+                                                                       final AssemblyRegion activeRegion,
+                                                                       final PloidyModel ploidyModel) {
+        Utils.nonNull(refHaplotype, "refHaplotype cannot be null");
+        Utils.nonNull(activeRegion, "activeRegion cannot be null");
+        Utils.validateArg(samples.numberOfSamples() == 1, () -> "reference confidence needs exactly one sample but there are " + samples.numberOfSamples());
+        Utils.validateArg( refHaplotype.length() == activeRegion.getExtendedSpan().size(), () -> "refHaplotype " + refHaplotype.length() + " and activeRegion location size " + activeRegion.getSpan().size() + " are different");
+        Utils.nonNull(ploidyModel, "the ploidy model cannot be null");
+        final int ploidy = ploidyModel.samplePloidy(0);
+
+        final GenomeLocation refSpan = activeRegion.getSpan();
+        final byte[] ref = refHaplotype.getBases();
+        final int refStart = activeRegion.getExtendedSpan().getStart();
+        final RefVsAnyCounters counters = new RefVsAnyCounters(refSpan, ref, refStart, ploidy,
+                getLikelihoodContributions(ploidy), indelInformativeDepthIndelSize);
+        for ( final GaeaSamRecord read : activeRegion.getReads() ) {
+            counters.addRead(read, REF_MODEL_DELETION_QUAL, BASE_QUAL_THRESHOLD, MAX_N_INDEL_INFORMATIVE_READS);
+        }
+
+        final String sampleName = samples.getSample(0);
+        final List<VariantContext> results = new ArrayList<>(refSpan.size());
+        for ( int position = refSpan.getStart(); position <= refSpan.getEnd(); position++ ) {
+            results.add(makeReferenceConfidenceVariantContext(ploidy, ref[position - refStart], sampleName, refSpan.getContig(),
+                    position, counters.getRefVsAnyResult(position), counters.getIndelInformativeReads(position)));
+        }
+        return results;
+    }
+
+    private double[] getLikelihoodContributions(final int ploidy) {
+        if (likelihoodContributionsPloidy != ploidy) {
+            likelihoodContributions = RefVsAnyCounters.likelihoodContributions(ploidy);
+            likelihoodContributionsPloidy = ploidy;
+        }
+        return likelihoodContributions;
+    }
+
     private VariantContext makeReferenceConfidenceVariantContext(final int ploidy,
                                                                  final byte[] ref,
                                                                  final String sampleName,
@@ -191,17 +245,26 @@ public final class ReferenceConfidenceModel {
         final int refOffset = offset + globalRefOffset;
         final byte refBase = ref[refOffset];
         final RefVsAnyResult homRefCalc = calcGenotypeLikelihoodsOfRefVsAny(ploidy, pileup, refBase, BASE_QUAL_THRESHOLD, null);
+        final int nIndelInformativeReads = calcNIndelInformativeReads(pileup, refOffset, ref, indelInformativeDepthIndelSize);
+        return makeReferenceConfidenceVariantContext(ploidy, refBase, sampleName, curPos.getContig(), curPos.getStart(), homRefCalc, nIndelInformativeReads);
+    }
 
+    private VariantContext makeReferenceConfidenceVariantContext(final int ploidy,
+                                                                 final byte refBase,
+                                                                 final String sampleName,
+                                                                 final String contig,
+                                                                 final int position,
+                                                                 final RefVsAnyResult homRefCalc,
+                                                                 final int nIndelInformativeReads) {
         final Allele refAllele = Allele.create(refBase, true);
         final List<Allele> refSiteAlleles = Arrays.asList(refAllele, GaeaVCFConstants.NON_REF_SYMBOLIC_ALLELE);
-        final VariantContextBuilder vcb = new VariantContextBuilder("HC", curPos.getContig(), curPos.getStart(), curPos.getStart(), refSiteAlleles);
+        final VariantContextBuilder vcb = new VariantContextBuilder("HC", contig, position, position, refSiteAlleles);
         final GenotypeBuilder gb = new GenotypeBuilder(sampleName, GaeaGvcfVariantContextUtils.homozygousAlleleList(refAllele, ploidy));
         gb.AD(homRefCalc.getAD());
         gb.DP(homRefCalc.getDP());
 
         // genotype likelihood calculation
         final GenotypeLikelihoods snpGLs = GenotypeLikelihoods.fromLog10Likelihoods(homRefCalc.getGenotypeLikelihoodsCappedByHomRefLikelihood());
-        final int nIndelInformativeReads = calcNIndelInformativeReads(pileup, refOffset, ref, indelInformativeDepthIndelSize);
         final GenotypeLikelihoods indelGLs = getIndelPLs(ploidy,nIndelInformativeReads);
 
         // now that we have the SNP and indel GLs, we take the one with the least confidence,
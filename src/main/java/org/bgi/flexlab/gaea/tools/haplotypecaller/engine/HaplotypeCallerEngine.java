@@ -160,6 +160,14 @@ public final class HaplotypeCallerEngine {
 	
 	private int haplotpeNumber = 0;
 
+	/**
+	 * cumulative active region count and assembly / likelihood time in nano
+	 * seconds, read by window telemetry
+	 */
+	private long activeRegionNumber = 0;
+	private long assemblyTime = 0;
+	private long likelihoodTime = 0;
+
 	/**
 	 * Create and initialize a new HaplotypeCallerEngine given a collection of
 	 * HaplotypeCaller arguments, a reads header, and a reference file
@@ -570,6 +578,7 @@ public final class HaplotypeCallerEngine {
 			// Not active so nothing to do!
 			return referenceModelForNoVariation(region, true);
 		}
+		activeRegionNumber++;
 
 		final List<VariantContext> givenAlleles = new ArrayList<>();
 		if (hcArgs.genotypingOutputMode == GenotypingOutputMode.GENOTYPE_GIVEN_ALLELES) {
@@ -587,8 +596,10 @@ public final class HaplotypeCallerEngine {
 
 		// run the local assembler, getting back a collection of information on
 		// how we should proceed
+		long startTime = System.nanoTime();
 		final AssemblyResultSet untrimmedAssemblyResult = AssemblyBasedCallerUtils.assembleReads(region, givenAlleles,
 				hcArgs, readsHeader, samplesList, referenceReader, assemblyEngine, aligner,hcArgs.maxDepthForAssembly);
+		assemblyTime += System.nanoTime() - startTime;
 
 		final SortedSet<VariantContext> allVariationEvents = untrimmedAssemblyResult.getVariationEvents();
 		// TODO - line bellow might be unnecessary : it might be that
@@ -641,8 +652,10 @@ public final class HaplotypeCallerEngine {
 		final Map<String, List<GaeaSamRecord>> reads = splitReadsBySample(regionForGenotyping.getReads());
 
 		// Calculate the likelihoods: CPU intensive part.
+		startTime = System.nanoTime();
 		final ReadLikelihoods<Haplotype> readLikelihoods = likelihoodCalculationEngine
 				.computeReadLikelihoods(assemblyResult, samplesList, reads);
+		likelihoodTime += System.nanoTime() - startTime;
 
 		// Realign reads to their best haplotype.
 		final Map<GaeaSamRecord, GaeaSamRecord> readRealignments = AssemblyBasedCallerUtils
@@ -737,10 +750,10 @@ public final class HaplotypeCallerEngine {
 			final GenomeLocation paddedLoc = region.getExtendedSpan();
 			final Haplotype refHaplotype = AssemblyBasedCallerUtils.createReferenceHaplotype(region, paddedLoc,
 					referenceReader);
-			final List<Haplotype> haplotypes = Collections.singletonList(refHaplotype);
-			return referenceConfidenceModel.calculateRefConfidence(refHaplotype, haplotypes, paddedLoc, region,
-					createDummyStratifiedReadMap(refHaplotype, samplesList, region), genotypingEngine.getPloidyModel(),
-					Collections.emptyList());
+			// no haplotypes to realign the reads to, so stream the reads into
+			// per-position counters instead of building pileups
+			return referenceConfidenceModel.calculateRefConfidenceWithoutVariation(refHaplotype, region,
+					genotypingEngine.getPloidyModel());
 		} else {
 			return NO_CALLS;
 		}
@@ -834,4 +847,16 @@ public final class HaplotypeCallerEngine {
 	public int getHaplotypeNumber() {
 		return haplotpeNumber;
 	}
+
+	public long getActiveRegionNumber() {
+		return activeRegionNumber;
+	}
+
+	public long getAssemblyTime() {
+		return assemblyTime;
+	}
+
+	public long getLikelihoodTime() {
+		return likelihoodTime;
+	}
 }
@@ -1,8 +1,8 @@
 package org.bgi.flexlab.gaea.tools.jointcalling.afcalculator;
 
-import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.GenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
+import org.bgi.flexlab.gaea.tools.jointcalling.util.GenotypeMatrix;
 
 public abstract class AFCalculatorProvider {
 
@@ -21,13 +21,13 @@ public abstract class AFCalculatorProvider {
             return getInstance(defaultPloidy,maximumAltAlleles);
 
         final GenotypesContext genotypes = variantContext.getGenotypes();
+        // read ploidies from merged columns without building genotypes
+        final GenotypeMatrix matrix = GenotypeMatrix.of(genotypes);
 
-        final Genotype firstGenotype = genotypes.get(0);
-        int ploidy = firstGenotype.getPloidy();
+        int ploidy = matrix != null ? matrix.getPloidy(0) : genotypes.get(0).getPloidy();
         if (ploidy <= 0) ploidy = defaultPloidy;
         for (int i = 1 ; i < sampleCount; i++) {
-            final Genotype genotype = genotypes.get(i);
-            final int declaredPloidy = genotype.getPloidy();
+            final int declaredPloidy = matrix != null ? matrix.getPloidy(i) : genotypes.get(i).getPloidy();
             final int actualPloidy = declaredPloidy <= 0 ? defaultPloidy : declaredPloidy;
             if (actualPloidy != ploidy) {
                 ploidy = AFCalculatorImplementation.UNBOUND_PLOIDY;
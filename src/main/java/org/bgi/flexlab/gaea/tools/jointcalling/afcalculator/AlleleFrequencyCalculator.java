@@ -9,6 +9,7 @@ import org.bgi.flexlab.gaea.tools.jointcalling.genotypelikelihood.GenotypeAllele
 import org.bgi.flexlab.gaea.tools.jointcalling.genotypelikelihood.GenotypeLikelihoodCalculator;
 import org.bgi.flexlab.gaea.tools.jointcalling.genotypelikelihood.GenotypeLikelihoodCalculators;
 import org.bgi.flexlab.gaea.tools.jointcalling.util.Dirichlet;
+import org.bgi.flexlab.gaea.tools.jointcalling.util.GenotypeMatrix;
 import org.bgi.flexlab.gaea.tools.jointcalling.util.GvcfMathUtils;
 import org.bgi.flexlab.gaea.tools.jointcalling.util.JointCallingUtils;
 import org.bgi.flexlab.gaea.util.IndexRange;
@@ -80,13 +81,15 @@ public final class AlleleFrequencyCalculator extends AFCalculator {
 						a -> a.isReference() ? refPseudocount : (a.length() > 1 ? snpPseudocount : indelPseudocount))
 				.toArray();
 
+		final SiteLikelihoods likelihoods = new SiteLikelihoods(vc);
+
 		double[] alleleCounts = new double[numAlleles];
 		final double flatLog10AlleleFrequency = -GvcfMathUtils.Log10Cache.get(numAlleles); // log10(1/numAlleles)
 		double[] log10AlleleFrequencies = new IndexRange(0, numAlleles).mapToDouble(n -> flatLog10AlleleFrequency);
 		double alleleCountsMaximumDifference = Double.POSITIVE_INFINITY;
 
 		while (alleleCountsMaximumDifference > THRESHOLD_FOR_ALLELE_COUNT_CONVERGENCE) {
-			final double[] newAlleleCounts = effectiveAlleleCounts(vc, log10AlleleFrequencies);
+			final double[] newAlleleCounts = effectiveAlleleCounts(likelihoods, numAlleles, log10AlleleFrequencies);
 			alleleCountsMaximumDifference = Arrays.stream(MathArrays.ebeSubtract(alleleCounts, newAlleleCounts))
 					.map(Math::abs).max().getAsDouble();
 			alleleCounts = newAlleleCounts;
@@ -104,15 +107,12 @@ public final class AlleleFrequencyCalculator extends AFCalculator {
 		double[] log10POfZeroCountsByAllele = new double[numAlleles];
 		double log10PNoVariant = 0;
 
-		for (final Genotype g : vc.getGenotypes()) {
-			if (!g.hasLikelihoods()) {
-				continue;
-			}
-			final int ploidy = g.getPloidy() == 0 ? defaultPloidy : g.getPloidy();
+		for (int sample = 0; sample < likelihoods.size; sample++) {
+			final int ploidy = likelihoods.ploidys[sample] == 0 ? defaultPloidy : likelihoods.ploidys[sample];
 			final GenotypeLikelihoodCalculator glCalc = GL_CALCS.getInstance(ploidy, numAlleles);
 
-			final double[] log10GenotypePosteriors = log10NormalizedGenotypePosteriors(g, glCalc,
-					log10AlleleFrequencies);
+			final double[] log10GenotypePosteriors = log10NormalizedGenotypePosteriors(likelihoods.values,
+					likelihoods.offsets[sample], glCalc, log10AlleleFrequencies);
 
 			// the total probability
 			log10PNoVariant += log10GenotypePosteriors[HOM_REF_GENOTYPE_INDEX];
@@ -176,18 +176,15 @@ public final class AlleleFrequencyCalculator extends AFCalculator {
 	// count = SUM 10^(log (n_g p_g)) = SUM 10^(log n_g + log p_g)
 	// thanks to the log-sum-exp trick this lets us work with log posteriors
 	// alone
-	private double[] effectiveAlleleCounts(final VariantContext vc, final double[] log10AlleleFrequencies) {
-		final int numAlleles = vc.getNAlleles();
+	private double[] effectiveAlleleCounts(final SiteLikelihoods likelihoods, final int numAlleles,
+			final double[] log10AlleleFrequencies) {
 		JointCallingUtils.validateArg(numAlleles == log10AlleleFrequencies.length, "number of alleles inconsistent");
 		final double[] log10Result = new double[numAlleles];
 		Arrays.fill(log10Result, Double.NEGATIVE_INFINITY);
-		for (final Genotype g : vc.getGenotypes()) {
-			if (!g.hasLikelihoods()) {
-				continue;
-			}
-			final GenotypeLikelihoodCalculator glCalc = GL_CALCS.getInstance(g.getPloidy(), numAlleles);
-			final double[] log10GenotypePosteriors = log10NormalizedGenotypePosteriors(g, glCalc,
-					log10AlleleFrequencies);
+		for (int sample = 0; sample < likelihoods.size; sample++) {
+			final GenotypeLikelihoodCalculator glCalc = GL_CALCS.getInstance(likelihoods.ploidys[sample], numAlleles);
+			final double[] log10GenotypePosteriors = log10NormalizedGenotypePosteriors(likelihoods.values,
+					likelihoods.offsets[sample], glCalc, log10AlleleFrequencies);
 
 			new IndexRange(0,
 					glCalc.genotypeCount()).forEach(genotypeIndex -> glCalc.genotypeAlleleCountsAt(genotypeIndex)
@@ -199,17 +196,61 @@ public final class AlleleFrequencyCalculator extends AFCalculator {
 		return GvcfMathUtils.applyToArrayInPlace(log10Result, x -> Math.pow(10.0, x));
 	}
 
-	private static double[] log10NormalizedGenotypePosteriors(final Genotype g,
+	private static double[] log10NormalizedGenotypePosteriors(final double[] log10Likelihoods, final int offset,
 			final GenotypeLikelihoodCalculator glCalc, final double[] log10AlleleFrequencies) {
-		final double[] log10Likelihoods = g.getLikelihoods().getAsVector();
 		final double[] log10Posteriors = new IndexRange(0, glCalc.genotypeCount()).mapToDouble(genotypeIndex -> {
 			final GenotypeAlleleCounts gac = glCalc.genotypeAlleleCountsAt(genotypeIndex);
-			return gac.log10CombinationCount() + log10Likelihoods[genotypeIndex]
+			return gac.log10CombinationCount() + log10Likelihoods[offset + genotypeIndex]
 					+ gac.sumOverAlleleIndicesAndCounts((index, count) -> count * log10AlleleFrequencies[index]);
 		});
 		return GvcfMathUtils.normalizeFromLog10(log10Posteriors, true);
 	}
 
+	/**
+	 * log10 likelihoods of the samples having them, laid out contiguously.
+	 * Merged sites are read from the PL columns of their genotype matrix
+	 * without building genotypes.
+	 */
+	private static final class SiteLikelihoods {
+		private double[] values;
+		private final int[] offsets;
+		private final int[] ploidys;
+		private int size = 0;
+
+		private SiteLikelihoods(final VariantContext vc) {
+			final GenotypeMatrix matrix = GenotypeMatrix.of(vc);
+			final int sampleCount = matrix != null ? matrix.size() : vc.getNSamples();
+			offsets = new int[sampleCount];
+			ploidys = new int[sampleCount];
+
+			if (matrix != null) {
+				values = matrix.getLog10Likelihoods();
+				for (int sample = 0; sample < sampleCount; sample++) {
+					if (matrix.hasLikelihoods(sample)) {
+						offsets[size] = matrix.getLikelihoodsOffset(sample);
+						ploidys[size++] = matrix.getPloidy(sample);
+					}
+				}
+				return;
+			}
+
+			values = new double[0];
+			int length = 0;
+			for (final Genotype g : vc.getGenotypes()) {
+				if (!g.hasLikelihoods()) {
+					continue;
+				}
+				final double[] gls = g.getLikelihoods().getAsVector();
+				if (length + gls.length > values.length)
+					values = Arrays.copyOf(values, Math.max(2 * values.length, length + gls.length));
+				System.arraycopy(gls, 0, values, length, gls.length);
+				offsets[size] = length;
+				ploidys[size++] = g.getPloidy();
+				length += gls.length;
+			}
+		}
+	}
+
 	@Override // Note: unused
 	protected AFCalculationResult getResultFromFinalState(final VariantContext vc, final double[] priors,
 			final StateTracker st) {
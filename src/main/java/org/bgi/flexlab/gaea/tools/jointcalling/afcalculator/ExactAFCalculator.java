@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.PriorityQueue;
 
 import org.bgi.flexlab.gaea.tools.jointcalling.util.GaeaGvcfVariantContextUtils;
+import org.bgi.flexlab.gaea.tools.jointcalling.util.GenotypeMatrix;
 import org.bgi.flexlab.gaea.util.GaeaVCFConstants;
 import org.bgi.flexlab.gaea.util.MathUtils;
 
@@ -100,6 +101,21 @@ abstract class ExactAFCalculator extends AFCalculator {
         final ArrayList<double[]> genotypeLikelihoods = new ArrayList<>(GLs.size() + 1);
 
         if ( includeDummy ) genotypeLikelihoods.add(new double[]{0.0,0.0,0.0}); // dummy
+
+        // merged sites read likelihoods straight from the PL columns
+        final GenotypeMatrix matrix = GenotypeMatrix.of(GLs);
+        if ( matrix != null ) {
+            for ( final int sample : matrix.getSampleNameOrder() ) {
+                if ( matrix.hasLikelihoods(sample) ) {
+                    final double[] gls = matrix.getLog10Likelihoods(sample);
+
+                    if ( MathUtils.sum(gls) < GaeaGvcfVariantContextUtils.SUM_GL_THRESH_NOCALL || keepUninformative )
+                        genotypeLikelihoods.add(gls);
+                }
+            }
+            return genotypeLikelihoods;
+        }
+
         for ( Genotype sample : GLs.iterateInSampleNameOrder() ) {
             if ( sample.hasLikelihoods() ) {
                 final double[] gls = sample.getLikelihoods().getAsVector();
@@ -126,6 +126,10 @@ public class GaeaGvcfVariantContextUtils extends GaeaVariantContextUtils {
 			throw new IllegalArgumentException("the vc provided cannot be null");
 		if (defaultPloidy < 0)
 			throw new IllegalArgumentException("the default ploidy must 0 or greater");
+		final GenotypeMatrix matrix = GenotypeMatrix.of(vc);
+		if (matrix != null)
+			return matrix.totalPloidy(defaultPloidy);
+
 		int result = 0;
 		for (final Genotype genotype : vc.getGenotypes()) {
 			final int declaredPloidy = genotype.getPloidy();
@@ -0,0 +1,315 @@
+package org.bgi.flexlab.gaea.tools.jointcalling.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.bgi.flexlab.gaea.tools.jointcalling.genotypelikelihood.GenotypeLikelihoodCalculators;
+import org.bgi.flexlab.gaea.util.GaeaVCFConstants;
+import org.bgi.flexlab.gaea.util.Pair;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Columnar genotypes of one merged site. PLs of all samples are remapped into
+ * one contiguous array, AD is kept as a samples x alleles block, DP and GQ as
+ * int columns, together with the table mapping merged alleles to the alleles
+ * of each sample's record.
+ *
+ * The columns are filled on first access and htsjdk genotypes are only built
+ * when the genotypes of the merged VariantContext are iterated, so sites
+ * dropped before genotyping never remap per sample data.
+ */
+public class GenotypeMatrix implements LazyGenotypesContext.LazyParser {
+	public static final int MISSING = -1;
+
+	private final List<Pair<VariantContext, List<Allele>>> records;
+	private final List<Allele> alleles;
+	private final int alleleCount;
+	private final boolean samplesAreUniquified;
+	private final boolean shouldComputePLs;
+	private final int sampleCount;
+
+	private Genotype[] sources;
+	private String[] sampleNames;
+	private int[] ploidys;
+
+	private int[] plOffsets;
+	private int[] plCounts;
+	private int[] pls;
+	private double[] log10Likelihoods = null;
+
+	private boolean[] hasAD;
+	private int[] ads;
+	private int[] depths;
+	private int[] gqs;
+
+	private boolean[] hasAlleleRemap;
+	private int[] alleleRemap;
+
+	private int[] sampleNameOrder = null;
+
+	public GenotypeMatrix(final List<Pair<VariantContext, List<Allele>>> records, final List<Allele> alleles,
+			final boolean samplesAreUniquified, final boolean shouldComputePLs) {
+		this.records = records;
+		this.alleles = alleles;
+		this.alleleCount = alleles.size();
+		this.samplesAreUniquified = samplesAreUniquified;
+		this.shouldComputePLs = shouldComputePLs;
+
+		int count = 0;
+		for (final Pair<VariantContext, List<Allele>> pair : records)
+			count += pair.getFirst().getNSamples();
+		this.sampleCount = count;
+	}
+
+	/**
+	 * @return matrix backing genotypes which aren't decoded yet, or null
+	 */
+	public static GenotypeMatrix of(final GenotypesContext genotypes) {
+		if (genotypes instanceof LazyGenotypesContext) {
+			final Object data = ((LazyGenotypesContext) genotypes).getUnparsedGenotypeData();
+			if (data instanceof GenotypeMatrix)
+				return (GenotypeMatrix) data;
+		}
+		return null;
+	}
+
+	public static GenotypeMatrix of(final VariantContext vc) {
+		return of(vc.getGenotypes());
+	}
+
+	public GenotypesContext toGenotypesContext() {
+		return new LazyGenotypesContext(this, this, sampleCount);
+	}
+
+	private void fill() {
+		if (sources != null)
+			return;
+
+		sources = new Genotype[sampleCount];
+		sampleNames = new String[sampleCount];
+		ploidys = new int[sampleCount];
+		plOffsets = new int[sampleCount];
+		plCounts = new int[sampleCount];
+		// sized at the first sample with PLs, stays empty when PLs are not computed
+		pls = new int[0];
+		hasAD = new boolean[sampleCount];
+		ads = new int[sampleCount * alleleCount];
+		depths = new int[sampleCount];
+		gqs = new int[sampleCount];
+		hasAlleleRemap = new boolean[sampleCount];
+		alleleRemap = new int[sampleCount * alleleCount];
+
+		int sample = 0;
+		int plSize = 0;
+		for (final Pair<VariantContext, List<Allele>> pair : records) {
+			final VariantContext vc = pair.getFirst();
+			final List<Allele> remappedAlleles = pair.getSecond();
+			final int maximumAlleleCount = Math.max(remappedAlleles.size(), alleleCount);
+
+			for (final Genotype g : vc.getGenotypes()) {
+				sources[sample] = g;
+				sampleNames[sample] = samplesAreUniquified ? g.getSampleName() + "." + vc.getSource()
+						: g.getSampleName();
+				ploidys[sample] = g.getPloidy();
+				depths[sample] = g.hasDP() ? g.getDP() : MISSING;
+				gqs[sample] = g.hasGQ() ? g.getGQ() : MISSING;
+				plOffsets[sample] = MISSING;
+
+				final boolean doPLs = shouldComputePLs && g.hasPL();
+				if (doPLs || g.hasAD()
+						|| g.hasExtendedAttribute(GaeaVCFConstants.STRAND_COUNT_BY_SAMPLE_KEY)) {
+					final int[] indexesOfRelevantAlleles = ReferenceConfidenceVariantContextMerger
+							.getIndexesOfRelevantAlleles(remappedAlleles, alleles, vc.getStart(), g);
+					System.arraycopy(indexesOfRelevantAlleles, 0, alleleRemap, sample * alleleCount, alleleCount);
+					hasAlleleRemap[sample] = true;
+
+					if (doPLs) {
+						final int[] genotypeIndexMap = GenotypeLikelihoodCalculators
+								.getInstance(ploidys[sample], maximumAlleleCount)
+								.genotypeIndexMap(indexesOfRelevantAlleles);
+						if (plSize + genotypeIndexMap.length > pls.length)
+							pls = Arrays.copyOf(pls, Math.max(pls.length * 2,
+									plSize + (sampleCount - sample) * genotypeIndexMap.length));
+						final int[] oldPLs = g.getPL();
+						plOffsets[sample] = plSize;
+						plCounts[sample] = genotypeIndexMap.length;
+						for (int i = 0; i < genotypeIndexMap.length; i++)
+							pls[plSize++] = oldPLs[genotypeIndexMap[i]];
+					}
+
+					if (g.hasAD()) {
+						final int[] originalAD = g.getAD();
+						for (int i = 0; i < alleleCount; i++) {
+							final int oldIndex = indexesOfRelevantAlleles[i];
+							ads[sample * alleleCount + i] = oldIndex >= originalAD.length ? 0 : originalAD[oldIndex];
+						}
+						hasAD[sample] = true;
+					}
+				}
+				sample++;
+			}
+		}
+	}
+
+	public int size() {
+		return sampleCount;
+	}
+
+	public List<Allele> getAlleles() {
+		return alleles;
+	}
+
+	public String getSampleName(final int sample) {
+		fill();
+		return sampleNames[sample];
+	}
+
+	public int getPloidy(final int sample) {
+		fill();
+		return ploidys[sample];
+	}
+
+	public int totalPloidy(final int defaultPloidy) {
+		fill();
+		int result = 0;
+		for (int i = 0; i < sampleCount; i++)
+			result += ploidys[i] <= 0 ? defaultPloidy : ploidys[i];
+		return result;
+	}
+
+	public boolean hasLikelihoods(final int sample) {
+		fill();
+		return plOffsets[sample] != MISSING;
+	}
+
+	/**
+	 * @return offset of sample's likelihoods in getPLs() and
+	 *         getLog10Likelihoods()
+	 */
+	public int getLikelihoodsOffset(final int sample) {
+		fill();
+		return plOffsets[sample];
+	}
+
+	public int getLikelihoodsCount(final int sample) {
+		fill();
+		return plCounts[sample];
+	}
+
+	public int[] getPLs() {
+		fill();
+		return pls;
+	}
+
+	/**
+	 * PLs of all samples as log10 likelihoods, with the same layout as
+	 * getPLs()
+	 */
+	public double[] getLog10Likelihoods() {
+		fill();
+		if (log10Likelihoods == null) {
+			log10Likelihoods = new double[pls.length];
+			for (int i = 0; i < pls.length; i++)
+				log10Likelihoods[i] = pls[i] / -10.0;
+		}
+		return log10Likelihoods;
+	}
+
+	public double[] getLog10Likelihoods(final int sample) {
+		final int offset = getLikelihoodsOffset(sample);
+		return Arrays.copyOfRange(getLog10Likelihoods(), offset, offset + plCounts[sample]);
+	}
+
+	public boolean hasAD(final int sample) {
+		fill();
+		return hasAD[sample];
+	}
+
+	public int getAD(final int sample, final int allele) {
+		fill();
+		return ads[sample * alleleCount + allele];
+	}
+
+	public int getDP(final int sample) {
+		fill();
+		return depths[sample];
+	}
+
+	public int getGQ(final int sample) {
+		fill();
+		return gqs[sample];
+	}
+
+	/**
+	 * @return index in the sample's own record of merged allele, MISSING if
+	 *         the sample has no allele specific data
+	 */
+	public int getRemappedAlleleIndex(final int sample, final int allele) {
+		fill();
+		return hasAlleleRemap[sample] ? alleleRemap[sample * alleleCount + allele] : MISSING;
+	}
+
+	/**
+	 * sample indexes sorted by sample name, the order of
+	 * GenotypesContext.iterateInSampleNameOrder()
+	 */
+	public int[] getSampleNameOrder() {
+		fill();
+		if (sampleNameOrder == null) {
+			final Integer[] order = new Integer[sampleCount];
+			for (int i = 0; i < sampleCount; i++)
+				order[i] = i;
+			Arrays.sort(order, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer o1, Integer o2) {
+					return sampleNames[o1].compareTo(sampleNames[o2]);
+				}
+			});
+			sampleNameOrder = new int[sampleCount];
+			for (int i = 0; i < sampleCount; i++)
+				sampleNameOrder[i] = order[i];
+		}
+		return sampleNameOrder;
+	}
+
+	public Genotype makeGenotype(final int sample) {
+		fill();
+		final Genotype g = sources[sample];
+		final GenotypeBuilder genotypeBuilder = new GenotypeBuilder(g)
+				.alleles(GaeaGvcfVariantContextUtils.noCallAlleles(ploidys[sample])).noPL();
+		genotypeBuilder.name(sampleNames[sample]);
+
+		if (plOffsets[sample] != MISSING)
+			genotypeBuilder.PL(Arrays.copyOfRange(pls, plOffsets[sample], plOffsets[sample] + plCounts[sample]));
+		if (hasAD[sample])
+			genotypeBuilder.AD(Arrays.copyOfRange(ads, sample * alleleCount, (sample + 1) * alleleCount));
+		if (hasAlleleRemap[sample] && g.hasExtendedAttribute(GaeaVCFConstants.STRAND_COUNT_BY_SAMPLE_KEY)) {
+			final List<Integer> sacIndexesToUse = new ArrayList<>(2 * alleleCount);
+			for (int i = sample * alleleCount; i < (sample + 1) * alleleCount; i++) {
+				sacIndexesToUse.add(2 * alleleRemap[i]);
+				sacIndexesToUse.add(2 * alleleRemap[i] + 1);
+			}
+			genotypeBuilder.attribute(GaeaVCFConstants.STRAND_COUNT_BY_SAMPLE_KEY,
+					GaeaGvcfVariantContextUtils.makeNewSACs(g, sacIndexesToUse));
+		}
+		return genotypeBuilder.make();
+	}
+
+	@Override
+	public LazyGenotypesContext.LazyData parse(final Object data) {
+		fill();
+		final ArrayList<Genotype> genotypes = new ArrayList<>(sampleCount);
+		for (int i = 0; i < sampleCount; i++)
+			genotypes.add(makeGenotype(i));
+		// sample name maps are built by GenotypesContext when first needed
+		return new LazyGenotypesContext.LazyData(genotypes, null, null);
+	}
+}
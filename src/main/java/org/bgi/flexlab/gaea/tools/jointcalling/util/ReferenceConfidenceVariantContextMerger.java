@@ -25,9 +25,7 @@ import org.bgi.flexlab.gaea.util.Utils;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.CommonInfo;
 import htsjdk.variant.variantcontext.Genotype;
-import htsjdk.variant.variantcontext.GenotypeBuilder;
 import htsjdk.variant.variantcontext.GenotypeLikelihoods;
-import htsjdk.variant.variantcontext.GenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.vcf.VCFConstants;
@@ -106,7 +104,6 @@ public class ReferenceConfidenceVariantContextMerger {
 															// there's one id
 		int depth = 0;
 		final Map<String, List<ReducibleAnnotationData>> annotationMap = new LinkedHashMap<>();
-		final GenotypesContext genotypes = GenotypesContext.create();
 
 		// In this list we hold the mapping of each variant context alleles.
 		final List<Pair<VariantContext, List<Allele>>> vcAndNewAllelePairs = new ArrayList<>(VCs.size());
@@ -149,12 +146,12 @@ public class ReferenceConfidenceVariantContextMerger {
 		boolean shouldComputePLs = allelesList
 				.size() <= GenotypeLikelihoods.MAX_DIPLOID_ALT_ALLELES_THAT_CAN_BE_GENOTYPED;
 
+		// genotypes are remapped into columns only when the site is genotyped
+		final GenotypeMatrix genotypes = new GenotypeMatrix(vcAndNewAllelePairs, allelesList, samplesAreUniquified,
+				shouldComputePLs);
+
 		for (final Pair<VariantContext, List<Allele>> pair : vcAndNewAllelePairs) {
 			final VariantContext vc = pair.getFirst();
-			final List<Allele> remappedAlleles = pair.getSecond();
-
-			mergeRefConfidenceGenotypes(genotypes, vc, remappedAlleles, allelesList, samplesAreUniquified,
-					shouldComputePLs);
 
 			// special case DP (add it up) for all events
 			if (vc.hasAttribute(VCFConstants.DEPTH_KEY)) {
@@ -218,7 +215,7 @@ public class ReferenceConfidenceVariantContextMerger {
 		final VariantContextBuilder builder = new VariantContextBuilder().source(name).id(ID).alleles(allelesList)
 				.chr(loc.getContig()).start(loc.getStart())
 				.computeEndFromAlleles(nonSymbolicAlleles(allelesList), loc.getStart(), loc.getStart())
-				.genotypes(genotypes).unfiltered().attributes(new TreeMap<>(attributes))
+				.genotypesNoValidation(genotypes.toGenotypesContext()).unfiltered().attributes(new TreeMap<>(attributes))
 				.log10PError(CommonInfo.NO_LOG10_PERROR); // we will need to
 															// re-genotype later
 		return builder.make();
@@ -411,103 +408,6 @@ public class ReferenceConfidenceVariantContextMerger {
 		return result;
 	}
 
-	/**
-	 * Merge into the context a new genotype represented by the given
-	 * VariantContext for the provided list of target alleles. This method
-	 * assumes that none of the alleles in the VC overlaps with any of the
-	 * alleles in the set.
-	 */
-	private static void mergeRefConfidenceGenotypes(final GenotypesContext mergedGenotypes, final VariantContext vc,
-			final List<Allele> remappedAlleles, final List<Allele> targetAlleles, final boolean samplesAreUniquified,
-			final boolean shouldComputePLs) {
-		final int maximumPloidy = vc.getMaxPloidy(GaeaGvcfVariantContextUtils.DEFAULT_PLOIDY);
-		// the map is different depending on the ploidy, so in order to keep
-		// this method flexible (mixed ploidies)
-		// we need to get a map done (lazily inside the loop) for each ploidy,
-		// up to the maximum possible.
-		final int[][] genotypeIndexMapsByPloidy = new int[maximumPloidy + 1][];
-		final int maximumAlleleCount = Math.max(remappedAlleles.size(), targetAlleles.size());
-
-		for (final Genotype g : vc.getGenotypes()) {
-			final String name;
-			if (samplesAreUniquified)
-				name = g.getSampleName() + "." + vc.getSource();
-			else
-				name = g.getSampleName();
-			final int ploidy = g.getPloidy();
-			final GenotypeBuilder genotypeBuilder = new GenotypeBuilder(g)
-					.alleles(GaeaGvcfVariantContextUtils.noCallAlleles(g.getPloidy())).noPL();
-			genotypeBuilder.name(name);
-
-			final boolean doPLs = shouldComputePLs && g.hasPL();
-			final boolean hasAD = g.hasAD();
-			final boolean hasSAC = g.hasExtendedAttribute(GaeaVCFConstants.STRAND_COUNT_BY_SAMPLE_KEY);
-			if (doPLs || hasSAC || hasAD) {
-				final int[] perSampleIndexesOfRelevantAlleles = getIndexesOfRelevantAlleles(remappedAlleles,
-						targetAlleles, vc.getStart(), g);
-				if (doPLs) {
-					// lazy initialization of the genotype index map by ploidy.
-
-					final int[] genotypeIndexMapByPloidy = genotypeIndexMapsByPloidy[ploidy] == null
-							? GenotypeLikelihoodCalculators.getInstance(ploidy, maximumAlleleCount).genotypeIndexMap(
-									perSampleIndexesOfRelevantAlleles)
-							: genotypeIndexMapsByPloidy[ploidy];
-					final int[] PLs = generatePL(g, genotypeIndexMapByPloidy);
-					genotypeBuilder.PL(PLs);
-				}
-				if (hasAD) {
-					genotypeBuilder.AD(generateAD(g.getAD(), perSampleIndexesOfRelevantAlleles));
-				}
-				if (hasSAC) {
-					final List<Integer> sacIndexesToUse = adaptToSACIndexes(perSampleIndexesOfRelevantAlleles);
-					final int[] SACs = GaeaGvcfVariantContextUtils.makeNewSACs(g, sacIndexesToUse);
-					genotypeBuilder.attribute(GaeaVCFConstants.STRAND_COUNT_BY_SAMPLE_KEY, SACs);
-				}
-			}
-			mergedGenotypes.add(genotypeBuilder.make());
-		}
-	}
-
-	private static int[] generatePL(final Genotype g, final int[] genotypeIndexMapByPloidy) {
-		final int[] PLs = new int[genotypeIndexMapByPloidy.length];
-		final int[] oldPLs = g.getPL();
-		for (int i = 0; i < PLs.length; i++)
-			PLs[i] = oldPLs[genotypeIndexMapByPloidy[i]];
-		return PLs;
-	}
-
-	protected static int[] generateAD(final int[] originalAD, final int[] indexesOfRelevantAlleles) {
-		if (originalAD == null || indexesOfRelevantAlleles == null)
-			throw new IllegalArgumentException("The list of input AD values and alleles must not be null");
-
-		final int numADs = indexesOfRelevantAlleles.length;
-		final int[] newAD = new int[numADs];
-
-		for (int i = 0; i < numADs; i++) {
-			final int oldIndex = indexesOfRelevantAlleles[i];
-			if (oldIndex >= originalAD.length)
-				newAD[i] = 0;
-			else
-				newAD[i] = originalAD[oldIndex];
-		}
-
-		return newAD;
-	}
-
-	private static List<Integer> adaptToSACIndexes(final int[] perSampleIndexesOfRelevantAlleles) {
-		if (perSampleIndexesOfRelevantAlleles == null)
-			throw new IllegalArgumentException("The per sample index of relevant alleles must not be null");
-
-		final List<Integer> sacIndexesToUse = new ArrayList(2 * perSampleIndexesOfRelevantAlleles.length);
-
-		for (int item : perSampleIndexesOfRelevantAlleles) {
-			sacIndexesToUse.add(new Integer(2 * item));
-			sacIndexesToUse.add(new Integer(2 * item + 1));
-		}
-
-		return sacIndexesToUse;
-	}
-
 	protected static int[] getIndexesOfRelevantAlleles(final List<Allele> remappedAlleles,
 			final List<Allele> targetAlleles, final int position, final Genotype g) {
 
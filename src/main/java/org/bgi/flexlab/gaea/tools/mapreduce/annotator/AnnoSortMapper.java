@@ -20,21 +20,22 @@ package org.bgi.flexlab.gaea.tools.mapreduce.annotator;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
-import org.bgi.flexlab.gaea.data.mapreduce.writable.PairWritable;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class AnnoSortMapper extends Mapper<LongWritable, Text, PairWritable, Text> {
+/**
+ * keys are (file index, contig index, position) packed by
+ * AnnotationLineRecordReader, so sampled keys can range partition the sort
+ */
+public class AnnoSortMapper extends Mapper<LongWritable, Text, LongWritable, Text> {
 
-	private PairWritable resultKey;
 	private Text resultValue;
 
 	@Override
 	protected void setup(Context context)
 			throws IOException, InterruptedException {
-		resultKey = new PairWritable();
 		resultValue = new Text();
 	}
 
@@ -45,15 +46,12 @@ public class AnnoSortMapper extends Mapper<LongWritable, Text, PairWritable, Tex
 		if (annoLine.startsWith("#")) return;
 
 		String[] fields = annoLine.split("\t", 4);
-		String secondKey = fields[1] + "-" + String.format("%09d",Integer.parseInt(fields[2]));
-
-		resultKey.set(fields[0], secondKey);
 		List<String> vcfField = new ArrayList<>();
 		vcfField.add(fields[1]);
 		vcfField.add(fields[2]);
 		vcfField.add(fields[3]);
 		resultValue.set(String.join("\t",vcfField));
-		context.write(resultKey, resultValue);
+		context.write(key, resultValue);
 	}
 	
 	@Override
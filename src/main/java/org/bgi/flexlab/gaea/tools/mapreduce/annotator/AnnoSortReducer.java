@@ -16,105 +16,98 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.tools.mapreduce.annotator;
 
-import htsjdk.variant.vcf.*;
-import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FileStatus;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.SimpleFeature;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.tribble.util.LittleEndianOutputStream;
+import htsjdk.tribble.util.TabixUtils;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Reducer;
-import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
-import org.bgi.flexlab.gaea.data.mapreduce.writable.PairWritable;
-import org.bgi.flexlab.gaea.data.structure.header.SingleVCFHeader;
-import org.bgi.flexlab.gaea.tools.annotator.config.Config;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.bgi.flexlab.gaea.data.mapreduce.input.txt.AnnotationLineRecordReader;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.io.OutputStream;
 
-public class AnnoSortReducer extends Reducer<PairWritable, Text, NullWritable, Text> {
+/**
+ * write a sorted range of annotated records into a BGZF part of each file
+ * together with the tabix index of the part, vcf header is written by the
+ * driver when parts are concatenated
+ */
+public class AnnoSortReducer extends Reducer<LongWritable, Text, NullWritable, Text> {
 
-	private MultipleOutputs<NullWritable,Text> multipleOutputs = null;
-	private Text resultValue;
-	private boolean printHeader = true;
-	private AnnotatorOptions options;
-	private HashMap<String, VCFHeader> vcfHeaders;
-	private String annoFieldNameHeader;
+	public static final String PART_EXTENSION = ".gz";
 
-	@Override
-	protected void setup(Context context) throws IOException, InterruptedException {
-		resultValue = new Text();
-		multipleOutputs = new MultipleOutputs<>(context);
-		Configuration conf = context.getConfiguration();
-		Config userConfig = new Config(conf);
-		options = new AnnotatorOptions();
-		options.getOptionsFromHadoopConf(conf);
-		annoFieldNameHeader = userConfig.getVCFHeaderString();
+	private String[] fileNames;
+	private int fileIndex = -1;
 
-		vcfHeaders = new HashMap<>();
-		Path inputPath = new Path(options.getInputFilePath());
-		FileSystem fs = inputPath.getFileSystem(conf);
-		FileStatus[] files = fs.listStatus(inputPath);
+	private FileSystem fs;
+	private Path partPath;
+	private OutputStream partOut;
+	private BlockCompressedOutputStream bgzfOut = null;
+	private TabixIndexCreator indexCreator;
 
-		for(FileStatus file : files) {
-			if (file.isFile()) {
-				SingleVCFHeader singleVcfHeader = new SingleVCFHeader();
-				singleVcfHeader.readHeaderFrom(file.getPath(), fs);
-				VCFHeader vcfHeader = singleVcfHeader.getHeader();
-				VCFHeaderVersion vcfVersion = SingleVCFHeader.getVCFHeaderVersion(vcfHeader);
-				VCFCodec vcfcodec = new VCFCodec();
-				vcfcodec.setVCFHeader(vcfHeader, vcfVersion);
-				vcfHeaders.put(file.getPath().getName(), vcfHeader);
-			}
-		}
+	@Override
+	protected void setup(Context context) throws IOException, InterruptedException {
+		fileNames = context.getConfiguration().getStrings(AnnotationLineRecordReader.FILE_NAME_PROPERTY);
 	}
 
 	@Override
-	protected void reduce(PairWritable key, Iterable<Text> values, Context context)
+	protected void reduce(LongWritable key, Iterable<Text> values, Context context)
 			throws IOException, InterruptedException {
-		//TODO fix like AnnotationSortReducer
-		if(printHeader) {
-			VCFHeader vcfHeader = vcfHeaders.get(key.getFirst());
-			VCFHeaderLine annoVcfHeaderLine = new VCFInfoHeaderLine("ANNO", VCFHeaderLineCount.UNBOUNDED, VCFHeaderLineType.String, "fieldName:"+annoFieldNameHeader);
-			vcfHeader.addMetaDataLine(annoVcfHeaderLine);
-			for(VCFHeaderLine vcfHeaderLine: vcfHeader.getMetaDataInInputOrder()){
-				resultValue.set(VCFHeader.METADATA_INDICATOR + vcfHeaderLine.toString());
-				multipleOutputs.write(NullWritable.get(), resultValue, key.getFirst());
-			}
-
-			StringBuilder fieldLine = new StringBuilder(VCFHeader.HEADER_INDICATOR);
-			boolean isFirst = true;
-			for (final VCFHeader.HEADER_FIELDS field : vcfHeader.getHeaderFields() ) {
-				if ( isFirst )
-					isFirst = false; // don't write out a field separator
-				else
-					fieldLine.append(VCFConstants.FIELD_SEPARATOR);
-				fieldLine.append(field.toString());
-			}
-
-			if ( vcfHeader.hasGenotypingData() ) {
-				fieldLine.append(VCFConstants.FIELD_SEPARATOR);
-				fieldLine.append("FORMAT");
-				for (final String sample : vcfHeader.getGenotypeSamples() ) {
-					fieldLine.append(VCFConstants.FIELD_SEPARATOR);
-					fieldLine.append(sample);
-				}
-			}
-
-			resultValue.set(fieldLine.toString());
-			multipleOutputs.write(NullWritable.get(), resultValue, key.getFirst());
-			printHeader = false;
+		int index = AnnotationLineRecordReader.getFileIndex(key.get());
+		if (index != fileIndex) {
+			closePart();
+			openPart(context, index);
 		}
 		for (Text inputLine : values) {
-			resultValue.set(inputLine);
-			multipleOutputs.write(NullWritable.get(), resultValue, key.getFirst());
+			String[] fields = inputLine.toString().split("\t", 5);
+			int start = Integer.parseInt(fields[1]);
+			indexCreator.addFeature(new SimpleFeature(fields[0], start, start + fields[3].length() - 1),
+					bgzfOut.getFilePointer() + TabixIndexMerger.PART_OFFSET);
+			bgzfOut.write(inputLine.getBytes(), 0, inputLine.getLength());
+			bgzfOut.write('\n');
 		}
 	}
 
+	private void openPart(Context context, int index) throws IOException, InterruptedException {
+		fileIndex = index;
+		partPath = new Path(FileOutputFormat.getWorkOutputPath(context),
+				FileOutputFormat.getUniqueFile(context, fileNames[index], PART_EXTENSION));
+		fs = partPath.getFileSystem(context.getConfiguration());
+		partOut = fs.create(partPath);
+		bgzfOut = new BlockCompressedOutputStream(partOut, null);
+		indexCreator = new TabixIndexCreator(TabixFormat.VCF);
+	}
+
+	private void closePart() throws IOException {
+		if (bgzfOut == null)
+			return;
+		// no EOF block, it is only written once at the end of the merged file
+		bgzfOut.flush();
+		Index index = indexCreator.finalizeIndex(bgzfOut.getFilePointer() + TabixIndexMerger.PART_OFFSET);
+		partOut.close();
+		bgzfOut = null;
+
+		LittleEndianOutputStream indexOut = new LittleEndianOutputStream(
+				new BlockCompressedOutputStream(fs.create(getIndexPath(partPath)), null));
+		index.write(indexOut);
+		indexOut.close();
+	}
+
+	public static Path getIndexPath(Path part) {
+		return new Path(part.toString() + TabixUtils.STANDARD_INDEX_EXTENSION);
+	}
+
 	@Override
 	protected void cleanup(Context context)
 			throws IOException, InterruptedException {
-		multipleOutputs.close();
+		closePart();
 	}
 }
@@ -17,67 +17,33 @@
 package org.bgi.flexlab.gaea.tools.mapreduce.annotator;
 
 
-import htsjdk.variant.variantcontext.VariantContext;
-import htsjdk.variant.vcf.VCFCodec;
-import htsjdk.variant.vcf.VCFHeader;
-import htsjdk.variant.vcf.VCFHeaderVersion;
-import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FileStatus;
-import org.apache.hadoop.fs.FileSystem;
-import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.lib.input.FileSplit;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.VcfLineWritable;
-import org.bgi.flexlab.gaea.data.structure.header.SingleVCFHeader;
+import org.bgi.flexlab.gaea.data.structure.vcf.LazyVCFRecord;
 import org.bgi.flexlab.gaea.util.ChromosomeUtils;
 
 import java.io.IOException;
-import java.util.HashMap;
 
 public class AnnotationMapper extends Mapper<LongWritable, Text, Text, VcfLineWritable> {
 
 	private Text resultKey;
 	private VcfLineWritable resultValue;
-	private Configuration conf;
-	private HashMap<String, VCFCodec> vcfCodecs;
+
+	/**
+	 * only site columns are needed to key the line, genotypes are left to the reducer
+	 */
+	private LazyVCFRecord vcfRecord;
+
 	@Override
 	protected void setup(Context context)
 			throws IOException, InterruptedException {
 		resultKey = new Text();
 		resultValue = new VcfLineWritable();
-		conf = context.getConfiguration();
-		vcfCodecs = new HashMap<>();
-
-		AnnotatorOptions options = new AnnotatorOptions();
-		options.getOptionsFromHadoopConf(conf);
-
-		Path inputPath = new Path(options.getInputFilePath());
-		FileSystem fs = inputPath.getFileSystem(conf);
-		FileStatus[] files = fs.listStatus(inputPath);
-		for(FileStatus file : files) {
-			//System.out.println(file.getPath());
-
-			if (file.isFile()) {
-				SingleVCFHeader singleVcfHeader = new SingleVCFHeader();
-				singleVcfHeader.readHeaderFrom(file.getPath(), fs);
-				VCFHeader vcfHeader = singleVcfHeader.getHeader();
-				VCFHeaderVersion vcfVersion = singleVcfHeader.getVCFVersion(vcfHeader);
-				VCFCodec vcfcodec = new VCFCodec();
-				vcfcodec.setVCFHeader(vcfHeader, vcfVersion);
-				vcfCodecs.put(file.getPath().getName(), vcfcodec);
-			}
-		}
-
-//		TODO split vcfLine
-
-
-	}
-
-	private boolean filteVariant(VariantContext variantContext){
-		return !variantContext.isVariant();
+		vcfRecord = new LazyVCFRecord();
 	}
 
 	@Override
@@ -85,20 +51,18 @@ public class AnnotationMapper extends Mapper<LongWritable, Text, Text, VcfLineWr
 			throws IOException, InterruptedException {
 		InputSplit inputSplit = context.getInputSplit();
 		String fileName = ((FileSplit) inputSplit).getPath().getName();
-		VCFCodec vcfcodec = vcfCodecs.get(fileName);
 		String vcfLine = value.toString();
-		if (vcfLine.startsWith("#")) return;
-		VariantContext variantContext = vcfcodec.decode(vcfLine);
+		if (!vcfRecord.parse(vcfLine)) return;
 
-		if(filteVariant(variantContext))
+		if(!vcfRecord.isVariant())
 			return;
 
-		String chr = ChromosomeUtils.getNoChrName(variantContext.getContig());
+		String chr = ChromosomeUtils.getNoChrName(vcfRecord.getContig());
 
 		resultValue.set(fileName, vcfLine);
 
-		int startPrefix = variantContext.getStart()/1000;
-		int startRemainder = variantContext.getStart()%1000;
+		int startPrefix = vcfRecord.getStart()/1000;
+		int startRemainder = vcfRecord.getStart()%1000;
 		if(startRemainder <= 5 && startPrefix > 0){
 			resultKey.set(chr+"-"+(startPrefix-1));
 			context.write(resultKey, resultValue);
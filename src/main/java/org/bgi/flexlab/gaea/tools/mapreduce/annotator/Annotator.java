@@ -17,8 +17,17 @@
 package org.bgi.flexlab.gaea.tools.mapreduce.annotator;
 
 import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
 import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.tribble.util.TabixUtils;
+import htsjdk.variant.vcf.VCFConstants;
 import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLine;
+import htsjdk.variant.vcf.VCFHeaderLineCount;
+import htsjdk.variant.vcf.VCFHeaderLineType;
+import htsjdk.variant.vcf.VCFInfoHeaderLine;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileStatus;
@@ -35,10 +44,9 @@ import org.apache.hadoop.mapreduce.lib.output.LazyOutputFormat;
 import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 import org.apache.hadoop.mapreduce.lib.partition.InputSampler;
 import org.apache.hadoop.mapreduce.lib.partition.TotalOrderPartitioner;
+import org.bgi.flexlab.gaea.data.mapreduce.input.txt.AnnotationLineRecordReader;
 import org.bgi.flexlab.gaea.data.mapreduce.input.txt.AnnotationTextInputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.partitioner.AnnoSortPartitioner;
-import org.bgi.flexlab.gaea.data.mapreduce.partitioner.FirstPartitioner;
-import org.bgi.flexlab.gaea.data.mapreduce.writable.PairWritable;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.VcfLineWritable;
 import org.bgi.flexlab.gaea.data.structure.header.SingleVCFHeader;
 import org.bgi.flexlab.gaea.framework.tools.mapreduce.BioJob;
@@ -51,17 +59,23 @@ import org.seqdoop.hadoop_bam.util.BGZFCodec;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Annotator extends ToolsRunner {
 
     public static final String SORT_TEMP_INFO = "sortinfo.tsv";
 
+    private static final Log LOG = LogFactory.getLog(Annotator.class);
+
     private Configuration conf;
     private AnnotatorOptions options;
     private List<String> sampleNames;
     private List<String> contigs;
     private List<String> fileNames;
+    private Map<String, VCFHeader> vcfHeaders;
     private String sortInput;
     private Path sortTmpPath;
 
@@ -74,6 +88,7 @@ public class Annotator extends ToolsRunner {
         sampleNames = new ArrayList<>();
         fileNames = new ArrayList<>();
         contigs = new ArrayList<>();
+        vcfHeaders = new HashMap<>();
 
         conf = new Configuration();
         String[] remainArgs = remainArgs(arg0, conf);
@@ -104,6 +119,7 @@ public class Annotator extends ToolsRunner {
                 VCFHeader vcfHeader = singleVcfHeader.getHeader();
 
                 fileNames.add(file.getPath().getName());
+                vcfHeaders.put(file.getPath().getName(), vcfHeader);
 
                 for(String sample: vcfHeader.getSampleNamesInOrder()) {
                     if(!sampleNames.contains(sample))
@@ -158,42 +174,159 @@ public class Annotator extends ToolsRunner {
     private int runVCFSort() throws Exception {
 
         conf.set("io.compression.codecs", BGZFCodec.class.getCanonicalName());
+        conf.setStrings(AnnotationLineRecordReader.FILE_NAME_PROPERTY, fileNames.toArray(new String[0]));
         BioJob job = BioJob.getInstance(conf);
 
         job.setJobName("GaeaAnnotatorSort");
         job.setJarByClass(this.getClass());
         job.setMapperClass(AnnoSortMapper.class);
         job.setReducerClass(AnnoSortReducer.class);
-        job.setNumReduceTasks(fileNames.size());
+        job.setNumReduceTasks(options.getReducerNum());
 
-        job.setMapOutputKeyClass(PairWritable.class);
+        job.setMapOutputKeyClass(LongWritable.class);
         job.setMapOutputValueClass(Text.class);
 
-        job.setPartitionerClass(FirstPartitioner.class);
         job.setOutputKeyClass(NullWritable.class);
         job.setOutputValueClass(Text.class);
-        job.setInputFormatClass(TextInputFormat.class);
+        job.setInputFormatClass(AnnotationTextInputFormat.class);
+        // reducers write BGZF parts and part indexes into the task output path
         LazyOutputFormat.setOutputFormatClass(job, TextOutputFormat.class);
-        conf.setInt("mapreduce.reduce.memory.mb", 20480);
 
         Path inputPath = new Path(sortInput);
         FileInputFormat.setInputPaths(job, inputPath);
         FileOutputFormat.setOutputPath(job, sortTmpPath);
-        FileOutputFormat.setCompressOutput(job, true);
-        FileOutputFormat.setOutputCompressorClass(job, BGZFCodec.class);
+
+        // (file, contig, position) keys are range partitioned, every file is
+        // sorted by all reducers
+        job.setPartitionerClass(TotalOrderPartitioner.class);
+        Path partitionFile = new Path(options.getTmpPath() + "/_vcf_partitons.lst");
+        TotalOrderPartitioner.setPartitionFile(job.getConfiguration(), partitionFile);
+        System.err.println("anno-sort :: Sampling...");
+        InputSampler.writePartitionFile(
+                job,
+                new InputSampler.RandomSampler<LongWritable, Text>(
+                        0.01, 1000, options.getReducerNum()));
 
         FileSystem fs = sortTmpPath.getFileSystem(conf);
         if(job.waitForCompletion(true)){
+            String annoFieldNameHeader = new Config(conf).getVCFHeaderString();
             for (String fileName : fileNames){
-                Path outputPart = getSampleOutputPath(fileName);
+                Path headerPath = new Path(sortTmpPath, fileName + ".header" + AnnoSortReducer.PART_EXTENSION);
+                writeBGZFPart(fs, headerPath, getVCFHeaderString(vcfHeaders.get(fileName), annoFieldNameHeader).getBytes());
+
+                // reducer parts are BGZF blocks without EOF marker, their
+                // tabix indexes are merged with offsets shifted by the part start
+                FileStatus[] fileStatuses = fs.globStatus(new Path(sortTmpPath,
+                        fileName + "-r-*" + AnnoSortReducer.PART_EXTENSION));
+                Arrays.sort(fileStatuses);
+                TabixIndexMerger indexMerger = new TabixIndexMerger();
+                long partStart = fs.getFileStatus(headerPath).getLen();
+                List<Path> parts = new ArrayList<>();
+                for(FileStatus fstat: fileStatuses){
+                    FSDataInputStream indexIn = fs.open(AnnoSortReducer.getIndexPath(fstat.getPath()));
+                    indexMerger.add(indexIn, partStart);
+                    indexIn.close();
+                    partStart += fstat.getLen();
+                    parts.add(fstat.getPath());
+                }
+                Path eofPath = new Path(sortTmpPath, fileName + ".eof" + AnnoSortReducer.PART_EXTENSION);
+                OutputStream eofOut = fs.create(eofPath);
+                eofOut.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+                eofOut.close();
+                parts.add(eofPath);
+
                 Path outputName = new Path(options.getOutputPath() + "/" + fileName);
-                fs.rename(outputPart, outputName);
+                concatParts(fs, headerPath, parts, outputName);
+
+                Path indexPath = new Path(outputName.toString() + TabixUtils.STANDARD_INDEX_EXTENSION);
+                indexMerger.write(indexPath.getFileSystem(conf).create(indexPath));
             }
+            fs.delete(new Path(options.getTmpPath()), true);
             return 0;
         }
         return 1;
     }
 
+    private String getVCFHeaderString(VCFHeader vcfHeader, String annoFieldNameHeader) {
+        StringBuilder header = new StringBuilder();
+        VCFHeaderLine annoVcfHeaderLine = new VCFInfoHeaderLine("ANNO", VCFHeaderLineCount.UNBOUNDED, VCFHeaderLineType.String, "fieldName:"+annoFieldNameHeader);
+        vcfHeader.addMetaDataLine(annoVcfHeaderLine);
+        for(VCFHeaderLine vcfHeaderLine: vcfHeader.getMetaDataInInputOrder()){
+            header.append(VCFHeader.METADATA_INDICATOR);
+            header.append(vcfHeaderLine.toString());
+            header.append('\n');
+        }
+
+        header.append(VCFHeader.HEADER_INDICATOR);
+        boolean isFirst = true;
+        for (final VCFHeader.HEADER_FIELDS field : vcfHeader.getHeaderFields() ) {
+            if ( isFirst )
+                isFirst = false; // don't write out a field separator
+            else
+                header.append(VCFConstants.FIELD_SEPARATOR);
+            header.append(field.toString());
+        }
+
+        if ( vcfHeader.hasGenotypingData() ) {
+            header.append(VCFConstants.FIELD_SEPARATOR);
+            header.append("FORMAT");
+            for (final String sample : vcfHeader.getGenotypeSamples() ) {
+                header.append(VCFConstants.FIELD_SEPARATOR);
+                header.append(sample);
+            }
+        }
+        header.append('\n');
+        return header.toString();
+    }
+
+    /**
+     * BGZF blocks without EOF marker block
+     */
+    private void writeBGZFPart(FileSystem fs, Path part, byte[] bytes) throws IOException {
+        OutputStream out = fs.create(part);
+        BlockCompressedOutputStream bgzfOut = new BlockCompressedOutputStream(out, null);
+        bgzfOut.write(bytes);
+        bgzfOut.flush();
+        out.close();
+    }
+
+    /**
+     * concatenate parts after the header part. HDFS concat only moves blocks,
+     * parts are copied when the file system does not support concat or
+     * rejects the parts. Hadoop before 2.7, including the 2.6 cdh line this
+     * project builds against, only concats full blocks, so there the parts
+     * are always copied and concat only helps on newer clusters.
+     */
+    private void concatParts(FileSystem fs, Path headerPath, List<Path> parts, Path output) throws IOException {
+        FileSystem outFs = output.getFileSystem(conf);
+        outFs.delete(output, false);
+        if (outFs.getUri().equals(fs.getUri())) {
+            boolean concatenated = false;
+            try {
+                fs.concat(headerPath, parts.toArray(new Path[0]));
+                concatenated = true;
+            } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+                LOG.info("concat is not available, copy " + parts.size() + " parts to " + output + ": " + e.getMessage());
+            }
+            if (concatenated) {
+                fs.mkdirs(output.getParent());
+                if (!fs.rename(headerPath, output))
+                    throw new IOException("can not rename " + headerPath + " to " + output);
+                return;
+            }
+        }
+
+        OutputStream out = outFs.create(output);
+        List<Path> all = new ArrayList<>();
+        all.add(headerPath);
+        all.addAll(parts);
+        for (Path part : all) {
+            FSDataInputStream ins = fs.open(part);
+            IOUtils.copyBytes(ins, out, conf, false);
+            ins.close();
+        }
+        out.close();
+    }
 
     private int runTSVSort() throws Exception {
 
@@ -267,21 +400,6 @@ public class Annotator extends ToolsRunner {
         return 1;
     }
 
-    private Path getSampleOutputPath(String sample) throws IOException {
-        Path outputPath = new Path(options.getOutputPath());
-        FileSystem fs = outputPath.getFileSystem(conf);
-        FileStatus[] fileStatuses = fs.globStatus(new Path(sortTmpPath.toString() + "/" + sample + "-r-[0-9]*"));
-        if(fileStatuses.length == 0){
-            System.err.println(sample+": cann't get the output part file!");
-            FileStatus[] fss = fs.globStatus(new Path(options.getOutputPath() + "/*"));
-            for (FileStatus f: fss){
-                System.err.println("OutPath" + f.getPath().toString());
-            }
-            return null;
-        }
-        return fileStatuses[0].getPath();
-    }
-
     private void createSortInfo(String sortInfo) throws IOException {
         conf.setStrings("sampleName", sampleNames.toArray(new String[0]));
         conf.setStrings("contigName", contigs.toArray(new String[0]));
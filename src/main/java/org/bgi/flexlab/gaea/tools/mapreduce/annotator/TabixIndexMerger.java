@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.mapreduce.annotator;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.tribble.util.LittleEndianOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * merge tabix indexes of BGZF parts which are concatenated into one file.
+ * virtual offsets in a part index are relative to the part plus PART_OFFSET,
+ * so a zero linear index entry always means an empty window.
+ */
+public class TabixIndexMerger {
+
+	public static final long PART_OFFSET = 1L << 16;
+
+	private static final byte[] MAGIC = {'T', 'B', 'I', 1};
+	/* format, sequence, begin and end column, meta char and skipped lines */
+	private static final int FORMAT_FIELDS = 6;
+	/* pseudo bin of samtools holding statistics, not a real bin */
+	private static final int META_BIN = 37450;
+
+	private int[] format = null;
+	private final LinkedHashMap<String, Reference> references = new LinkedHashMap<String, Reference>();
+
+	/**
+	 * @param partStart byte offset of the part in the merged file
+	 */
+	public void add(InputStream partIndex, long partStart) throws IOException {
+		ByteBuffer buffer = readIndex(partIndex);
+		byte[] magic = new byte[MAGIC.length];
+		buffer.get(magic);
+		if (!Arrays.equals(magic, MAGIC))
+			throw new IOException("part index is not a tabix index.");
+
+		int referenceCount = buffer.getInt();
+		int[] partFormat = new int[FORMAT_FIELDS];
+		for (int i = 0; i < FORMAT_FIELDS; i++)
+			partFormat[i] = buffer.getInt();
+		if (format == null)
+			format = partFormat;
+
+		byte[] names = new byte[buffer.getInt()];
+		buffer.get(names);
+		String[] referenceNames = referenceCount == 0 ? new String[0]
+				: new String(names, StandardCharsets.US_ASCII).split("\0");
+		if (referenceNames.length != referenceCount)
+			throw new IOException("part index has " + referenceCount + " references but "
+					+ referenceNames.length + " names.");
+
+		long shift = (partStart << 16) - PART_OFFSET;
+		for (String name : referenceNames) {
+			Reference reference = references.get(name);
+			if (reference == null) {
+				reference = new Reference();
+				references.put(name, reference);
+			}
+			reference.add(buffer, shift);
+		}
+	}
+
+	public void write(OutputStream out) throws IOException {
+		LittleEndianOutputStream los = new LittleEndianOutputStream(new BlockCompressedOutputStream(out, null));
+		if (format == null) {
+			new TabixIndexCreator(TabixFormat.VCF).finalizeIndex(0).write(los);
+			los.close();
+			return;
+		}
+
+		los.write(MAGIC);
+		los.writeInt(references.size());
+		for (int value : format)
+			los.writeInt(value);
+
+		ByteArrayOutputStream names = new ByteArrayOutputStream();
+		for (String name : references.keySet()) {
+			names.write(name.getBytes(StandardCharsets.US_ASCII));
+			names.write(0);
+		}
+		los.writeInt(names.size());
+		los.write(names.toByteArray());
+
+		for (Reference reference : references.values())
+			reference.write(los);
+		los.close();
+	}
+
+	private static ByteBuffer readIndex(InputStream partIndex) throws IOException {
+		BlockCompressedInputStream in = new BlockCompressedInputStream(partIndex);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[65536];
+		int length;
+		while ((length = in.read(buffer)) > 0)
+			bytes.write(buffer, 0, length);
+		in.close();
+		return ByteBuffer.wrap(bytes.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static class Reference {
+		/* chunk begin and end offsets of every bin */
+		private final TreeMap<Integer, ArrayList<Long>> bins = new TreeMap<Integer, ArrayList<Long>>();
+		private long[] linearIndex = new long[0];
+
+		private void add(ByteBuffer buffer, long shift) {
+			int binCount = buffer.getInt();
+			for (int i = 0; i < binCount; i++) {
+				int bin = buffer.getInt();
+				int chunkCount = buffer.getInt();
+				ArrayList<Long> chunks = null;
+				if (bin != META_BIN) {
+					chunks = bins.get(bin);
+					if (chunks == null) {
+						chunks = new ArrayList<Long>();
+						bins.put(bin, chunks);
+					}
+				}
+				for (int j = 0; j < chunkCount * 2; j++) {
+					long offset = buffer.getLong();
+					if (chunks != null)
+						chunks.add(offset + shift);
+				}
+			}
+
+			/* parts are in file order, the first part covering a window has its smallest offset */
+			int windowCount = buffer.getInt();
+			if (windowCount > linearIndex.length)
+				linearIndex = Arrays.copyOf(linearIndex, windowCount);
+			for (int i = 0; i < windowCount; i++) {
+				long offset = buffer.getLong();
+				if (offset != 0 && linearIndex[i] == 0)
+					linearIndex[i] = offset + shift;
+			}
+		}
+
+		private void write(LittleEndianOutputStream los) throws IOException {
+			los.writeInt(bins.size());
+			for (Map.Entry<Integer, ArrayList<Long>> bin : bins.entrySet()) {
+				los.writeInt(bin.getKey());
+				los.writeInt(bin.getValue().size() / 2);
+				for (long offset : bin.getValue())
+					los.writeLong(offset);
+			}
+
+			los.writeInt(linearIndex.length);
+			long last = 0;
+			for (long offset : linearIndex) {
+				if (offset != 0)
+					last = offset;
+				los.writeLong(last);
+			}
+		}
+	}
+}
@@ -16,20 +16,27 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.tools.mapreduce.bamqualitycontrol;
 
+import htsjdk.samtools.SAMReadGroupRecord;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
-import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.NullOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.input.bam.GaeaAnySAMInputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.input.cram.GaeaCramInputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
 import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
 import org.bgi.flexlab.gaea.framework.tools.mapreduce.BioJob;
 import org.bgi.flexlab.gaea.framework.tools.mapreduce.ToolsRunner;
-import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report.BamReport;
+
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.bgi.flexlab.gaea.data.mapreduce.input.cram.GaeaCramRecordReader.INPUTFORMAT_REFERENCE;
 
@@ -72,7 +79,7 @@ public class BamQualityControl extends ToolsRunner{
 		job.setMapperClass(BamQualityControlMapper.class);
 		job.setReducerClass(BamQualityControlReducer.class);
 		job.setOutputKeyValue(Text.class, Text.class, 
-				NullWritable.class, Text.class);
+				Text.class, BytesWritable.class);
 		job.setNumReduceTasks(options.getReducerNum());
 
 		FileInputFormat.setInputPaths(job, options.getInputs().toArray(new Path[options.getInputs().size()]));
@@ -81,15 +88,36 @@ public class BamQualityControl extends ToolsRunner{
 		else
 			job.setInputFormatClass(GaeaAnySAMInputFormat.class);
 
-		job.setOutputFormatClass(TextOutputFormat.class);
+		job.setOutputFormatClass(SequenceFileOutputFormat.class);
+		
+		Path tempPath = new Path(options.getTempPath());
+		FileOutputFormat.setOutputPath(job, tempPath);
+		
+		//window aggregates are merged by sample in the second job
+		BioJob reportJob = BioJob.getInstance(conf);
+		reportJob.setJobName("BamQualityControlReport");
+		reportJob.setJarByClass(BamQualityControl.class);
+		reportJob.setMapperClass(Mapper.class);
+		reportJob.setReducerClass(BamQualityControlReportReducer.class);
+		reportJob.setOutputKeyValue(Text.class, BytesWritable.class,
+				NullWritable.class, NullWritable.class);
+		reportJob.setNumReduceTasks(Math.min(options.getReducerNum(), getSampleSize(conf)));
+		reportJob.setInputFormatClass(SequenceFileInputFormat.class);
+		reportJob.setOutputFormatClass(NullOutputFormat.class);
+		FileInputFormat.setInputPaths(reportJob, tempPath);
 		
-		FileOutputFormat.setOutputPath(job, new Path(options.getTempPath()));
-		if(job.waitForCompletion(true)) {
-			BamReport.getOutput(options, conf, new Path(options.getTempPath()));
-			return 0;
-		} else {
+		if(!job.waitForCompletion(true))
 			return 1;
-		}
+		boolean success = reportJob.waitForCompletion(true);
+		tempPath.getFileSystem(conf).delete(tempPath, true);
+		return success ? 0 : 1;
+	}
+	
+	private int getSampleSize(Configuration conf) {
+		Set<String> samples = new HashSet<String>();
+		for(SAMReadGroupRecord rg : SamHdfsFileHeader.getHeader(conf).getReadGroups())
+			samples.add(rg.getSample());
+		return Math.max(1, samples.size());
 	}
 	
 	public static void main(String[] args) throws Exception {
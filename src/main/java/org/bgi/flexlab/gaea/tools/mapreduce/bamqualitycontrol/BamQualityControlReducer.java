@@ -17,7 +17,8 @@
 package org.bgi.flexlab.gaea.tools.mapreduce.bamqualitycontrol;
 
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Reducer;
 import org.bgi.flexlab.gaea.data.structure.positioninformation.CompoundInformation;
@@ -31,7 +32,7 @@ import org.bgi.flexlab.gaea.util.SamRecordDatum;
 
 import java.io.IOException;
 
-public class BamQualityControlReducer extends Reducer<Text, Text, NullWritable, Text>{
+public class BamQualityControlReducer extends Reducer<Text, Text, Text, BytesWritable>{
 	
 	private BamQualityControlOptions options;
 		
@@ -40,6 +41,12 @@ public class BamQualityControlReducer extends Reducer<Text, Text, NullWritable,
 	private ReportBuilder reportBuilder;
 		
 	private PositionDepth deep;
+	
+	private DataOutputBuffer aggregate = new DataOutputBuffer();
+	
+	private Text sampleKey = new Text();
+	
+	private BytesWritable aggregateValue = new BytesWritable();
 				
 	@Override
 	protected void setup(Context context) throws IOException {
@@ -75,8 +82,7 @@ public class BamQualityControlReducer extends Reducer<Text, Text, NullWritable,
 		reportBuilder.initReports(sampleName, chrName);
 
 		if(reportBuilder.unmappedReport(winNum, chrName, values)) {
-			ResultReport report = reportBuilder.build();
-			context.write(NullWritable.get(), new Text(report.toReducerString(sampleName, chrName, true)));
+			writeAggregate(context, sampleName, reportBuilder.build(), true);
 			return;
 		}
 
@@ -145,8 +151,15 @@ public class BamQualityControlReducer extends Reducer<Text, Text, NullWritable,
 		reportBuilder.singleRegionReports(chrName, start, winSize, deep);
 		
 		//write reducer
-		ResultReport report = reportBuilder.build();
-		context.write(NullWritable.get(), new Text(report.toReducerString(sampleName, chrName, false)));
+		writeAggregate(context, sampleName, reportBuilder.build(), false);
 	} 
+	
+	private void writeAggregate(Context context, String sampleName, ResultReport report, boolean unmappedRegion) throws IOException, InterruptedException {
+		aggregate.reset();
+		report.writeAggregate(aggregate, unmappedRegion);
+		sampleKey.set(sampleName);
+		aggregateValue.set(aggregate.getData(), 0, aggregate.getLength());
+		context.write(sampleKey, aggregateValue);
+	}
 
 }
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.mapreduce.bamqualitycontrol;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report.RegionResultReport;
+import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report.ReportBuilder;
+import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report.ResultReport;
+import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report.WholeGenomeResultReport;
+
+import java.io.IOException;
+
+/**
+ * merges window aggregates of a sample and writes the sample reports
+ */
+public class BamQualityControlReportReducer extends Reducer<Text, BytesWritable, NullWritable, NullWritable>{
+	
+	private BamQualityControlOptions options;
+	
+	private ResultReport reportType;
+	
+	private ReportBuilder reportBuilder;
+	
+	private FileSystem fs;
+	
+	private DataInputBuffer aggregate = new DataInputBuffer();
+	
+	@Override
+	protected void setup(Context context) throws IOException {
+		options = new BamQualityControlOptions();
+		Configuration conf = context.getConfiguration();
+		options.getOptionsFromHadoopConf(conf);
+		
+		reportBuilder = new ReportBuilder();
+		if ((options.getRegion() != null) || (options.getBedfile() != null))
+			reportType = new RegionResultReport(options, conf);
+		else
+			reportType = new WholeGenomeResultReport(options);
+		fs = new Path(options.getOutputPath()).getFileSystem(conf);
+	}
+	
+	@Override
+	public void reduce(Text key, Iterable<BytesWritable> values, Context context) throws IOException, InterruptedException {
+		String sampleName = key.toString();
+		reportBuilder.setReportChoice(reportType);
+		reportBuilder.initReports(sampleName);
+		
+		for(BytesWritable value : values) {
+			aggregate.reset(value.getBytes(), value.getLength());
+			reportType.mergeAggregate(aggregate);
+		}
+		
+		reportBuilder.build().write(fs, sampleName);
+	}
+}
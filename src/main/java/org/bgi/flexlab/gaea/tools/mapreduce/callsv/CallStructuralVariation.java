@@ -1,16 +1,26 @@
 package org.bgi.flexlab.gaea.tools.mapreduce.callsv;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.bgi.flexlab.gaea.data.exception.UserException;
 import org.bgi.flexlab.gaea.data.mapreduce.input.bam.GaeaAnySAMInputFormat;
 import org.bgi.flexlab.gaea.framework.tools.mapreduce.BioJob;
 import org.bgi.flexlab.gaea.framework.tools.mapreduce.ToolsRunner;
+import org.bgi.flexlab.gaea.tools.callsv.ChrPartitionar;
+import org.bgi.flexlab.gaea.tools.callsv.InsertSizeBounds;
+import org.bgi.flexlab.gaea.tools.callsv.InsertSizeDistribution;
 import org.bgi.flexlab.gaea.tools.callsv.NewMapKey;
 import org.bgi.flexlab.gaea.tools.callsv.ReduceGroupingComparator;
 import org.bgi.flexlab.gaea.tools.callsv.SamWritable;
@@ -49,6 +59,17 @@ public class CallStructuralVariation extends ToolsRunner{
 		options.parse(remainArgs1);
 		options.setHadoopConf(remainArgs1, conf);
 		
+		/**
+		 * insert size bounds are computed once before job1 is submitted
+		 */
+		if(!runInsertSize(conf))
+			return 1;
+		Map<String, InsertSizeBounds> bounds = loadInsertSizeBounds(conf);
+		int margin = InsertSizeBounds.getSegmentMargin(bounds);
+		if(options.getSegmentlen() < 2 * margin)
+			throw new UserException.BadArgumentValueException("segment", "segment length must be at least " + 2 * margin);
+		InsertSizeBounds.setBounds(conf, bounds);
+		
 		job.setJobName("CallSV");
 		job.setJarByClass(CallStructuralVariation.class);
 		job.setMapperClass(CallStructuralVariationMapper.class);
@@ -59,7 +80,7 @@ public class CallStructuralVariation extends ToolsRunner{
 		job.setMapOutputValueClass(SamWritable.class);
 		job.setOutputKeyClass(NullWritable.class);
 		job.setOutputValueClass(Text.class);
-		//job1.setPartitionerClass(ChrPartitionar.class);
+		job.setPartitionerClass(ChrPartitionar.class);
 		job.setGroupingComparatorClass(ReduceGroupingComparator.class);
 
 		FileInputFormat.addInputPaths(job, options.getInput());
@@ -70,6 +91,66 @@ public class CallStructuralVariation extends ToolsRunner{
 		
 	}
 	
+	/**
+	 * insert size distribution of every library, merged by a combiner into one
+	 * binary record per library
+	 */
+	private boolean runInsertSize(Configuration conf) throws IOException, ClassNotFoundException, InterruptedException {
+		BioJob job = BioJob.getInstance(conf);
+		
+		job.setJobName("CallSV insert size");
+		job.setJarByClass(CallStructuralVariation.class);
+		job.setMapperClass(InsertSizeMapper.class);
+		job.setCombinerClass(InsertSizeReducer.class);
+		job.setReducerClass(InsertSizeReducer.class);
+		job.setNumReduceTasks(1);
+		job.setInputFormatClass(GaeaAnySAMInputFormat.class);
+		job.setOutputFormatClass(SequenceFileOutputFormat.class);
+		job.setOutputKeyClass(Text.class);
+		job.setOutputValueClass(InsertSizeDistribution.class);
+		
+		Path output = getInsertSizePath();
+		output.getFileSystem(conf).delete(output, true);
+		
+		FileInputFormat.addInputPaths(job, options.getInput());
+		FileOutputFormat.setOutputPath(job, output);
+		
+		return job.waitForCompletion(true);
+	}
+	
+	/**
+	 * 中间结果，重新运行时先删除上次的输出
+	 */
+	private Path getInsertSizePath() {
+		return new Path(options.getHdfsdir() + "/Sort/LibConf");
+	}
+	
+	private Map<String, InsertSizeBounds> loadInsertSizeBounds(Configuration conf) throws IOException {
+		Map<String, InsertSizeBounds> bounds = new TreeMap<String, InsertSizeBounds>();
+		InsertSizeDistribution all = new InsertSizeDistribution();
+		
+		Path path = getInsertSizePath();
+		FileSystem fs = path.getFileSystem(conf);
+		for(FileStatus file : fs.listStatus(path)) {
+			if(!file.getPath().getName().startsWith("part-"))
+				continue;
+			SequenceFile.Reader reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(file.getPath()));
+			Text lib = new Text();
+			InsertSizeDistribution distribution = new InsertSizeDistribution();
+			while(reader.next(lib, distribution)) {
+				all.merge(distribution);
+				bounds.put(lib.toString(), distribution.getBounds(options.getStdtimes()));
+			}
+			reader.close();
+		}
+		
+		InsertSizeBounds allBounds = all.getBounds(options.getStdtimes());
+		if(allBounds == null)
+			throw new UserException("no normal read pairs found to estimate insert size.");
+		bounds.put(InsertSizeBounds.ALL_LIBRARIES, allBounds);
+		return bounds;
+	}
+	
 	@Override
 	public int run(String[] args) throws Exception {
 		CallStructuralVariation sv = new CallStructuralVariation();
@@ -1,29 +1,26 @@
 package org.bgi.flexlab.gaea.tools.mapreduce.callsv;
 
 import java.io.IOException;
-import java.util.Map;
 
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FSDataOutputStream;
-import org.apache.hadoop.fs.FileSystem;
-import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
+import org.bgi.flexlab.gaea.tools.callsv.InsertSizeBounds;
 import org.bgi.flexlab.gaea.tools.callsv.MapComputer;
 import org.bgi.flexlab.gaea.tools.callsv.MapContextWriter;
 import org.bgi.flexlab.gaea.tools.callsv.NewMapKey;
 import org.bgi.flexlab.gaea.tools.callsv.SamWritable;
-import org.seqdoop.hadoop_bam.FileVirtualSplit;
 
 import htsjdk.samtools.SAMRecord;
 
 public class CallStructuralVariationMapper extends Mapper<LongWritable, SamRecordWritable, NewMapKey, SamWritable>{
 
 	private Configuration conf;
-	private FSDataOutputStream out;
 	private CallStructuralVariationOptions option = new CallStructuralVariationOptions();
 	private MapComputer mc;
+	private int segmentLength;
+	private int margin;
 	
 
 	@Override
@@ -31,38 +28,41 @@ public class CallStructuralVariationMapper extends Mapper<LongWritable, SamRecor
 		conf = context.getConfiguration();
 		option.getOptionsFromHadoopConf(conf);
 		
-		FileVirtualSplit input = (FileVirtualSplit)context.getInputSplit();
-		String filename = input.getPath().getName();
-		String libpath = option.getHdfsdir() + "/Sort/LibConf/" + filename + "-" + input.getStartVirtualOffset();
-		out = FileSystem.get(conf).create(new Path(libpath));
-		
 		mc = new MapComputer();
 		mc.setOption(option);
+		segmentLength = option.getSegmentlen();
+		margin = InsertSizeBounds.getSegmentMargin(InsertSizeBounds.getBounds(conf));
 	}
 	
 	@Override
 	protected void map(LongWritable key, SamRecordWritable value, Context context) throws IOException, InterruptedException {
 		SAMRecord record = value.get();
 		
-		mc.saveInsert(record); //save insert
 		MapContextWriter res = mc.readClassify(record);	//classify all reads
 		
 		if (res != null) {
-			context.write(res.getKey(), res.getSam());
+			// both mates go to the segment of the leftmost mate, pairs near a
+			// segment boundary are also sent to the neighbouring segment
+			int leftmost = Math.min(record.getAlignmentStart(), record.getMateAlignmentStart()) - 1;
+			int segment = leftmost / segmentLength;
+			int offset = leftmost % segmentLength;
+			
+			write(res, segment, context);
+			if (segment > 0 && offset < margin)
+				write(res, segment - 1, context);
+			if (segmentLength - offset <= margin)
+				write(res, segment + 1, context);
 		}
 		
 	}
+	
+	private void write(MapContextWriter res, int segment, Context context) throws IOException, InterruptedException {
+		res.getKey().setSegment(segment);
+		context.write(res.getKey(), res.getSam());
+	}
 
 	@Override
 	protected void cleanup(Context context) throws IOException, InterruptedException {
-		
-		Map<Integer, Integer> insertsize = mc.getInsertsize();
-		for(Map.Entry<Integer, Integer> entry : insertsize.entrySet()) {
-			String writer = entry.getKey() + "\t" + entry.getValue() + "\n";
-			out.write(writer.getBytes());
-		}
-		out.flush();
-		out.close();
 		conf = null;
 		option = null;
 	}
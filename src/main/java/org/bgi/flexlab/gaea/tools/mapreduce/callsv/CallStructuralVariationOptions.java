@@ -50,6 +50,14 @@ public class CallStructuralVariationOptions extends GaeaOptions implements Hadoo
 	 * maximum SV size 
 	 */
 	private int maxsvsize;
+	/**
+	 * length of chromosome segments handled by one reduce group
+	 */
+	private int segmentlen;
+	/**
+	 * maximum number of normal reads sampled per input split for insert size distribution
+	 */
+	private int insertsample;
 	/**
 	 * mean of insert
 	 */
@@ -73,6 +81,8 @@ public class CallStructuralVariationOptions extends GaeaOptions implements Hadoo
 		addOption("c", "maxcoverage", true, "maximum threshold of haploid sequence coverage for regions to be ignored [default: 1000]");
 		addOption("score", "minscore", true, "minimum scores for output SVs [default: 30]");
 		addOption("svsize", "maxsvsize", true, "maximum SV size [defailt: 1000000]");
+		addOption("segment", "segmentlen", true, "length of chromosome segments processed by one reduce group [default: 10000000]");
+		addOption("insertsample", "insertsample", true, "maximum number of normal reads sampled per input split for insert size distribution, 0 for all reads [default: 100000]");
 		
 		addOption("h", "help", false, "print help information.");
 		
@@ -117,6 +127,8 @@ public class CallStructuralVariationOptions extends GaeaOptions implements Hadoo
 		maxcoverage = getOptionIntValue("c", 1000);
 		minscore = getOptionIntValue("score", 30);
 		maxsvsize = getOptionIntValue("svsize", 1000000);
+		segmentlen = getOptionIntValue("segment", 10000000);
+		insertsample = getOptionIntValue("insertsample", 100000);
 		
 		checkPara();
 		
@@ -262,5 +274,25 @@ public class CallStructuralVariationOptions extends GaeaOptions implements Hadoo
 	public void setMaxsvsize(int maxsvsize) {
 		this.maxsvsize = maxsvsize;
 	}
+
+
+	public int getSegmentlen() {
+		return segmentlen;
+	}
+
+
+	public void setSegmentlen(int segmentlen) {
+		this.segmentlen = segmentlen;
+	}
+
+
+	public int getInsertsample() {
+		return insertsample;
+	}
+
+
+	public void setInsertsample(int insertsample) {
+		this.insertsample = insertsample;
+	}
 	
 }
@@ -23,6 +23,7 @@ public class CallStructuralVariationReducer extends Reducer<NewMapKey, SamWritab
 	private CallStructuralVariationOptions option = new CallStructuralVariationOptions();
 	private Configuration conf;
 	private BuildConnection bc;
+	private int segmentLength;
 	
 
 	@Override
@@ -31,12 +32,18 @@ public class CallStructuralVariationReducer extends Reducer<NewMapKey, SamWritab
 		option.getOptionsFromHadoopConf(conf);
 		bc = new BuildConnection(conf, option);
 		bc.setUpperLower();
-		
+		segmentLength = option.getSegmentlen();
 	}
 	
 	@Override
 	protected void reduce(NewMapKey key, Iterable<SamWritable> values, Context context) throws IOException, InterruptedException {
 		
+		/**
+		 * 分段的起止位置，只输出第一个区域起始于本分段的SV，分段边界附近的SV不会重复输出
+		 */
+		long segStart = (long) key.getSegment() * segmentLength + 1;
+		long segEnd = segStart + segmentLength;
+		
 		List<SamWritable> APRs = bc.getAPRs(key, values);
 		if(APRs.isEmpty()) return;
 			
@@ -55,6 +62,8 @@ public class CallStructuralVariationReducer extends Reducer<NewMapKey, SamWritab
 			 */
 			Region firstReg = regInfoMap.get(linkReg.getFirstRegion());
 			Region secondReg = regInfoMap.get(linkReg.getSecondRegion());
+			if(firstReg.getRegStart() < segStart || firstReg.getRegStart() >= segEnd)
+				continue;
 			
 			Text sv = bc.svCaller(linkReg, reads, firstReg, secondReg);
 			
@@ -62,8 +71,6 @@ public class CallStructuralVariationReducer extends Reducer<NewMapKey, SamWritab
 				context.write(NullWritable.get(), sv);
 			}
 		}
-		
-		bc.close();
 	}
 
 }
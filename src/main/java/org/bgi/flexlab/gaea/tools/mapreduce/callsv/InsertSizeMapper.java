@@ -0,0 +1,76 @@
+package org.bgi.flexlab.gaea.tools.mapreduce.callsv;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
+import org.bgi.flexlab.gaea.tools.callsv.InsertSizeBounds;
+import org.bgi.flexlab.gaea.tools.callsv.InsertSizeDistribution;
+import org.bgi.flexlab.gaea.tools.callsv.MapComputer;
+
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * 统计每个文库正常reads的insert size分布，每个分片每个文库只输出一个分布
+ */
+public class InsertSizeMapper extends Mapper<LongWritable, SamRecordWritable, Text, InsertSizeDistribution>{
+
+	private CallStructuralVariationOptions option = new CallStructuralVariationOptions();
+	private MapComputer mc;
+	private Map<String, InsertSizeDistribution> distributions;
+	private int sampled;
+
+
+	@Override
+	protected void setup(Context context) throws IOException, InterruptedException {
+		option.getOptionsFromHadoopConf(context.getConfiguration());
+		mc = new MapComputer();
+		mc.setOption(option);
+		distributions = new HashMap<String, InsertSizeDistribution>();
+		sampled = 0;
+	}
+
+	@Override
+	protected void map(LongWritable key, SamRecordWritable value, Context context) throws IOException, InterruptedException {
+		SAMRecord record = value.get();
+		if(!mc.isNormalInsert(record))
+			return;
+
+		String lib = InsertSizeBounds.getLibrary(record);
+		InsertSizeDistribution distribution = distributions.get(lib);
+		if(distribution == null) {
+			distribution = new InsertSizeDistribution();
+			distributions.put(lib, distribution);
+		}
+		distribution.add(record.getInferredInsertSize());
+		sampled++;
+	}
+
+	/**
+	 * 每个分片采样到足够的正常reads后不再读取剩余的记录
+	 */
+	@Override
+	public void run(Context context) throws IOException, InterruptedException {
+		setup(context);
+		try {
+			int sampleSize = option.getInsertsample();
+			while((sampleSize <= 0 || sampled < sampleSize) && context.nextKeyValue()) {
+				map(context.getCurrentKey(), context.getCurrentValue(), context);
+			}
+		} finally {
+			cleanup(context);
+		}
+	}
+
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		for(Map.Entry<String, InsertSizeDistribution> entry : distributions.entrySet()) {
+			context.write(new Text(entry.getKey()), entry.getValue());
+		}
+	}
+
+}
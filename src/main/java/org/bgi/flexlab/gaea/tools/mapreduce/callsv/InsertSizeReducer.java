@@ -0,0 +1,25 @@
+package org.bgi.flexlab.gaea.tools.mapreduce.callsv;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.bgi.flexlab.gaea.tools.callsv.InsertSizeDistribution;
+
+/**
+ * 合并同一个文库的insert size分布，同时用作combiner
+ */
+public class InsertSizeReducer extends Reducer<Text, InsertSizeDistribution, Text, InsertSizeDistribution>{
+
+	private InsertSizeDistribution distribution = new InsertSizeDistribution();
+
+	@Override
+	protected void reduce(Text key, Iterable<InsertSizeDistribution> values, Context context) throws IOException, InterruptedException {
+		distribution.clear();
+		for(InsertSizeDistribution value : values) {
+			distribution.merge(value);
+		}
+		context.write(key, distribution);
+	}
+
+}
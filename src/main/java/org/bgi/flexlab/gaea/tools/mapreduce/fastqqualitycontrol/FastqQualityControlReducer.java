@@ -25,7 +25,6 @@ import org.bgi.flexlab.gaea.data.structure.reads.report.FastqQualityControlRepor
 import org.bgi.flexlab.gaea.tools.fastqqualitycontrol.FastqQualityControlFilter;
 
 import java.io.IOException;
-import java.util.ArrayList;
 
 public class FastqQualityControlReducer extends Reducer<Text,Text,NullWritable,Text>{
 	private FastqQualityControlOptions option;
@@ -44,23 +43,17 @@ public class FastqQualityControlReducer extends Reducer<Text,Text,NullWritable,T
 	
 	@Override
 	public void reduce(Text key, Iterable<Text> values,Context context) throws IOException, InterruptedException {
-		ArrayList<String> valueList = new ArrayList<String>();
-		for(Text tx : values){
-			valueList.add(tx.toString());
-		}
-		
-		String filterResult = filter.filter(valueList);
+		outValue.clear();
+		boolean isClean = filter.filter(values, outValue);
 		if(filter.isDynamicCutted()){
 			context.getCounter("Filter counts","dynamic cutted PE reads").increment(1);
 		}
 		
-		if(filterResult != null){
-			outValue.set(filterResult);
+		if(isClean){
 			context.write(NullWritable.get(), outValue);
 		}else{
 			context.getCounter("Filter counts","nomal quality control cutted PE reads").increment(1);
 		}
-		valueList.clear();
 	}
 	
 	@Override
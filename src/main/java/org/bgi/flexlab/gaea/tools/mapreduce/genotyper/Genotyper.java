@@ -81,6 +81,8 @@ public class Genotyper extends ToolsRunner {
             conf.set(REFERENCE_REGION, options.getBedRegionFile());
         job.setFilterClass(GenotyperFilter.class);
         job.setWindowsBasicMapperClass(WindowsBasedAlignmentMapper.class, options.getWindowSize(),0);
+        if(options.getMaxReadsPerAlignmentStart() > 0)
+            job.setMaxReadsPerAlignmentStart(options.getMaxReadsPerAlignmentStart());
         job.setReducerClass(GenotyperReducer.class);
         job.setNumReduceTasks(options.getReducerNumber());
 
@@ -231,6 +231,11 @@ public class GenotyperOptions extends GaeaOptions implements HadoopOptions {
      */
     private int windowSize = 10000;
 
+    /**
+     * max reads per alignment start kept by mapper before shuffle, 0 for no downsampling
+     */
+    private int maxReadsPerAlignmentStart = 0;
+
     public GenotyperOptions() {
         addOption("i", "input", true, "Input file containing sequence data (BAM or CRAM)");
         addOption("I", "is_sam_input", false, "the input is in SAM format.");
@@ -268,6 +273,7 @@ public class GenotyperOptions extends GaeaOptions implements HadoopOptions {
         addOption("numAlleleDis", "annotateNumberOfAllelesDiscovered", false, "annotate Number Of Alleles Discovered");
         addOption("R", "reducer", true, "reducer numbers");
         addOption("W", "window_size", true, "window size that sharding the data.");
+        addOption("maxReadsPerStart", "max_reads_per_alignment_start", true, "max reads per alignment start per sample kept by mapper before shuffle, 0 for no downsampling. starts at input split boundaries may keep up to twice as many.");
         addOption("h", "help", false, "print help information.");
 
         FormatHelpInfo(SOFTWARE_NAME, SOFTWARE_VERSION);
@@ -329,6 +335,7 @@ public class GenotyperOptions extends GaeaOptions implements HadoopOptions {
         singleSampleMode = getOptionBooleanValue("S", false);
         reducerNumber = getOptionIntValue("R", 30);
         windowSize = getOptionIntValue("W", 100000);
+        maxReadsPerAlignmentStart = getOptionIntValue("maxReadsPerStart", 0);
         pcr_error = getOptionDoubleValue("pcrError", SNPGenotypeLikelihoodCalculator.DEFAULT_PCR_ERROR_RATE);
 
         try {
@@ -510,6 +517,10 @@ public class GenotyperOptions extends GaeaOptions implements HadoopOptions {
         return windowSize;
     }
 
+    public int getMaxReadsPerAlignmentStart() {
+        return maxReadsPerAlignmentStart;
+    }
+
     public List<String> getAnnotations() {
         return annotations;
     }
@@ -28,6 +28,7 @@ import org.bgi.flexlab.gaea.data.structure.alignment.AlignmentsBasic;
 import org.bgi.flexlab.gaea.data.structure.pileup.ReadsPool;
 import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
 import org.bgi.flexlab.gaea.data.structure.variant.VariantCallContext;
+import org.bgi.flexlab.gaea.framework.tools.mapreduce.WindowTelemetry;
 import org.bgi.flexlab.gaea.tools.genotyer.VariantCallingEngine;
 import org.bgi.flexlab.gaea.util.Window;
 import org.seqdoop.hadoop_bam.VariantContextWritable;
@@ -69,6 +70,11 @@ public class GenotyperReducer extends Reducer<WindowsBasedWritable, AlignmentBas
      */
     private RegionHdfsParser region = null;
 
+    /**
+     * per window telemetry, null if disabled
+     */
+    private WindowTelemetry telemetry = null;
+
     @Override
     protected void setup(Context context) throws IOException {
         Configuration conf = context.getConfiguration();
@@ -84,12 +90,18 @@ public class GenotyperReducer extends Reducer<WindowsBasedWritable, AlignmentBas
             region = new RegionHdfsParser();
             region.parseBedFileFromHDFS(options.getBedRegionFile(), false);
         }
+
+        if (WindowTelemetry.isEnabled(conf))
+            telemetry = new WindowTelemetry(context);
     }
 
     @Override
     public void reduce(WindowsBasedWritable key, Iterable<AlignmentBasicWritable> values, Context context) throws IOException, InterruptedException {
         Window win = new Window(header, key.getChromosomeIndex(), key.getWindowsNumber(), options.getWindowSize());
         ReadsPool readsPool = new ReadsPool(values.iterator());
+        if (telemetry != null)
+            telemetry.start(win.getContigName(), key.getWindowsNumber(), win.getStart(), win.getStop());
+        int variants = 0;
         engine.init(readsPool, win, genomeShare.getChromosomeInfo(header.getSequence(key.getChromosomeIndex()).getSequenceName()));
 
         //System.err.println("win:" + win.getContigName() + ":" + win.getStart() + "-" + win.getStop());
@@ -108,15 +120,23 @@ public class GenotyperReducer extends Reducer<WindowsBasedWritable, AlignmentBas
                     //System.err.println("output variant after filter.");
                     variantContextWritable.set(vc);
                     context.write(NullWritable.get(), variantContextWritable);
+                    variants++;
                 }
             }
             variantContexts = engine.reduce();
         }
         //System.err.println("finished all.");
+
+        if (telemetry != null) {
+            telemetry.addReads(readsPool.getReadsNumber());
+            telemetry.addVariants(variants);
+            telemetry.finish();
+        }
     }
 
     @Override
-    protected void cleanup(Context context) {
-
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        if (telemetry != null)
+            telemetry.close();
     }
 }
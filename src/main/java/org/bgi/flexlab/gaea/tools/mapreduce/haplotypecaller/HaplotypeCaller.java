@@ -39,7 +39,7 @@ public class HaplotypeCaller extends ToolsRunner {
         HaplotypeCallerOptions options = new HaplotypeCallerOptions();
         options.parse(remainArgs);
         options.setHadoopConf(remainArgs, conf);
-        conf.set(VCFOutputFormat.OUTPUT_VCF_FORMAT_PROPERTY, "VCF");
+        conf.setIfUnset(VCFOutputFormat.OUTPUT_VCF_FORMAT_PROPERTY, "VCF");
         conf.setBoolean(GaeaVCFOutputFormat.HEADER_MODIFY, true);
         conf.getBoolean(BASERECALIBRATOR_ONLY,true);
         conf.getBoolean(WINDOWS_OUTPUT_ALL,options.isOutputAllWindows());  //if true, output N or uncovor region windows
@@ -69,6 +69,9 @@ public class HaplotypeCaller extends ToolsRunner {
             job.setWindowsBasicMapperClass(WindowsBasedPlaceholderSamRecordMapper.class, options.getWindowSize(), options.getWindowsExtendSize(), sampleSet.size() > 1);
         }else
             job.setWindowsBasicMapperClass(WindowsBasedSamRecordMapper.class, options.getWindowSize(), options.getWindowsExtendSize());
+        job.setHaloFreeWindows(options.getHaloFreeBlock());
+        if(options.isMapperDownsampling())
+            job.setMaxReadsPerAlignmentStart(options.getMaxReadsPerPosition());
         job.setReducerClass(HaplotypeCallerReducer.class);
         
         job.setNumReduceTasks(options.getReducerNumber());
@@ -67,6 +67,10 @@ public class HaplotypeCallerOptions  extends GaeaOptions implements HadoopOption
 
 	private boolean outputAllWindows;
 
+	private boolean mapperDownsampling = false;
+
+	private int haloFreeBlock = 0;
+
 	public List<Integer> GVCFGQBands = new ArrayList<>(70);
 	
 	public HaplotypeCallerOptions() {
@@ -77,12 +81,14 @@ public class HaplotypeCallerOptions  extends GaeaOptions implements HadoopOption
 		addOption("C","sample_ploidy",true,"Ploidy (number of chromosomes) per sample. For pooled data, set to (Number of samples in each pool * Sample Ploidy).");
 		addOption("c","shard_size",true,"read shard size.");
 		addOption("d","shard_padding_size",true,"read shard padding size.");
+		addOption("D","mapper_downsampling",false,"apply max_reads downsampling per alignment start in mappers before shuffle, needs -x greater than 0. Starts at input split boundaries may keep up to twice as many.");
 		addOption("x","max_reads",true,"max reads for pileup.");
 		addOption("E","windowExtendSize",true,"key window extend size.");
 		addOption("e","max_depth_for_assembly",true,"max depth for assembly.");
 		addOption("f", "format", false, "output format is gvcf");
 		addOption("G", "gt_mode",true,"Specifies how to determine the alternate alleles to use for genotyping(DISCOVERY or GENOTYPE_GIVEN_ALLELES)");
 		addOption("i", "input", true, "a bam or bam list for input", true);
+		addOption("H","halo_free_block",true,"shuffle each read once and send every N consecutive windows to one reducer, 0 for disable[0]");
 		addOption("I","include_non_variant",false,"Include loci found to be non-variant after genotyping");
 		addOption("j","heterozygosity_stdev",true,"Standard deviation of eterozygosity for SNP and indel calling");
 		addOption("k", "knowSite", true, "known snp/indel file,the format is VCF4");
@@ -157,6 +163,10 @@ public class HaplotypeCallerOptions  extends GaeaOptions implements HadoopOption
 		this.readShardSize = getOptionIntValue("c",-1);
 		this.readPaddingSize = getOptionIntValue("d",100);
 		this.maxReadsPerPosition = getOptionIntValue("x",0);		
+		this.mapperDownsampling = getOptionBooleanValue("D",false);
+		if(mapperDownsampling && maxReadsPerPosition <= 0)
+			throw new UserException.BadArgumentValueException("mapper_downsampling", "max_reads (-x) must be greater than 0");
+		this.haloFreeBlock = getOptionIntValue("H",0);
 		this.output = getOptionValue("o",null);
 		this.region = getOptionValue("R",null);
 		this.reference = getOptionValue("r",null);
@@ -298,6 +308,14 @@ public class HaplotypeCallerOptions  extends GaeaOptions implements HadoopOption
 		return this.maxReadsPerPosition;
 	}
 	
+	public boolean isMapperDownsampling() {
+		return this.mapperDownsampling;
+	}
+	
+	public int getHaloFreeBlock() {
+		return this.haloFreeBlock;
+	}
+	
 	private void setPairHMM(String args) {
 		if(args == null)
 			return;
@@ -18,13 +18,17 @@ import org.bgi.flexlab.gaea.data.mapreduce.util.VariantContextHadoopWriter;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.WindowsBasedWritable;
 import org.bgi.flexlab.gaea.data.structure.dbsnp.DbsnpShare;
+import org.bgi.flexlab.gaea.data.structure.location.GenomeLocation;
 import org.bgi.flexlab.gaea.data.structure.reference.ChromosomeInformationShare;
 import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
 import org.bgi.flexlab.gaea.data.structure.reference.index.VcfIndex;
 import org.bgi.flexlab.gaea.data.structure.vcf.VCFLocalLoader;
 import org.bgi.flexlab.gaea.data.variant.filter.VariantRegionFilter;
+import org.bgi.flexlab.gaea.framework.tools.mapreduce.WindowTelemetry;
+import org.bgi.flexlab.gaea.framework.tools.mapreduce.WindowsBasedReadsStream;
 import org.bgi.flexlab.gaea.tools.haplotypecaller.HaplotypeCallerTraversal;
 import org.bgi.flexlab.gaea.tools.haplotypecaller.argumentcollection.HaplotypeCallerArgumentCollection;
+import org.bgi.flexlab.gaea.tools.haplotypecaller.engine.HaplotypeCallerEngine;
 import org.bgi.flexlab.gaea.tools.haplotypecaller.utils.RefMetaDataTracker;
 import org.bgi.flexlab.gaea.tools.haplotypecaller.writer.GVCFHadoopWriter;
 import org.bgi.flexlab.gaea.util.Window;
@@ -81,6 +85,27 @@ public class HaplotypeCallerReducer extends Reducer<WindowsBasedWritable, SamRec
 	private GaeaVariantContextWriter writer = null;
 
 	protected HashMap<Integer, String> sampleIDs = null;
+
+	/**
+	 * rebuild window overlaps for halo-free routing
+	 */
+	private WindowsBasedReadsStream windowsStream = null;
+
+	/**
+	 * window scoped data shared by the traversals of all samples. Keys are
+	 * sorted by window with the sample id in the low bits, so a window is
+	 * loaded by its first sample and replaced when the next window arrives.
+	 */
+	private int cachedChromosomeIndex = -1;
+	private int cachedWindowNumber = -1;
+	private ChromosomeInformationShare cachedChrInfo = null;
+	private RefMetaDataTracker cachedTracker = null;
+	private final List<GenomeLocation> cachedIntervals = new ArrayList<GenomeLocation>();
+
+	/**
+	 * per window telemetry, null if disabled
+	 */
+	private WindowTelemetry telemetry = null;
     
 	@Override
     protected void setup(Context context) throws IOException {
@@ -141,6 +166,11 @@ public class HaplotypeCallerReducer extends Reducer<WindowsBasedWritable, SamRec
 		}else
 			writer = new VariantContextHadoopWriter(context,haplotypecaller.getVCFHeader());
 
+		if(WindowsBasedReadsStream.isHaloFree(conf))
+			windowsStream = new WindowsBasedReadsStream(conf, header, (key, values) -> reduceWindow(key, values));
+
+		if(WindowTelemetry.isEnabled(conf))
+			telemetry = new WindowTelemetry(context);
 	}
 	
 	private ArrayList<VariantContext> getRegionVatiantContext(String chr,int number,int winSize,int end,DbsnpShare dbsnpShare,VCFLocalLoader loader){
@@ -179,21 +209,33 @@ public class HaplotypeCallerReducer extends Reducer<WindowsBasedWritable, SamRec
 	
 	@Override
     public void reduce(WindowsBasedWritable key, Iterable<SamRecordWritable> values, Context context) throws IOException, InterruptedException {
+		if(windowsStream != null)
+			windowsStream.add(key, values);
+		else
+			reduceWindow(key, values);
+	}
+	
+	private void reduceWindow(WindowsBasedWritable key, Iterable<SamRecordWritable> values) throws IOException, InterruptedException {
 		int index = key.getChromosomeIndex();
 		if(index < 0)
 			return;
 
 		haplotypecaller = sampleHaplotypecallers.get(sampleIDs.get(key.getSampleID()));
 
-		int start = key.getWindowsNumber() * options.getWindowSize();
-		int contigLength = header.getSequenceDictionary().getSequence(index).getSequenceLength();
-		int end = Math.min(contigLength, start + options.getWindowSize());
-		Window win = new Window(header.getSequence(index).getSequenceName(), key.getChromosomeIndex(), start, end);
-		String chr = win.getContigName();
-		ChromosomeInformationShare chrInfo = genomeShare.getChromosomeInfo(chr,true);
-		
-		RefMetaDataTracker tracker = createTracker(chr,key.getWindowsNumber(),options.getWindowSize(),end);
-		haplotypecaller.dataSourceReset(win, values, chrInfo, tracker);
+		if(index != cachedChromosomeIndex || key.getWindowsNumber() != cachedWindowNumber)
+			loadWindow(index, key.getWindowsNumber());
+
+		HaplotypeCallerEngine engine = haplotypecaller.getEngine();
+		long activeRegions = engine.getActiveRegionNumber();
+		long assemblyTime = engine.getAssemblyTime();
+		long likelihoodTime = engine.getLikelihoodTime();
+		long variants = haplotypecaller.getVariantsNumber();
+		if(telemetry != null)
+			telemetry.start(header.getSequence(index).getSequenceName(), key.getWindowsNumber(),
+					key.getWindowsNumber() * options.getWindowSize(),
+					(key.getWindowsNumber() + 1) * options.getWindowSize() - 1);
+
+		haplotypecaller.dataSourceReset(cachedIntervals, values, cachedChrInfo, cachedTracker);
 		if(options.isGVCF()) {
 			writer = gvcfWriters.get(sampleIDs.get(key.getSampleID()));
 			haplotypecaller.traverse(writer);
@@ -201,10 +243,35 @@ public class HaplotypeCallerReducer extends Reducer<WindowsBasedWritable, SamRec
 		}else {
 			haplotypecaller.traverse(writer);
 		}
+
+		if(telemetry != null) {
+			telemetry.addReads(haplotypecaller.getWindowReadsNumber());
+			telemetry.addActiveRegions(engine.getActiveRegionNumber() - activeRegions);
+			telemetry.addVariants(haplotypecaller.getVariantsNumber() - variants);
+			telemetry.addAssemblyTime(engine.getAssemblyTime() - assemblyTime);
+			telemetry.addLikelihoodTime(engine.getLikelihoodTime() - likelihoodTime);
+			telemetry.finish();
+		}
+	}
+	
+	private void loadWindow(int index, int windowNumber) {
+		int start = windowNumber * options.getWindowSize();
+		int contigLength = header.getSequenceDictionary().getSequence(index).getSequenceLength();
+		int end = Math.min(contigLength, start + options.getWindowSize());
+		Window win = new Window(header.getSequence(index).getSequenceName(), index, start, end);
+		String chr = win.getContigName();
+
+		cachedChrInfo = genomeShare.getChromosomeInfo(chr,true);
+		cachedTracker = createTracker(chr,windowNumber,options.getWindowSize(),end);
+		GenomeLocation.getGenomeLocationFromWindow(cachedIntervals, win, region);
+		cachedChromosomeIndex = index;
+		cachedWindowNumber = windowNumber;
 	}
 	
 	@Override
-    protected void cleanup(Context context) {
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+		if(windowsStream != null)
+			windowsStream.flush();
 		if(options.isGVCF()) {
 			for(String sample: sampleIDs.values()) {
 				if(gvcfWriters.containsKey(sample)) {
@@ -214,5 +281,7 @@ public class HaplotypeCallerReducer extends Reducer<WindowsBasedWritable, SamRec
 		}else
 			writer.close();
 		haplotypecaller.clear();
+		if(telemetry != null)
+			telemetry.close();
     }
 }
@@ -16,6 +16,7 @@ import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
 import org.bgi.flexlab.gaea.data.structure.reference.index.VcfIndex;
 import org.bgi.flexlab.gaea.data.structure.vcf.VCFLocalLoader;
 import org.bgi.flexlab.gaea.data.variant.filter.VariantRegionFilter;
+import org.bgi.flexlab.gaea.framework.tools.mapreduce.WindowTelemetry;
 import org.bgi.flexlab.gaea.tools.jointcalling.JointCallingEngine;
 import org.bgi.flexlab.gaea.tools.jointcalling.util.MultipleVCFHeaderForJointCalling;
 import org.seqdoop.hadoop_bam.VariantContextWritable;
@@ -44,6 +45,7 @@ public class JointCallingReducer
 	private VariantRegionFilter filter = null;
 	private VCFHeader header = null;
 	private MultipleVCFHeaderForJointCalling headers = new MultipleVCFHeaderForJointCalling();
+	private WindowTelemetry telemetry = null;
 
 	@Override
 	protected void setup(Context context) throws IOException {
@@ -84,6 +86,9 @@ public class JointCallingReducer
 		
 		if(header == null)
 			throw new RuntimeException("header is null!!!");
+
+		if (WindowTelemetry.isEnabled(conf))
+			telemetry = new WindowTelemetry(context);
 	}
 
 	@Override
@@ -97,6 +102,8 @@ public class JointCallingReducer
 
 		int contigLength = header.getSequenceDictionary().getSequence(chr).getSequenceLength();
 		int end = Math.min(contigLength, start + windowSize - 1);
+		if (telemetry != null)
+			telemetry.start(chr, winNum, start, end);
 
 		long startPosition = dbsnpShare.getStartPosition(chr, winNum, options.getWindowsSize());
 		ArrayList<VariantContext> dbsnps = null;
@@ -117,6 +124,17 @@ public class JointCallingReducer
 
 			outValue.set(variantContext, header);
 			context.write(NullWritable.get(), outValue);
+			if (telemetry != null)
+				telemetry.addVariants(1);
 		}
+
+		if (telemetry != null)
+			telemetry.finish();
+	}
+
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		if (telemetry != null)
+			telemetry.close();
 	}
 }
@@ -2,8 +2,6 @@ package org.bgi.flexlab.gaea.tools.mapreduce.jointcalling;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,15 +15,12 @@ import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.bgi.flexlab.gaea.data.mapreduce.input.vcf.BCFSplitAligner;
 import org.seqdoop.hadoop_bam.BCFRecordReader;
-import org.seqdoop.hadoop_bam.BCFSplitGuesser;
 import org.seqdoop.hadoop_bam.FileVirtualSplit;
 import org.seqdoop.hadoop_bam.VCFFormat;
 import org.seqdoop.hadoop_bam.VCFRecordReader;
 import org.seqdoop.hadoop_bam.VariantContextWritable;
-import org.seqdoop.hadoop_bam.util.WrapSeekable;
-
-import htsjdk.samtools.seekablestream.SeekableStream;
 
 public class JointCallingVCFInputFormat extends FileInputFormat<LongWritable,VariantContextWritable>{
 	/** Whether file extensions are to be trusted, defaults to true.
@@ -194,95 +189,7 @@ public class JointCallingVCFInputFormat extends FileInputFormat<LongWritable,Var
 			else
 				newSplits.add(split);
 		}
-		fixBCFSplits(bcfOrigSplits, newSplits);
+		BCFSplitAligner.alignSplits(bcfOrigSplits, newSplits, conf);
 		return newSplits;
 	}
-
-	// The given FileSplits should all be for BCF files. Adds InputSplits
-	// aligned to record boundaries. Compressed BCF results in
-	// FileVirtualSplits, uncompressed in FileSplits.
-	private void fixBCFSplits(
-			List<FileSplit> splits, List<InputSplit> newSplits)
-		throws IOException
-	{
-		// addGuessedSplits() requires the given splits to be sorted by file
-		// path, so do so. Although FileInputFormat.getSplits() does, at the time
-		// of writing this, generate them in that order, we shouldn't rely on it.
-		Collections.sort(splits, new Comparator<FileSplit>() {
-			public int compare(FileSplit a, FileSplit b) {
-				return a.getPath().compareTo(b.getPath());
-			}
-		});
-
-		for (int i = 0; i < splits.size();)
-			i = addGuessedSplits(splits, i, newSplits);
-	}
-
-	// Handles all the splits that share the Path of the one at index i,
-	// returning the next index to be used.
-	private int addGuessedSplits(
-			List<FileSplit> splits, int i, List<InputSplit> newSplits)
-		throws IOException
-	{
-		final Path path = splits.get(i).getPath();
-		final SeekableStream sin = WrapSeekable.openPath(conf, path);
-
-		final BCFSplitGuesser guesser = new BCFSplitGuesser(sin);
-
-		final boolean isBGZF = guesser.isBGZF();
-
-		InputSplit prevSplit = null;
-
-		for (; i < splits.size(); ++i) {
-			final FileSplit fspl = splits.get(i);
-			if (!fspl.getPath().equals(path))
-				break;
-
-			final String[] locs = fspl.getLocations();
-
-			final long beg =       fspl.getStart();
-			final long end = beg + fspl.getLength();
-
-			final long alignBeg = guesser.guessNextBCFRecordStart(beg, end);
-
-			// As the guesser goes to the next BGZF block before looking for BCF
-			// records, the ending BGZF blocks have to always be traversed fully.
-			// Hence force the length to be 0xffff, the maximum possible.
-			final long alignEnd = isBGZF ? end << 16 | 0xffff : end;
-
-			final long length = alignEnd - alignBeg;
-
-			if (alignBeg == end) {
-				// No records detected in this split: merge it to the previous one.
-				// This could legitimately happen e.g. if we have a split that is
-				// so small that it only contains the middle part of a BGZF block.
-				//
-				// Of course, if it's the first split, then this is simply not a
-				// valid BCF file.
-				//
-				// FIXME: In theory, any number of splits could only contain parts
-				// of the BCF header before we start to see splits that contain BCF
-				// records. For now, we require that the split size is at least as
-				// big as the header and don't handle that case.
-				if (prevSplit == null)
-					throw new IOException("'" + path + "': no records in first "+
-						"split: bad BCF file or tiny split size?");
-
-				if (isBGZF) {
-					((FileVirtualSplit)prevSplit).setEndVirtualOffset(alignEnd);
-					continue;
-				}
-				prevSplit = new FileSplit(path, alignBeg, length, locs);
-				newSplits.remove(newSplits.size() - 1);
-			} else {
-				prevSplit =
-					isBGZF ? new FileVirtualSplit(path, alignBeg, alignEnd, locs)
-					       : new FileSplit       (path, alignBeg, length,   locs);
-			}
-			newSplits.add(prevSplit);
-		}
-
-		sin.close();
-		return i;
-	}
 }
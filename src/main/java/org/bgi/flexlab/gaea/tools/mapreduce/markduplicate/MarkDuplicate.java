@@ -49,7 +49,6 @@ import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.input.bam.GaeaBamInputFormat;
-import org.bgi.flexlab.gaea.data.mapreduce.output.bam.GaeaBamOutputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.DuplicationKeyWritable;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
 import org.bgi.flexlab.gaea.framework.tools.mapreduce.BioJob;
@@ -88,7 +87,7 @@ public class MarkDuplicate extends ToolsRunner{
 
         job.setAnySamInputFormat(options.getInputFormat());
         if(options.getOutputFormat() == 0){
-            job.setOutputFormatClass(GaeaBamOutputFormat.class);
+            job.setSamOutputFormat();
         }
 
         FileInputFormat.setInputPaths(job, options.getInputFileList().toArray(new Path[options.getInputFileList().size()]));
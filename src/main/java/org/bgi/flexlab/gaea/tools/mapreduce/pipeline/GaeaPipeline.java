@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.mapreduce.pipeline;
+
+import org.bgi.flexlab.gaea.framework.tools.mapreduce.BioJob;
+import org.bgi.flexlab.gaea.framework.tools.mapreduce.ToolsRunner;
+import org.bgi.flexlab.gaea.tools.mapreduce.haplotypecaller.HaplotypeCaller;
+import org.bgi.flexlab.gaea.tools.mapreduce.markduplicate.MarkDuplicate;
+import org.bgi.flexlab.gaea.tools.mapreduce.realigner.Realigner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * MarkDuplicate -> Realigner (realign/recalibrate, fixmate/print reads) ->
+ * HaplotypeCaller. Reads pass between stages as lz4 compressed sam record
+ * streams, bam is only written for the final reads when requested.
+ */
+public class GaeaPipeline extends ToolsRunner {
+
+	public GaeaPipeline() {
+		this.toolsDescription = "Gaea MarkDuplicate, Realigner and HaplotypeCaller pipeline";
+	}
+
+	private String[] stageArgs(boolean streamInput, boolean streamOutput, String input, String output,
+			String[] args) {
+		ArrayList<String> stage = new ArrayList<String>();
+		// generic options must be ahead of tool options
+		stage.add("-D");
+		stage.add(BioJob.STREAM_INPUT + "=" + streamInput);
+		stage.add("-D");
+		stage.add(BioJob.STREAM_OUTPUT + "=" + streamOutput);
+		stage.add("-i");
+		stage.add(input);
+		stage.add("-o");
+		stage.add(output);
+		stage.addAll(Arrays.asList(args));
+		return stage.toArray(new String[stage.size()]);
+	}
+
+	@Override
+	public int run(String[] args) throws Exception {
+		GaeaPipelineOptions options = new GaeaPipelineOptions();
+		options.parse(args);
+
+		int res = new MarkDuplicate().run(stageArgs(false, true, options.getInput(),
+				options.getMarkDuplicateOutput(), options.getMarkDuplicateArgs()));
+		if (res != 0)
+			throw new RuntimeException("MarkDuplicate is failed!");
+
+		boolean streamReads = !options.isKeepBam();
+		res = new Realigner().run(stageArgs(true, streamReads, options.getMarkDuplicateOutput() + "/Mark",
+				options.getRealignerOutput(), options.getRealignerArgs()));
+		if (res != 0)
+			throw new RuntimeException("Realigner is failed!");
+
+		return new HaplotypeCaller().run(stageArgs(streamReads, false, options.getRealignerOutput() + "/fixmate",
+				options.getHaplotypeCallerOutput(), options.getHaplotypeCallerArgs()));
+	}
+}
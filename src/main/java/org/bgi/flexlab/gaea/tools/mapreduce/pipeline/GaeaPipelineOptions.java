@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.mapreduce.pipeline;
+
+import org.apache.commons.cli.ParseException;
+import org.bgi.flexlab.gaea.data.options.GaeaOptions;
+
+public class GaeaPipelineOptions extends GaeaOptions {
+
+	private final static String SOFTWARE_NAME = "Pipeline";
+	private final static String SOFTWARE_VERSION = "1.0";
+
+	private String input;
+	private String output;
+	private String[] markDuplicateArgs;
+	private String[] realignerArgs;
+	private String[] haplotypeCallerArgs;
+	private boolean keepBam;
+
+	public GaeaPipelineOptions() {
+		addOption("i", "input",  true,  "input bam directory [request]", true);
+		addOption("o", "output", true,  "output directory [request]", true);
+		addOption("m", "markdup", true, "other arguments of MarkDuplicate, quoted, without -i/-o [\"\"]");
+		addOption("a", "realigner", true, "other arguments of Realigner, quoted, without -i/-o [request]", true);
+		addOption("c", "caller", true, "other arguments of HaplotypeCaller, quoted, without -i/-o [request]", true);
+		addOption("b", "bam",    false, "write realigned and recalibrated reads as bam [false]");
+		addOption("h", "help",   false, "help information.");
+
+		FormatHelpInfo(SOFTWARE_NAME, SOFTWARE_VERSION);
+	}
+
+	@Override
+	public void parse(String[] args) {
+		try {
+			cmdLine = parser.parse(options, args);
+			if(cmdLine.hasOption("h")) {
+				helpInfo.printHelp("Options:", options, true);
+				System.exit(1);
+			}
+		} catch (ParseException e) {
+			helpInfo.printHelp("Options:", options, true);
+			System.exit(1);
+		}
+
+		input = cmdLine.getOptionValue("input");
+		output = cmdLine.getOptionValue("output");
+		if (!output.endsWith("/"))
+			output += "/";
+		markDuplicateArgs = split(getOptionValue("m", ""));
+		realignerArgs = split(getOptionValue("a", ""));
+		haplotypeCallerArgs = split(getOptionValue("c", ""));
+		keepBam = getOptionBooleanValue("b", false);
+	}
+
+	private String[] split(String args) {
+		args = args.trim();
+		if (args.isEmpty())
+			return new String[0];
+		return args.split("\\s+");
+	}
+
+	public String getInput() {
+		return input;
+	}
+
+	public String getMarkDuplicateOutput() {
+		return output + "markduplicate";
+	}
+
+	public String getRealignerOutput() {
+		return output + "realigner";
+	}
+
+	public String getHaplotypeCallerOutput() {
+		return output + "haplotypecaller";
+	}
+
+	public String[] getMarkDuplicateArgs() {
+		return markDuplicateArgs;
+	}
+
+	public String[] getRealignerArgs() {
+		return realignerArgs;
+	}
+
+	public String[] getHaplotypeCallerArgs() {
+		return haplotypeCallerArgs;
+	}
+
+	public boolean isKeepBam() {
+		return keepBam;
+	}
+}
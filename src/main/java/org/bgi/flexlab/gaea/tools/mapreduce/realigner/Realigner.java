@@ -29,7 +29,6 @@ import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
 import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 import org.bgi.flexlab.gaea.data.exception.FileNotExistException;
 import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
-import org.bgi.flexlab.gaea.data.mapreduce.output.bam.GaeaBamOutputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.util.HdfsFileManager;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.WindowsBasedWritable;
@@ -85,12 +84,13 @@ public class Realigner extends ToolsRunner {
 		header = job.setHeader(new Path(option.getRealignerInput()), new Path(options.getCommonOutput()));
 
 		job.setAnySamInputFormat(option.getInputFormat());
-		job.setOutputFormatClass(GaeaBamOutputFormat.class);
+		job.setSamOutputFormat();
 		job.setOutputKeyValue(WindowsBasedWritable.class, SamRecordWritable.class, NullWritable.class,
 				SamRecordWritable.class);
 
 		job.setJarByClass(Realigner.class);
 		job.setWindowsBasicMapperClass(WindowsBasedSamRecordMapper.class, option.getWindowsSize(),option.getExtendSize());
+		job.setHaloFreeWindows(option.getHaloFreeBlock());
 		job.setReducerClass(RealignerReducer.class);
 		job.setNumReduceTasks(option.getReducerNumber());
 
@@ -136,8 +136,12 @@ public class Realigner extends ToolsRunner {
 
 		job.setHeader(options.getCommonOutput() + "/" + SamHdfsFileHeader.BAM_HEADER_FILE_NAME);
 
+		// realigned reads are written in the same format as the final output
+		if (options.isRealignment())
+			conf.setBoolean(BioJob.STREAM_INPUT, conf.getBoolean(BioJob.STREAM_OUTPUT, false));
+
 		job.setAnySamInputFormat(format);
-		job.setOutputFormatClass(GaeaBamOutputFormat.class);
+		job.setSamOutputFormat();
 
 		job.setJarByClass(Realigner.class);
 		job.setMapperClass(FixmateMapper.class);
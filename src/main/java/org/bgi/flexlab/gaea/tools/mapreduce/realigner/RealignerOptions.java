@@ -34,6 +34,8 @@ public class RealignerOptions extends GaeaOptions implements HadoopOptions{
 	private int minReadsAtPileup;
 	private int maxIntervalSize;
 	private int maxInsertSize;
+	private int haloFreeBlock;
+	private int consensusThreads;
 	
 	private String knowVariant;
 	private String input;
@@ -71,6 +73,7 @@ public class RealignerOptions extends GaeaOptions implements HadoopOptions{
 		addOption("d", "LOD",true,"LOD threshold above which the cleaner will clean [5.0].");
 		addOption("e", "windowExtendSize", true, "window extend size[500]");
 		addOption("i", "input", true, "input directory", true);
+		addOption("H", "haloFreeBlock", true, "shuffle each read once and send every N consecutive windows to one reducer, 0 for disable[0]");
 		addOption("I", "insertSize",true,"maximum insert size of read pairs that we attempt to realign [3000].");
 		addOption("k", "knowSite", true, "known snp/indel file,the format is VCF4");
 		addOption("l", "minReads", true, "minimum reads at a locus to enable using the entropy calculation[4].");
@@ -84,6 +87,7 @@ public class RealignerOptions extends GaeaOptions implements HadoopOptions{
 		addOption("t", "mismatch", true, "fraction of base qualities needing to mismatch for a position to have high entropy[0]");
 		addOption("w", "keyWindow", true, "window size for key[10000]");
 		addOption("W", "window", true, "window size for calculating entropy or SNP clusters[10]");
+		addOption("x", "consensusThreads", true, "threads for searching alternate consensus of target intervals in each reducer, 1 for serial[1]");
 		FormatHelpInfo(SOFTWARE_NAME,SOFTWARE_VERSION);
 	}
 
@@ -124,6 +128,8 @@ public class RealignerOptions extends GaeaOptions implements HadoopOptions{
 		minReadsAtPileup = getOptionIntValue("l",4);
 		maxIntervalSize = getOptionIntValue("L",500);
 		maxInsertSize = getOptionIntValue("I",3000);
+		haloFreeBlock = getOptionIntValue("H",0);
+		consensusThreads = getOptionIntValue("x",1);
 		
 		mismatchThreshold = getOptionDoubleValue("t",0);
 		LOD = getOptionDoubleValue("d",5.0);
@@ -216,4 +222,12 @@ public class RealignerOptions extends GaeaOptions implements HadoopOptions{
 	public int getMaxInsertSize(){
 		return this.maxInsertSize;
 	}
+	
+	public int getHaloFreeBlock(){
+		return this.haloFreeBlock;
+	}
+	
+	public int getConsensusThreads(){
+		return this.consensusThreads;
+	}
 }
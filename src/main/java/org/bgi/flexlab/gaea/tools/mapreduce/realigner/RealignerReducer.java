@@ -35,6 +35,8 @@ import org.bgi.flexlab.gaea.data.structure.dbsnp.DbsnpShare;
 import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
 import org.bgi.flexlab.gaea.data.structure.reference.index.VcfIndex;
 import org.bgi.flexlab.gaea.data.structure.vcf.VCFLocalLoader;
+import org.bgi.flexlab.gaea.framework.tools.mapreduce.WindowTelemetry;
+import org.bgi.flexlab.gaea.framework.tools.mapreduce.WindowsBasedReadsStream;
 import org.bgi.flexlab.gaea.tools.realigner.RealignerEngine;
 import org.bgi.flexlab.gaea.tools.recalibrator.RecalibratorEngine;
 import org.bgi.flexlab.gaea.tools.recalibrator.table.RecalibratorTable;
@@ -58,6 +60,8 @@ public class RealignerReducer
 
 	private RecalibratorEngine recalEngine = null;
 	private RealignerExtendOptions extendOption = new RealignerExtendOptions();
+	private WindowsBasedReadsStream windowsStream = null;
+	private WindowTelemetry telemetry = null;
 
 	@Override
 	protected void setup(Context context) throws IOException {
@@ -87,6 +91,13 @@ public class RealignerReducer
 			recalEngine = new RecalibratorEngine(extendOption.getBqsrOptions(), genomeShare, mHeader,
 					extendOption.isRealignment(), writer);
 		}
+
+		if (WindowsBasedReadsStream.isHaloFree(conf))
+			windowsStream = new WindowsBasedReadsStream(conf, mHeader,
+					(key, values) -> reduceWindow(key, values, context));
+
+		if (WindowTelemetry.isEnabled(conf))
+			telemetry = new WindowTelemetry(context);
 	}
 
 	private boolean unmappedWindows(int chrIndex) {
@@ -152,6 +163,14 @@ public class RealignerReducer
 	@Override
 	public void reduce(WindowsBasedWritable key, Iterable<SamRecordWritable> values, Context context)
 			throws IOException, InterruptedException {
+		if (windowsStream != null)
+			windowsStream.add(key, values);
+		else
+			reduceWindow(key, values, context);
+	}
+
+	private void reduceWindow(WindowsBasedWritable key, Iterable<SamRecordWritable> values, Context context)
+			throws IOException, InterruptedException {
 		int chrIndex = key.getChromosomeIndex();
 		int winNum = key.getWindowsNumber();
 		boolean unmapped = unmappedWindows(chrIndex);
@@ -165,9 +184,13 @@ public class RealignerReducer
 			return;
 		}
 		Window win = setWindows(chrIndex, winNum);
+		if (telemetry != null)
+			telemetry.start(win.getContigName(), winNum, win.getStart(), win.getStop());
 
 		if (extendOption.isRealignment()) {
 			int windowsReadsCounter = getSamRecords(values, records, filteredRecords, key.getWindowsNumber(), context);
+			if (telemetry != null)
+				telemetry.addReads(records.size());
 
 			if (windowsReadsCounter == Integer.MAX_VALUE) {
 				if (extendOption.isRecalibration()) {
@@ -185,7 +208,9 @@ public class RealignerReducer
 				}
 			} else {
 				engine.set(win, records, filteredRecords);
-				engine.reduce();
+				int intervals = engine.reduce();
+				if (telemetry != null)
+					telemetry.addActiveRegions(intervals);
 
 				if (extendOption.isRecalibration()) {
 					this.recalEngine.mapReads(records, null, win.getContigName(), winNum);
@@ -195,14 +220,22 @@ public class RealignerReducer
 			this.recalEngine.mapReads(null, values, win.getContigName(), winNum);
 		}
 		clear();
+
+		if (telemetry != null)
+			telemetry.finish();
 	}
 
 	@Override
 	protected void cleanup(Context context) throws IOException, InterruptedException {
+		if (windowsStream != null)
+			windowsStream.flush();
 		if (extendOption.isRecalibration()) {
 			RecalibratorTable table = recalEngine.getTables();
 			writer.write(table);
 		}
+		engine.close();
 		writer.close();
+		if (telemetry != null)
+			telemetry.close();
 	}
 }
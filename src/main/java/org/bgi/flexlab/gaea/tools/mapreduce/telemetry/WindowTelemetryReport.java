@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.mapreduce.telemetry;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.bgi.flexlab.gaea.data.mapreduce.util.HdfsFileManager;
+import org.bgi.flexlab.gaea.data.mapreduce.util.HdfsFilesReader;
+import org.bgi.flexlab.gaea.framework.tools.mapreduce.ToolsRunner;
+import org.bgi.flexlab.gaea.framework.tools.mapreduce.WindowTelemetry;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregate window telemetry of window based jobs into a straggler report:
+ * per reducer task totals, the most expensive windows and per genomic bin
+ * hotspots. The bin table is tab separated and can be used to tune window
+ * sizes and partition plans.
+ */
+public class WindowTelemetryReport extends ToolsRunner {
+
+	public WindowTelemetryReport() {
+		this.toolsDescription = "Gaea window telemetry straggler report\n";
+	}
+
+	private static class Aggregate {
+		private String contig;
+		private int start;
+		private int end;
+		private int windows = 0;
+		private long reads = 0;
+		private long activeRegions = 0;
+		private long variants = 0;
+		private long wallTime = 0;
+		private long assemblyTime = 0;
+		private long likelihoodTime = 0;
+
+		private Aggregate(String contig, int start, int end) {
+			this.contig = contig;
+			this.start = start;
+			this.end = end;
+		}
+
+		private void add(String[] fields) {
+			windows++;
+			reads += Long.parseLong(fields[5]);
+			activeRegions += Long.parseLong(fields[6]);
+			variants += Long.parseLong(fields[7]);
+			wallTime += Long.parseLong(fields[8]);
+			assemblyTime += Long.parseLong(fields[9]);
+			likelihoodTime += Long.parseLong(fields[10]);
+		}
+
+		private String counts() {
+			return reads + "\t" + activeRegions + "\t" + variants + "\t" + wallTime + "\t" + assemblyTime + "\t"
+					+ likelihoodTime;
+		}
+	}
+
+	private static final Comparator<Aggregate> BY_WALL_TIME = new Comparator<Aggregate>() {
+		@Override
+		public int compare(Aggregate a, Aggregate b) {
+			return Long.compare(b.wallTime, a.wallTime);
+		}
+	};
+
+	private static final String COUNT_COLUMNS = "reads\tactiveRegions\tvariants\twallMs\tassemblyMs\tlikelihoodMs";
+
+	private final TreeMap<Integer, Aggregate> tasks = new TreeMap<Integer, Aggregate>();
+	private final Map<String, Aggregate> windows = new LinkedHashMap<String, Aggregate>();
+	private final Map<String, Aggregate> bins = new LinkedHashMap<String, Aggregate>();
+
+	@Override
+	public int run(String[] args) throws Exception {
+		Configuration conf = new Configuration();
+		String[] remainArgs = remainArgs(args, conf);
+		WindowTelemetryReportOptions options = new WindowTelemetryReportOptions();
+		options.parse(remainArgs);
+
+		HdfsFilesReader reader = new HdfsFilesReader(conf);
+		for (String input : options.getInputs())
+			reader.traversal(new Path(input, WindowTelemetry.TELEMETRY_DIRECTORY).toString(),
+					new TelemetryPathFilter());
+
+		while (reader.hasNext())
+			add(reader.next().split("\t"), options.getBinSize());
+		reader.clear();
+
+		FSDataOutputStream out = HdfsFileManager.getOutputStream(new Path(options.getOutput()), conf);
+		PrintStream printer = new PrintStream(out);
+		write(printer, options.getTopWindows());
+		printer.close();
+		return 0;
+	}
+
+	private void add(String[] fields, int binSize) {
+		if (fields.length != WindowTelemetry.COLUMNS.length)
+			return;
+		int task = Integer.parseInt(fields[0]);
+		String contig = fields[1];
+		int start = Integer.parseInt(fields[3]);
+
+		if (!tasks.containsKey(task))
+			tasks.put(task, new Aggregate(null, 0, 0));
+		tasks.get(task).add(fields);
+
+		String windowKey = contig + ":" + fields[2];
+		if (!windows.containsKey(windowKey))
+			windows.put(windowKey, new Aggregate(contig, start, Integer.parseInt(fields[4])));
+		windows.get(windowKey).add(fields);
+
+		int bin = start / binSize;
+		String binKey = contig + ":" + bin;
+		if (!bins.containsKey(binKey))
+			bins.put(binKey, new Aggregate(contig, bin * binSize, (bin + 1) * binSize - 1));
+		bins.get(binKey).add(fields);
+	}
+
+	private void write(PrintStream out, int topWindows) {
+		long[] taskTimes = new long[tasks.size()];
+		int i = 0;
+		for (Aggregate task : tasks.values())
+			taskTimes[i++] = task.wallTime;
+		Arrays.sort(taskTimes);
+		long median = taskTimes.length == 0 ? 0 : taskTimes[taskTimes.length / 2];
+
+		out.println("#tasks");
+		out.println("task\twindows\t" + COUNT_COLUMNS + "\ttimeToMedian");
+		for (Map.Entry<Integer, Aggregate> entry : tasks.entrySet()) {
+			Aggregate task = entry.getValue();
+			out.println(entry.getKey() + "\t" + task.windows + "\t" + task.counts() + "\t"
+					+ String.format("%.2f", median == 0 ? 0.0 : (double) task.wallTime / median));
+		}
+
+		List<Aggregate> sorted = new ArrayList<Aggregate>(windows.values());
+		Collections.sort(sorted, BY_WALL_TIME);
+		out.println("#windows");
+		out.println("contig\tstart\tend\t" + COUNT_COLUMNS);
+		for (i = 0; i < sorted.size() && i < topWindows; i++) {
+			Aggregate win = sorted.get(i);
+			out.println(win.contig + "\t" + win.start + "\t" + win.end + "\t" + win.counts());
+		}
+
+		out.println("#bins");
+		out.println("contig\tstart\tend\twindows\t" + COUNT_COLUMNS);
+		for (Aggregate bin : bins.values())
+			out.println(bin.contig + "\t" + bin.start + "\t" + bin.end + "\t" + bin.windows + "\t" + bin.counts());
+	}
+
+	public static class TelemetryPathFilter implements PathFilter {
+		@Override
+		public boolean accept(Path path) {
+			return path.getName().startsWith(WindowTelemetry.TELEMETRY_TAG);
+		}
+	}
+}
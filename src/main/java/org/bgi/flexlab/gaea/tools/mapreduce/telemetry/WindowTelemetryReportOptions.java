@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.mapreduce.telemetry;
+
+import org.apache.commons.cli.ParseException;
+import org.bgi.flexlab.gaea.data.options.GaeaOptions;
+
+public class WindowTelemetryReportOptions extends GaeaOptions {
+
+	private final static String SOFTWARE_NAME = "WindowTelemetry";
+	private final static String SOFTWARE_VERSION = "1.0";
+
+	private String[] inputs;
+	private String output;
+	private int topWindows;
+	private int binSize;
+
+	public WindowTelemetryReportOptions() {
+		addOption("i", "input",  true,  "output directories of window based jobs run with -D windows.telemetry=true, separated by comma [request]", true);
+		addOption("o", "output", true,  "report file [request]", true);
+		addOption("n", "top",    true,  "number of most expensive windows to report [50]");
+		addOption("b", "bin",    true,  "genomic bin size for hotspot aggregation [1000000]");
+		addOption("h", "help",   false, "help information.");
+
+		FormatHelpInfo(SOFTWARE_NAME, SOFTWARE_VERSION);
+	}
+
+	@Override
+	public void parse(String[] args) {
+		try {
+			cmdLine = parser.parse(options, args);
+			if(cmdLine.hasOption("h")) {
+				helpInfo.printHelp("Options:", options, true);
+				System.exit(1);
+			}
+		} catch (ParseException e) {
+			helpInfo.printHelp("Options:", options, true);
+			System.exit(1);
+		}
+
+		inputs = cmdLine.getOptionValue("input").split(",");
+		output = cmdLine.getOptionValue("output");
+		topWindows = getOptionIntValue("n", 50);
+		binSize = getOptionIntValue("b", 1000000);
+		if (binSize <= 0)
+			throw new IllegalArgumentException("bin size must be greater than 0");
+	}
+
+	public String[] getInputs() {
+		return inputs;
+	}
+
+	public String getOutput() {
+		return output;
+	}
+
+	public int getTopWindows() {
+		return topWindows;
+	}
+
+	public int getBinSize() {
+		return binSize;
+	}
+}
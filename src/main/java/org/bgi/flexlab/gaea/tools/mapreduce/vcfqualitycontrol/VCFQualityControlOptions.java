@@ -305,7 +305,7 @@ public class VCFQualityControlOptions extends GaeaOptions implements HadoopOptio
 		try {
 			String[] otherArgs = new GenericOptionsParser(args).getRemainingArgs();
 			conf.setStrings("args", otherArgs);
-			conf.set(VCFOutputFormat.OUTPUT_VCF_FORMAT_PROPERTY, "VCF");
+			conf.setIfUnset(VCFOutputFormat.OUTPUT_VCF_FORMAT_PROPERTY, "VCF");
 			conf.set(GaeaVCFHeader.VCF_HEADER_PROPERTY, setOutputURI("vcfHeader.obj"));
 			conf.setBoolean(KeyIgnoringVCFOutputFormat.WRITE_HEADER_PROPERTY, false);
 		} catch (IOException e) {
@@ -16,16 +16,25 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.tools.mapreduce.vcfstats;
 
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFConstants;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.bgi.flexlab.gaea.data.structure.header.SingleVCFHeader;
+import org.bgi.flexlab.gaea.data.structure.vcf.LazyVCFRecord;
 import org.bgi.flexlab.gaea.tools.vcfstats.report.PerSampleVCFReport;
 import org.bgi.flexlab.gaea.tools.vcfstats.report.VCFReport;
+import org.seqdoop.hadoop_bam.FileVirtualSplit;
 import org.seqdoop.hadoop_bam.VariantContextWritable;
 
 import java.io.IOException;
+import java.util.List;
 
 public class VCFStatsMapper extends Mapper<LongWritable, VariantContextWritable, NullWritable, Text> {
 
@@ -38,12 +47,29 @@ public class VCFStatsMapper extends Mapper<LongWritable, VariantContextWritable,
 
     private VCFReport vcfReport;
     private Text resultValue = new Text();
+
+    /**
+     * only GT is decoded from genotype columns left unparsed by htsjdk
+     */
+    private LazyVCFRecord genotypes = new LazyVCFRecord(VCFConstants.GENOTYPE_KEY);
+    private List<String> sampleNames;
+
     protected void setup(Context context)
             throws IOException, InterruptedException {
         VCFStatsOptions options = new VCFStatsOptions();
         options.getOptionsFromHadoopConf(context.getConfiguration());
         vcfReport = new VCFReport(options);
 
+        InputSplit split = context.getInputSplit();
+        Path path;
+        if(split instanceof FileVirtualSplit)
+            path = ((FileVirtualSplit) split).getPath();
+        else
+            path = ((FileSplit) split).getPath();
+        SingleVCFHeader header = new SingleVCFHeader();
+        header.readHeaderFrom(path, path.getFileSystem(context.getConfiguration()));
+        sampleNames = header.getHeader().getGenotypeSamples();
+
 //        if(options.getDbsnpFile() != null) {
 //            dbsnpShare = new DbsnpShare(options.getDbsnpFile(), options.getReferenceSequencePath());
 //            dbsnpShare.loadChromosomeList(options.getDbsnpFile() + VcfIndex.INDEX_SUFFIX);
@@ -60,6 +86,14 @@ public class VCFStatsMapper extends Mapper<LongWritable, VariantContextWritable,
         VariantContext vc = value.get();
         if(filteVariant(vc))
             return;
+        if(vc.getGenotypes() instanceof LazyGenotypesContext) {
+            Object unparsed = ((LazyGenotypesContext) vc.getGenotypes()).getUnparsedGenotypeData();
+            if(unparsed instanceof String) {
+                genotypes.setGenotypeColumns((String) unparsed);
+                vcfReport.parseVariation(vc, sampleNames, genotypes);
+                return;
+            }
+        }
         vcfReport.parseVariation(vc);
     }
 
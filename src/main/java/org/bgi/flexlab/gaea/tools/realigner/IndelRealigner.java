@@ -54,6 +54,8 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.bgi.flexlab.gaea.data.structure.bam.GaeaAlignedSamRecord;
 import org.bgi.flexlab.gaea.data.structure.bam.GaeaSamRecord;
@@ -89,14 +91,26 @@ public class IndelRealigner {
 	private ArrayList<GaeaSamRecord> notNeedRealignementReads = null;
 	private TreeSet<VariantContext> knowIndelsSet = null;
 	private int effectiveNotCleanReadCount = 0;
+	private ForkJoinPool pool = null;
+	private ArrayList<PendingReads> pendingReads = null;
 
 	public IndelRealigner(SAMFileHeader mHeader, ArrayList<VariantContext> variants, Window win,
 			ChromosomeInformationShare chrInfo, RealignerOptions option) {
+		this(mHeader, variants, win, chrInfo, option, null);
+	}
+
+	/**
+	 * with a pool, the alternate consensus of target intervals are searched in
+	 * parallel while reads are written in the same order as serial mode.
+	 */
+	public IndelRealigner(SAMFileHeader mHeader, ArrayList<VariantContext> variants, Window win,
+			ChromosomeInformationShare chrInfo, RealignerOptions option, ForkJoinPool pool) {
 		this.parser = new GenomeLocationParser(mHeader.getSequenceDictionary());
 		this.variants = variants;
 		this.chrInfo = chrInfo;
 		this.option = option;
 		this.win = win;
+		this.pool = pool;
 		initialization();
 	}
 
@@ -107,6 +121,8 @@ public class IndelRealigner {
 		needRealignementReads = new GaeaSamRecordBin(parser);
 		notNeedRealignementReads = new ArrayList<GaeaSamRecord>();
 		knowIndelsSet = new TreeSet<VariantContext>(new KnowIndelComparator());
+		if (pool != null)
+			pendingReads = new ArrayList<PendingReads>();
 	}
 
 	public void setIntervals(ArrayList<GenomeLocation> intervals) {
@@ -140,8 +156,9 @@ public class IndelRealigner {
 		filtered.clear();
 	}
 
-	private void realignerCore(AlternateConsensus bestConsensus, ArrayList<GaeaAlignedSamRecord> reads, byte[] ref,
-			GenomeLocation location, long totalRawMismatchQuality, int leftMostIndex) {
+	private void realignerCore(AlternateConsensusEngine consensusEngine, AlternateConsensus bestConsensus,
+			ArrayList<GaeaAlignedSamRecord> reads, byte[] ref, GenomeLocation location, long totalRawMismatchQuality,
+			int leftMostIndex) {
 		double improvement = (bestConsensus == null ? -1
 				: ((double) (totalRawMismatchQuality - bestConsensus.getMismatch())) / 10.0);
 
@@ -201,46 +218,81 @@ public class IndelRealigner {
 	}
 
 	private void consensusAndRealigner(GaeaSamRecordBin readsBin) {
+		ConsensusSearch search = searchConsensus(readsBin, knowIndelsSet, consensusEngine, currentInterval, null);
+		if (search != null)
+			applyConsensus(search);
+	}
+
+	/**
+	 * search the best alternate consensus of one target interval. Reads are
+	 * not changed here, so searches of different intervals can run at the
+	 * same time.
+	 */
+	private ConsensusSearch searchConsensus(GaeaSamRecordBin readsBin, TreeSet<VariantContext> knowIndels,
+			AlternateConsensusEngine engine, GenomeLocation interval, ForkJoinPool consensusPool) {
 		final List<GaeaSamRecord> reads = readsBin.getReads();
 		if (reads.size() == 0)
-			return;
+			return null;
 
-		byte[] reference = readsBin.getReference(chrInfo, parser);
-		int leftMostIndex = readsBin.getLocation().getStart();
+		ConsensusSearch search = new ConsensusSearch(engine, interval);
+		search.reference = readsBin.getReference(chrInfo, parser);
+		search.leftMostIndex = readsBin.getLocation().getStart();
 
 		// the reads cluster of perfectly match to reference
 		final ArrayList<GaeaSamRecord> refReads = new ArrayList<GaeaSamRecord>();
-		// the reads cluster that don't perfectly match to reference
-		final ArrayList<GaeaAlignedSamRecord> altReads = new ArrayList<GaeaAlignedSamRecord>();
 		// the reads cluster of making alternate consensus
 		final LinkedList<GaeaAlignedSamRecord> readsForConsensus = new LinkedList<GaeaAlignedSamRecord>();
 
-		consensusEngine.consensusByKnowIndels(knowIndelsSet, leftMostIndex, reference);
+		engine.consensusByKnowIndels(knowIndels, search.leftMostIndex, search.reference);
 
-		long totalRawQuality = consensusEngine.consensusByReads(reads, refReads, altReads, readsForConsensus,
-				leftMostIndex, reference);
+		search.totalRawQuality = engine.consensusByReads(reads, refReads, search.altReads, readsForConsensus,
+				search.leftMostIndex, search.reference);
 		
 		// function is empty
-		consensusEngine.consensusBySmithWaterman();
+		engine.consensusBySmithWaterman();
 
-		AlternateConsensus bestConsensus = consensusEngine.findBestAlternateConsensus(altReads, leftMostIndex);
+		search.bestConsensus = engine.findBestAlternateConsensus(search.altReads, search.leftMostIndex,
+				consensusPool);
+
+		return search;
+	}
 
-		realignerCore(bestConsensus, altReads, reference, currentInterval, totalRawQuality, leftMostIndex);
+	/**
+	 * update reads of target interval by its best alternate consensus
+	 */
+	private void applyConsensus(ConsensusSearch search) {
+		realignerCore(search.engine, search.bestConsensus, search.altReads, search.reference, search.interval,
+				search.totalRawQuality, search.leftMostIndex);
 		
-		if(bestConsensus != null){
-			bestConsensus.clear();
+		if(search.bestConsensus != null){
+			search.bestConsensus.clear();
 		}
 		
-		consensusEngine.clear();
+		search.engine.clear();
 	}
 
-	private void realignerAndPending(ArrayList<VariantContext> knowIndels, GaeaSamRecord read, GenomeLocation location,
-			RealignerWriter writer) {
+	private void realignAndWrite(RealignerWriter writer) {
+		ForkJoinTask<ConsensusSearch> search = null;
 		if (needRealignementReads.size() > 0) {
-			consensusAndRealigner(needRealignementReads);
+			if (pool == null) {
+				consensusAndRealigner(needRealignementReads);
+			} else {
+				final GaeaSamRecordBin readsBin = needRealignementReads;
+				// the reference is fetched here, chrInfo is not read by pooled searches
+				readsBin.getReference(chrInfo, parser);
+				final TreeSet<VariantContext> knowIndels = new TreeSet<VariantContext>(knowIndelsSet);
+				final GenomeLocation interval = currentInterval;
+				search = pool.submit(() -> searchConsensus(readsBin, knowIndels,
+						new AlternateConsensusEngine(option.getConsensusModel()), interval, pool));
+			}
 		}
 		
-		write(writer);
+		write(writer, search);
+	}
+
+	private void realignerAndPending(ArrayList<VariantContext> knowIndels, GaeaSamRecord read, GenomeLocation location,
+			RealignerWriter writer) {
+		realignAndWrite(writer);
 
 		do {
 			currentInterval = iterator.hasNext() ? iterator.next() : null;
@@ -293,7 +345,11 @@ public class IndelRealigner {
 		}
 	}
 
-	private void write(RealignerWriter writer) {	
+	private void write(RealignerWriter writer) {
+		write(writer, null);
+	}
+
+	private void write(RealignerWriter writer, ForkJoinTask<ConsensusSearch> search) {
 		if (needRealignementReads.getReads() != null){
 			notNeedRealignementReads.addAll(needRealignementReads.getReads());
 		}
@@ -306,9 +362,18 @@ public class IndelRealigner {
 					.increment(needRealignementReads.size());
 		}
 		
-		writer.writeReadList(notNeedRealignementReads);
-		needRealignementReads.clear();
-		notNeedRealignementReads.clear();
+		if (pool == null) {
+			writer.writeReadList(notNeedRealignementReads);
+			notNeedRealignementReads.clear();
+		} else {
+			pendingReads.add(new PendingReads(search, notNeedRealignementReads));
+			notNeedRealignementReads = new ArrayList<GaeaSamRecord>();
+		}
+
+		if (search != null)
+			needRealignementReads = new GaeaSamRecordBin(parser);
+		else
+			needRealignementReads.clear();
 		knowIndelsSet.clear();
 		effectiveNotCleanReadCount = 0;
 	}
@@ -324,11 +389,51 @@ public class IndelRealigner {
 		}
 
 		if (effectiveNotCleanReadCount > 0 || notNeedRealignementReads.size() > 0) {
-			if (needRealignementReads.size() > 0) {
-				consensusAndRealigner(needRealignementReads);
+			realignAndWrite(writer);
+		}
+
+		if (pool != null)
+			flushPendingReads(writer);
+	}
+
+	/**
+	 * apply consensus searches in interval order and write reads
+	 */
+	private void flushPendingReads(RealignerWriter writer) {
+		for (PendingReads pending : pendingReads) {
+			if (pending.search != null) {
+				ConsensusSearch search = pending.search.join();
+				if (search != null)
+					applyConsensus(search);
 			}
-			
-			write(writer);
+			writer.writeReadList(pending.reads);
+		}
+		pendingReads.clear();
+	}
+
+	private class ConsensusSearch {
+		private final AlternateConsensusEngine engine;
+		private final GenomeLocation interval;
+		// the reads cluster that don't perfectly match to reference
+		private final ArrayList<GaeaAlignedSamRecord> altReads = new ArrayList<GaeaAlignedSamRecord>();
+		private byte[] reference = null;
+		private int leftMostIndex;
+		private long totalRawQuality;
+		private AlternateConsensus bestConsensus = null;
+
+		private ConsensusSearch(AlternateConsensusEngine engine, GenomeLocation interval) {
+			this.engine = engine;
+			this.interval = interval;
+		}
+	}
+
+	private class PendingReads {
+		private final ForkJoinTask<ConsensusSearch> search;
+		private final ArrayList<GaeaSamRecord> reads;
+
+		private PendingReads(ForkJoinTask<ConsensusSearch> search, ArrayList<GaeaSamRecord> reads) {
+			this.search = search;
+			this.reads = reads;
 		}
 	}
 }
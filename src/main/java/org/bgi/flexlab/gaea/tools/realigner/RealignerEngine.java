@@ -56,6 +56,7 @@ import org.bgi.flexlab.gaea.tools.mapreduce.realigner.RealignerOptions;
 import org.bgi.flexlab.gaea.util.Window;
 
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 public class RealignerEngine {
 	private RealignerOptions option = null;
@@ -71,6 +72,7 @@ public class RealignerEngine {
 	private IndelRealigner indelRealigner = null;
 	private RealignerWriter writer = null;
 	private DbsnpShare dbsnpShare = null;
+	private ForkJoinPool pool = null;
 
 	private int start;
 	private int end;
@@ -83,6 +85,8 @@ public class RealignerEngine {
 		this.mHeader = mHeader;
 		this.writer = writer;
 		this.dbsnpShare = dbsnpShare;
+		if (option.getConsensusThreads() > 1)
+			pool = new ForkJoinPool(option.getConsensusThreads());
 	}
 
 	public void set(Window win, ArrayList<GaeaSamRecord> records, ArrayList<GaeaSamRecord> filterRecords) {
@@ -94,7 +98,7 @@ public class RealignerEngine {
 		indelFilter = new VariantRegionFilter();
 		setChromosome(genomeShare);
 		setKnowIndels(loader);
-		indelRealigner = new IndelRealigner(mHeader, knowIndels, win, chrInfo, option);
+		indelRealigner = new IndelRealigner(mHeader, knowIndels, win, chrInfo, option, pool);
 	}
 
 	private void setChromosome(ReferenceShare genomeShare) {
@@ -119,7 +123,10 @@ public class RealignerEngine {
 			knowIndels = indelFilter.loadFilter(loader, referenceName, startPosition, end);
 	}
 
-	public void reduce() {
+	/**
+	 * @return number of realignment target intervals of the window
+	 */
+	public int reduce() {
 		IdentifyRegionsCreator creator = new IdentifyRegionsCreator(option, filterRecords, mHeader, chrInfo,
 				knowIndels);
 		creator.regionCreator(win.getChrIndex(), 0, Integer.MAX_VALUE);
@@ -129,5 +136,11 @@ public class RealignerEngine {
 
 		indelRealigner.setIntervals(intervals);
 		indelRealigner.traversals(records, writer);
+		return intervals.size();
+	}
+
+	public void close() {
+		if (pool != null)
+			pool.shutdown();
 	}
 }
@@ -53,13 +53,16 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.bgi.flexlab.gaea.data.structure.bam.GaeaAlignedSamRecord;
 import org.bgi.flexlab.gaea.data.structure.bam.GaeaCigar;
 import org.bgi.flexlab.gaea.data.structure.bam.GaeaSamRecord;
 import org.bgi.flexlab.gaea.tools.mapreduce.realigner.RealignerOptions.AlternateConsensusModel;
 import org.bgi.flexlab.gaea.util.AlignmentUtil;
-import org.bgi.flexlab.gaea.util.BaseUtils;
 import org.bgi.flexlab.gaea.util.Pair;
 
 public class AlternateConsensusEngine {
@@ -80,29 +83,17 @@ public class AlternateConsensusEngine {
 
 	public int mismatchQualitySumIgnoreCigar(GaeaAlignedSamRecord read,
 			byte[] ref, int posOnRef, int threshold) {
-		int MAX_QUALITY = 99;
-		int mismatchQualitySum = 0;
-
-		byte[] readSeq = read.getReadBases();
-		byte[] qualities = read.getReadQualities();
-
-		for (int readIndex = 0; readIndex < readSeq.length; readIndex++) {
-			if (posOnRef >= ref.length) {
-				mismatchQualitySum += ((readSeq.length - readIndex) * MAX_QUALITY);
-				break;
-			}else{
-				byte refBase = ref[posOnRef++];
-				byte readBase = readSeq[readIndex];
-
-				if (BaseUtils.isRegularAndNotEqualBase(readBase, refBase)) {
-					mismatchQualitySum += qualities[readIndex];
-					if (mismatchQualitySum > threshold)
-						return mismatchQualitySum;
-				}
-			}
-		}
+		return mismatchQualitySumIgnoreCigar(read, new PackedBases(read.getReadBases()), new PackedBases(ref),
+				posOnRef, threshold);
+	}
 
-		return mismatchQualitySum;
+	/**
+	 * scores packed read bases against packed reference, the sum is returned
+	 * as soon as it is bigger than threshold
+	 */
+	public int mismatchQualitySumIgnoreCigar(GaeaAlignedSamRecord read, PackedBases readBases, PackedBases ref,
+			int posOnRef, int threshold) {
+		return PackedBases.mismatchQualitySum(readBases, read.getReadQualities(), ref, posOnRef, threshold);
 	}
 	
 	public void consensusByKnowIndels(
@@ -132,6 +123,7 @@ public class AlternateConsensusEngine {
 			final LinkedList<GaeaAlignedSamRecord> SWReads,
 			final int leftmostIndex, final byte[] reference) {
 		long totalRawMismatchSum = 0L;
+		final PackedBases packedReference = new PackedBases(reference);
 
 		for (final GaeaSamRecord read : reads) {
 			if (read.getCigar() == null)
@@ -157,7 +149,7 @@ public class AlternateConsensusEngine {
 			final int startOnRef = read.getAlignmentStart() - leftmostIndex;
 
 			int rawMismatchScore = mismatchQualitySumIgnoreCigar(alignedRead,
-					reference, startOnRef, Integer.MAX_VALUE);
+					new PackedBases(alignedRead.getReadBases()), packedReference, startOnRef, Integer.MAX_VALUE);
 
 			if (rawMismatchScore != 0) {
 				altReads.add(alignedRead);
@@ -194,14 +186,16 @@ public class AlternateConsensusEngine {
 			ArrayList<GaeaAlignedSamRecord> reads, int leftMostIndex) {
 		AlternateConsensus bestConsensus = null;
 		Iterator<AlternateConsensus> iter = consensusBin.get().iterator();
+		PackedBases[] packedReads = packReads(reads);
 
 		while (iter.hasNext()) {
 			AlternateConsensus currentConsensus = iter.next();
+			PackedBases packedConsensus = new PackedBases(currentConsensus.getSequence());
 
 			for (int i = 0; i < reads.size(); i++) {
 				GaeaAlignedSamRecord read = reads.get(i);
 				Pair<Integer, Integer> best = findBestOffset(
-						currentConsensus.getSequence(), read, leftMostIndex);
+						packedConsensus, packedReads[i], read, leftMostIndex);
 
 				int readScore = best.second;
 				if (readScore > read.getAlignerMismatchScore()
@@ -234,6 +228,100 @@ public class AlternateConsensusEngine {
 		return bestConsensus;
 	}
 
+	/**
+	 * score every alternate consensus on pool. The consensus with the smallest
+	 * mismatch sum wins and ties go to the earlier one, the same as the serial
+	 * search.
+	 */
+	public AlternateConsensus findBestAlternateConsensus(
+			ArrayList<GaeaAlignedSamRecord> reads, int leftMostIndex, ForkJoinPool pool) {
+		if (pool == null || consensusBin.get().size() < 2)
+			return findBestAlternateConsensus(reads, leftMostIndex);
+
+		final AtomicInteger bestMismatch = new AtomicInteger(Integer.MAX_VALUE);
+		final PackedBases[] packedReads = packReads(reads);
+		final ArrayList<ConsensusScoreTask> tasks = new ArrayList<ConsensusScoreTask>();
+		for (AlternateConsensus consensus : consensusBin.get())
+			tasks.add(new ConsensusScoreTask(consensus, reads, packedReads, leftMostIndex, bestMismatch));
+
+		if (ForkJoinTask.getPool() == pool) {
+			ForkJoinTask.invokeAll(tasks);
+		} else {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					invokeAll(tasks);
+				}
+			});
+		}
+
+		AlternateConsensus bestConsensus = null;
+		for (ConsensusScoreTask task : tasks) {
+			AlternateConsensus currentConsensus = task.consensus;
+			if (!task.pruned && (bestConsensus == null
+					|| bestConsensus.getMismatch() > currentConsensus.getMismatch())) {
+				if (bestConsensus != null)
+					bestConsensus.clear();
+				bestConsensus = currentConsensus;
+			} else {
+				currentConsensus.clear();
+			}
+		}
+
+		return bestConsensus;
+	}
+
+	private class ConsensusScoreTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final AlternateConsensus consensus;
+		private final ArrayList<GaeaAlignedSamRecord> reads;
+		private final PackedBases[] packedReads;
+		private final int leftMostIndex;
+		private final AtomicInteger bestMismatch;
+		private boolean pruned = false;
+
+		private ConsensusScoreTask(AlternateConsensus consensus, ArrayList<GaeaAlignedSamRecord> reads,
+				PackedBases[] packedReads, int leftMostIndex, AtomicInteger bestMismatch) {
+			this.consensus = consensus;
+			this.reads = reads;
+			this.packedReads = packedReads;
+			this.leftMostIndex = leftMostIndex;
+			this.bestMismatch = bestMismatch;
+		}
+
+		@Override
+		protected void compute() {
+			PackedBases packedConsensus = new PackedBases(consensus.getSequence());
+			for (int i = 0; i < reads.size(); i++) {
+				GaeaAlignedSamRecord read = reads.get(i);
+				Pair<Integer, Integer> best = findBestOffset(packedConsensus, packedReads[i], read, leftMostIndex);
+
+				int readScore = best.second;
+				if (readScore > read.getAlignerMismatchScore() || readScore >= read.getMismatchScore())
+					readScore = read.getMismatchScore();
+				else
+					consensus.add(new Pair<Integer, Integer>(i, best.first));
+
+				if (!read.getRead().getDuplicateReadFlag())
+					consensus.addMismatch(readScore);
+
+				// worse than a finished consensus, can't be the best one
+				if (consensus.getMismatch() > bestMismatch.get()) {
+					pruned = true;
+					return;
+				}
+			}
+
+			int current = bestMismatch.get();
+			while (consensus.getMismatch() < current
+					&& !bestMismatch.compareAndSet(current, consensus.getMismatch()))
+				current = bestMismatch.get();
+		}
+	}
+
 	private boolean badCigar(Cigar cigar) {
 		CigarOperator op1 = cigar.getCigarElement(0).getOperator();
 		CigarOperator op2 = cigar.getCigarElement(1).getOperator();
@@ -427,12 +515,22 @@ public class AlternateConsensusEngine {
 		return (rawColumns == 0 || cleanedColumns < rawColumns);
 	}
 
-	private Pair<Integer, Integer> findBestOffset(final byte[] ref,
+	/**
+	 * packed bases of every read, shared by all consensus scorings
+	 */
+	private PackedBases[] packReads(ArrayList<GaeaAlignedSamRecord> reads) {
+		PackedBases[] packedReads = new PackedBases[reads.size()];
+		for (int i = 0; i < reads.size(); i++)
+			packedReads[i] = new PackedBases(reads.get(i).getReadBases());
+		return packedReads;
+	}
+
+	private Pair<Integer, Integer> findBestOffset(final PackedBases ref, final PackedBases readBases,
 			final GaeaAlignedSamRecord read, final int leftmostIndex) {
 		int originalAlignment = read.getRead().getAlignmentStart() - leftmostIndex;
-        int bestScore = mismatchQualitySumIgnoreCigar(read, ref, originalAlignment, Integer.MAX_VALUE);
+        int bestScore = mismatchQualitySumIgnoreCigar(read, readBases, ref, originalAlignment, Integer.MAX_VALUE);
         int bestIndex = originalAlignment;
-        final int maxPossibleStart = ref.length - read.getReadLength();
+        final int maxPossibleStart = ref.length() - read.getReadLength();
 
         if ( bestScore == 0 )
             return new Pair<Integer, Integer>(bestIndex, 0);
@@ -441,7 +539,7 @@ public class AlternateConsensusEngine {
         	if( i == originalAlignment)
         		continue;
         	
-            int score = mismatchQualitySumIgnoreCigar(read, ref, i, bestScore);
+            int score = mismatchQualitySumIgnoreCigar(read, readBases, ref, i, bestScore);
             if ( score < bestScore ) {
                 bestScore = score;
                 bestIndex = i;
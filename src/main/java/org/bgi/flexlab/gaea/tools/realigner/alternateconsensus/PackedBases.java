@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.realigner.alternateconsensus;
+
+import org.bgi.flexlab.gaea.util.BaseUtils;
+
+/**
+ * bases packed 32 per long for mismatch scoring. every base has a 2-bit base
+ * index, a 2-bit variant of the letter (upper case, lower case or '*') and a
+ * regular flag, so two bases mismatch by BaseUtils.isRegularAndNotEqualBase
+ * exactly when both are regular and index or variant differ.
+ */
+public class PackedBases {
+	public static final int MAX_QUALITY = 99;
+
+	private static final int BASES_PER_WORD = 32;
+	private static final long LOW_BITS = 0x5555555555555555L;
+
+	private final int length;
+	private final long[] bases;
+	private final long[] variants;
+	private final long[] regular;
+
+	public PackedBases(byte[] seq) {
+		length = seq.length;
+		// one more word so windows at any offset can be read without checks
+		int words = (length + BASES_PER_WORD - 1) / BASES_PER_WORD + 1;
+		bases = new long[words];
+		variants = new long[words];
+		regular = new long[words];
+
+		for (int i = 0; i < length; i++) {
+			byte base = seq[i];
+			int index = BaseUtils.simpleBaseToBaseIndex(base);
+			if (index == -1)
+				continue;
+			int variant = base == '*' ? 2 : (base >= 'a' ? 1 : 0);
+			int word = i / BASES_PER_WORD;
+			int shift = (i % BASES_PER_WORD) * 2;
+			bases[word] |= (long) index << shift;
+			variants[word] |= (long) variant << shift;
+			regular[word] |= 1L << shift;
+		}
+	}
+
+	public int length() {
+		return length;
+	}
+
+	private static long window(long[] words, int offset) {
+		int word = offset / BASES_PER_WORD;
+		int shift = (offset % BASES_PER_WORD) * 2;
+		if (shift == 0)
+			return words[word];
+		return (words[word] >>> shift) | (words[word + 1] << (64 - shift));
+	}
+
+	/**
+	 * @return low bit of every 2-bit slot set where the 32 read bases from
+	 *         readOffset mismatch the 32 reference bases from refOffset
+	 */
+	private long mismatchMask(int readOffset, PackedBases ref, int refOffset) {
+		long diff = bases[readOffset / BASES_PER_WORD] ^ window(ref.bases, refOffset);
+		long variantDiff = variants[readOffset / BASES_PER_WORD] ^ window(ref.variants, refOffset);
+		diff |= variantDiff;
+		diff = (diff | (diff >>> 1)) & LOW_BITS;
+		return diff & regular[readOffset / BASES_PER_WORD] & window(ref.regular, refOffset);
+	}
+
+	/**
+	 * sum of read qualities at mismatches of read placed at posOnRef, read
+	 * bases past the end of reference cost MAX_QUALITY each.
+	 * 
+	 * @param threshold
+	 *            the sum is returned as soon as it is bigger than threshold
+	 */
+	public static int mismatchQualitySum(PackedBases read, byte[] qualities, PackedBases ref, int posOnRef,
+			int threshold) {
+		if (posOnRef < 0)
+			throw new IllegalArgumentException("read is placed before reference start: " + posOnRef);
+		int overlap = Math.max(0, Math.min(read.length, ref.length - posOnRef));
+		int mismatchQualitySum = 0;
+
+		for (int start = 0; start < overlap; start += BASES_PER_WORD) {
+			long mask = read.mismatchMask(start, ref, posOnRef + start);
+			int remain = overlap - start;
+			if (remain < BASES_PER_WORD)
+				mask &= (1L << (2 * remain)) - 1;
+
+			while (mask != 0) {
+				mismatchQualitySum += qualities[start + (Long.numberOfTrailingZeros(mask) >>> 1)];
+				if (mismatchQualitySum > threshold)
+					return mismatchQualitySum;
+				mask &= mask - 1;
+			}
+		}
+
+		if (overlap < read.length)
+			mismatchQualitySum += (read.length - overlap) * MAX_QUALITY;
+		return mismatchQualitySum;
+	}
+}
@@ -56,6 +56,7 @@ import org.bgi.flexlab.gaea.tools.recalibrator.covariate.CovariateUtil;
 import org.bgi.flexlab.gaea.tools.recalibrator.quality.QualityQuantizer;
 import org.bgi.flexlab.gaea.tools.recalibrator.table.RecalibratorTable;
 import org.bgi.flexlab.gaea.util.*;
+import org.bgi.flexlab.gaea.util.NestedObjectArray.Leave;
 
 import java.util.*;
 
@@ -78,12 +79,27 @@ public class RecalibratorReport {
 
 	private final ReadCovariates readCovariates;
 
+	/**
+	 * delta-Q precomputed from recalibrator tables, indexed by
+	 * global: event * readGroupNumber + rg
+	 * reported: global index * qualityNumber + quality
+	 * covariate: [covariate][reported index][covariate key], row is null if no data
+	 */
+	private int readGroupNumber;
+	private int qualityNumber;
+	private double[] globalDeltaQ = null;
+	private double[] deltaQReported = null;
+	private double[][][] deltaQCovariates = null;
+	private byte[] quantizedQualities = null;
+
 	public RecalibratorReport(String input, SAMFileHeader header, int quanLevels, int preserveQualityLessThan,
 			boolean disableIndelQuality, boolean emitOriginQuality) {
 		initialize(input, header);
 
 		qualityInitialized(quanLevels);
 
+		deltaQInitialized();
+
 		readCovariates = new ReadCovariates(MAXIMUM_RECALIBRATED_READ_LENGTH, covariates.length);
 
 		this.diableIndelQuality = disableIndelQuality;
@@ -106,8 +122,8 @@ public class RecalibratorReport {
 			optionalIndex.put(covName, i - 2);
 		}
 
-		recalTable = new RecalibratorTable(covariates,
-				readGroupSize(tables.get(RecalibratorUtil.RECALIBRATOR_TABLE_NAME[0])));
+		readGroupNumber = readGroupSize(tables.get(RecalibratorUtil.RECALIBRATOR_TABLE_NAME[0]));
+		recalTable = new RecalibratorTable(covariates, readGroupNumber);
 		// read group table parse
 		readGroupParser(tables.get(RecalibratorUtil.RECALIBRATOR_TABLE_NAME[0]),
 				recalTable.getTable(RecalibratorTable.Type.READ_GROUP_TABLE));
@@ -153,6 +169,53 @@ public class RecalibratorReport {
 		}
 	}
 
+	private void deltaQInitialized() {
+		final int eventSize = EventType.values().length;
+		qualityNumber = covariates[RecalibratorTable.Type.QUALITY_SCORE_TABLE.index].maximumKeyValue() + 1;
+
+		globalDeltaQ = new double[eventSize * readGroupNumber];
+		for (Leave leave : recalTable.getTable(RecalibratorTable.Type.READ_GROUP_TABLE).getAllLeaves()) {
+			final RecalibratorDatum datum = (RecalibratorDatum) leave.value;
+			globalDeltaQ[globalIndex(leave.keys[0], leave.keys[1])] = datum.getEmpiricalQuality()
+					- datum.getEstimatedQuality();
+		}
+
+		deltaQReported = new double[eventSize * readGroupNumber * qualityNumber];
+		for (Leave leave : recalTable.getTable(RecalibratorTable.Type.QUALITY_SCORE_TABLE).getAllLeaves()) {
+			final RecalibratorDatum datum = (RecalibratorDatum) leave.value;
+			final int global = globalIndex(leave.keys[0], leave.keys[2]);
+			deltaQReported[reportedIndex(global, leave.keys[1])] = datum.getEmpiricalQuality()
+					- (byte) leave.keys[1] - globalDeltaQ[global];
+		}
+
+		deltaQCovariates = new double[covariates.length][][];
+		for (int i = RecalibratorTable.Type.OPTIONAL_COVARIATE_TABLES_START.index; i < covariates.length; i++) {
+			final int covariateNumber = covariates[i].maximumKeyValue() + 1;
+			deltaQCovariates[i] = new double[deltaQReported.length][];
+			for (Leave leave : recalTable.getTable(i).getAllLeaves()) {
+				final RecalibratorDatum datum = (RecalibratorDatum) leave.value;
+				final int global = globalIndex(leave.keys[0], leave.keys[3]);
+				final int reported = reportedIndex(global, leave.keys[1]);
+				if (deltaQCovariates[i][reported] == null)
+					deltaQCovariates[i][reported] = new double[covariateNumber];
+				deltaQCovariates[i][reported][leave.keys[2]] = datum.getEmpiricalQuality() - (byte) leave.keys[1]
+						- (globalDeltaQ[global] + deltaQReported[reported]);
+			}
+		}
+
+		quantizedQualities = new byte[qualities.size()];
+		for (int i = 0; i < quantizedQualities.length; i++)
+			quantizedQualities[i] = qualities.get(i) == null ? (byte) i : qualities.get(i);
+	}
+
+	private int globalIndex(int readGroup, int event) {
+		return event * readGroupNumber + readGroup;
+	}
+
+	private int reportedIndex(int globalIndex, int quality) {
+		return globalIndex * qualityNumber + quality;
+	}
+
 	private int calculateLevels(List<Byte> quals) {
 		byte lastByte = -1;
 		int levels = 0;
@@ -284,66 +347,34 @@ public class RecalibratorReport {
 
 	private byte performSequentialQualityCalculation(final int[] key, final EventType errorModel) {
 		final byte qualFromRead = (byte) (long) key[1];
-		final double globalDeltaQ = calculateGlobalDeltaQ(recalTable.getTable(RecalibratorTable.Type.READ_GROUP_TABLE),
-				key, errorModel);
-		final double deltaQReported = calculateDeltaQReported(
-				recalTable.getTable(RecalibratorTable.Type.QUALITY_SCORE_TABLE), key, errorModel, globalDeltaQ,
-				qualFromRead);
-		final double deltaQCovariates = calculateDeltaQCovariates(recalTable, key, errorModel, globalDeltaQ,
-				deltaQReported, qualFromRead);
+		double globalDeltaQ = 0.0;
+		double deltaQReported = 0.0;
+		double deltaQCovariates = 0.0;
+
+		if (key[0] < readGroupNumber) {
+			final int global = globalIndex(key[0], errorModel.index);
+			globalDeltaQ = this.globalDeltaQ[global];
+
+			if (key[1] < qualityNumber) {
+				final int reported = reportedIndex(global, key[1]);
+				deltaQReported = this.deltaQReported[reported];
+
+				// for all optional covariates
+				for (int i = 2; i < covariates.length; i++) {
+					if (key[i] < 0)
+						continue;
+					final double[] deltaQCovariate = this.deltaQCovariates[i][reported];
+					if (deltaQCovariate != null && key[i] < deltaQCovariate.length)
+						deltaQCovariates += deltaQCovariate[key[i]];
+				}
+			}
+		}
 
 		double recalibratedQual = qualFromRead + globalDeltaQ + deltaQReported + deltaQCovariates;
 		recalibratedQual = QualityUtils.boundQuality(MathUtils.fastRound(recalibratedQual),
 				QualityUtils.MAXIMUM_USABLE_QUALITY_SCORE);
 
-		return this.qualities.get((int) recalibratedQual);
-	}
-
-	private double calculateGlobalDeltaQ(final NestedObjectArray<RecalibratorDatum> table, final int[] key,
-			final EventType errorModel) {
-		double result = 0.0;
-
-		final RecalibratorDatum empiricalQualRG = table.get(key[0], errorModel.index);
-		if (empiricalQualRG != null) {
-			final double globalDeltaQEmpirical = empiricalQualRG.getEmpiricalQuality();
-			final double aggregrateQReported = empiricalQualRG.getEstimatedQuality();
-			result = globalDeltaQEmpirical - aggregrateQReported;
-		}
-
-		return result;
-	}
-
-	private double calculateDeltaQReported(final NestedObjectArray<RecalibratorDatum> table, final int[] key,
-			final EventType errorModel, final double globalDeltaQ, final byte qualFromRead) {
-		double result = 0.0;
-
-		final RecalibratorDatum empiricalQualQS = table.get(key[0], key[1], errorModel.index);
-		if (empiricalQualQS != null) {
-			final double deltaQReportedEmpirical = empiricalQualQS.getEmpiricalQuality();
-			result = deltaQReportedEmpirical - qualFromRead - globalDeltaQ;
-		}
-
-		return result;
-	}
-
-	private double calculateDeltaQCovariates(final RecalibratorTable recalibrationTables, final int[] key,
-			final EventType errorModel, final double globalDeltaQ, final double deltaQReported,
-			final byte qualFromRead) {
-		double result = 0.0;
-
-		// for all optional covariates
-		for (int i = 2; i < covariates.length; i++) {
-			if (key[i] < 0)
-				continue;
-
-			final RecalibratorDatum empiricalQualCO = recalibrationTables.getTable(i).get(key[0], key[1], key[i],
-					errorModel.index);
-			if (empiricalQualCO != null) {
-				final double deltaQCovariateEmpirical = empiricalQualCO.getEmpiricalQuality();
-				result += (deltaQCovariateEmpirical - qualFromRead - (globalDeltaQ + deltaQReported));
-			}
-		}
-		return result;
+		return quantizedQualities[(int) recalibratedQual];
 	}
 
 	public void clear() {
@@ -35,6 +35,10 @@ public enum VariantType {
 
 
     public static VariantType determineType(VariantContext vc, String sample) {
+        return determineType(vc, vc.getGenotype(sample));
+    }
+
+    public static VariantType determineType(VariantContext vc, Genotype gt) {
         VariantType type;
 
         switch ( vc.getNAlleles() ) {
@@ -46,13 +50,12 @@ public enum VariantType {
                 type = NO_VARIATION;
                 break;
             default:
-                type = determinePolymorphicType(vc, sample);
+                type = determinePolymorphicType(vc, gt);
         }
         return type;
     }
 
-    private static VariantType determinePolymorphicType(VariantContext vc, String sample) {
-        Genotype gt = vc.getGenotype(sample);
+    private static VariantType determinePolymorphicType(VariantContext vc, Genotype gt) {
         VariantType type = null;
 
         // do a pairwise comparison of all alleles against the reference allele
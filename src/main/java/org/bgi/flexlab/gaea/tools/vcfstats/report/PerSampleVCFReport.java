@@ -194,9 +194,12 @@ public class PerSampleVCFReport {
     }
 
     public void add(VariantContext vc, String sample) {
-        setSampleName(sample);
-        Genotype gt = vc.getGenotype(sample);
-        VariantType type = VariantType.determineType(vc, sample);
+        add(vc, vc.getGenotype(sample));
+    }
+
+    public void add(VariantContext vc, Genotype gt) {
+        setSampleName(gt.getSampleName());
+        VariantType type = VariantType.determineType(vc, gt);
 
         if(vc.isFiltered()) {
             mTotalFailedFilters++;
@@ -19,6 +19,7 @@ package org.bgi.flexlab.gaea.tools.vcfstats.report;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.vcf.VCFFileReader;
@@ -26,12 +27,16 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.*;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.util.LineReader;
+import org.bgi.flexlab.gaea.data.exception.UserException;
 import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
+import org.bgi.flexlab.gaea.data.structure.vcf.LazyVCFRecord;
 import org.bgi.flexlab.gaea.tools.mapreduce.vcfstats.VCFStatsOptions;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class VCFReport {
@@ -76,6 +81,46 @@ public class VCFReport {
         }
     }
 
+    /**
+     * same as parseVariation(vc), with genotypes decoded by the lazy record
+     * instead of the full htsjdk genotype parsing
+     */
+    public void parseVariation(VariantContext vc, List<String> sampleNames, LazyVCFRecord genotypes){
+
+        if(options.getDbsnpFile() != null)
+            vc = setDbSNP(vc);
+
+        int[] alleleIndexs = genotypes.getGenotypeAlleles();
+        PerSampleVCFReport aSampleVCFReport;
+        for(int i = 0; i < genotypes.getSampleSize(); i++){
+            String sample = sampleNames.get(i);
+            List<Allele> alleles = new ArrayList<>(2);
+            for(int j = 2 * i; j < 2 * i + 2; j++) {
+                if(alleleIndexs[j] == LazyVCFRecord.NO_CALL)
+                    alleles.add(Allele.NO_CALL);
+                else if(alleleIndexs[j] != LazyVCFRecord.NO_ALLELE) {
+                    if(alleleIndexs[j] < 0 || alleleIndexs[j] >= vc.getNAlleles())
+                        throw new UserException.MalformedVCF(String.format(
+                                "genotype allele index %d of sample %s is out of %d alleles at %s:%d",
+                                alleleIndexs[j], sample, vc.getNAlleles(), vc.getContig(), vc.getStart()));
+                    alleles.add(vc.getAlleles().get(alleleIndexs[j]));
+                }
+            }
+            Genotype gt = new GenotypeBuilder(sample, alleles).make();
+            if(!gt.isCalled())
+                return;
+
+            if(perSampleVCFReports.containsKey(sample))
+                aSampleVCFReport = perSampleVCFReports.get(sample);
+            else {
+                aSampleVCFReport = new PerSampleVCFReport(genomeShare, options.isCountVarLength());
+                perSampleVCFReports.put(sample, aSampleVCFReport);
+            }
+
+            aSampleVCFReport.add(vc, gt);
+        }
+    }
+
     private VariantContext setDbSNP(VariantContext vc) {
         CloseableIterator<VariantContext> vcfIter = vcfReader.query(vc.getContig(), vc.getStart(), vc.getEnd());
 
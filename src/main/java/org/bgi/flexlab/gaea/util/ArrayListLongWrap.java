@@ -17,38 +17,54 @@
 package org.bgi.flexlab.gaea.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
+/**
+ * growable list of long counters backed by a primitive array
+ */
 public class ArrayListLongWrap {
-	private ArrayList<Long> data;
+	private long[] data;
+	private int size;
 
 	public ArrayListLongWrap() {
-		data = new ArrayList<Long>();
+		data = new long[16];
+		size = 0;
+	}
+
+	private void ensureSize(int newSize) {
+		if (newSize > data.length)
+			data = Arrays.copyOf(data, Math.max(newSize, data.length * 2));
+		if (newSize > size)
+			size = newSize;
 	}
 
 	// index start from 0
 	public void add(int index, long value) {
-		if (index >= data.size()) {
-			for (int i = data.size(); i <= index - 1; i++) {
-				data.add((long) 0);
-			}
-			data.add(value);
-		} else {
-			data.set(index, data.get(index) + value);
-		}
+		ensureSize(index + 1);
+		data[index] += value;
+	}
+
+	/**
+	 * add the first length values
+	 */
+	public void add(int[] values, int length) {
+		ensureSize(length);
+		for (int i = 0; i < length; i++)
+			data[i] += values[i];
 	}
 
 	public int size() {
-		return data.size();
+		return size;
 	}
 
 	public String toString() {
-		if (data.size() == 0)
+		if (size == 0)
 			return "";
 		StringBuilder sb = new StringBuilder();
-		sb.append(data.get(0));
-		for (int i = 1; i < data.size(); i++) {
+		sb.append(data[0]);
+		for (int i = 1; i < size; i++) {
 			sb.append("\t");
-			sb.append(data.get(i));
+			sb.append(data[i]);
 		}
 
 		return sb.toString();
@@ -66,14 +82,15 @@ public class ArrayListLongWrap {
 	}
 
 	public ArrayList<Long> get() {
-		return this.data;
+		ArrayList<Long> list = new ArrayList<Long>(size);
+		for (int i = 0; i < size; i++)
+			list.add(data[i]);
+		return list;
 	}
 
 	public void add(ArrayListLongWrap other) {
-		ArrayList<Long> _other = other.get();
-		int size = _other.size();
-
-		for (int i = 0; i < size; i++)
-			add(i, _other.get(i));
+		ensureSize(other.size);
+		for (int i = 0; i < other.size; i++)
+			data[i] += other.data[i];
 	}
 }
@@ -0,0 +1,152 @@
+package org.bgi.flexlab.gaea.data.datawarehouse.genomics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.bgi.flexlab.gaea.data.exception.UserException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * loads a small vcf into a mini cluster with -b and reads the rows back.
+ */
+public class LoadVCFToHBaseTest {
+	private static final String[] VCF = {
+			"##fileformat=VCFv4.1",
+			"##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">",
+			"##FORMAT=<ID=AD,Number=.,Type=Integer,Description=\"Allelic depths\">",
+			"##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Read depth\">",
+			"##contig=<ID=chr1,length=1000>",
+			"##contig=<ID=chr2,length=1000>",
+			"#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tS2\tS1",
+			"chr1\t9\t.\tA\tG\t50\t.\t.\tGT:AD:DP\t0/1:5,3:8\t1/1:0,7:7",
+			"chr1\t100\t.\tC\tT,A\t30.5\t.\t.\tGT:AD:DP\t1/2:0,4,4:8\t0/0:9,0,0:9",
+			"chr2\t5\t.\tG\tT\t20\t.\t.\tGT:AD:DP\t0/1:3,2:5\t0/0:5,0:5" };
+
+	private static HBaseTestingUtility util;
+	private static String config;
+	private static Path input;
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		util = new HBaseTestingUtility();
+		util.startMiniCluster();
+
+		// the tool closes the cached file systems it opens, so the job runs on
+		// local files and only the bulk load reaches the mini cluster hdfs
+		Configuration toolConf = new Configuration(util.getConfiguration());
+		toolConf.set(FileSystem.FS_DEFAULT_NAME_KEY, FileSystem.DEFAULT_FS);
+		File configDir = new File(util.getDataTestDir("config").toString());
+		configDir.mkdirs();
+		for (String name : new String[] { "hbase-site.xml", "core-site.xml" }) {
+			OutputStream out = new FileOutputStream(new File(configDir, name));
+			toolConf.writeXml(out);
+			out.close();
+		}
+		config = configDir.getAbsolutePath();
+
+		File vcf = new File(util.getDataTestDir("vcf").toString(), "test.vcf");
+		vcf.getParentFile().mkdirs();
+		PrintWriter writer = new PrintWriter(vcf);
+		for (String line : VCF)
+			writer.println(line);
+		writer.close();
+		input = new Path(vcf.toURI());
+	}
+
+	@AfterClass
+	public static void tearDown() throws Exception {
+		util.shutdownMiniCluster();
+	}
+
+	private int load(String table, String output, boolean binary) throws Exception {
+		List<String> args = new ArrayList<String>();
+		String outputDir = new File(util.getDataTestDir(output).toString()).toURI().toString();
+		String[] options = { "-i", input.toString(), "-o", outputDir, "-c", config, "-t", table, "-n", "2" };
+		for (String option : options)
+			args.add(option);
+		if (binary)
+			args.add("-b");
+		return new LoadVCFToHBase().run(args.toArray(new String[args.size()]));
+	}
+
+	@Test
+	public void testBinaryRoundTrip() throws Exception {
+		assertEquals(0, load("binary", "binaryOutput", true));
+
+		HTable table = new HTable(util.getConfiguration(), "binary");
+		assertEquals(2, table.getRegionLocator().getStartKeys().length);
+
+		// rows sort by contig index, start and sorted sample index (S1 = 0, S2 = 1)
+		int[][] keys = { { 0, 9, 0 }, { 0, 9, 1 }, { 0, 100, 1 }, { 1, 5, 1 } };
+		byte[] gts = { 0x11, 0x01, 0x12, 0x01 };
+		int[] dps = { 7, 8, 8, 5 };
+		int[][] ads = { { 0, 7 }, { 5, 3 }, { 0, 4, 4 }, { 3, 2 } };
+		float[] quals = { 50f, 50f, 30.5f, 20f };
+		String[] refs = { "A", "A", "C", "G" };
+		String[] alts = { "G", "G", "T,A", "T" };
+
+		ResultScanner scanner = table.getScanner(new Scan());
+		int row = 0;
+		for (Result result : scanner) {
+			byte[] key = result.getRow();
+			assertEquals(VariantRowKey.LENGTH, key.length);
+			assertEquals(keys[row][0], VariantRowKey.getContigIndex(key));
+			assertEquals(keys[row][1], VariantRowKey.getStart(key));
+			assertEquals(keys[row][2], VariantRowKey.getSampleIndex(key));
+
+			assertEquals(1, result.rawCells().length);
+			Cell value = result.getColumnLatestCell(VCFToHBaseMapper.FAMILY, VCFToHBaseMapper.PACKED);
+			PackedVariantCell cell = PackedVariantCell.read(value.getValueArray(), value.getValueOffset(),
+					value.getValueLength());
+			assertEquals(gts[row], cell.getGT());
+			assertEquals(dps[row], cell.getDP());
+			assertArrayEquals(ads[row], cell.getAD());
+			assertEquals(quals[row], cell.getQual(), 0);
+			assertEquals(refs[row], cell.getRef());
+			assertEquals(alts[row], cell.getAlt());
+			row++;
+		}
+		scanner.close();
+		table.close();
+		assertEquals(keys.length, row);
+	}
+
+	@Test
+	public void testBinaryRejectsStringTable() throws Exception {
+		util.createTable(TableName.valueOf("strings"), VCFToHBaseMapper.FAMILY).close();
+		try {
+			load("strings", "stringsOutput", true);
+			fail("-b loaded into a table with string row keys");
+		} catch (UserException e) {
+			assertTrue(e.getMessage().contains("string row keys"));
+		}
+
+		HTable table = new HTable(util.getConfiguration(), "strings");
+		ResultScanner scanner = table.getScanner(new Scan());
+		assertFalse(scanner.iterator().hasNext());
+		scanner.close();
+		table.close();
+	}
+}
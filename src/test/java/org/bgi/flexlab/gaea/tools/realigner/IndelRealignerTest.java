@@ -0,0 +1,203 @@
+package org.bgi.flexlab.gaea.tools.realigner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.bgi.flexlab.gaea.data.structure.bam.GaeaSamRecord;
+import org.bgi.flexlab.gaea.data.structure.location.GenomeLocation;
+import org.bgi.flexlab.gaea.data.structure.location.GenomeLocationParser;
+import org.bgi.flexlab.gaea.data.structure.reference.ChromosomeInformationShare;
+import org.bgi.flexlab.gaea.tools.mapreduce.realigner.RealignerOptions;
+import org.bgi.flexlab.gaea.util.Window;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * realigns reads around many 3bp deletions with and without a consensus
+ * search pool, the output must be the same.
+ */
+public class IndelRealignerTest {
+	private static final String CONTIG = "chr1";
+	private static final int LENGTH = 16000;
+	private static final int[] DELETIONS = new int[19];
+	private static final int DELETION_LENGTH = 3;
+	private static final int READ_LENGTH = 60;
+	private static final char[] BASES = { 'A', 'C', 'T', 'G' };
+
+	private static File referenceFile;
+	private static ChromosomeInformationShare chrInfo;
+	private static String reference;
+	private static SAMFileHeader header;
+	private static RealignerOptions options;
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		for (int i = 0; i < DELETIONS.length; i++)
+			DELETIONS[i] = 600 + i * 800;
+
+		// reference packed two bases a byte, even positions in the low bits
+		Random random = new Random(7);
+		StringBuilder sequence = new StringBuilder();
+		byte[] packed = new byte[(LENGTH + 1) / 2];
+		for (int i = 0; i < LENGTH; i++) {
+			int code = random.nextInt(BASES.length);
+			sequence.append(BASES[code]);
+			packed[i / 2] |= (i & 0x1) == 0 ? code : code << 4;
+		}
+		reference = sequence.toString();
+
+		referenceFile = File.createTempFile("realigner", ".ref");
+		OutputStream out = new FileOutputStream(referenceFile);
+		out.write(packed);
+		out.close();
+
+		chrInfo = new ChromosomeInformationShare();
+		chrInfo.loadChromosome(referenceFile.getAbsolutePath());
+		chrInfo.setChromosomeName(CONTIG);
+		chrInfo.setLength(LENGTH);
+
+		header = new SAMFileHeader();
+		header.addSequence(new SAMSequenceRecord(CONTIG, LENGTH));
+		header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+
+		options = new RealignerOptions();
+		options.parse(new String[] { "-i", "input", "-o", "output", "-r", "reference" });
+	}
+
+	@AfterClass
+	public static void tearDown() throws Exception {
+		chrInfo.clean();
+		referenceFile.delete();
+	}
+
+	/**
+	 * half of the reads over each deletion carry it in the cigar, the other
+	 * half are aligned without gaps and mismatch after the deletion
+	 */
+	private ArrayList<GaeaSamRecord> createReads() {
+		ArrayList<GaeaSamRecord> reads = new ArrayList<GaeaSamRecord>();
+		for (int deletion : DELETIONS) {
+			for (int i = 0; i < 12; i++) {
+				int start = deletion - 45 + i * 3;
+				int left = deletion - start;
+				String bases = reference.substring(start - 1, deletion - 1)
+						+ reference.substring(deletion - 1 + DELETION_LENGTH,
+								deletion - 1 + DELETION_LENGTH + READ_LENGTH - left);
+				String cigar = (i & 0x1) == 0
+						? left + "M" + DELETION_LENGTH + "D" + (READ_LENGTH - left) + "M" : READ_LENGTH + "M";
+				reads.add(createRead("read" + deletion + "_" + i, start, cigar, bases));
+			}
+		}
+		return reads;
+	}
+
+	private GaeaSamRecord createRead(String name, int start, String cigar, String bases) {
+		SAMRecord read = new SAMRecord(header);
+		read.setReadName(name);
+		read.setReferenceIndex(0);
+		read.setAlignmentStart(start);
+		read.setCigarString(cigar);
+		read.setReadString(bases);
+		byte[] quals = new byte[bases.length()];
+		Arrays.fill(quals, (byte) 30);
+		read.setBaseQualities(quals);
+		read.setMappingQuality(60);
+		return new GaeaSamRecord(header, read, true);
+	}
+
+	private List<String> realign(ForkJoinPool pool) {
+		GenomeLocationParser parser = new GenomeLocationParser(header.getSequenceDictionary());
+		ArrayList<GenomeLocation> intervals = new ArrayList<GenomeLocation>();
+		for (int deletion : DELETIONS)
+			intervals.add(parser.createGenomeLocation(CONTIG, deletion - 1, deletion + DELETION_LENGTH));
+
+		final List<String> output = new ArrayList<String>();
+		RealignerWriter writer = new RealignerWriter() {
+			@Override
+			public void write(GaeaSamRecord read) {
+				output.add(read.getSAMString());
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+
+		IndelRealigner realigner = new IndelRealigner(header, new ArrayList<VariantContext>(),
+				new Window(CONTIG, 0, 1, LENGTH), chrInfo, options, pool);
+		realigner.setIntervals(intervals);
+		realigner.traversals(createReads(), writer);
+		return output;
+	}
+
+	@Test
+	public void testParallelSameAsSerial() {
+		List<String> serial = realign(null);
+		assertEquals(DELETIONS.length * 12, serial.size());
+
+		// every ungapped read of every bin is realigned onto the deletion
+		int gapped = 0;
+		for (String read : serial) {
+			if (read.split("\t")[5].contains("D"))
+				gapped++;
+		}
+		assertEquals(serial.size(), gapped);
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int i = 0; i < 20; i++)
+				assertTrue("parallel run " + i + " differs from serial", serial.equals(realign(pool)));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * the consensus searches of a pool and the reducer thread read the same
+	 * mapped reference
+	 */
+	@Test
+	public void testConcurrentReferenceReads() throws Exception {
+		List<Callable<Boolean>> readers = new ArrayList<Callable<Boolean>>();
+		for (int t = 0; t < 8; t++) {
+			final Random random = new Random(t);
+			readers.add(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					for (int i = 0; i < 50000; i++) {
+						int start = random.nextInt(LENGTH - 200);
+						int end = start + 1 + random.nextInt(199);
+						if (!reference.substring(start, end + 1).equals(chrInfo.getGA4GHBaseSequence(start, end)))
+							return false;
+					}
+					return true;
+				}
+			});
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(8);
+		try {
+			for (Future<Boolean> reader : pool.invokeAll(readers))
+				assertTrue(reader.get());
+		} finally {
+			pool.shutdown();
+		}
+	}
+}